@@ -13,7 +13,7 @@ import com.censoredsurvivors.util.ProjectConfig;
 
 
 public class SocialMediaCustomerGenerator {
-    private final Random random = ProjectConfig.RANDOM;
+    private final Random random;
 
     // percentage of the contract duration that the churn can happen, should be between 0 and 1
     private final double EARLIEST_POSSIBLE_CHURN = 0.2;
@@ -22,8 +22,17 @@ public class SocialMediaCustomerGenerator {
 
     private boolean allCustomersFullLifetime;
 
-    public SocialMediaCustomerGenerator(boolean allCustomersFullLifetime) {
+    /**
+     * @param allCustomersFullLifetime Whether all customers span the whole observation period.
+     * @param random Source of randomness, a fresh seeded one makes the customers reproducible.
+     */
+    public SocialMediaCustomerGenerator(boolean allCustomersFullLifetime, Random random) {
         this.allCustomersFullLifetime = allCustomersFullLifetime;
+        this.random = random;
+    }
+
+    public SocialMediaCustomerGenerator(boolean allCustomersFullLifetime) {
+        this(allCustomersFullLifetime, ProjectConfig.RANDOM);
     }
 
     public SocialMediaCustomerGenerator() {
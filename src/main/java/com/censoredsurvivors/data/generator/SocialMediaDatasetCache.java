@@ -0,0 +1,229 @@
+package com.censoredsurvivors.data.generator;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.storage.ColumnarSnapshot;
+import com.censoredsurvivors.data.storage.PostCountTensor;
+
+import tech.tablesaw.api.Table;
+
+/**
+ * Cache of generated datasets keyed by their configuration.
+ *
+ * Two tiers are looked up in order before generating:
+ * 1. an in-memory LRU tier holding at most the given number of datasets,
+ * 2. an optional on-disk tier of {@link ColumnarSnapshot} files, one per configuration, which survives between runs.
+ *
+ * The generation is seeded by the configuration, so a cached dataset is exactly the one that would be generated.
+ * The snapshots are also keyed by {@link #GENERATOR_VERSION}, so snapshots of an older generator are never read.
+ * Every configuration is generated once, outside the lock, while requests for other configurations proceed.
+ *
+ * Consumers of the weekly post counts use {@link #getPostCounts}, a separate in-memory LRU tier of tensors
+ * generated straight from the seed, which never builds the long posts table.
+ *
+ * The cached tables and tensors are shared between callers and must not be modified.
+ */
+public class SocialMediaDatasetCache {
+    public static final String POSTS_TABLE_NAME = "Platform Posts";
+    // increment on any change to the sampling of the generators or to the snapshot format
+    public static final int GENERATOR_VERSION = 2;
+
+    private final Path directory;
+    private final LinkedHashMap<SocialMediaDatasetConfig, CompletableFuture<SocialMediaDataset>> memory;
+    private final LinkedHashMap<SocialMediaDatasetConfig, CompletableFuture<PostCounts>> postCountsMemory;
+
+    /**
+     * Customers and their weekly post counts, generated without the posts table.
+     *
+     * @param customers Customers table, as in the dataset of the same configuration.
+     * @param postCounts Weekly post counts by customer, channel and epoch week, equal to the posts of the dataset.
+     */
+    public record PostCounts(Table customers, PostCountTensor postCounts) {}
+
+    /**
+     * In-memory cache only.
+     *
+     * @param maximumEntries Maximum number of datasets kept in memory.
+     */
+    public SocialMediaDatasetCache(int maximumEntries) {
+        this(maximumEntries, null);
+    }
+
+    /**
+     * @param maximumEntries Maximum number of datasets kept in memory, and of post count tensors.
+     * @param directory Directory of the snapshots, or null to keep the datasets in memory only.
+     */
+    public SocialMediaDatasetCache(int maximumEntries, Path directory) {
+        if (maximumEntries <= 0) {
+            throw new IllegalArgumentException("The maximum number of entries has to be positive.");
+        }
+
+        this.directory = directory;
+        this.memory = lru(maximumEntries);
+        this.postCountsMemory = lru(maximumEntries);
+    }
+
+    private static <T> LinkedHashMap<SocialMediaDatasetConfig, CompletableFuture<T>> lru(int maximumEntries) {
+        // access order makes the eldest entry the least recently used one
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<SocialMediaDatasetConfig, CompletableFuture<T>> eldest) {
+                return size() > maximumEntries;
+            }
+        };
+    }
+
+    /**
+     * @param config Configuration of the dataset.
+     * @return The cached dataset, generated on the first request.
+     */
+    public SocialMediaDataset get(SocialMediaDatasetConfig config) {
+        return cached(memory, config, this::load);
+    }
+
+    /**
+     * @param config Configuration of the dataset.
+     * @return The cached customers and post counts of the dataset, generated on the first request.
+     */
+    public PostCounts getPostCounts(SocialMediaDatasetConfig config) {
+        return cached(postCountsMemory, config, SocialMediaDatasetCache::generatePostCounts);
+    }
+
+    /**
+     * @return The value of the configuration, loaded once by the first request while the others wait for it.
+     */
+    private static <T> T cached(
+        LinkedHashMap<SocialMediaDatasetConfig, CompletableFuture<T>> memory,
+        SocialMediaDatasetConfig config,
+        Function<SocialMediaDatasetConfig, T> loader
+    ) {
+        CompletableFuture<T> future;
+        boolean owner = false;
+        synchronized (memory) {
+            future = memory.get(config);
+            if (future == null) {
+                future = new CompletableFuture<>();
+                memory.put(config, future);
+                owner = true;
+            }
+        }
+
+        if (owner) {
+            try {
+                future.complete(loader.apply(config));
+            } catch (RuntimeException e) {
+                synchronized (memory) {
+                    memory.remove(config, future);
+                }
+                future.completeExceptionally(e);
+            }
+        }
+
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
+
+    /**
+     * @return The dataset read from its snapshot, or generated and written to the snapshot.
+     */
+    private SocialMediaDataset load(SocialMediaDatasetConfig config) {
+        try {
+            Path snapshot = directory == null ? null : directory.resolve(snapshotName(config));
+            SocialMediaDataset dataset = snapshot != null && Files.exists(snapshot) ? readSnapshot(snapshot, config) : null;
+            if (dataset == null) {
+                dataset = generate(config);
+                if (snapshot != null) {
+                    ColumnarSnapshot.write(snapshot, snapshotMetadata(config), dataset);
+                }
+            }
+            return dataset;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to access the dataset snapshot of " + config, e);
+        }
+    }
+
+    /**
+     * Generates the dataset without caching: customers first, then their posts, from one seeded random source.
+     * The churn factors drawn for the posts are kept in the customers table, so extensions continue them.
+     */
+    public static SocialMediaDataset generate(SocialMediaDatasetConfig config) {
+        Random random = new Random(config.seed());
+        Table customers = generateCustomers(config, random);
+        SocialMediaPostsGenerator postsGenerator = new SocialMediaPostsGenerator(customers, random);
+        Table posts = postsGenerator.generatePosts(POSTS_TABLE_NAME, config.postRules(), config.channels());
+        customers.addColumns(postsGenerator.churnFactors());
+
+        return new SocialMediaDataset(customers, posts);
+    }
+
+    /**
+     * Generates the customers and the post counts of the dataset without caching, with the same random draws
+     * as {@link #generate}, but the posts are written straight into a tensor.
+     */
+    public static PostCounts generatePostCounts(SocialMediaDatasetConfig config) {
+        Random random = new Random(config.seed());
+        Table customers = generateCustomers(config, random);
+        SocialMediaPostsGenerator postsGenerator = new SocialMediaPostsGenerator(customers, random);
+        PostCountTensor postCounts = postsGenerator.generatePostCounts(config.postRules(), config.channels());
+        customers.addColumns(postsGenerator.churnFactors());
+
+        return new PostCounts(customers, postCounts);
+    }
+
+    private static Table generateCustomers(SocialMediaDatasetConfig config, Random random) {
+        return new SocialMediaCustomerGenerator(config.allCustomersFullLifetime(), random)
+            .generateCustomers(
+                config.numberOfCustomers(),
+                config.percentOfLeftCensoredCustomers(),
+                config.percentOfRightCensoredCustomers(),
+                config.observationPeriodInYears(),
+                config.churnProbability()
+            );
+    }
+
+    /**
+     * @return Metadata of the snapshot identifying the generator version and the configuration.
+     */
+    static String snapshotMetadata(SocialMediaDatasetConfig config) {
+        return "v" + GENERATOR_VERSION + " " + config;
+    }
+
+    /**
+     * @return File name derived from the generator version and the configuration, stable between runs.
+     */
+    static String snapshotName(SocialMediaDatasetConfig config) {
+        try {
+            byte[] hash = MessageDigest.getInstance("SHA-256").digest(snapshotMetadata(config).getBytes(StandardCharsets.UTF_8));
+            return "dataset-" + HexFormat.of().formatHex(hash, 0, 16) + ".columnar";
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available.", e);
+        }
+    }
+
+    /**
+     * @return The dataset, or null if the snapshot belongs to another configuration or generator version.
+     */
+    private static SocialMediaDataset readSnapshot(Path snapshot, SocialMediaDatasetConfig config) throws IOException {
+        try (ColumnarSnapshot columnar = ColumnarSnapshot.open(snapshot)) {
+            return columnar.metadata().equals(snapshotMetadata(config)) ? columnar.toDataset() : null;
+        }
+    }
+}
@@ -0,0 +1,191 @@
+package com.censoredsurvivors.data.generator;
+
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+import com.censoredsurvivors.util.RandomStreams;
+
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Advances a generated dataset by additional weeks without regenerating its history.
+ *
+ * The horizon of a dataset is its latest contract end date. Customers whose contract ends at the horizon are
+ * still active: their contracts are extended and only the new weeks are sampled. Customers that ended earlier
+ * are left untouched. The posts table of the history is neither read nor copied: an {@link Extension} holds
+ * the posts of the new weeks only, read after the history, e.g. by
+ * {@link com.censoredsurvivors.data.storage.PostCountTensor#fromPosts(Table, List, List)}. Apart from the
+ * customers table, the cost is proportional to the appended range.
+ *
+ * The new weeks are drawn from random streams keyed by (seed, customer, epoch week) as in {@link SocialMediaPostsView},
+ * so the position of the streams is the horizon itself: extending twice by four weeks gives the same dataset
+ * as extending once by eight weeks.
+ *
+ * An active customer that has not churned yet churns in every new week with a constant weekly hazard.
+ * Its posts drop from the churn week on, with the churn factor of {@link SocialMediaPostsView}, which is written to
+ * the {@link ProjectConfig#CHURN_FACTOR_COLUMN} column if the customers have one. Customers that churned before the
+ * horizon keep their churn date, reason and the churn factor of that column, so their posts continue at the level
+ * of the history. Without the column their factor is redrawn from the keyed stream.
+ */
+public class SocialMediaDatasetExtender {
+    // distinguishes the churn stream of a week from its posts stream
+    private static final long CHURN_STREAM = 1;
+
+    private final long seed;
+    private final double weeklyChurnHazard;
+    private final List<SocialMediaPostRule> postRules;
+    private final List<SocialMediaChannel> channels;
+
+    /**
+     * Customers and posts of an extension.
+     *
+     * @param customers Customers with the extended contracts and the new churns, a new table.
+     * @param posts Posts of the appended weeks only, in the order of a posts table.
+     */
+    public record Extension(Table customers, Table posts) {
+        /**
+         * Copies the history and the new posts into one table, for consumers that need a single posts table.
+         *
+         * @param history Posts before the extension.
+         * @return Dataset with the extended customers and all posts.
+         */
+        public SocialMediaDataset appendTo(Table history) {
+            return new SocialMediaDataset(customers, history.copy().append(posts));
+        }
+    }
+
+    /**
+     * @param seed Seed of the random streams.
+     * @param weeklyChurnHazard Probability of an active customer without churn to churn in a new week.
+     * @param postRules Rules for generating the posts.
+     * @param channels Channels to generate the posts for.
+     */
+    public SocialMediaDatasetExtender(
+        long seed,
+        double weeklyChurnHazard,
+        List<SocialMediaPostRule> postRules,
+        List<SocialMediaChannel> channels
+    ) {
+        if (weeklyChurnHazard < 0 || weeklyChurnHazard > 1) {
+            throw new IllegalArgumentException("The weekly churn hazard has to be between 0 and 1.");
+        }
+
+        this.seed = seed;
+        this.weeklyChurnHazard = weeklyChurnHazard;
+        this.postRules = List.copyOf(postRules);
+        this.channels = List.copyOf(channels);
+    }
+
+    /**
+     * Extender of a dataset generated from the configuration, with the constant weekly hazard that gives
+     * the configured churn probability over the observation period.
+     */
+    public static SocialMediaDatasetExtender of(SocialMediaDatasetConfig config) {
+        double observationWeeks = config.observationPeriodInYears() * 365 / 7.0;
+        double weeklyChurnHazard = 1 - Math.pow(1 - config.churnProbability(), 1 / observationWeeks);
+
+        return new SocialMediaDatasetExtender(config.seed(), weeklyChurnHazard, config.postRules(), config.channels());
+    }
+
+    /**
+     * @return Latest contract end date of the customers.
+     */
+    public static LocalDate horizon(Table customers) {
+        return customers.dateColumn(ProjectConfig.CONTRACT_END_DATE_COLUMN).max();
+    }
+
+    /**
+     * Samples the weeks after the horizon of the customers.
+     *
+     * The given customers are not modified, so they may be shared, e.g. those of a {@link SocialMediaDatasetCache}.
+     * Extensions compose: the customers of an extension can be extended again.
+     *
+     * @param previousCustomers Customers to extend.
+     * @param weeks Number of weeks to append.
+     * @return Extended customers and the posts of the new weeks.
+     */
+    public Extension extend(Table previousCustomers, int weeks) {
+        if (weeks <= 0) {
+            throw new IllegalArgumentException("The number of weeks has to be positive.");
+        }
+
+        Table customers = previousCustomers.copy();
+        LocalDate horizon = horizon(customers);
+        LocalDate newHorizon = horizon.plusWeeks(weeks);
+        int firstNewWeek = EpochWeeks.firstMondayWeek(horizon);
+        int lastNewWeek = EpochWeeks.lastMondayWeekBefore(newHorizon);
+
+        StringColumn ids = customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        StringColumn names = customers.stringColumn(ProjectConfig.CUSTOMER_NAME_COLUMN);
+        DateColumn endDates = customers.dateColumn(ProjectConfig.CONTRACT_END_DATE_COLUMN);
+        DateColumn churnDates = customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN);
+        StringColumn churnReasons = customers.stringColumn(ProjectConfig.CHURN_REASON_COLUMN);
+        DoubleColumn churnFactors = customers.containsColumn(ProjectConfig.CHURN_FACTOR_COLUMN)
+            ? customers.doubleColumn(ProjectConfig.CHURN_FACTOR_COLUMN)
+            : null;
+
+        StringColumn customerIds = StringColumn.create(ProjectConfig.CUSTOMER_ID_COLUMN);
+        StringColumn customerNames = StringColumn.create(ProjectConfig.CUSTOMER_NAME_COLUMN);
+        StringColumn channelNames = StringColumn.create(ProjectConfig.CHANNEL_COLUMN);
+        IntColumn years = IntColumn.create(ProjectConfig.YEAR_COLUMN);
+        IntColumn isoWeeks = IntColumn.create(ProjectConfig.WEEK_COLUMN);
+        IntColumn postCounts = IntColumn.create(ProjectConfig.POST_COUNT_COLUMN);
+
+        int[] weekPostCounts = new int[channels.size()];
+        for (int customer = 0; customer < customers.rowCount(); customer++) {
+            if (!endDates.get(customer).equals(horizon)) {
+                continue;
+            }
+            endDates.set(customer, newHorizon);
+
+            String industry = customers.stringColumn(ProjectConfig.INDUSTRY_COLUMN).get(customer);
+            String country = customers.stringColumn(ProjectConfig.COUNTRY_COLUMN).get(customer);
+            String plan = customers.stringColumn(ProjectConfig.PLAN_COLUMN).get(customer);
+            double churnFactor = churnFactors != null
+                ? churnFactors.getDouble(customer)
+                : SocialMediaPostsView.churnFactor(seed, customer, churnDates.get(customer), churnReasons.get(customer));
+            for (int epochWeek = firstNewWeek; epochWeek <= lastNewWeek; epochWeek++) {
+                LocalDate monday = EpochWeeks.monday(epochWeek);
+                if (churnDates.get(customer) == null) {
+                    SplittableRandom churnRandom = RandomStreams.stream(seed, customer, epochWeek, CHURN_STREAM);
+                    if (churnRandom.nextDouble() < weeklyChurnHazard) {
+                        churnDates.set(customer, monday);
+                        churnReasons.set(customer, ProjectConfig.CHURN_REASON_VALUES[churnRandom.nextInt(ProjectConfig.CHURN_REASON_VALUES.length)]);
+                        churnFactor = SocialMediaPostsView.churnFactor(seed, customer, monday, churnReasons.get(customer));
+                        if (churnFactors != null) {
+                            churnFactors.set(customer, churnFactor);
+                        }
+                    }
+                }
+
+                SocialMediaPostsView.sampleWeek(
+                    seed, postRules, channels, customer, industry, country, plan, churnDates.get(customer), churnReasons.get(customer),
+                    churnFactor, epochWeek, weekPostCounts
+                );
+                for (int channel = 0; channel < channels.size(); channel++) {
+                    customerIds.append(ids.get(customer));
+                    customerNames.append(names.get(customer));
+                    channelNames.append(channels.get(channel).getDisplayName());
+                    years.append(monday.getYear());
+                    isoWeeks.append(monday.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+                    postCounts.append(weekPostCounts[channel]);
+                }
+            }
+        }
+
+        Table posts = Table.create(SocialMediaDatasetCache.POSTS_TABLE_NAME, customerIds, customerNames, channelNames, years, isoWeeks, postCounts);
+        return new Extension(customers, posts);
+    }
+}
@@ -1,13 +1,17 @@
 package com.censoredsurvivors.data.generator;
 
 import tech.tablesaw.api.Table;
+import tech.tablesaw.api.DoubleColumn;
 import tech.tablesaw.api.StringColumn;
 import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.Row;
 
 import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
 import java.util.List;
+import java.util.Random;
 
 import org.apache.commons.math3.distribution.UniformRealDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
@@ -17,6 +21,8 @@ import com.censoredsurvivors.data.model.SocialMediaParam;
 import com.censoredsurvivors.data.model.CustomDistributionParams;
 import com.censoredsurvivors.data.model.SocialMediaPostRule;
 import com.censoredsurvivors.data.statistics.CustomDistribution;
+import com.censoredsurvivors.data.storage.PostCountTensor;
+import com.censoredsurvivors.util.EpochWeeks;
 import com.censoredsurvivors.util.ProjectConfig;
 import com.censoredsurvivors.data.model.SocialMediaChannel;
 import com.censoredsurvivors.data.model.SocialMediaChurnReason;
@@ -25,18 +31,29 @@ import com.censoredsurvivors.data.model.SocialMediaChurnReason;
  * Generates social media posts for a given set of customers.
  */
 public class SocialMediaPostsGenerator {
-    private static final double MINIMUM_CHURN_FACTOR = 0.5;
+    static final double MINIMUM_CHURN_FACTOR = 0.5;
+    static final double MINIMUM_RANDOM_MEAN = 1;
+    static final double MAXIMUM_RANDOM_MEAN = 500;
     private final UniformRealDistribution meanDistribution;
 
-    private record Post(String customerId, String customerName, SocialMediaChannel channel, int year, int week, int postCount) {}
-
     private final Table customers;
+    private final Random random;
+    private double[] churnFactors;
 
-    public SocialMediaPostsGenerator(Table customers) {
+    /**
+     * @param customers Customers to generate the posts for.
+     * @param random Source of randomness, a fresh seeded one makes the posts reproducible.
+     */
+    public SocialMediaPostsGenerator(Table customers, Random random) {
         this.customers = customers;
+        this.random = random;
 
-        RandomGenerator randomGenerator = RandomGeneratorFactory.createRandomGenerator(ProjectConfig.RANDOM);
-        this.meanDistribution = new UniformRealDistribution(randomGenerator, 1, 500);
+        RandomGenerator randomGenerator = RandomGeneratorFactory.createRandomGenerator(random);
+        this.meanDistribution = new UniformRealDistribution(randomGenerator, MINIMUM_RANDOM_MEAN, MAXIMUM_RANDOM_MEAN);
+    }
+
+    public SocialMediaPostsGenerator(Table customers) {
+        this(customers, ProjectConfig.RANDOM);
     }
 
     /**
@@ -67,18 +84,93 @@ public class SocialMediaPostsGenerator {
         List<SocialMediaChannel> channels
     ) {
         Table df = Table.create(tableName);
-        df.addColumns(
-            StringColumn.create(ProjectConfig.CUSTOMER_ID_COLUMN),
-            StringColumn.create(ProjectConfig.CUSTOMER_NAME_COLUMN),
-            StringColumn.create(ProjectConfig.CHANNEL_COLUMN),
-            IntColumn.create(ProjectConfig.YEAR_COLUMN),
-            IntColumn.create(ProjectConfig.WEEK_COLUMN),
-            IntColumn.create(ProjectConfig.POST_COUNT_COLUMN)
+        StringColumn customerIds = StringColumn.create(ProjectConfig.CUSTOMER_ID_COLUMN);
+        StringColumn customerNames = StringColumn.create(ProjectConfig.CUSTOMER_NAME_COLUMN);
+        StringColumn channelNames = StringColumn.create(ProjectConfig.CHANNEL_COLUMN);
+        IntColumn years = IntColumn.create(ProjectConfig.YEAR_COLUMN);
+        IntColumn weeks = IntColumn.create(ProjectConfig.WEEK_COLUMN);
+        IntColumn postCounts = IntColumn.create(ProjectConfig.POST_COUNT_COLUMN);
+        df.addColumns(customerIds, customerNames, channelNames, years, weeks, postCounts);
+
+        forEachPost(postRules, channels, (customer, customerRow, date, channel, postCount) -> {
+            customerIds.append(customerRow.getString(ProjectConfig.CUSTOMER_ID_COLUMN));
+            customerNames.append(customerRow.getString(ProjectConfig.CUSTOMER_NAME_COLUMN));
+            channelNames.append(channels.get(channel).getDisplayName());
+            years.append(date.getYear());
+            weeks.append(date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            postCounts.append(postCount);
+        });
+
+        return df;
+    }
+
+    /**
+     * Generates the same posts as {@link #generatePosts(String, List, List)}, written straight into a tensor
+     * instead of a long table.
+     *
+     * @param postRules Rules for generating the posts.
+     * @param channels Channels to generate the posts for.
+     * @return Weekly post counts by customer, channel and epoch week.
+     */
+    public PostCountTensor generatePostCounts(List<SocialMediaPostRule> postRules, List<SocialMediaChannel> channels) {
+        PostCountTensor tensor = PostCountTensor.forCustomers(this.customers, channels);
+        forEachPost(postRules, channels, (customer, customerRow, date, channel, postCount) ->
+            tensor.add(customer, channel, EpochWeeks.of(date), postCount)
         );
 
-        this.customers.stream().flatMap(customerRow -> {
-            String customerId = customerRow.getString(ProjectConfig.CUSTOMER_ID_COLUMN);
-            String customerName = customerRow.getString(ProjectConfig.CUSTOMER_NAME_COLUMN);
+        return tensor;
+    }
+
+    /**
+     * Creates a lazy view of the posts that stores nothing but the customers and regenerates a customer's
+     * weekly series from the seed on demand.
+     *
+     * Every customer week is sampled from its own random stream, so the view does not use the random source
+     * of the generator and its posts differ from {@link #generatePosts(String, List, List)}.
+     *
+     * @param seed Seed of the random streams.
+     * @param postRules Rules for generating the posts.
+     * @param channels Channels to generate the posts for.
+     * @param maximumCachedCustomers Number of recently accessed series kept in memory, 0 to cache nothing.
+     * @return Lazy view of the posts.
+     */
+    public SocialMediaPostsView generatePostsView(
+        long seed,
+        List<SocialMediaPostRule> postRules,
+        List<SocialMediaChannel> channels,
+        int maximumCachedCustomers
+    ) {
+        return new SocialMediaPostsView(this.customers, seed, postRules, channels, maximumCachedCustomers);
+    }
+
+    /**
+     * The churn factor reduces the posts of a customer after a post count drop. It is drawn from the random
+     * source of the generator, so it cannot be redrawn later, e.g. by the {@link SocialMediaDatasetExtender}.
+     *
+     * @return Churn factor of every customer drawn by the last generation, 0 for customers without churn.
+     */
+    public DoubleColumn churnFactors() {
+        if (churnFactors == null) {
+            throw new IllegalStateException("The posts have not been generated yet.");
+        }
+
+        return DoubleColumn.create(ProjectConfig.CHURN_FACTOR_COLUMN, churnFactors);
+    }
+
+    @FunctionalInterface
+    private interface PostConsumer {
+        void accept(int customer, Row customerRow, LocalDate date, int channel, int postCount);
+    }
+
+    /**
+     * Samples the posts of every customer, contract week and channel in this order.
+     *
+     * The order of the random draws is fixed, so all output modes produce the same posts for the same random source.
+     */
+    private void forEachPost(List<SocialMediaPostRule> postRules, List<SocialMediaChannel> channels, PostConsumer consumer) {
+        churnFactors = new double[this.customers.rowCount()];
+        int customer = 0;
+        for (Row customerRow : this.customers) {
             String industry = customerRow.getString(ProjectConfig.INDUSTRY_COLUMN);
             String country = customerRow.getString(ProjectConfig.COUNTRY_COLUMN);
             String plan = customerRow.getString(ProjectConfig.PLAN_COLUMN);
@@ -86,68 +178,106 @@ public class SocialMediaPostsGenerator {
             LocalDate endDate = customerRow.getDate(ProjectConfig.CONTRACT_END_DATE_COLUMN);
             LocalDate churnDate = customerRow.getDate(ProjectConfig.CHURN_DATE_COLUMN);
             String churnReason = customerRow.getString(ProjectConfig.CHURN_REASON_COLUMN);
-            
+
             double churnFactor = churnReason == null || churnDate == null
                 ? 0.0
-                : Math.max(MINIMUM_CHURN_FACTOR, ProjectConfig.RANDOM.nextDouble());
-
-            return startDate.datesUntil(endDate)
-                .filter(date -> date.getDayOfWeek() == DayOfWeek.MONDAY) // samples are weeks
-                .flatMap(date -> channels.stream().map(channel -> {
-                    CustomDistribution firstMatchingDistribution = postRules.stream()
-                        .filter(rule -> {
-                            boolean matchesChannel = rule.param() == SocialMediaParam.CHANNEL && rule.paramValue().equals(channel.getDisplayName());
-                            boolean matchesIndustry = rule.param() == SocialMediaParam.INDUSTRY && rule.paramValue().equals(industry);
-                            boolean matchesCountry = rule.param() == SocialMediaParam.COUNTRY && rule.paramValue().equals(country);
-                            boolean matchesPlan = rule.param() == SocialMediaParam.PLAN && rule.paramValue().equals(plan);
-                                                        
-                            return matchesChannel || matchesIndustry || matchesCountry || matchesPlan;
-                        })
-                        .map(rule -> {
-                            if (
-                                churnReason != SocialMediaChurnReason.POST_COUNT_DROP.getDisplayName() ||
-                                churnDate == null || 
-                                date.isBefore(churnDate)
-                            ) {
-                                return new CustomDistribution(rule.postCountDistributionParams());
-                            }
-
-                            return new CustomDistribution(
-                                new CustomDistributionParams(
-                                    rule.postCountDistributionParams().mean() * (1 - churnFactor),
-                                    rule.postCountDistributionParams().stdDev() * (1 - churnFactor),
-                                    rule.postCountDistributionParams().frequency()
-                                )
-                            );
-                        })
-                        .findFirst()
-                        .orElseGet(() -> {
-                            double randomMean = Math.max(1, meanDistribution.sample());
-                            double randomStdDev = Math.max(1, randomMean * ProjectConfig.RANDOM.nextDouble());
-                            double randomFrequency = Math.max(0.5, ProjectConfig.RANDOM.nextDouble()); // minimum frequency is 0.5
-    
-                            return new CustomDistribution(
-                                new CustomDistributionParams(randomMean, randomStdDev, randomFrequency));
-                        });
-
-                    return new Post(
-                        customerId, 
-                        customerName, 
-                        channel, 
-                        date.getYear(), 
-                        date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR), 
-                        firstMatchingDistribution.sample()
-                    );
-                }));
-        }).forEach(post -> {
-            df.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN).append(post.customerId());
-            df.stringColumn(ProjectConfig.CUSTOMER_NAME_COLUMN).append(post.customerName());
-            df.stringColumn(ProjectConfig.CHANNEL_COLUMN).append(post.channel().getDisplayName());
-            df.intColumn(ProjectConfig.YEAR_COLUMN).append(post.year());
-            df.intColumn(ProjectConfig.WEEK_COLUMN).append(post.week());
-            df.intColumn(ProjectConfig.POST_COUNT_COLUMN).append(post.postCount());
-        });
+                : Math.max(MINIMUM_CHURN_FACTOR, random.nextDouble());
+            churnFactors[customer] = churnFactor;
 
-        return df;
+            // samples are weeks
+            LocalDate date = startDate.with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY));
+            for (; date.isBefore(endDate); date = date.plusWeeks(1)) {
+                for (int channel = 0; channel < channels.size(); channel++) {
+                    CustomDistribution distribution = postCountDistribution(
+                        postRules, channels.get(channel), industry, country, plan, date, churnDate, churnReason, churnFactor);
+                    consumer.accept(customer, customerRow, date, channel, distribution.sample());
+                }
+            }
+            customer++;
+        }
+    }
+
+    /**
+     * @return Distribution of the first matching rule, reduced by the churn factor after a post count drop,
+     * or a random one if no rule matches.
+     */
+    private CustomDistribution postCountDistribution(
+        List<SocialMediaPostRule> postRules,
+        SocialMediaChannel channel,
+        String industry,
+        String country,
+        String plan,
+        LocalDate date,
+        LocalDate churnDate,
+        String churnReason,
+        double churnFactor
+    ) {
+        SocialMediaPostRule rule = firstMatchingRule(postRules, channel, industry, country, plan);
+        if (rule != null) {
+            CustomDistributionParams params = isAfterPostCountDrop(date, churnDate, churnReason)
+                ? reduceByChurnFactor(rule.postCountDistributionParams(), churnFactor)
+                : rule.postCountDistributionParams();
+
+            return new CustomDistribution(params, random);
+        }
+
+        return new CustomDistribution(randomParams(meanDistribution.sample(), random.nextDouble(), random.nextDouble()), random);
+    }
+
+    /**
+     * @param mean Mean sampled uniformly from [1, 500].
+     * @param relativeStdDev StdDev relative to the mean sampled uniformly from [0, 1].
+     * @param frequency Frequency sampled uniformly from [0, 1].
+     * @return Parameters used when no rule matches.
+     */
+    static CustomDistributionParams randomParams(double mean, double relativeStdDev, double frequency) {
+        double randomMean = Math.max(1, mean);
+        double randomStdDev = Math.max(1, randomMean * relativeStdDev);
+        double randomFrequency = Math.max(0.5, frequency); // minimum frequency is 0.5
+
+        return new CustomDistributionParams(randomMean, randomStdDev, randomFrequency);
+    }
+
+    /**
+     * @return The first rule matching the channel or the customer, or null if no rule matches.
+     */
+    static SocialMediaPostRule firstMatchingRule(
+        List<SocialMediaPostRule> postRules,
+        SocialMediaChannel channel,
+        String industry,
+        String country,
+        String plan
+    ) {
+        for (SocialMediaPostRule rule : postRules) {
+            boolean matchesChannel = rule.param() == SocialMediaParam.CHANNEL && rule.paramValue().equals(channel.getDisplayName());
+            boolean matchesIndustry = rule.param() == SocialMediaParam.INDUSTRY && rule.paramValue().equals(industry);
+            boolean matchesCountry = rule.param() == SocialMediaParam.COUNTRY && rule.paramValue().equals(country);
+            boolean matchesPlan = rule.param() == SocialMediaParam.PLAN && rule.paramValue().equals(plan);
+            if (matchesChannel || matchesIndustry || matchesCountry || matchesPlan) {
+                return rule;
+            }
+        }
+
+        return null;
+    }
+
+    /**
+     * @return Whether the customer churned by dropping its post count before or on the date.
+     */
+    static boolean isAfterPostCountDrop(LocalDate date, LocalDate churnDate, String churnReason) {
+        return SocialMediaChurnReason.POST_COUNT_DROP.getDisplayName().equals(churnReason)
+            && churnDate != null
+            && !date.isBefore(churnDate);
+    }
+
+    /**
+     * @return Parameters with the mean and stdDev reduced by the churn factor.
+     */
+    static CustomDistributionParams reduceByChurnFactor(CustomDistributionParams params, double churnFactor) {
+        return new CustomDistributionParams(
+            params.mean() * (1 - churnFactor),
+            params.stdDev() * (1 - churnFactor),
+            params.frequency()
+        );
     }
 }
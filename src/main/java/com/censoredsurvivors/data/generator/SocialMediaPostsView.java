@@ -0,0 +1,290 @@
+package com.censoredsurvivors.data.generator;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.data.statistics.CustomDistribution;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+import com.censoredsurvivors.util.RandomStreams;
+
+import tech.tablesaw.api.Table;
+
+/**
+ * Lazy view of the posts of many customers, regenerated from the seed instead of stored.
+ *
+ * The churn factor of a customer is drawn from the stream (seed, customer) and the posts of a week from
+ * the stream (seed, customer, epoch week), see {@link RandomStreams}. Any customer's series, and any week of it,
+ * is therefore the same no matter in which order or how often it is generated.
+ *
+ * Only the per-customer attributes are kept, and a bounded LRU cache holds the recently accessed series,
+ * so a detection can sweep any number of customers and weeks in bounded memory.
+ *
+ * The series of a customer has the layout of a {@link com.censoredsurvivors.data.storage.PostCountTensor} block:
+ * the weeks of the contract window of the first channel, then of the second channel and so on.
+ */
+public class SocialMediaPostsView {
+    private final long seed;
+    private final List<SocialMediaPostRule> postRules;
+    private final List<SocialMediaChannel> channels;
+
+    private final String[] customerIds;
+    private final Map<String, Integer> customerIndexes;
+    private final String[] industries;
+    private final String[] countries;
+    private final String[] plans;
+    private final LocalDate[] churnDates;
+    private final String[] churnReasons;
+    private final int[] firstWeeks;
+    private final int[] weekCounts;
+
+    private final int maximumCachedCustomers;
+    private final LinkedHashMap<Integer, int[]> cache;
+
+    SocialMediaPostsView(
+        Table customers,
+        long seed,
+        List<SocialMediaPostRule> postRules,
+        List<SocialMediaChannel> channels,
+        int maximumCachedCustomers
+    ) {
+        if (maximumCachedCustomers < 0) {
+            throw new IllegalArgumentException("The maximum number of cached customers cannot be negative.");
+        }
+
+        this.seed = seed;
+        this.postRules = List.copyOf(postRules);
+        this.channels = List.copyOf(channels);
+        this.maximumCachedCustomers = maximumCachedCustomers;
+        // access order makes the eldest entry the least recently used one
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, int[]> eldest) {
+                return size() > maximumCachedCustomers;
+            }
+        };
+
+        int size = customers.rowCount();
+        this.customerIds = new String[size];
+        this.industries = new String[size];
+        this.countries = new String[size];
+        this.plans = new String[size];
+        this.churnDates = new LocalDate[size];
+        this.churnReasons = new String[size];
+        this.firstWeeks = new int[size];
+        this.weekCounts = new int[size];
+        this.customerIndexes = new HashMap<>(size * 2);
+        for (int customer = 0; customer < size; customer++) {
+            customerIds[customer] = customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN).get(customer);
+            industries[customer] = customers.stringColumn(ProjectConfig.INDUSTRY_COLUMN).get(customer);
+            countries[customer] = customers.stringColumn(ProjectConfig.COUNTRY_COLUMN).get(customer);
+            plans[customer] = customers.stringColumn(ProjectConfig.PLAN_COLUMN).get(customer);
+            churnDates[customer] = customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN).get(customer);
+            churnReasons[customer] = customers.stringColumn(ProjectConfig.CHURN_REASON_COLUMN).get(customer);
+
+            LocalDate startDate = customers.dateColumn(ProjectConfig.CONTRACT_START_DATE_COLUMN).get(customer);
+            LocalDate endDate = customers.dateColumn(ProjectConfig.CONTRACT_END_DATE_COLUMN).get(customer);
+            firstWeeks[customer] = EpochWeeks.firstMondayWeek(startDate);
+            weekCounts[customer] = Math.max(0, EpochWeeks.lastMondayWeekBefore(endDate) - firstWeeks[customer] + 1);
+            customerIndexes.put(customerIds[customer], customer);
+        }
+    }
+
+    public int size() {
+        return customerIds.length;
+    }
+
+    public String customerId(int customer) {
+        return customerIds[customer];
+    }
+
+    /**
+     * @return Index of the customer, or -1 if it is not in the view.
+     */
+    public int indexOf(String customerId) {
+        return customerIndexes.getOrDefault(customerId, -1);
+    }
+
+    public List<SocialMediaChannel> channels() {
+        return channels;
+    }
+
+    /**
+     * @return Epoch week of the customer's first contract Monday.
+     */
+    public int firstWeek(int customer) {
+        return firstWeeks[customer];
+    }
+
+    /**
+     * @return Number of weeks of the customer's contract window.
+     */
+    public int weekCount(int customer) {
+        return weekCounts[customer];
+    }
+
+    /**
+     * @param customer Index of the customer.
+     * @return Post counts of all channels and contract weeks of the customer, shared with the cache and
+     * not to be modified.
+     */
+    public int[] postCounts(int customer) {
+        if (maximumCachedCustomers == 0) {
+            return generate(customer);
+        }
+
+        synchronized (cache) {
+            int[] cached = cache.get(customer);
+            if (cached != null) {
+                return cached;
+            }
+        }
+
+        // generated outside of the lock, a concurrent duplicate produces the same series
+        int[] postCounts = generate(customer);
+        synchronized (cache) {
+            cache.put(customer, postCounts);
+        }
+        return postCounts;
+    }
+
+    /**
+     * @param customer Index of the customer.
+     * @param channel Index of the channel in {@link #channels()}.
+     * @param epochWeek Epoch week of the posts.
+     * @return Post count, 0 outside of the contract window, sampled without generating the rest of the series.
+     */
+    public int get(int customer, int channel, int epochWeek) {
+        int week = epochWeek - firstWeeks[customer];
+        if (week < 0 || week >= weekCounts[customer]) {
+            return 0;
+        }
+
+        synchronized (cache) {
+            int[] cached = cache.get(customer);
+            if (cached != null) {
+                return cached[channel * weekCounts[customer] + week];
+            }
+        }
+
+        int[] weekPostCounts = new int[channels.size()];
+        sampleWeek(customer, churnFactor(customer), epochWeek, weekPostCounts);
+        return weekPostCounts[channel];
+    }
+
+    /**
+     * @return The customer's weekly post counts summed over the channels.
+     */
+    public double[] total(int customer) {
+        double[] target = new double[weekCounts[customer]];
+        total(customer, target, 0);
+        return target;
+    }
+
+    /**
+     * Writes the customer's weekly post counts summed over the channels into the target.
+     *
+     * @param customer Index of the customer.
+     * @param target Array to write the series to.
+     * @param offset Index in the target to write the first week to.
+     * @return Number of weeks written.
+     */
+    public int total(int customer, double[] target, int offset) {
+        int length = weekCounts[customer];
+        if (offset + length > target.length) {
+            throw new IllegalArgumentException("The target is too short for the series of " + customerIds[customer] + ".");
+        }
+
+        int[] postCounts = postCounts(customer);
+        Arrays.fill(target, offset, offset + length, 0);
+        for (int channel = 0; channel < channels.size(); channel++) {
+            for (int week = 0; week < length; week++) {
+                target[offset + week] += postCounts[channel * length + week];
+            }
+        }
+
+        return length;
+    }
+
+    private int[] generate(int customer) {
+        int length = weekCounts[customer];
+        int[] postCounts = new int[length * channels.size()];
+        int[] weekPostCounts = new int[channels.size()];
+        double churnFactor = churnFactor(customer);
+        for (int week = 0; week < length; week++) {
+            sampleWeek(customer, churnFactor, firstWeeks[customer] + week, weekPostCounts);
+            for (int channel = 0; channel < channels.size(); channel++) {
+                postCounts[channel * length + week] = weekPostCounts[channel];
+            }
+        }
+
+        return postCounts;
+    }
+
+    private double churnFactor(int customer) {
+        return churnFactor(seed, customer, churnDates[customer], churnReasons[customer]);
+    }
+
+    /**
+     * @return Churn factor of the customer drawn from the stream (seed, customer), 0 without churn.
+     */
+    static double churnFactor(long seed, int customer, LocalDate churnDate, String churnReason) {
+        if (churnReason == null || churnDate == null) {
+            return 0.0;
+        }
+
+        return Math.max(SocialMediaPostsGenerator.MINIMUM_CHURN_FACTOR, RandomStreams.stream(seed, customer).nextDouble());
+    }
+
+    private void sampleWeek(int customer, double churnFactor, int epochWeek, int[] weekPostCounts) {
+        sampleWeek(
+            seed, postRules, channels, customer, industries[customer], countries[customer], plans[customer],
+            churnDates[customer], churnReasons[customer], churnFactor, epochWeek, weekPostCounts
+        );
+    }
+
+    /**
+     * Samples the posts of all channels in one week from the stream (seed, customer, epoch week),
+     * with the same rules as the posts generator.
+     */
+    static void sampleWeek(
+        long seed,
+        List<SocialMediaPostRule> postRules,
+        List<SocialMediaChannel> channels,
+        int customer,
+        String industry,
+        String country,
+        String plan,
+        LocalDate churnDate,
+        String churnReason,
+        double churnFactor,
+        int epochWeek,
+        int[] weekPostCounts
+    ) {
+        SplittableRandom random = RandomStreams.stream(seed, customer, epochWeek);
+        LocalDate date = EpochWeeks.monday(epochWeek);
+        for (int channel = 0; channel < channels.size(); channel++) {
+            SocialMediaPostRule rule = SocialMediaPostsGenerator.firstMatchingRule(postRules, channels.get(channel), industry, country, plan);
+
+            CustomDistributionParams params;
+            if (rule == null) {
+                double mean = random.nextDouble(SocialMediaPostsGenerator.MINIMUM_RANDOM_MEAN, SocialMediaPostsGenerator.MAXIMUM_RANDOM_MEAN);
+                params = SocialMediaPostsGenerator.randomParams(mean, random.nextDouble(), random.nextDouble());
+            } else if (SocialMediaPostsGenerator.isAfterPostCountDrop(date, churnDate, churnReason)) {
+                params = SocialMediaPostsGenerator.reduceByChurnFactor(rule.postCountDistributionParams(), churnFactor);
+            } else {
+                params = rule.postCountDistributionParams();
+            }
+
+            weekPostCounts[channel] = CustomDistribution.sample(params, random);
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.censoredsurvivors.data.model;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public enum SocialMediaCountry {
     UNITED_STATES("United States"),
@@ -13,6 +15,16 @@ public enum SocialMediaCountry {
 
     private String displayName;
 
+    private static final Map<String, SocialMediaCountry> DISPLAY_NAME_MAP;
+
+    static {
+        DISPLAY_NAME_MAP = Arrays.stream(values())
+            .collect(Collectors.toMap(
+                SocialMediaCountry::getDisplayName,
+                country -> country
+            ));
+    }
+
     SocialMediaCountry(String displayName) {
         this.displayName = displayName;
     }
@@ -26,4 +38,13 @@ public enum SocialMediaCountry {
             .map(SocialMediaCountry::getDisplayName)
             .toArray(String[]::new);
     }
+
+    public static SocialMediaCountry getByDisplayName(String displayName) {
+        SocialMediaCountry country = DISPLAY_NAME_MAP.get(displayName);
+        if (country == null) {
+            throw new IllegalArgumentException("Invalid display name: " + displayName);
+        }
+
+        return country;
+    }
 }
@@ -0,0 +1,8 @@
+package com.censoredsurvivors.data.model;
+
+import tech.tablesaw.api.Table;
+
+/**
+ * Generated customers together with their posts.
+ */
+public record SocialMediaDataset(Table customers, Table posts) {}
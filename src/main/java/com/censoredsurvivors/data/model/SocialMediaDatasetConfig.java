@@ -0,0 +1,33 @@
+package com.censoredsurvivors.data.model;
+
+import java.util.List;
+
+/**
+ * Everything that determines a generated dataset. Two equal configurations generate equal datasets.
+ *
+ * @param seed Seed of the random numbers used for the customers and their posts.
+ * @param numberOfCustomers The number of customers to generate.
+ * @param percentOfLeftCensoredCustomers The percentage of customers that started before the observation period.
+ * @param percentOfRightCensoredCustomers The percentage of customers that will end after the observation period.
+ * @param observationPeriodInYears The number of years to observe the customers.
+ * @param churnProbability Probability of a customer to churn.
+ * @param allCustomersFullLifetime Whether all customers span the whole observation period.
+ * @param postRules Rules for generating the posts.
+ * @param channels Channels to generate the posts for.
+ */
+public record SocialMediaDatasetConfig(
+    long seed,
+    int numberOfCustomers,
+    double percentOfLeftCensoredCustomers,
+    double percentOfRightCensoredCustomers,
+    int observationPeriodInYears,
+    double churnProbability,
+    boolean allCustomersFullLifetime,
+    List<SocialMediaPostRule> postRules,
+    List<SocialMediaChannel> channels
+) {
+    public SocialMediaDatasetConfig {
+        postRules = List.copyOf(postRules);
+        channels = List.copyOf(channels);
+    }
+}
@@ -1,6 +1,8 @@
 package com.censoredsurvivors.data.model;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public enum SocialMediaIndustry {
     TECHNOLOGY("Technology"),
@@ -17,6 +19,16 @@ public enum SocialMediaIndustry {
 
     private String displayName;
 
+    private static final Map<String, SocialMediaIndustry> DISPLAY_NAME_MAP;
+
+    static {
+        DISPLAY_NAME_MAP = Arrays.stream(values())
+            .collect(Collectors.toMap(
+                SocialMediaIndustry::getDisplayName,
+                industry -> industry
+            ));
+    }
+
     SocialMediaIndustry(String displayName) {
         this.displayName = displayName;
     }
@@ -30,4 +42,13 @@ public enum SocialMediaIndustry {
             .map(SocialMediaIndustry::getDisplayName)
             .toArray(String[]::new);
     }
+
+    public static SocialMediaIndustry getByDisplayName(String displayName) {
+        SocialMediaIndustry industry = DISPLAY_NAME_MAP.get(displayName);
+        if (industry == null) {
+            throw new IllegalArgumentException("Invalid display name: " + displayName);
+        }
+
+        return industry;
+    }
 }
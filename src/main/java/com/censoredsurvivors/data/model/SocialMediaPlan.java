@@ -1,6 +1,8 @@
 package com.censoredsurvivors.data.model;
 
 import java.util.Arrays;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 public enum SocialMediaPlan {
     BASIC("Basic"),
@@ -9,6 +11,16 @@ public enum SocialMediaPlan {
 
     private String displayName;
 
+    private static final Map<String, SocialMediaPlan> DISPLAY_NAME_MAP;
+
+    static {
+        DISPLAY_NAME_MAP = Arrays.stream(values())
+            .collect(Collectors.toMap(
+                SocialMediaPlan::getDisplayName,
+                plan -> plan
+            ));
+    }
+
     SocialMediaPlan(String displayName) {
         this.displayName = displayName;
     }
@@ -22,4 +34,13 @@ public enum SocialMediaPlan {
             .map(SocialMediaPlan::getDisplayName)
             .toArray(String[]::new);
     }
+
+    public static SocialMediaPlan getByDisplayName(String displayName) {
+        SocialMediaPlan plan = DISPLAY_NAME_MAP.get(displayName);
+        if (plan == null) {
+            throw new IllegalArgumentException("Invalid display name: " + displayName);
+        }
+
+        return plan;
+    }
 }
@@ -0,0 +1,147 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.Arrays;
+
+/**
+ * CUSUM with the reference value and the threshold estimated from the start of every series.
+ *
+ * The first points of a series are a warm-up window that feeds a baseline estimator instead of the sum.
+ * At the end of the window the reference is the baseline mean and the threshold is k * stdDev, the decision
+ * interval h = k * sigma of the standard CUSUM, and the points that follow feed the sum in the same pass.
+ * The threshold scales with the spread of every customer, so one configuration fits customers of any post
+ * volume and variability. The spread is at least the Poisson spread sqrt(reference) of a count, so a warm-up
+ * window of equal counts does not give a zero threshold.
+ */
+public class AdaptiveCusumDetector implements ChangeDetector {
+    // standard deviation of a Gaussian over its median absolute deviation
+    private static final double MAD_SCALE = 1.4826;
+
+    public enum Baseline {
+        /**
+         * Mean and sample standard deviation, updated online with Welford's algorithm.
+         */
+        WELFORD,
+        /**
+         * Median and scaled median absolute deviation of the window, robust to outliers. When more than
+         * half of the window shares a value, the deviation is 0 and the sample standard deviation is used.
+         */
+        MEDIAN_MAD
+    }
+
+    private final double smoothing;
+    private final double thresholdInStdDevs;
+    private final int warmUpLength;
+    private final Baseline baseline;
+
+    /**
+     * @param smoothing Smoothing factor of the sum, 0 means full smoothing, 1 means no smoothing.
+     * @param thresholdInStdDevs Threshold of the sum in standard deviations of the baseline.
+     * @param warmUpLength Number of points of the warm-up window.
+     * @param baseline Estimator of the baseline.
+     */
+    public AdaptiveCusumDetector(double smoothing, double thresholdInStdDevs, int warmUpLength, Baseline baseline) {
+        if (warmUpLength < 2) {
+            throw new IllegalArgumentException("The warm-up window needs at least two points.");
+        }
+
+        this.smoothing = smoothing;
+        this.thresholdInStdDevs = thresholdInStdDevs;
+        this.warmUpLength = warmUpLength;
+        this.baseline = baseline;
+    }
+
+    @Override
+    public AdaptiveState start() {
+        return new AdaptiveState();
+    }
+
+    /**
+     * State of a series, in the warm-up window until the reference and the threshold are known.
+     */
+    public class AdaptiveState implements State {
+        private final double[] window = baseline == Baseline.MEDIAN_MAD ? new double[warmUpLength] : null;
+        private int count = 0;
+        private double mean = 0.0;
+        private double squaredDeviations = 0.0;
+        private double reference = Double.NaN;
+        private double threshold = Double.NaN;
+        private double cusum = 0.0;
+
+        private AdaptiveState() {}
+
+        @Override
+        public boolean update(double value) {
+            if (count < warmUpLength) {
+                warmUp(value);
+                return false;
+            }
+
+            cusum = smoothing * (cusum + value - reference) + (1 - smoothing) * cusum;
+            return Math.abs(cusum) > threshold;
+        }
+
+        private void warmUp(double value) {
+            count++;
+            if (window != null) {
+                window[count - 1] = value;
+            } else {
+                double delta = value - mean;
+                mean += delta / count;
+                squaredDeviations += delta * (value - mean);
+            }
+            if (count < warmUpLength) {
+                return;
+            }
+
+            double stdDev;
+            if (window != null) {
+                Arrays.sort(window);
+                reference = median(window);
+                double windowStdDev = sampleStdDev(window);
+                for (int i = 0; i < window.length; i++) {
+                    window[i] = Math.abs(window[i] - reference);
+                }
+                Arrays.sort(window);
+                stdDev = MAD_SCALE * median(window);
+                stdDev = stdDev > 0 ? stdDev : windowStdDev;
+            } else {
+                reference = mean;
+                stdDev = Math.sqrt(squaredDeviations / (count - 1));
+            }
+            threshold = thresholdInStdDevs * Math.max(stdDev, Math.sqrt(Math.max(reference, 1)));
+        }
+
+        @Override
+        public double statistic() {
+            return cusum;
+        }
+
+        /**
+         * @return Reference value of the series, NaN during the warm-up.
+         */
+        public double reference() {
+            return reference;
+        }
+
+        /**
+         * @return Threshold of the series, NaN during the warm-up.
+         */
+        public double threshold() {
+            return threshold;
+        }
+    }
+
+    private static double sampleStdDev(double[] values) {
+        double mean = Arrays.stream(values).average().orElse(0);
+        double squaredDeviations = 0;
+        for (double value : values) {
+            squaredDeviations += (value - mean) * (value - mean);
+        }
+        return Math.sqrt(squaredDeviations / (values.length - 1));
+    }
+
+    private static double median(double[] sorted) {
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+}
@@ -0,0 +1,143 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.function.DoubleFunction;
+import java.util.stream.IntStream;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.util.RandomStreams;
+
+/**
+ * Monte Carlo estimation of the average run length (ARL) of a change detector, the expected number of points
+ * until its first signal, and calibration of its threshold for a target in-control ARL.
+ *
+ * Every simulated series has its own random stream of (seed, run), so the estimates do not depend on the
+ * parallelism, and all thresholds of a calibration see the same series. A series stops at its first signal
+ * or at the maximum run length, where it counts as censored.
+ */
+public class ArlCalibrator {
+    // relative width of the threshold interval at which the calibration stops
+    private static final double TOLERANCE = 1e-3;
+    private static final int MAXIMUM_BRACKETING_STEPS = 64;
+
+    private final long seed;
+    private final int runs;
+    private final int maxRunLength;
+
+    /**
+     * @param mean Average run length, censored runs count as the maximum run length.
+     * @param standardError Standard error of the average.
+     * @param runs Number of simulated series.
+     * @param censoredRuns Number of series without a signal within the maximum run length.
+     */
+    public record Arl(double mean, double standardError, long runs, long censoredRuns) {}
+
+    /**
+     * Primitive accumulator of the run lengths of a part of the series.
+     */
+    private static class Accumulator {
+        private long runs;
+        private long censoredRuns;
+        private double sum;
+        private double sumOfSquares;
+
+        private void add(int runLength, boolean censored) {
+            runs++;
+            censoredRuns += censored ? 1 : 0;
+            sum += runLength;
+            sumOfSquares += (double) runLength * runLength;
+        }
+
+        private void merge(Accumulator other) {
+            runs += other.runs;
+            censoredRuns += other.censoredRuns;
+            sum += other.sum;
+            sumOfSquares += other.sumOfSquares;
+        }
+    }
+
+    /**
+     * @param seed Seed of the random streams.
+     * @param runs Number of simulated series per estimate.
+     * @param maxRunLength Length at which a series without a signal is censored.
+     */
+    public ArlCalibrator(long seed, int runs, int maxRunLength) {
+        if (runs < 2) {
+            throw new IllegalArgumentException("At least two runs are needed.");
+        }
+        if (maxRunLength <= 0) {
+            throw new IllegalArgumentException("The maximum run length has to be positive.");
+        }
+
+        this.seed = seed;
+        this.runs = runs;
+        this.maxRunLength = maxRunLength;
+    }
+
+    /**
+     * @param detector Detector to simulate.
+     * @param params Distribution of the points, the in-control distribution for the false alarm ARL,
+     *               a changed one for the detection ARL.
+     * @return Average run length of the detector.
+     */
+    public Arl averageRunLength(ChangeDetector detector, CustomDistributionParams params) {
+        Accumulator accumulator = IntStream.range(0, runs).parallel().collect(
+            Accumulator::new,
+            (partial, run) -> {
+                var random = RandomStreams.stream(seed, run);
+                ChangeDetector.State state = detector.start();
+                int length = 1;
+                while (length <= maxRunLength && !state.update(CustomDistribution.sample(params, random))) {
+                    length++;
+                }
+                boolean censored = length > maxRunLength;
+                partial.add(censored ? maxRunLength : length, censored);
+            },
+            Accumulator::merge
+        );
+
+        double mean = accumulator.sum / accumulator.runs;
+        double variance = (accumulator.sumOfSquares - accumulator.runs * mean * mean) / (accumulator.runs - 1);
+        return new Arl(mean, Math.sqrt(Math.max(variance, 0) / accumulator.runs), accumulator.runs, accumulator.censoredRuns);
+    }
+
+    /**
+     * Finds the smallest threshold whose in-control ARL reaches the target by bracketing and bisection.
+     * The ARL has to grow with the threshold, as it does for CUSUM.
+     *
+     * @param detectorForThreshold Detector of a threshold, e.g. threshold -> new CusumDetector(0.2, 200, threshold).
+     * @param inControl In-control distribution of the points.
+     * @param targetArl Target average run length without a change.
+     * @return Calibrated threshold.
+     */
+    public double calibrateThreshold(
+        DoubleFunction<ChangeDetector> detectorForThreshold,
+        CustomDistributionParams inControl,
+        double targetArl
+    ) {
+        if (targetArl <= 1 || targetArl >= maxRunLength) {
+            throw new IllegalArgumentException("The target ARL has to be between 1 and the maximum run length.");
+        }
+
+        double low = 0.0;
+        double high = 1.0;
+        int steps = 0;
+        while (averageRunLength(detectorForThreshold.apply(high), inControl).mean() < targetArl) {
+            low = high;
+            high *= 2;
+            if (++steps > MAXIMUM_BRACKETING_STEPS) {
+                throw new IllegalArgumentException("No threshold reaches the target ARL.");
+            }
+        }
+
+        while (high - low > TOLERANCE * high) {
+            double middle = (low + high) / 2;
+            if (averageRunLength(detectorForThreshold.apply(middle), inControl).mean() < targetArl) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+
+        return high;
+    }
+}
@@ -0,0 +1,228 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.Arrays;
+
+import org.apache.commons.math3.special.Gamma;
+
+/**
+ * Bayesian online changepoint detection (Adams and MacKay) with a constant hazard and a conjugate prior.
+ *
+ * The state is the distribution of the run length, the number of points since the last change, together with
+ * the sufficient statistics of every run. Run lengths above the maximum or at the tail with less than the pruning
+ * mass are dropped, so an update costs O(maximum run length) instead of O(t). The detector signals when the runs
+ * shorter than the alarm run length hold more than the alarm probability, i.e. a recent change is likely.
+ */
+public class BocpdDetector implements ChangeDetector {
+    private static final int INITIAL_CAPACITY = 16;
+
+    /**
+     * Conjugate prior of the points within a run.
+     */
+    public interface Prior {
+        /**
+         * @param value Next point.
+         * @param runLength Number of points of the run so far.
+         * @param sum Sum of the points of the run.
+         * @param sumOfSquares Sum of the squares of the points of the run.
+         * @return Log of the posterior predictive density of the point.
+         */
+        double logPredictive(double value, int runLength, double sum, double sumOfSquares);
+    }
+
+    /**
+     * Gamma prior of the rate of Poisson counts, the predictive is negative binomial.
+     *
+     * @param shape Shape of the prior, the prior mean is shape / rate.
+     * @param rate Rate of the prior, the weight of the prior in points.
+     */
+    public record PoissonGammaPrior(double shape, double rate) implements Prior {
+        public PoissonGammaPrior {
+            if (shape <= 0 || rate <= 0) {
+                throw new IllegalArgumentException("The shape and the rate have to be positive.");
+            }
+        }
+
+        @Override
+        public double logPredictive(double value, int runLength, double sum, double sumOfSquares) {
+            double posteriorShape = shape + sum;
+            double posteriorRate = rate + runLength;
+            return Gamma.logGamma(posteriorShape + value) - Gamma.logGamma(posteriorShape) - Gamma.logGamma(value + 1)
+                + posteriorShape * Math.log(posteriorRate / (posteriorRate + 1)) - value * Math.log(posteriorRate + 1);
+        }
+    }
+
+    /**
+     * Normal-Gamma prior of the mean and precision of Gaussian points, the predictive is Student's t.
+     *
+     * @param mean Prior mean.
+     * @param precision Weight of the prior mean in points.
+     * @param shape Shape of the Gamma prior of the precision.
+     * @param rate Rate of the Gamma prior of the precision, the prior variance is about rate / shape.
+     */
+    public record NormalGammaPrior(double mean, double precision, double shape, double rate) implements Prior {
+        public NormalGammaPrior {
+            if (precision <= 0 || shape <= 0 || rate <= 0) {
+                throw new IllegalArgumentException("The precision, the shape and the rate have to be positive.");
+            }
+        }
+
+        @Override
+        public double logPredictive(double value, int runLength, double sum, double sumOfSquares) {
+            double posteriorPrecision = precision + runLength;
+            double posteriorMean = (precision * mean + sum) / posteriorPrecision;
+            double posteriorShape = shape + runLength / 2.0;
+            double posteriorRate = rate
+                + 0.5 * Math.max(0, sumOfSquares + precision * mean * mean - posteriorPrecision * posteriorMean * posteriorMean);
+
+            double degreesOfFreedom = 2 * posteriorShape;
+            double scaleSquared = posteriorRate * (posteriorPrecision + 1) / (posteriorShape * posteriorPrecision);
+            double deviation = value - posteriorMean;
+            return Gamma.logGamma((degreesOfFreedom + 1) / 2) - Gamma.logGamma(degreesOfFreedom / 2)
+                - 0.5 * Math.log(degreesOfFreedom * Math.PI * scaleSquared)
+                - (degreesOfFreedom + 1) / 2 * Math.log1p(deviation * deviation / (degreesOfFreedom * scaleSquared));
+        }
+    }
+
+    private final Prior prior;
+    private final double hazard;
+    private final int maxRunLength;
+    private final double pruneMass;
+    private final int alarmRunLength;
+    private final double alarmProbability;
+
+    /**
+     * @param prior Conjugate prior of the points within a run.
+     * @param hazard Probability of a change at every point, 1 / expected run length.
+     * @param maxRunLength Longest run length kept.
+     * @param pruneMass Probability below which the longest run lengths are dropped, 0 keeps all.
+     * @param alarmRunLength Run lengths below it count as a recent change.
+     * @param alarmProbability Probability of a recent change at which to signal.
+     */
+    public BocpdDetector(Prior prior, double hazard, int maxRunLength, double pruneMass, int alarmRunLength, double alarmProbability) {
+        if (hazard <= 0 || hazard >= 1) {
+            throw new IllegalArgumentException("The hazard has to be between 0 and 1.");
+        }
+        if (maxRunLength <= 0) {
+            throw new IllegalArgumentException("The maximum run length has to be positive.");
+        }
+        if (pruneMass < 0 || pruneMass >= 1) {
+            throw new IllegalArgumentException("The pruning mass has to be between 0 and 1.");
+        }
+        if (alarmRunLength <= 0 || alarmRunLength > maxRunLength) {
+            throw new IllegalArgumentException("The alarm run length has to be positive and at most the maximum run length.");
+        }
+
+        this.prior = prior;
+        this.hazard = hazard;
+        this.maxRunLength = maxRunLength;
+        this.pruneMass = pruneMass;
+        this.alarmRunLength = alarmRunLength;
+        this.alarmProbability = alarmProbability;
+    }
+
+    @Override
+    public RunLengths start() {
+        return new RunLengths();
+    }
+
+    /**
+     * Run length distribution of a series, in arrays indexed by the run length.
+     */
+    public class RunLengths implements State {
+        private double[] probabilities = new double[INITIAL_CAPACITY];
+        private double[] sums = new double[INITIAL_CAPACITY];
+        private double[] sumsOfSquares = new double[INITIAL_CAPACITY];
+        private double[] logPredictives = new double[INITIAL_CAPACITY];
+        // run lengths [0, size) are kept
+        private int size = 1;
+        private long count = 0;
+
+        private RunLengths() {
+            probabilities[0] = 1.0;
+        }
+
+        @Override
+        public boolean update(double value) {
+            double maxLogPredictive = Double.NEGATIVE_INFINITY;
+            for (int r = 0; r < size; r++) {
+                logPredictives[r] = prior.logPredictive(value, r, sums[r], sumsOfSquares[r]);
+                maxLogPredictive = Math.max(maxLogPredictive, logPredictives[r]);
+            }
+
+            int grownSize = Math.min(size + 1, maxRunLength + 1);
+            ensureCapacity(grownSize);
+            double changeMass = 0.0;
+            // from the longest run down, so every run moves up by one in place
+            for (int r = size - 1; r >= 0; r--) {
+                double mass = probabilities[r] * Math.exp(logPredictives[r] - maxLogPredictive);
+                changeMass += mass * hazard;
+                if (r + 1 < grownSize) {
+                    probabilities[r + 1] = mass * (1 - hazard);
+                    sums[r + 1] = sums[r] + value;
+                    sumsOfSquares[r + 1] = sumsOfSquares[r] + value * value;
+                }
+            }
+            probabilities[0] = changeMass;
+            sums[0] = 0.0;
+            sumsOfSquares[0] = 0.0;
+            size = grownSize;
+            count++;
+
+            double total = 0.0;
+            for (int r = 0; r < size; r++) {
+                total += probabilities[r];
+            }
+            if (!(total > 0)) {
+                // every run rejects the point, start over
+                Arrays.fill(probabilities, 0, size, 0.0);
+                probabilities[0] = 1.0;
+                size = 1;
+                total = 1.0;
+            }
+            for (int r = 0; r < size; r++) {
+                probabilities[r] /= total;
+            }
+            while (size > 1 && probabilities[size - 1] < pruneMass) {
+                size--;
+            }
+
+            return count >= alarmRunLength && statistic() > alarmProbability;
+        }
+
+        /**
+         * @return Probability of a run shorter than the alarm run length.
+         */
+        @Override
+        public double statistic() {
+            double recent = 0.0;
+            for (int r = 0; r < Math.min(alarmRunLength, size); r++) {
+                recent += probabilities[r];
+            }
+            return recent;
+        }
+
+        /**
+         * @return Number of run lengths kept.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return Probability of the run length.
+         */
+        public double probability(int runLength) {
+            return runLength < size ? probabilities[runLength] : 0.0;
+        }
+
+        private void ensureCapacity(int capacity) {
+            if (capacity > probabilities.length) {
+                int grown = Math.min(Math.max(capacity, probabilities.length * 2), maxRunLength + 1);
+                probabilities = Arrays.copyOf(probabilities, grown);
+                sums = Arrays.copyOf(sums, grown);
+                sumsOfSquares = Arrays.copyOf(sumsOfSquares, grown);
+                logPredictives = Arrays.copyOf(logPredictives, grown);
+            }
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * Detects a change of a series, e.g. the drop of the weekly post counts of a churning customer.
+ *
+ * A detector is a configuration. Every series is processed by its own online {@link State}, one point at a time,
+ * so the same detector runs on many series, on series that are still growing, or fused with other detectors
+ * in a single loop, see {@link FusedChangeDetector}.
+ */
+public interface ChangeDetector {
+
+    /**
+     * Online state of the detector over one series.
+     */
+    interface State {
+        /**
+         * @param value Next point of the series.
+         * @return Whether the detector signals a change at this point.
+         */
+        boolean update(double value);
+
+        /**
+         * @return Current value of the detection statistic.
+         */
+        double statistic();
+    }
+
+    /**
+     * @return Fresh state for a new series.
+     */
+    State start();
+
+    /**
+     * Batch form of the detector.
+     *
+     * @param series Points of the series.
+     * @return Index of the first point with a signal, -1 if there is none.
+     */
+    default int detect(double[] series) {
+        State state = start();
+        for (int i = 0; i < series.length; i++) {
+            if (state.update(series[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return Detector that skips zero points: they neither update the state nor signal, e.g. weeks without posts.
+     */
+    default ChangeDetector ignoringZeros() {
+        ChangeDetector detector = this;
+        return () -> {
+            State state = detector.start();
+            return new State() {
+                @Override
+                public boolean update(double value) {
+                    return value != 0 && state.update(value);
+                }
+
+                @Override
+                public double statistic() {
+                    return state.statistic();
+                }
+            };
+        };
+    }
+}
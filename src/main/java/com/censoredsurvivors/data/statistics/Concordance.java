@@ -0,0 +1,194 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Discrimination measures for censored survival data, computed in O(n log n) with Fenwick trees
+ * over rank-compressed risk scores instead of comparing all O(n^2) pairs.
+ *
+ * A higher risk score predicts an earlier event.
+ */
+public class Concordance {
+
+    /**
+     * @param concordant Number of comparable pairs ordered correctly.
+     * @param tied Number of comparable pairs with equal risk scores.
+     * @param comparable Number of comparable pairs.
+     */
+    public record Pairs(long concordant, long tied, long comparable) {
+        /**
+         * @return Share of concordant pairs, ties counting one half. NaN without comparable pairs.
+         */
+        public double index() {
+            return comparable == 0 ? Double.NaN : (concordant + 0.5 * tied) / comparable;
+        }
+    }
+
+    /**
+     * Harrell's concordance index.
+     *
+     * A pair is comparable when the customer with the shorter time had an event; a customer censored at the
+     * same time as another one's event counts as having survived longer.
+     *
+     * @param times Observed times.
+     * @param events Whether each observed time is an event (true) or a censoring (false).
+     * @param riskScores Predicted risk of each customer.
+     * @return Concordant, tied and comparable pair counts.
+     */
+    public static Pairs harrellsC(int[] times, boolean[] events, double[] riskScores) {
+        checkLengths(times, events, riskScores);
+
+        int[] ranks = ranks(riskScores);
+        int[] order = orderByTime(times);
+        FenwickTree later = new FenwickTree(riskScores.length);
+
+        long concordant = 0;
+        long tied = 0;
+        long comparable = 0;
+        // Descending time, so the tree holds everyone with a longer time.
+        for (int end = order.length; end > 0; ) {
+            int start = end - 1;
+            while (start > 0 && times[order[start - 1]] == times[order[end - 1]]) {
+                start--;
+            }
+
+            // Censored at the same time count as surviving longer than the events of this time.
+            for (int k = start; k < end; k++) {
+                if (!events[order[k]]) {
+                    later.add(ranks[order[k]], 1);
+                }
+            }
+            long total = later.total();
+            for (int k = start; k < end; k++) {
+                int customer = order[k];
+                if (events[customer]) {
+                    int rank = ranks[customer];
+                    concordant += later.prefixSum(rank - 1);
+                    tied += later.rangeSum(rank, rank);
+                    comparable += total;
+                }
+            }
+            for (int k = start; k < end; k++) {
+                if (events[order[k]]) {
+                    later.add(ranks[order[k]], 1);
+                }
+            }
+
+            end = start;
+        }
+
+        return new Pairs(concordant, tied, comparable);
+    }
+
+    /**
+     * Cumulative/dynamic time-dependent AUC: at time t the cases are the customers with an event on or before t
+     * and the controls are the customers still without an event after t.
+     *
+     * All evaluation times are answered in one sweep over the customers sorted by time: customers leave the
+     * control tree and join the case tree as the sweep passes their time, and the concordant pair counts
+     * are updated incrementally.
+     *
+     * @param times Observed times.
+     * @param events Whether each observed time is an event (true) or a censoring (false).
+     * @param riskScores Predicted risk of each customer.
+     * @param evaluationTimes Ascending times to evaluate the AUC at.
+     * @return AUC at each evaluation time, NaN when there are no cases or no controls.
+     */
+    public static double[] timeDependentAuc(int[] times, boolean[] events, double[] riskScores, int[] evaluationTimes) {
+        checkLengths(times, events, riskScores);
+        for (int i = 1; i < evaluationTimes.length; i++) {
+            if (evaluationTimes[i] < evaluationTimes[i - 1]) {
+                throw new IllegalArgumentException("Evaluation times must be ascending.");
+            }
+        }
+
+        int n = riskScores.length;
+        int[] ranks = ranks(riskScores);
+        int[] order = orderByTime(times);
+        FenwickTree controls = new FenwickTree(n);
+        FenwickTree cases = new FenwickTree(n);
+        for (int rank : ranks) {
+            controls.add(rank, 1);
+        }
+
+        long controlCount = n;
+        long caseCount = 0;
+        long concordant = 0;
+        long tied = 0;
+        double[] auc = new double[evaluationTimes.length];
+        int next = 0;
+        for (int e = 0; e < evaluationTimes.length; e++) {
+            while (next < n && times[order[next]] <= evaluationTimes[e]) {
+                int customer = order[next++];
+                int rank = ranks[customer];
+
+                // No longer a control: drop its pairs with the current cases.
+                controls.add(rank, -1);
+                controlCount--;
+                concordant -= cases.rangeSum(rank + 1, n - 1);
+                tied -= cases.rangeSum(rank, rank);
+
+                if (events[customer]) {
+                    cases.add(rank, 1);
+                    caseCount++;
+                    concordant += controls.prefixSum(rank - 1);
+                    tied += controls.rangeSum(rank, rank);
+                }
+            }
+
+            auc[e] = caseCount == 0 || controlCount == 0
+                ? Double.NaN
+                : (concordant + 0.5 * tied) / ((double) caseCount * controlCount);
+        }
+
+        return auc;
+    }
+
+    /**
+     * @return Dense ranks of the scores, equal scores sharing a rank.
+     */
+    private static int[] ranks(double[] scores) {
+        double[] sorted = scores.clone();
+        Arrays.sort(sorted);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i == 0 || Double.compare(sorted[i], sorted[unique - 1]) != 0) {
+                sorted[unique++] = sorted[i];
+            }
+        }
+
+        int[] ranks = new int[scores.length];
+        for (int i = 0; i < scores.length; i++) {
+            ranks[i] = Arrays.binarySearch(sorted, 0, unique, scores[i]);
+        }
+        return ranks;
+    }
+
+    /**
+     * @return Indices sorted by ascending time, packed with the time into longs to sort primitives only.
+     */
+    private static int[] orderByTime(int[] times) {
+        long[] keys = new long[times.length];
+        for (int i = 0; i < times.length; i++) {
+            keys[i] = ((long) times[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] order = new int[times.length];
+        for (int i = 0; i < keys.length; i++) {
+            order[i] = (int) keys[i];
+        }
+        return order;
+    }
+
+    private static void checkLengths(int[] times, boolean[] events, double[] riskScores) {
+        if (times.length != events.length || times.length != riskScores.length) {
+            throw new IllegalArgumentException("Times, events and risk scores must have the same length.");
+        }
+        for (double score : riskScores) {
+            if (Double.isNaN(score)) {
+                throw new IllegalArgumentException("Risk scores cannot be NaN.");
+            }
+        }
+    }
+}
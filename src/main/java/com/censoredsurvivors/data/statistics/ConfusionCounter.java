@@ -0,0 +1,33 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * Counts of the confusion statuses of a detection, mergeable with the counters of other threads.
+ */
+public class ConfusionCounter {
+    private final long[] counts = new long[ConfusionStatus.values().length];
+
+    public void add(ConfusionStatus confusionStatus) {
+        counts[confusionStatus.ordinal()]++;
+    }
+
+    /**
+     * Adds the counts of another counter.
+     */
+    public void merge(ConfusionCounter other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    public long count(ConfusionStatus confusionStatus) {
+        return counts[confusionStatus.ordinal()];
+    }
+
+    public long total() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+}
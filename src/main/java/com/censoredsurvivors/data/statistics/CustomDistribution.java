@@ -1,5 +1,8 @@
 package com.censoredsurvivors.data.statistics;
 
+import java.util.Random;
+import java.util.SplittableRandom;
+
 import org.apache.commons.math3.distribution.BinomialDistribution;
 import org.apache.commons.math3.distribution.NormalDistribution;
 import org.apache.commons.math3.random.RandomGenerator;
@@ -25,18 +28,23 @@ public class CustomDistribution {
      * @param mean Mean number of data points.
      * @param stdDev Standard deviation of the number of data points.
      * @param frequency Frequency of generating a data point.
+     * @param random Source of randomness.
      */ 
-    public CustomDistribution(CustomDistributionParams params) {
+    public CustomDistribution(CustomDistributionParams params, Random random) {
         this.mean = params.mean();
         this.stdDev = params.stdDev();
         this.frequency = params.frequency();
 
-        RandomGenerator randomGenerator = RandomGeneratorFactory.createRandomGenerator(ProjectConfig.RANDOM);
+        RandomGenerator randomGenerator = RandomGeneratorFactory.createRandomGenerator(random);
         // Binomial distribution with n = 1 is equivalent to a Bernoulli distribution.
         this.bernoulliDistribution = new BinomialDistribution(randomGenerator, 1, this.frequency);
         this.normalDistribution = new NormalDistribution(randomGenerator, this.mean, this.stdDev);
     }
 
+    public CustomDistribution(CustomDistributionParams params) {
+        this(params, ProjectConfig.RANDOM);
+    }
+
     public int sample() {
         if (this.bernoulliDistribution.sample() == 0) {
             return 0;
@@ -46,4 +54,22 @@ public class CustomDistribution {
             Math.max(0, this.normalDistribution.sample())
         );
     }
+
+    /**
+     * Samples a number of data points without creating the distributions, for sampling from many short-lived
+     * random streams.
+     *
+     * @param params Mean, standard deviation and frequency of the data points.
+     * @param random Source of randomness.
+     * @return Number of data points, 0 with probability 1 - frequency.
+     */
+    public static int sample(CustomDistributionParams params, SplittableRandom random) {
+        if (random.nextDouble() >= params.frequency()) {
+            return 0;
+        }
+
+        return (int) Math.round(
+            Math.max(0, params.mean() + params.stdDev() * random.nextGaussian())
+        );
+    }
 }
@@ -0,0 +1,40 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * Online form of {@link Cusum}: the smoothed cumulative sum of the deviations from the reference value
+ * signals when its absolute value exceeds the threshold.
+ */
+public class CusumDetector implements ChangeDetector {
+    private final double smoothing;
+    private final double referenceValue;
+    private final double threshold;
+
+    /**
+     * @param smoothing Smoothing factor, 0 means full smoothing, 1 means no smoothing.
+     * @param referenceValue Expected value of the series.
+     * @param threshold Absolute value of the sum at which to signal a change.
+     */
+    public CusumDetector(double smoothing, double referenceValue, double threshold) {
+        this.smoothing = smoothing;
+        this.referenceValue = referenceValue;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public State start() {
+        return new State() {
+            private double cusum = 0.0;
+
+            @Override
+            public boolean update(double value) {
+                cusum = smoothing * (cusum + value - referenceValue) + (1 - smoothing) * cusum;
+                return Math.abs(cusum) > threshold;
+            }
+
+            @Override
+            public double statistic() {
+                return cusum;
+            }
+        };
+    }
+}
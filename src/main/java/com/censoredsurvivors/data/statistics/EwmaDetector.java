@@ -0,0 +1,63 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * EWMA control chart: the exponentially weighted moving average of the points signals when it leaves
+ * the control limits around the in-control mean.
+ *
+ * The limits are mean ± width * stdDev * sqrt(smoothing / (2 - smoothing) * (1 - (1 - smoothing)^(2t))),
+ * narrow at the start of the series and widening to their asymptote.
+ */
+public class EwmaDetector implements ChangeDetector {
+    private final double mean;
+    private final double stdDev;
+    private final double smoothing;
+    private final double width;
+
+    /**
+     * @param mean In-control mean of the series.
+     * @param stdDev In-control standard deviation of the series.
+     * @param smoothing Weight of the newest point, between 0 and 1.
+     * @param width Width of the control limits in standard deviations of the average.
+     */
+    public EwmaDetector(double mean, double stdDev, double smoothing, double width) {
+        if (stdDev <= 0) {
+            throw new IllegalArgumentException("The standard deviation has to be positive.");
+        }
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("The smoothing has to be between 0 and 1.");
+        }
+        if (width <= 0) {
+            throw new IllegalArgumentException("The width has to be positive.");
+        }
+
+        this.mean = mean;
+        this.stdDev = stdDev;
+        this.smoothing = smoothing;
+        this.width = width;
+    }
+
+    @Override
+    public State start() {
+        double asymptoticVariance = smoothing / (2 - smoothing);
+        double decay = (1 - smoothing) * (1 - smoothing);
+
+        return new State() {
+            private double average = mean;
+            // (1 - smoothing)^(2t)
+            private double decayed = 1.0;
+
+            @Override
+            public boolean update(double value) {
+                average = smoothing * value + (1 - smoothing) * average;
+                decayed *= decay;
+                double limit = width * stdDev * Math.sqrt(asymptoticVariance * (1 - decayed));
+                return Math.abs(average - mean) > limit;
+            }
+
+            @Override
+            public double statistic() {
+                return average;
+            }
+        };
+    }
+}
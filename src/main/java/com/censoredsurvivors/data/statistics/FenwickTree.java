@@ -0,0 +1,52 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * Fenwick (binary indexed) tree of counts over the indices 0..size-1.
+ * Point updates and prefix sums both cost O(log size).
+ */
+public class FenwickTree {
+    private final long[] tree;
+
+    public FenwickTree(int size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("The size cannot be negative.");
+        }
+
+        this.tree = new long[size + 1];
+    }
+
+    public int size() {
+        return tree.length - 1;
+    }
+
+    /**
+     * Adds the delta to the value at the index.
+     */
+    public void add(int index, long delta) {
+        for (int i = index + 1; i < tree.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * @return Sum of the values at the indices 0..index, 0 for a negative index.
+     */
+    public long prefixSum(int index) {
+        long sum = 0;
+        for (int i = Math.min(index + 1, tree.length - 1); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * @return Sum of the values at the indices from..to, both inclusive.
+     */
+    public long rangeSum(int from, int to) {
+        return from > to ? 0 : prefixSum(to) - prefixSum(from - 1);
+    }
+
+    public long total() {
+        return prefixSum(size() - 1);
+    }
+}
@@ -0,0 +1,52 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.List;
+
+/**
+ * Runs several change detectors over a series in a single pass.
+ *
+ * Every point is read once and advances the states of all detectors that have not signalled yet,
+ * so comparing N detectors costs one pass over the series instead of N.
+ */
+public class FusedChangeDetector {
+    private final List<ChangeDetector> detectors;
+
+    public FusedChangeDetector(List<ChangeDetector> detectors) {
+        if (detectors.isEmpty()) {
+            throw new IllegalArgumentException("At least one detector is needed.");
+        }
+
+        this.detectors = List.copyOf(detectors);
+    }
+
+    public List<ChangeDetector> detectors() {
+        return detectors;
+    }
+
+    /**
+     * @param series Points of the series.
+     * @return Index of the first signal of every detector, -1 if there is none, in the order of the detectors.
+     */
+    public int[] detect(double[] series) {
+        int count = detectors.size();
+        ChangeDetector.State[] states = new ChangeDetector.State[count];
+        int[] signals = new int[count];
+        for (int d = 0; d < count; d++) {
+            states[d] = detectors.get(d).start();
+            signals[d] = -1;
+        }
+
+        int running = count;
+        for (int i = 0; i < series.length && running > 0; i++) {
+            double value = series[i];
+            for (int d = 0; d < count; d++) {
+                if (signals[d] == -1 && states[d].update(value)) {
+                    signals[d] = i;
+                    running--;
+                }
+            }
+        }
+
+        return signals;
+    }
+}
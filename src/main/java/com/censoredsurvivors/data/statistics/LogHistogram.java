@@ -0,0 +1,120 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of non-negative values in logarithmic buckets, in the style of HdrHistogram.
+ *
+ * Values below 2^significantBits have a bucket each. Above, every power of two is split into
+ * 2^(significantBits - 1) buckets, so a bucket is at most 2^-(significantBits - 1) of its values wide
+ * and the memory is logarithmic in the largest value. Histograms of the same precision merge by adding
+ * their counts, e.g. the thread-local histograms of a parallel run.
+ */
+public class LogHistogram {
+    private static final int INITIAL_BUCKETS = 64;
+
+    private final int significantBits;
+    private long[] counts;
+    private long count = 0;
+
+    /**
+     * @param significantBits Number of significant bits of a bucket, between 1 and 20.
+     */
+    public LogHistogram(int significantBits) {
+        if (significantBits < 1 || significantBits > 20) {
+            throw new IllegalArgumentException("The number of significant bits has to be between 1 and 20.");
+        }
+
+        this.significantBits = significantBits;
+        this.counts = new long[INITIAL_BUCKETS];
+    }
+
+    public void record(long value) {
+        record(value, 1);
+    }
+
+    /**
+     * @param value Value to record, not negative.
+     * @param times Number of times to record the value.
+     */
+    public void record(long value, long times) {
+        if (value < 0) {
+            throw new IllegalArgumentException("The value cannot be negative.");
+        }
+
+        int bucket = bucketOf(value);
+        if (bucket >= counts.length) {
+            counts = Arrays.copyOf(counts, Math.max(bucket + 1, counts.length * 2));
+        }
+        counts[bucket] += times;
+        count += times;
+    }
+
+    /**
+     * Adds the counts of another histogram of the same precision.
+     */
+    public void merge(LogHistogram other) {
+        if (other.significantBits != significantBits) {
+            throw new IllegalArgumentException("Only histograms of the same precision can be merged.");
+        }
+
+        if (other.counts.length > counts.length) {
+            counts = Arrays.copyOf(counts, other.counts.length);
+        }
+        for (int bucket = 0; bucket < other.counts.length; bucket++) {
+            counts[bucket] += other.counts[bucket];
+        }
+        count += other.count;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * @param probability Probability of the quantile, between 0 and 1.
+     * @return Nearest-rank quantile, exact below 2^significantBits and the middle of its bucket above,
+     *         NaN for an empty histogram.
+     */
+    public double quantile(double probability) {
+        if (probability < 0 || probability > 1) {
+            throw new IllegalArgumentException("The probability has to be between 0 and 1.");
+        }
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(probability * count));
+        long cumulative = 0;
+        int bucket = 0;
+        while (cumulative + counts[bucket] < rank) {
+            cumulative += counts[bucket];
+            bucket++;
+        }
+        return (lowestValue(bucket) + highestValue(bucket)) / 2.0;
+    }
+
+    public double median() {
+        return quantile(0.5);
+    }
+
+    private int bucketOf(long value) {
+        int shift = Math.max(0, 64 - Long.numberOfLeadingZeros(value) - significantBits);
+        return (shift << (significantBits - 1)) + (int) (value >>> shift);
+    }
+
+    private long lowestValue(int bucket) {
+        int subBuckets = 1 << (significantBits - 1);
+        if (bucket < 2 * subBuckets) {
+            return bucket;
+        }
+        int shift = bucket / subBuckets - 1;
+        return (long) (bucket - shift * subBuckets) << shift;
+    }
+
+    private long highestValue(int bucket) {
+        int subBuckets = 1 << (significantBits - 1);
+        int shift = bucket < 2 * subBuckets ? 0 : bucket / subBuckets - 1;
+        return lowestValue(bucket) + (1L << shift) - 1;
+    }
+}
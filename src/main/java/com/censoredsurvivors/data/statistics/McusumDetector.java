@@ -0,0 +1,86 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.Arrays;
+
+/**
+ * Multivariate CUSUM (Crosier) with the in-control mean and covariance of every series estimated
+ * from a warm-up window.
+ *
+ * The sum S of the deviations from the mean is shrunk by the allowance k in Mahalanobis norm at every vector,
+ * and reset when its norm does not exceed k. The detector signals when the norm of S exceeds the threshold.
+ */
+public class McusumDetector implements MultivariateChangeDetector {
+    private final int dimensions;
+    private final double allowance;
+    private final double threshold;
+    private final int warmUpLength;
+
+    /**
+     * @param dimensions Number of values of a vector.
+     * @param allowance Allowance k, about half the shift to detect in standard deviations.
+     * @param threshold Norm of the sum at which to signal a change.
+     * @param warmUpLength Number of vectors of the warm-up window, more than the dimensions.
+     */
+    public McusumDetector(int dimensions, double allowance, double threshold, int warmUpLength) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("The number of dimensions has to be positive.");
+        }
+        if (allowance < 0) {
+            throw new IllegalArgumentException("The allowance cannot be negative.");
+        }
+        if (warmUpLength <= dimensions) {
+            throw new IllegalArgumentException("The warm-up window has to be longer than the number of dimensions.");
+        }
+
+        this.dimensions = dimensions;
+        this.allowance = allowance;
+        this.threshold = threshold;
+        this.warmUpLength = warmUpLength;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public State start() {
+        WarmUpCovariance baseline = new WarmUpCovariance(dimensions, warmUpLength);
+
+        return new State() {
+            private final double[] deviation = new double[dimensions];
+            private final double[] sum = new double[dimensions];
+            private double statistic = 0.0;
+
+            @Override
+            public boolean update(double[] values) {
+                if (!baseline.isReady()) {
+                    baseline.add(values);
+                    return false;
+                }
+
+                baseline.deviation(values, deviation);
+                for (int i = 0; i < dimensions; i++) {
+                    sum[i] += deviation[i];
+                }
+                double norm = Math.sqrt(baseline.squaredNorm(sum));
+                if (norm <= allowance) {
+                    Arrays.fill(sum, 0.0);
+                    statistic = 0.0;
+                } else {
+                    double shrink = 1 - allowance / norm;
+                    for (int i = 0; i < dimensions; i++) {
+                        sum[i] *= shrink;
+                    }
+                    statistic = norm - allowance;
+                }
+                return statistic > threshold;
+            }
+
+            @Override
+            public double statistic() {
+                return statistic;
+            }
+        };
+    }
+}
@@ -0,0 +1,75 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * Multivariate EWMA control chart (Lowry et al.) with the in-control mean and covariance of every series
+ * estimated from a warm-up window.
+ *
+ * The vector z = λ (x - μ) + (1 - λ) z is tested with T² = z' Σz^-1 z, where Σz = λ / (2 - λ) Σ
+ * is the asymptotic covariance of z, and the chart signals when T² exceeds the threshold.
+ */
+public class MewmaDetector implements MultivariateChangeDetector {
+    private final int dimensions;
+    private final double smoothing;
+    private final double threshold;
+    private final int warmUpLength;
+
+    /**
+     * @param dimensions Number of values of a vector.
+     * @param smoothing Weight of the newest vector, between 0 and 1.
+     * @param threshold Value of T² at which to signal a change.
+     * @param warmUpLength Number of vectors of the warm-up window, more than the dimensions.
+     */
+    public MewmaDetector(int dimensions, double smoothing, double threshold, int warmUpLength) {
+        if (dimensions <= 0) {
+            throw new IllegalArgumentException("The number of dimensions has to be positive.");
+        }
+        if (smoothing <= 0 || smoothing > 1) {
+            throw new IllegalArgumentException("The smoothing has to be between 0 and 1.");
+        }
+        if (warmUpLength <= dimensions) {
+            throw new IllegalArgumentException("The warm-up window has to be longer than the number of dimensions.");
+        }
+
+        this.dimensions = dimensions;
+        this.smoothing = smoothing;
+        this.threshold = threshold;
+        this.warmUpLength = warmUpLength;
+    }
+
+    @Override
+    public int dimensions() {
+        return dimensions;
+    }
+
+    @Override
+    public State start() {
+        WarmUpCovariance baseline = new WarmUpCovariance(dimensions, warmUpLength);
+        double scale = (2 - smoothing) / smoothing;
+
+        return new State() {
+            private final double[] deviation = new double[dimensions];
+            private final double[] average = new double[dimensions];
+            private double statistic = 0.0;
+
+            @Override
+            public boolean update(double[] values) {
+                if (!baseline.isReady()) {
+                    baseline.add(values);
+                    return false;
+                }
+
+                baseline.deviation(values, deviation);
+                for (int i = 0; i < dimensions; i++) {
+                    average[i] = smoothing * deviation[i] + (1 - smoothing) * average[i];
+                }
+                statistic = scale * baseline.squaredNorm(average);
+                return statistic > threshold;
+            }
+
+            @Override
+            public double statistic() {
+                return statistic;
+            }
+        };
+    }
+}
@@ -0,0 +1,52 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * Detects a change of a vector series, e.g. the weekly post counts of a customer on every channel.
+ *
+ * A drop on one channel is masked when the channels are summed into one series, so the vector is tested as a whole.
+ * As with {@link ChangeDetector}, every series is processed by its own online {@link State}.
+ */
+public interface MultivariateChangeDetector {
+
+    /**
+     * Online state of the detector over one vector series.
+     */
+    interface State {
+        /**
+         * @param values Next vector of the series, only the first {@link #dimensions()} values are read.
+         * @return Whether the detector signals a change at this vector.
+         */
+        boolean update(double[] values);
+
+        /**
+         * @return Current value of the detection statistic.
+         */
+        double statistic();
+    }
+
+    /**
+     * @return Number of values of a vector.
+     */
+    int dimensions();
+
+    /**
+     * @return Fresh state for a new series.
+     */
+    State start();
+
+    /**
+     * Batch form of the detector.
+     *
+     * @param series Vectors of the series.
+     * @return Index of the first vector with a signal, -1 if there is none.
+     */
+    default int detect(double[][] series) {
+        State state = start();
+        for (int i = 0; i < series.length; i++) {
+            if (state.update(series[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,53 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * Page–Hinkley test for a drop of the mean.
+ *
+ * The cumulative deviation of the points from their running mean, plus the tolerated magnitude, is compared
+ * with its running maximum. A drop pulls the cumulative deviation down, and the test signals when it falls
+ * more than the threshold below the maximum. No reference value is needed, the mean is learned from the series.
+ */
+public class PageHinkleyDetector implements ChangeDetector {
+    private final double delta;
+    private final double threshold;
+
+    /**
+     * @param delta Magnitude of the changes to tolerate.
+     * @param threshold Distance from the maximum at which to signal a change.
+     */
+    public PageHinkleyDetector(double delta, double threshold) {
+        if (delta < 0) {
+            throw new IllegalArgumentException("The tolerated magnitude cannot be negative.");
+        }
+        if (threshold <= 0) {
+            throw new IllegalArgumentException("The threshold has to be positive.");
+        }
+
+        this.delta = delta;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public State start() {
+        return new State() {
+            private long count = 0;
+            private double mean = 0.0;
+            private double cumulative = 0.0;
+            private double maximum = 0.0;
+
+            @Override
+            public boolean update(double value) {
+                count++;
+                mean += (value - mean) / count;
+                cumulative += value - mean + delta;
+                maximum = Math.max(maximum, cumulative);
+                return statistic() > threshold;
+            }
+
+            @Override
+            public double statistic() {
+                return maximum - cumulative;
+            }
+        };
+    }
+}
@@ -0,0 +1,160 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * PELT (pruned exact linear time) segmentation of a series into segments of constant mean.
+ *
+ * The segmentation minimises the sum of the segment costs plus a penalty per changepoint. Prefix sums make
+ * the cost of a segment O(1), and start points that can no longer be optimal are pruned, so the run time is
+ * close to linear for series with changes spread over time.
+ */
+public class Pelt {
+    public enum CostFunction {
+        /**
+         * Twice the negative Poisson log-likelihood at the segment mean, for counts.
+         */
+        POISSON,
+        /**
+         * Sum of the squared deviations from the segment mean, for Gaussian points of a common variance.
+         */
+        GAUSSIAN
+    }
+
+    private final CostFunction costFunction;
+    private final double penalty;
+    private final int minimumSegmentLength;
+
+    /**
+     * @param costFunction Cost of a segment.
+     * @param penalty Cost of a changepoint, e.g. 2 log n for the Poisson cost or 2 σ² log n for the Gaussian cost.
+     * @param minimumSegmentLength Minimum number of points of a segment.
+     */
+    public Pelt(CostFunction costFunction, double penalty, int minimumSegmentLength) {
+        if (penalty < 0) {
+            throw new IllegalArgumentException("The penalty cannot be negative.");
+        }
+        if (minimumSegmentLength <= 0) {
+            throw new IllegalArgumentException("The minimum segment length has to be positive.");
+        }
+
+        this.costFunction = costFunction;
+        this.penalty = penalty;
+        this.minimumSegmentLength = minimumSegmentLength;
+    }
+
+    /**
+     * @param series Points of the series.
+     * @return Changepoints in ascending order, every changepoint is the first index of a new segment.
+     */
+    public int[] segment(double[] series) {
+        int n = series.length;
+        if (n < 2 * minimumSegmentLength) {
+            return new int[0];
+        }
+
+        double[] sums = new double[n + 1];
+        double[] sumsOfSquares = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            sums[i + 1] = sums[i] + series[i];
+            sumsOfSquares[i + 1] = sumsOfSquares[i] + series[i] * series[i];
+        }
+
+        // optimal cost of the first t points and start of their last segment
+        double[] optimalCosts = new double[n + 1];
+        int[] lastStarts = new int[n + 1];
+        optimalCosts[0] = -penalty;
+        int[] candidates = new int[n + 1];
+        double[] candidateCosts = new double[n + 1];
+        int candidateCount = 1;
+
+        for (int t = minimumSegmentLength; t <= n; t++) {
+            int newCandidate = t - minimumSegmentLength;
+            if (newCandidate >= minimumSegmentLength) {
+                candidates[candidateCount++] = newCandidate;
+            }
+
+            double best = Double.POSITIVE_INFINITY;
+            int bestStart = 0;
+            for (int c = 0; c < candidateCount; c++) {
+                int start = candidates[c];
+                double cost = optimalCosts[start] + cost(sums, sumsOfSquares, start, t);
+                candidateCosts[c] = cost;
+                if (cost < best) {
+                    best = cost;
+                    bestStart = start;
+                }
+            }
+            optimalCosts[t] = best + penalty;
+            lastStarts[t] = bestStart;
+
+            int kept = 0;
+            for (int c = 0; c < candidateCount; c++) {
+                if (candidateCosts[c] <= optimalCosts[t]) {
+                    candidates[kept++] = candidates[c];
+                }
+            }
+            candidateCount = kept;
+        }
+
+        int[] changepoints = new int[n];
+        int count = 0;
+        for (int start = lastStarts[n]; start > 0; start = lastStarts[start]) {
+            changepoints[count++] = start;
+        }
+        int[] ascending = new int[count];
+        for (int i = 0; i < count; i++) {
+            ascending[i] = changepoints[count - 1 - i];
+        }
+
+        return ascending;
+    }
+
+    /**
+     * Segments many series in parallel.
+     *
+     * @param series Points of every series.
+     * @return Changepoints of every series.
+     */
+    public int[][] segment(double[][] series) {
+        return IntStream.range(0, series.length).parallel()
+            .mapToObj(i -> segment(series[i]))
+            .toArray(int[][]::new);
+    }
+
+    /**
+     * Refines an alarm of an online detector, which lags the change, into the changepoint of the segmentation.
+     *
+     * @param series Points of the series.
+     * @param alarmIndex Index of the alarm.
+     * @return Last changepoint at or before the alarm, the alarm itself if there is none.
+     */
+    public int refine(double[] series, int alarmIndex) {
+        return refine(segment(series), alarmIndex);
+    }
+
+    /**
+     * @param changepoints Changepoints of the series in ascending order.
+     * @param alarmIndex Index of the alarm.
+     * @return Last changepoint at or before the alarm, the alarm itself if there is none.
+     */
+    public static int refine(int[] changepoints, int alarmIndex) {
+        int position = Arrays.binarySearch(changepoints, alarmIndex);
+        if (position >= 0) {
+            return alarmIndex;
+        }
+        int before = -position - 2;
+
+        return before >= 0 ? changepoints[before] : alarmIndex;
+    }
+
+    private double cost(double[] sums, double[] sumsOfSquares, int from, int to) {
+        int length = to - from;
+        double sum = sums[to] - sums[from];
+        return switch (costFunction) {
+            case POISSON -> sum > 0 ? 2 * (sum - sum * Math.log(sum / length)) : 0.0;
+            case GAUSSIAN -> sumsOfSquares[to] - sumsOfSquares[from] - sum * sum / length;
+        };
+    }
+}
@@ -4,33 +4,41 @@ public class SignalCleaner {
 
     public static final int WINDOW_SIZE = 5;
 
-    private static final Wavelets wavelets = new Wavelets();
-
+    /**
+     * Predefined cleaning combinations, each backed by a {@link SignalCleaningPipeline}.
+     * Use {@link SignalCleaningPipeline#builder()} for any other combination.
+     */
     public enum SignalCleaningType {
-        NONE,
-        INTERPOLATE_ZEROES,
-        SIMPLE_MOVING_AVERAGE,
-        SIMPLE_MOVING_AVERAGE_AND_INTERPOLATE_ZEROES,
-        WAVELET_DENOISING,
-        WAVELET_DENOISING_AND_INTERPOLATE_ZEROES,
+        NONE(SignalCleaningPipeline.builder()),
+        INTERPOLATE_ZEROES(SignalCleaningPipeline.builder()
+            .interpolateZeroes()),
+        SIMPLE_MOVING_AVERAGE(SignalCleaningPipeline.builder()
+            .simpleMovingAverage(WINDOW_SIZE)),
+        SIMPLE_MOVING_AVERAGE_AND_INTERPOLATE_ZEROES(SignalCleaningPipeline.builder()
+            .interpolateZeroes()
+            .simpleMovingAverage(WINDOW_SIZE)),
+        WAVELET_DENOISING(SignalCleaningPipeline.builder()
+            .waveletDenoising()),
+        WAVELET_DENOISING_AND_INTERPOLATE_ZEROES(SignalCleaningPipeline.builder()
+            .interpolateZeroes()
+            .waveletDenoising());
+
+        private final SignalCleaningPipeline pipeline;
+
+        SignalCleaningType(SignalCleaningPipeline.Builder pipeline) {
+            this.pipeline = pipeline.build();
+        }
+
+        public SignalCleaningPipeline getPipeline() {
+            return pipeline;
+        }
     }
 
     public static double[] clean(double[] signal, SignalCleaningType signalCleaningType) {
-        switch (signalCleaningType) {
-            case NONE:
-                return signal;
-            case INTERPOLATE_ZEROES:
-                return Interpolator.interpolateZeroes(signal);
-            case SIMPLE_MOVING_AVERAGE:
-                return MovingAverage.simpleMovingAverage(signal, WINDOW_SIZE);
-            case SIMPLE_MOVING_AVERAGE_AND_INTERPOLATE_ZEROES:
-                return MovingAverage.simpleMovingAverage(Interpolator.interpolateZeroes(signal), WINDOW_SIZE);
-            case WAVELET_DENOISING:
-                return wavelets.denoise(signal);
-            case WAVELET_DENOISING_AND_INTERPOLATE_ZEROES:
-                return wavelets.denoise(Interpolator.interpolateZeroes(signal));
-            default:
-                throw new IllegalArgumentException("Invalid signal cleaning type: " + signalCleaningType);
-        }
+        return clean(signal, signalCleaningType.getPipeline());
+    }
+
+    public static double[] clean(double[] signal, SignalCleaningPipeline pipeline) {
+        return pipeline.clean(signal);
     }
 }
@@ -0,0 +1,303 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.DoubleUnaryOperator;
+import java.util.stream.Collectors;
+
+import smile.wavelet.HaarWavelet;
+import smile.wavelet.Wavelet;
+import smile.wavelet.WaveletShrinkage;
+
+/**
+ * A chain of signal cleaning stages that runs in place on a single working buffer.
+ *
+ * Adjacent element-wise stages (scale, clamp, custom mappings) are fused into one pass over the signal.
+ * Stages that need neighbouring values (zero interpolation, moving average, wavelet denoising) work
+ * on per-thread scratch buffers, so cleaning a signal allocates nothing but the returned array.
+ *
+ * The results are identical to chaining {@link Interpolator}, {@link MovingAverage} and {@link Wavelets}.
+ */
+public class SignalCleaningPipeline {
+
+    private sealed interface Stage permits InterpolateZeroes, SimpleMovingAverage, WaveletDenoising, ElementWise {
+        void apply(double[] buffer, int length, Workspace workspace);
+    }
+
+    /**
+     * Per-thread scratch space. Smile wavelets keep an internal workspace, so they are not shared between threads either.
+     */
+    private static class Workspace {
+        private final Wavelet wavelet = new HaarWavelet();
+        private double[] window = new double[0];
+        private double[] padded = new double[0];
+
+        double[] window(int size) {
+            if (window.length < size) {
+                window = new double[size];
+            }
+            return window;
+        }
+
+        // The wavelet transform works on the whole array, so the padded buffer must have the exact length.
+        double[] padded(int size) {
+            if (padded.length != size) {
+                padded = new double[size];
+            }
+            return padded;
+        }
+    }
+
+    private static final ThreadLocal<Workspace> WORKSPACE = ThreadLocal.withInitial(Workspace::new);
+
+    private final List<Stage> stages;
+    private final String description;
+
+    private SignalCleaningPipeline(List<Stage> stages, String description) {
+        this.stages = List.copyOf(stages);
+        this.description = description;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Cleans the signal into a new array. An empty pipeline returns the signal itself.
+     *
+     * @param signal Array of signal data, left untouched.
+     * @return Cleaned signal.
+     */
+    public double[] clean(double[] signal) {
+        if (stages.isEmpty()) {
+            return signal;
+        }
+
+        double[] buffer = signal.clone();
+        cleanInPlace(buffer, buffer.length);
+        return buffer;
+    }
+
+    /**
+     * Cleans the first {@code length} values of the signal into the target array.
+     * The target may be the signal itself.
+     *
+     * @param signal Array of signal data.
+     * @param length Number of values to clean.
+     * @param target Array receiving the cleaned values, at least {@code length} long.
+     */
+    public void clean(double[] signal, int length, double[] target) {
+        if (signal != target) {
+            System.arraycopy(signal, 0, target, 0, length);
+        }
+        cleanInPlace(target, length);
+    }
+
+    /**
+     * Cleans the first {@code length} values of the buffer in place.
+     */
+    public void cleanInPlace(double[] buffer, int length) {
+        if (stages.isEmpty()) {
+            return;
+        }
+
+        Workspace workspace = WORKSPACE.get();
+        for (Stage stage : stages) {
+            stage.apply(buffer, length, workspace);
+        }
+    }
+
+    /**
+     * @return Number of passes over the signal after fusing element-wise stages.
+     */
+    public int passCount() {
+        return stages.size();
+    }
+
+    @Override
+    public String toString() {
+        return description;
+    }
+
+    public static class Builder {
+        private final List<Stage> stages = new ArrayList<>();
+        private final List<String> descriptions = new ArrayList<>();
+
+        private Builder() {}
+
+        /**
+         * Replaces zeroes with values linearly interpolated from the neighbouring non-zero values.
+         * @see Interpolator#interpolateZeroes(double[])
+         */
+        public Builder interpolateZeroes() {
+            stages.add(new InterpolateZeroes());
+            descriptions.add("interpolateZeroes");
+            return this;
+        }
+
+        /**
+         * @see MovingAverage#simpleMovingAverage(double[], int)
+         */
+        public Builder simpleMovingAverage(int window) {
+            if (window <= 0) {
+                throw new IllegalArgumentException("Window size must be positive");
+            }
+
+            stages.add(new SimpleMovingAverage(window));
+            descriptions.add("simpleMovingAverage(" + window + ")");
+            return this;
+        }
+
+        /**
+         * @see Wavelets#denoise(double[])
+         */
+        public Builder waveletDenoising() {
+            stages.add(new WaveletDenoising());
+            descriptions.add("waveletDenoising");
+            return this;
+        }
+
+        public Builder scale(double factor) {
+            descriptions.add("scale(" + factor + ")");
+            return elementWise(value -> value * factor);
+        }
+
+        public Builder clamp(double min, double max) {
+            if (min > max) {
+                throw new IllegalArgumentException("The minimum cannot be greater than the maximum.");
+            }
+
+            descriptions.add("clamp(" + min + ", " + max + ")");
+            return elementWise(value -> Math.min(max, Math.max(min, value)));
+        }
+
+        public Builder map(String name, DoubleUnaryOperator operator) {
+            descriptions.add(name);
+            return elementWise(operator);
+        }
+
+        private Builder elementWise(DoubleUnaryOperator operator) {
+            // Fuse with the previous element-wise stage so both run in the same pass.
+            if (!stages.isEmpty() && stages.get(stages.size() - 1) instanceof ElementWise previous) {
+                stages.set(stages.size() - 1, previous.then(operator));
+            } else {
+                stages.add(new ElementWise(new DoubleUnaryOperator[] { operator }));
+            }
+            return this;
+        }
+
+        public SignalCleaningPipeline build() {
+            String description = descriptions.isEmpty()
+                ? "none"
+                : descriptions.stream().collect(Collectors.joining(" -> "));
+
+            return new SignalCleaningPipeline(stages, description);
+        }
+    }
+
+    private record InterpolateZeroes() implements Stage {
+        @Override
+        public void apply(double[] buffer, int length, Workspace workspace) {
+            int first = -1;
+            int count = 0;
+            for (int i = 0; i < length; i++) {
+                if (buffer[i] != 0) {
+                    if (first == -1) {
+                        first = i;
+                    }
+                    count++;
+                }
+            }
+
+            // Same as the interpolator: nothing to interpolate between
+            if (count <= 1) {
+                return;
+            }
+
+            // Before first non-zero value, use the first non-zero value
+            for (int i = 0; i < first; i++) {
+                buffer[i] = buffer[first];
+            }
+
+            int previous = first;
+            for (int i = first + 1; i < length; i++) {
+                if (buffer[i] == 0) {
+                    continue;
+                }
+
+                if (i - previous > 1) {
+                    double slope = (buffer[i] - buffer[previous]) / (i - previous);
+                    for (int j = previous + 1; j < i; j++) {
+                        buffer[j] = (j - previous) * slope + buffer[previous];
+                    }
+                }
+                previous = i;
+            }
+
+            // After last non-zero value, use the last non-zero value
+            for (int i = previous + 1; i < length; i++) {
+                buffer[i] = buffer[previous];
+            }
+        }
+    }
+
+    private record SimpleMovingAverage(int window) implements Stage {
+        @Override
+        public void apply(double[] buffer, int length, Workspace workspace) {
+            if (length < window) {
+                throw new IllegalArgumentException("Data length must be at least as long as the window size");
+            }
+
+            // Ring of the last raw values, as the buffer is overwritten while the window slides.
+            double[] raw = workspace.window(window);
+            double sum = 0;
+            for (int i = 0; i < window; i++) {
+                raw[i] = buffer[i];
+                sum += buffer[i];
+                buffer[i] = sum / (i + 1);
+            }
+
+            for (int i = window; i < length; i++) {
+                int slot = i % window;
+                double value = buffer[i];
+                sum += value - raw[slot];
+                raw[slot] = value;
+                buffer[i] = sum / window;
+            }
+        }
+    }
+
+    private record WaveletDenoising() implements Stage {
+        @Override
+        public void apply(double[] buffer, int length, Workspace workspace) {
+            int targetLength = (int) Math.pow(2, Math.ceil(Math.log(length) / Math.log(2)));
+            int paddingLength = targetLength - length;
+            double[] padded = workspace.padded(targetLength);
+
+            Arrays.fill(padded, 0, paddingLength, 0);
+            System.arraycopy(buffer, 0, padded, paddingLength, length);
+            WaveletShrinkage.denoise(padded, workspace.wavelet);
+            System.arraycopy(padded, paddingLength, buffer, 0, length);
+        }
+    }
+
+    private record ElementWise(DoubleUnaryOperator[] operators) implements Stage {
+        ElementWise then(DoubleUnaryOperator operator) {
+            DoubleUnaryOperator[] fused = Arrays.copyOf(operators, operators.length + 1);
+            fused[operators.length] = operator;
+            return new ElementWise(fused);
+        }
+
+        @Override
+        public void apply(double[] buffer, int length, Workspace workspace) {
+            for (int i = 0; i < length; i++) {
+                double value = buffer[i];
+                for (DoubleUnaryOperator operator : operators) {
+                    value = operator.applyAsDouble(value);
+                }
+                buffer[i] = value;
+            }
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * Repeated sequential probability ratio test of a Gaussian mean, from the in-control mean to the changed mean.
+ *
+ * The log-likelihood ratio of the changed over the in-control mean is accumulated point by point.
+ * Below log(β / (1 - α)) the in-control mean is accepted and the test restarts, above log((1 - β) / α)
+ * the change is accepted and signalled.
+ */
+public class SprtDetector implements ChangeDetector {
+    private final double inControlMean;
+    private final double changedMean;
+    private final double variance;
+    private final double lowerBound;
+    private final double upperBound;
+
+    /**
+     * @param inControlMean Mean of the series before the change.
+     * @param changedMean Mean of the series after the change.
+     * @param stdDev Standard deviation of the series.
+     * @param falseAlarmRate Probability α of accepting the change without one.
+     * @param missRate Probability β of accepting the in-control mean after a change.
+     */
+    public SprtDetector(double inControlMean, double changedMean, double stdDev, double falseAlarmRate, double missRate) {
+        if (stdDev <= 0) {
+            throw new IllegalArgumentException("The standard deviation has to be positive.");
+        }
+        if (falseAlarmRate <= 0 || falseAlarmRate >= 1 || missRate <= 0 || missRate >= 1) {
+            throw new IllegalArgumentException("The error rates have to be between 0 and 1.");
+        }
+
+        this.inControlMean = inControlMean;
+        this.changedMean = changedMean;
+        this.variance = stdDev * stdDev;
+        this.lowerBound = Math.log(missRate / (1 - falseAlarmRate));
+        this.upperBound = Math.log((1 - missRate) / falseAlarmRate);
+    }
+
+    @Override
+    public State start() {
+        double slope = (changedMean - inControlMean) / variance;
+        double midpoint = (inControlMean + changedMean) / 2;
+
+        return new State() {
+            private double logLikelihoodRatio = 0.0;
+
+            @Override
+            public boolean update(double value) {
+                logLikelihoodRatio += slope * (value - midpoint);
+                if (logLikelihoodRatio < lowerBound) {
+                    logLikelihoodRatio = 0.0;
+                }
+                return logLikelihoodRatio > upperBound;
+            }
+
+            @Override
+            public double statistic() {
+                return logLikelihoodRatio;
+            }
+        };
+    }
+}
@@ -0,0 +1,134 @@
+package com.censoredsurvivors.data.statistics;
+
+/**
+ * Mean and inverse covariance of the first vectors of a series, the in-control model of the multivariate detectors.
+ *
+ * The moments are updated online with Welford's algorithm. Matrices are flat row-major arrays of a few channels,
+ * so the kernels are plain loops without allocation.
+ */
+final class WarmUpCovariance {
+    // relative ridge that keeps the covariance of channels without variance invertible
+    private static final double RIDGE = 1e-6;
+
+    private final int dimensions;
+    private final int warmUpLength;
+    private final double[] mean;
+    private final double[] comoments;
+    private final double[] delta;
+    private double[] inverse;
+    private int count = 0;
+
+    WarmUpCovariance(int dimensions, int warmUpLength) {
+        this.dimensions = dimensions;
+        this.warmUpLength = warmUpLength;
+        this.mean = new double[dimensions];
+        this.comoments = new double[dimensions * dimensions];
+        this.delta = new double[dimensions];
+    }
+
+    /**
+     * @return Whether the warm-up window is complete.
+     */
+    boolean isReady() {
+        return inverse != null;
+    }
+
+    /**
+     * @param values Next vector of the warm-up window.
+     */
+    void add(double[] values) {
+        count++;
+        for (int i = 0; i < dimensions; i++) {
+            delta[i] = values[i] - mean[i];
+            mean[i] += delta[i] / count;
+        }
+        for (int i = 0; i < dimensions; i++) {
+            double after = values[i] - mean[i];
+            for (int j = 0; j < dimensions; j++) {
+                comoments[j * dimensions + i] += delta[j] * after;
+            }
+        }
+        if (count == warmUpLength) {
+            inverse = invertCovariance();
+        }
+    }
+
+    /**
+     * @param values Vector of the series.
+     * @param target Deviation of the vector from the mean.
+     */
+    void deviation(double[] values, double[] target) {
+        for (int i = 0; i < dimensions; i++) {
+            target[i] = values[i] - mean[i];
+        }
+    }
+
+    /**
+     * @return Squared Mahalanobis norm v' Σ^-1 v of a deviation.
+     */
+    double squaredNorm(double[] deviation) {
+        double norm = 0.0;
+        for (int i = 0; i < dimensions; i++) {
+            double row = 0.0;
+            for (int j = 0; j < dimensions; j++) {
+                row += inverse[i * dimensions + j] * deviation[j];
+            }
+            norm += deviation[i] * row;
+        }
+        return norm;
+    }
+
+    /**
+     * Inverts the covariance through its Cholesky factor L, Σ^-1 = L^-T L^-1.
+     */
+    private double[] invertCovariance() {
+        int d = dimensions;
+        double[] covariance = new double[d * d];
+        double trace = 0.0;
+        for (int i = 0; i < d * d; i++) {
+            covariance[i] = comoments[i] / (count - 1);
+        }
+        for (int i = 0; i < d; i++) {
+            trace += covariance[i * d + i];
+        }
+        double ridge = RIDGE * Math.max(trace / d, 1.0);
+        for (int i = 0; i < d; i++) {
+            covariance[i * d + i] += ridge;
+        }
+
+        double[] lower = new double[d * d];
+        for (int i = 0; i < d; i++) {
+            for (int j = 0; j <= i; j++) {
+                double sum = covariance[i * d + j];
+                for (int k = 0; k < j; k++) {
+                    sum -= lower[i * d + k] * lower[j * d + k];
+                }
+                lower[i * d + j] = i == j ? Math.sqrt(Math.max(sum, ridge)) : sum / lower[j * d + j];
+            }
+        }
+
+        double[] lowerInverse = new double[d * d];
+        for (int i = 0; i < d; i++) {
+            lowerInverse[i * d + i] = 1 / lower[i * d + i];
+            for (int j = 0; j < i; j++) {
+                double sum = 0.0;
+                for (int k = j; k < i; k++) {
+                    sum -= lower[i * d + k] * lowerInverse[k * d + j];
+                }
+                lowerInverse[i * d + j] = sum / lower[i * d + i];
+            }
+        }
+
+        double[] result = new double[d * d];
+        for (int i = 0; i < d; i++) {
+            for (int j = 0; j < d; j++) {
+                double sum = 0.0;
+                for (int k = Math.max(i, j); k < d; k++) {
+                    sum += lowerInverse[k * d + i] * lowerInverse[k * d + j];
+                }
+                result[i * d + j] = sum;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,624 @@
+package com.censoredsurvivors.data.storage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaPostChurnDataSet;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.DoubleColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.Column;
+import tech.tablesaw.columns.dates.PackedLocalDate;
+
+/**
+ * Compact binary columnar file of named tables, read through memory mapping.
+ *
+ * Layout, little-endian:
+ * - header: magic, version and the offset of the directory at the end of the file,
+ * - column pages: fixed-width primitive values, one page per column, 8-byte aligned,
+ *   - int and date columns store 4 bytes per row (dates packed as in Tablesaw), double columns 8 bytes,
+ *   - string columns store a dictionary page of the distinct values and 1, 2 or 4 byte codes per row,
+ * - index pages: for a customer id column whose rows are grouped by customer, the row range of every customer,
+ * - directory: metadata, tables, columns and the offsets of their pages.
+ *
+ * Opening a snapshot reads the directory only. Every page is mapped separately with {@link FileChannel#map}
+ * on first access, so opening is independent of the file size and only the touched pages are paged in.
+ */
+public class ColumnarSnapshot implements AutoCloseable {
+    public static final String CUSTOMERS_TABLE = "customers";
+    public static final String POSTS_TABLE = "posts";
+    public static final String PLATFORM_POSTS_TABLE = "platformPosts";
+    public static final String NATIVE_POSTS_TABLE = "nativePosts";
+
+    private static final int MAGIC = 0x534d4353;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 16;
+    private static final byte STRING_COLUMN = 1;
+    private static final byte INT_COLUMN = 2;
+    private static final byte DATE_COLUMN = 3;
+    private static final byte DOUBLE_COLUMN = 4;
+
+    private final FileChannel channel;
+    private final String metadata;
+    private final Map<String, MappedTable> tables;
+
+    /**
+     * Location of one column's pages in the file.
+     */
+    private record ColumnEntry(
+        String name,
+        byte type,
+        int width,
+        long dataOffset,
+        long dictionaryOffset,
+        long dictionaryLength,
+        int dictionarySize,
+        long indexOffset
+    ) {}
+
+    private ColumnarSnapshot(FileChannel channel, String metadata, Map<String, MappedTable> tables) {
+        this.channel = channel;
+        this.metadata = metadata;
+        this.tables = tables;
+    }
+
+    /**
+     * @see #write(Path, String, Map)
+     */
+    public static void write(Path path, String metadata, SocialMediaDataset dataset) throws IOException {
+        Map<String, Table> tables = new LinkedHashMap<>();
+        tables.put(CUSTOMERS_TABLE, dataset.customers());
+        tables.put(POSTS_TABLE, dataset.posts());
+        write(path, metadata, tables);
+    }
+
+    /**
+     * @see #write(Path, String, Map)
+     */
+    public static void write(Path path, SocialMediaPostChurnDataSet dataSet) throws IOException {
+        Map<String, Table> tables = new LinkedHashMap<>();
+        if (dataSet.getCustomers() != null) {
+            tables.put(CUSTOMERS_TABLE, dataSet.getCustomers());
+        }
+        if (dataSet.getPlatformPosts() != null) {
+            tables.put(PLATFORM_POSTS_TABLE, dataSet.getPlatformPosts());
+        }
+        if (dataSet.getNativePosts() != null) {
+            tables.put(NATIVE_POSTS_TABLE, dataSet.getNativePosts());
+        }
+        write(path, "", tables);
+    }
+
+    /**
+     * Writes the tables to a new snapshot, replacing the file atomically.
+     *
+     * @param path File of the snapshot.
+     * @param metadata Free text stored with the tables, e.g. the configuration they were generated with.
+     * @param tables Tables by key, with string, int, double and date columns only.
+     */
+    public static void write(Path path, String metadata, Map<String, Table> tables) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path temporary = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            PageWriter writer = new PageWriter(out);
+            writer.position = HEADER_BYTES;
+
+            List<byte[]> entries = new ArrayList<>();
+            for (Map.Entry<String, Table> entry : tables.entrySet()) {
+                entries.add(writeTable(writer, entry.getKey(), entry.getValue()));
+            }
+
+            int directoryLength = utfLength(metadata) + 4;
+            for (byte[] entry : entries) {
+                directoryLength += entry.length;
+            }
+            ByteBuffer directoryPage = buffer(directoryLength);
+            putUtf(directoryPage, metadata);
+            directoryPage.putInt(entries.size());
+            for (byte[] entry : entries) {
+                directoryPage.put(entry);
+            }
+            long directoryOffset = writer.write(directoryPage);
+
+            ByteBuffer header = buffer(HEADER_BYTES);
+            header.putInt(MAGIC).putInt(VERSION).putLong(directoryOffset);
+            header.flip();
+            out.write(header, 0);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Opens a snapshot, reading its directory only.
+     */
+    public static ColumnarSnapshot open(Path path) throws IOException {
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+        try {
+            ByteBuffer header = read(channel, 0, HEADER_BYTES);
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new IOException("Not a columnar snapshot of version " + VERSION + ": " + path);
+            }
+            long directoryOffset = header.getLong();
+            ByteBuffer directory = read(channel, directoryOffset, (int) (channel.size() - directoryOffset));
+
+            String metadata = getUtf(directory);
+            int tableCount = directory.getInt();
+            Map<String, MappedTable> tables = new LinkedHashMap<>();
+            ColumnarSnapshot snapshot = new ColumnarSnapshot(channel, metadata, tables);
+            for (int t = 0; t < tableCount; t++) {
+                String key = getUtf(directory);
+                String name = getUtf(directory);
+                int rows = directory.getInt();
+                int columnCount = directory.getInt();
+                ColumnEntry[] columns = new ColumnEntry[columnCount];
+                for (int c = 0; c < columnCount; c++) {
+                    columns[c] = new ColumnEntry(
+                        getUtf(directory),
+                        directory.get(),
+                        directory.get(),
+                        directory.getLong(),
+                        directory.getLong(),
+                        directory.getLong(),
+                        directory.getInt(),
+                        directory.getLong()
+                    );
+                }
+                tables.put(key, snapshot.new MappedTable(name, rows, columns));
+            }
+            return snapshot;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Reads the snapshot back into a data set, missing tables stay null.
+     */
+    public SocialMediaPostChurnDataSet toPostChurnDataSet() {
+        SocialMediaPostChurnDataSet dataSet = new SocialMediaPostChurnDataSet();
+        if (tables.containsKey(CUSTOMERS_TABLE)) {
+            dataSet.setCustomers(table(CUSTOMERS_TABLE).toTable());
+        }
+        if (tables.containsKey(PLATFORM_POSTS_TABLE)) {
+            dataSet.setPlatformPosts(table(PLATFORM_POSTS_TABLE).toTable());
+        }
+        if (tables.containsKey(NATIVE_POSTS_TABLE)) {
+            dataSet.setNativePosts(table(NATIVE_POSTS_TABLE).toTable());
+        }
+        return dataSet;
+    }
+
+    public SocialMediaDataset toDataset() {
+        return new SocialMediaDataset(table(CUSTOMERS_TABLE).toTable(), table(POSTS_TABLE).toTable());
+    }
+
+    public String metadata() {
+        return metadata;
+    }
+
+    public List<String> tableKeys() {
+        return List.copyOf(tables.keySet());
+    }
+
+    public MappedTable table(String key) {
+        MappedTable table = tables.get(key);
+        if (table == null) {
+            throw new IllegalArgumentException("The snapshot has no table " + key + ".");
+        }
+        return table;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Read-only view of one table of the snapshot. Values are read straight from the mapped pages.
+     */
+    public class MappedTable {
+        private final String name;
+        private final int rows;
+        private final ColumnEntry[] columns;
+        private final Map<String, Integer> columnIndexes = new HashMap<>();
+        private final ByteBuffer[] dataPages;
+        private final String[][] dictionaries;
+        private final List<Map<String, Integer>> dictionaryCodes;
+        private final ByteBuffer[] indexPages;
+
+        private MappedTable(String name, int rows, ColumnEntry[] columns) {
+            this.name = name;
+            this.rows = rows;
+            this.columns = columns;
+            for (int c = 0; c < columns.length; c++) {
+                columnIndexes.put(columns[c].name(), c);
+            }
+            this.dataPages = new ByteBuffer[columns.length];
+            this.dictionaries = new String[columns.length][];
+            this.dictionaryCodes = new ArrayList<>(Collections.nCopies(columns.length, null));
+            this.indexPages = new ByteBuffer[columns.length];
+        }
+
+        public String name() {
+            return name;
+        }
+
+        public int rowCount() {
+            return rows;
+        }
+
+        public List<String> columnNames() {
+            return Arrays.stream(columns).map(ColumnEntry::name).toList();
+        }
+
+        public int getInt(String column, int row) {
+            int c = column(column, INT_COLUMN);
+            return data(c).getInt(row * 4);
+        }
+
+        public double getDouble(String column, int row) {
+            int c = column(column, DOUBLE_COLUMN);
+            return data(c).getDouble(row * 8);
+        }
+
+        public LocalDate getDate(String column, int row) {
+            int packed = data(column(column, DATE_COLUMN)).getInt(row * 4);
+            return DateColumn.valueIsMissing(packed) ? null : PackedLocalDate.asLocalDate(packed);
+        }
+
+        public String getString(String column, int row) {
+            int c = column(column, STRING_COLUMN);
+            return dictionary(c)[code(c, row)];
+        }
+
+        /**
+         * @return Rows [from, to) of the value of an indexed column, e.g. the posts of a customer, or null if absent.
+         */
+        public int[] rowRange(String column, String value) {
+            int c = column(column, STRING_COLUMN);
+            if (columns[c].indexOffset() < 0) {
+                throw new IllegalArgumentException("The column " + column + " has no row-range index.");
+            }
+            if (dictionaryCodes.get(c) == null) {
+                String[] values = dictionary(c);
+                Map<String, Integer> codes = new HashMap<>(values.length * 2);
+                for (int code = 0; code < values.length; code++) {
+                    codes.put(values[code], code);
+                }
+                dictionaryCodes.set(c, codes);
+            }
+
+            Integer code = dictionaryCodes.get(c).get(value);
+            if (code == null) {
+                return null;
+            }
+            if (indexPages[c] == null) {
+                indexPages[c] = map(columns[c].indexOffset(), (long) columns[c].dictionarySize() * 8);
+            }
+            return new int[] {indexPages[c].getInt(code * 8), indexPages[c].getInt(code * 8 + 4)};
+        }
+
+        /**
+         * @return All rows as a Tablesaw table.
+         */
+        public Table toTable() {
+            return toTable(0, rows);
+        }
+
+        /**
+         * @return Rows [from, to) as a Tablesaw table.
+         */
+        public Table toTable(int from, int to) {
+            if (from < 0 || to > rows || from > to) {
+                throw new IllegalArgumentException("Invalid row range [" + from + ", " + to + ").");
+            }
+
+            Table table = Table.create(name);
+            for (int c = 0; c < columns.length; c++) {
+                String columnName = columns[c].name();
+                switch (columns[c].type()) {
+                    case STRING_COLUMN -> {
+                        String[] dictionary = dictionary(c);
+                        String[] values = new String[to - from];
+                        for (int row = from; row < to; row++) {
+                            values[row - from] = dictionary[code(c, row)];
+                        }
+                        table.addColumns(StringColumn.create(columnName, values));
+                    }
+                    case INT_COLUMN -> table.addColumns(IntColumn.create(columnName, ints(c, from, to)));
+                    case DATE_COLUMN -> table.addColumns(DateColumn.createInternal(columnName, ints(c, from, to)));
+                    case DOUBLE_COLUMN -> {
+                        double[] values = new double[to - from];
+                        data(c).slice(from * 8, (to - from) * 8).order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer().get(values);
+                        table.addColumns(DoubleColumn.create(columnName, values));
+                    }
+                    default -> throw new IllegalStateException("Unknown column type: " + columns[c].type());
+                }
+            }
+            return table;
+        }
+
+        private int[] ints(int c, int from, int to) {
+            int[] values = new int[to - from];
+            data(c).slice(from * 4, (to - from) * 4).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(values);
+            return values;
+        }
+
+        private int column(String column, byte type) {
+            Integer c = columnIndexes.get(column);
+            if (c == null) {
+                throw new IllegalArgumentException("The table " + name + " has no column " + column + ".");
+            }
+            if (columns[c].type() != type) {
+                throw new IllegalArgumentException("The column " + column + " has another type.");
+            }
+            return c;
+        }
+
+        private int code(int c, int row) {
+            ByteBuffer data = data(c);
+            return switch (columns[c].width()) {
+                case 1 -> Byte.toUnsignedInt(data.get(row));
+                case 2 -> Short.toUnsignedInt(data.getShort(row * 2));
+                default -> data.getInt(row * 4);
+            };
+        }
+
+        private ByteBuffer data(int c) {
+            if (dataPages[c] == null) {
+                dataPages[c] = map(columns[c].dataOffset(), (long) rows * columns[c].width());
+            }
+            return dataPages[c];
+        }
+
+        private String[] dictionary(int c) {
+            if (dictionaries[c] == null) {
+                ByteBuffer page = map(columns[c].dictionaryOffset(), columns[c].dictionaryLength());
+                int size = columns[c].dictionarySize();
+                String[] values = new String[size];
+                int bytesStart = (size + 1) * 4;
+                for (int code = 0; code < size; code++) {
+                    int start = page.getInt(code * 4);
+                    int end = page.getInt(code * 4 + 4);
+                    byte[] bytes = new byte[end - start];
+                    page.get(bytesStart + start, bytes);
+                    values[code] = new String(bytes, StandardCharsets.UTF_8);
+                }
+                dictionaries[c] = values;
+            }
+            return dictionaries[c];
+        }
+    }
+
+    private ByteBuffer map(long offset, long length) {
+        try {
+            MappedByteBuffer page = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+            return page.order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map the snapshot page at " + offset, e);
+        }
+    }
+
+    /**
+     * Writes the pages of one table and returns its directory entry.
+     */
+    private static byte[] writeTable(PageWriter writer, String key, Table table) throws IOException {
+        int rows = table.rowCount();
+        List<ColumnEntry> entries = new ArrayList<>();
+        for (Column<?> column : table.columns()) {
+            switch (column) {
+                case StringColumn strings -> entries.add(writeStrings(writer, strings, rows));
+                case IntColumn ints -> {
+                    ByteBuffer page = buffer(rows * 4L);
+                    for (int row = 0; row < rows; row++) {
+                        page.putInt(ints.getInt(row));
+                    }
+                    entries.add(new ColumnEntry(ints.name(), INT_COLUMN, 4, writer.write(page), -1, 0, 0, -1));
+                }
+                case DoubleColumn doubles -> {
+                    ByteBuffer page = buffer(rows * 8L);
+                    for (int row = 0; row < rows; row++) {
+                        page.putDouble(doubles.getDouble(row));
+                    }
+                    entries.add(new ColumnEntry(doubles.name(), DOUBLE_COLUMN, 8, writer.write(page), -1, 0, 0, -1));
+                }
+                case DateColumn dates -> {
+                    ByteBuffer page = buffer(rows * 4L);
+                    for (int row = 0; row < rows; row++) {
+                        page.putInt(dates.getIntInternal(row));
+                    }
+                    entries.add(new ColumnEntry(dates.name(), DATE_COLUMN, 4, writer.write(page), -1, 0, 0, -1));
+                }
+                default -> throw new IllegalArgumentException("Unsupported column type: " + column.type());
+            }
+        }
+
+        int length = utfLength(key) + utfLength(table.name()) + 8;
+        for (ColumnEntry entry : entries) {
+            length += utfLength(entry.name()) + 2 + 8 * 4 + 4;
+        }
+        ByteBuffer directory = buffer(length);
+        putUtf(directory, key);
+        putUtf(directory, table.name());
+        directory.putInt(rows).putInt(entries.size());
+        for (ColumnEntry entry : entries) {
+            putUtf(directory, entry.name());
+            directory.put(entry.type())
+                .put((byte) entry.width())
+                .putLong(entry.dataOffset())
+                .putLong(entry.dictionaryOffset())
+                .putLong(entry.dictionaryLength())
+                .putInt(entry.dictionarySize())
+                .putLong(entry.indexOffset());
+        }
+        return directory.array();
+    }
+
+    /**
+     * Dictionary page, code page and, for grouped customer ids, the row-range index page.
+     */
+    private static ColumnEntry writeStrings(PageWriter writer, StringColumn column, int rows) throws IOException {
+        Map<String, Integer> codesByValue = new HashMap<>();
+        List<byte[]> values = new ArrayList<>();
+        int[] codes = new int[rows];
+        long valueBytes = 0;
+        for (int row = 0; row < rows; row++) {
+            String value = column.get(row);
+            Integer code = codesByValue.get(value);
+            if (code == null) {
+                code = values.size();
+                codesByValue.put(value, code);
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                values.add(bytes);
+                valueBytes += bytes.length;
+            }
+            codes[row] = code;
+        }
+
+        int size = values.size();
+        ByteBuffer dictionary = buffer((size + 1) * 4L + valueBytes);
+        int position = 0;
+        for (byte[] bytes : values) {
+            dictionary.putInt(position);
+            position += bytes.length;
+        }
+        dictionary.putInt(position);
+        for (byte[] bytes : values) {
+            dictionary.put(bytes);
+        }
+        long dictionaryLength = dictionary.capacity();
+        long dictionaryOffset = writer.write(dictionary);
+
+        int width = size <= 1 << 8 ? 1 : size <= 1 << 16 ? 2 : 4;
+        ByteBuffer page = buffer((long) rows * width);
+        for (int code : codes) {
+            switch (width) {
+                case 1 -> page.put((byte) code);
+                case 2 -> page.putShort((short) code);
+                default -> page.putInt(code);
+            }
+        }
+        long dataOffset = writer.write(page);
+
+        long indexOffset = -1;
+        if (column.name().equals(ProjectConfig.CUSTOMER_ID_COLUMN)) {
+            ByteBuffer index = rowRangeIndex(codes, size);
+            if (index != null) {
+                indexOffset = writer.write(index);
+            }
+        }
+
+        return new ColumnEntry(column.name(), STRING_COLUMN, width, dataOffset, dictionaryOffset, dictionaryLength, size, indexOffset);
+    }
+
+    /**
+     * @return Start and end row of every code, or null if the rows of a code are not contiguous.
+     */
+    private static ByteBuffer rowRangeIndex(int[] codes, int size) {
+        ByteBuffer index = buffer(size * 8L);
+        boolean[] seen = new boolean[size];
+        int start = 0;
+        for (int row = 1; row <= codes.length; row++) {
+            if (row < codes.length && codes[row] == codes[start]) {
+                continue;
+            }
+            int code = codes[start];
+            if (seen[code]) {
+                return null;
+            }
+            seen[code] = true;
+            index.putInt(code * 8, start).putInt(code * 8 + 4, row);
+            start = row;
+        }
+        index.position(index.capacity());
+        return index;
+    }
+
+    /**
+     * Appends 8-byte aligned pages to the file.
+     */
+    private static class PageWriter {
+        private final FileChannel out;
+        private long position;
+
+        PageWriter(FileChannel out) {
+            this.out = out;
+        }
+
+        /**
+         * @return Offset of the page.
+         */
+        long write(ByteBuffer page) throws IOException {
+            long offset = (position + 7) & ~7L;
+            page.flip();
+            long at = offset;
+            while (page.hasRemaining()) {
+                at += out.write(page, at);
+            }
+            position = at;
+            return offset;
+        }
+    }
+
+    private static ByteBuffer buffer(long length) {
+        if (length > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("A page cannot exceed 2 GB.");
+        }
+        return ByteBuffer.allocate((int) length).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer read(FileChannel channel, long offset, int length) throws IOException {
+        ByteBuffer buffer = buffer(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the snapshot.");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static int utfLength(String value) {
+        return 4 + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private static void putUtf(ByteBuffer buffer, String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length).put(bytes);
+    }
+
+    private static String getUtf(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,331 @@
+package com.censoredsurvivors.data.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Weekly post count series of many customers, compressed into one byte array.
+ *
+ * Post counts are small integers with long runs of zeros, so every series is encoded as tokens:
+ * - a zero run: varint header (length << 1),
+ * - a literal run: varint header (length << 1 | 1) followed by the zig-zag varint deltas of the values
+ *   to the previous non-zero value.
+ *
+ * Series are split into blocks of {@link #BLOCK_SIZE} weeks and no token spans two blocks. The block index
+ * stores the byte offset and the previous value at every block start, so any week of any customer is found
+ * by decoding a single block. Sequential decoding writes straight into a double[] for the signal cleaning.
+ */
+public class CompressedPostCounts {
+    public static final int BLOCK_SIZE = 128;
+
+    private final String[] customerIds;
+    private final Map<String, Integer> customerIndexes;
+    private final int[] lengths;
+    private final int[] firstBlocks;
+    private final int[] blockOffsets;
+    private final int[] blockPrevious;
+    private final byte[] data;
+
+    private CompressedPostCounts(
+        String[] customerIds,
+        int[] lengths,
+        int[] firstBlocks,
+        int[] blockOffsets,
+        int[] blockPrevious,
+        byte[] data
+    ) {
+        this.customerIds = customerIds;
+        this.lengths = lengths;
+        this.firstBlocks = firstBlocks;
+        this.blockOffsets = blockOffsets;
+        this.blockPrevious = blockPrevious;
+        this.data = data;
+        this.customerIndexes = new HashMap<>(customerIds.length * 2);
+        for (int i = 0; i < customerIds.length; i++) {
+            customerIndexes.put(customerIds[i], i);
+        }
+    }
+
+    /**
+     * Compresses the weekly post counts of a posts table, summed over the channels.
+     *
+     * The rows of a customer must be contiguous and in week order, as generated by the posts generator.
+     */
+    public static CompressedPostCounts fromPosts(Table posts) {
+        StringColumn customerIds = posts.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        IntColumn years = posts.intColumn(ProjectConfig.YEAR_COLUMN);
+        IntColumn weeks = posts.intColumn(ProjectConfig.WEEK_COLUMN);
+        IntColumn postCounts = posts.intColumn(ProjectConfig.POST_COUNT_COLUMN);
+
+        Builder builder = new Builder();
+        int[] series = new int[64];
+        int length = 0;
+        for (int row = 0; row < posts.rowCount(); row++) {
+            boolean newCustomer = row == 0 || !customerIds.get(row).equals(customerIds.get(row - 1));
+            if (newCustomer && row > 0) {
+                builder.add(customerIds.get(row - 1), Arrays.copyOf(series, length));
+                length = 0;
+            }
+
+            boolean sameWeek = !newCustomer
+                && years.getInt(row) == years.getInt(row - 1)
+                && weeks.getInt(row) == weeks.getInt(row - 1);
+            if (sameWeek) {
+                series[length - 1] += postCounts.getInt(row);
+            } else {
+                if (length == series.length) {
+                    series = Arrays.copyOf(series, length * 2);
+                }
+                series[length++] = postCounts.getInt(row);
+            }
+        }
+        if (posts.rowCount() > 0) {
+            builder.add(customerIds.get(posts.rowCount() - 1), Arrays.copyOf(series, length));
+        }
+
+        return builder.build();
+    }
+
+    /**
+     * Collects the series of the customers one by one.
+     */
+    public static class Builder {
+        private final List<String> customerIds = new ArrayList<>();
+        private int[] lengths = new int[16];
+        private int[] firstBlocks = new int[16];
+        private int[] blockOffsets = new int[16];
+        private int[] blockPrevious = new int[16];
+        private int blocks = 0;
+        private byte[] data = new byte[1024];
+        private int size = 0;
+
+        public Builder add(String customerId, int[] counts) {
+            int customer = customerIds.size();
+            if (customer == lengths.length) {
+                lengths = Arrays.copyOf(lengths, customer * 2);
+                firstBlocks = Arrays.copyOf(firstBlocks, customer * 2);
+            }
+            customerIds.add(customerId);
+            lengths[customer] = counts.length;
+            firstBlocks[customer] = blocks;
+
+            int previous = 0;
+            for (int blockStart = 0; blockStart < counts.length; blockStart += BLOCK_SIZE) {
+                if (blocks == blockOffsets.length) {
+                    blockOffsets = Arrays.copyOf(blockOffsets, blocks * 2);
+                    blockPrevious = Arrays.copyOf(blockPrevious, blocks * 2);
+                }
+                blockOffsets[blocks] = size;
+                blockPrevious[blocks] = previous;
+                blocks++;
+
+                int blockEnd = Math.min(counts.length, blockStart + BLOCK_SIZE);
+                int week = blockStart;
+                while (week < blockEnd) {
+                    int runEnd = week + 1;
+                    boolean zeros = counts[week] == 0;
+                    while (runEnd < blockEnd && (counts[runEnd] == 0) == zeros) {
+                        runEnd++;
+                    }
+
+                    int run = runEnd - week;
+                    if (zeros) {
+                        writeVarint(run << 1);
+                    } else {
+                        writeVarint(run << 1 | 1);
+                        for (int i = week; i < runEnd; i++) {
+                            int delta = counts[i] - previous;
+                            writeVarint((delta << 1) ^ (delta >> 31));
+                            previous = counts[i];
+                        }
+                    }
+                    week = runEnd;
+                }
+            }
+
+            return this;
+        }
+
+        public CompressedPostCounts build() {
+            int customers = customerIds.size();
+            return new CompressedPostCounts(
+                customerIds.toArray(String[]::new),
+                Arrays.copyOf(lengths, customers),
+                Arrays.copyOf(firstBlocks, customers),
+                Arrays.copyOf(blockOffsets, blocks),
+                Arrays.copyOf(blockPrevious, blocks),
+                Arrays.copyOf(data, size)
+            );
+        }
+
+        private void writeVarint(int value) {
+            if (size + 5 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            while ((value & ~0x7f) != 0) {
+                data[size++] = (byte) ((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+            data[size++] = (byte) value;
+        }
+    }
+
+    public int size() {
+        return customerIds.length;
+    }
+
+    public String customerId(int customer) {
+        return customerIds[customer];
+    }
+
+    /**
+     * @return Index of the customer, or -1 if there are no posts of it.
+     */
+    public int indexOf(String customerId) {
+        return customerIndexes.getOrDefault(customerId, -1);
+    }
+
+    /**
+     * @return Number of weeks of the customer's series.
+     */
+    public int length(int customer) {
+        return lengths[customer];
+    }
+
+    /**
+     * @return Size of the encoded series in bytes, without the index.
+     */
+    public int compressedBytes() {
+        return data.length;
+    }
+
+    /**
+     * @return Post count of one week, decoding only the block that contains it.
+     */
+    public int get(int customer, int week) {
+        if (week < 0 || week >= lengths[customer]) {
+            throw new IndexOutOfBoundsException("Week " + week + " is outside of the series of " + customerIds[customer] + ".");
+        }
+
+        int block = firstBlocks[customer] + week / BLOCK_SIZE;
+        int blockStart = week - week % BLOCK_SIZE;
+        int position = blockOffsets[block];
+        int value = blockPrevious[block];
+        int current = blockStart;
+        while (true) {
+            int header = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                header |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+
+            int run = header >>> 1;
+            if ((header & 1) == 0) {
+                if (week < current + run) {
+                    return 0;
+                }
+            } else {
+                for (int i = 0; i < run; i++) {
+                    int zigZag = 0;
+                    for (int shift = 0; ; shift += 7) {
+                        byte b = data[position++];
+                        zigZag |= (b & 0x7f) << shift;
+                        if (b >= 0) {
+                            break;
+                        }
+                    }
+                    value += (zigZag >>> 1) ^ -(zigZag & 1);
+                    if (current + i == week) {
+                        return value;
+                    }
+                }
+            }
+            current += run;
+        }
+    }
+
+    /**
+     * @return The customer's weekly post counts.
+     */
+    public double[] decode(int customer) {
+        double[] target = new double[lengths[customer]];
+        decode(customer, target, 0);
+        return target;
+    }
+
+    /**
+     * Decodes the customer's weekly post counts sequentially into the target.
+     *
+     * @param customer Index of the customer.
+     * @param target Array to write the series to.
+     * @param offset Index in the target to write the first week to.
+     * @return Number of weeks written.
+     */
+    public int decode(int customer, double[] target, int offset) {
+        int length = lengths[customer];
+        if (offset + length > target.length) {
+            throw new IllegalArgumentException("The target is too short for the series of " + customerIds[customer] + ".");
+        }
+
+        int blocks = (length + BLOCK_SIZE - 1) / BLOCK_SIZE;
+        int position = blocks == 0 ? 0 : blockOffsets[firstBlocks[customer]];
+        int value = 0;
+        int week = 0;
+        // blocks are stored back to back, so the whole series is one token stream
+        while (week < length) {
+            int header = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                header |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+
+            int run = header >>> 1;
+            if ((header & 1) == 0) {
+                Arrays.fill(target, offset + week, offset + week + run, 0);
+            } else {
+                for (int i = 0; i < run; i++) {
+                    int zigZag = 0;
+                    for (int shift = 0; ; shift += 7) {
+                        byte b = data[position++];
+                        zigZag |= (b & 0x7f) << shift;
+                        if (b >= 0) {
+                            break;
+                        }
+                    }
+                    value += (zigZag >>> 1) ^ -(zigZag & 1);
+                    target[offset + week + i] = value;
+                }
+            }
+            week += run;
+        }
+
+        return length;
+    }
+
+    /**
+     * Decodes the series of all customers in parallel.
+     *
+     * @return Weekly post counts by customer index.
+     */
+    public double[][] decodeAll() {
+        return IntStream.range(0, size()).parallel()
+            .mapToObj(this::decode)
+            .toArray(double[][]::new);
+    }
+}
@@ -0,0 +1,392 @@
+package com.censoredsurvivors.data.storage;
+
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntToLongFunction;
+import java.util.stream.IntStream;
+
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaCountry;
+import com.censoredsurvivors.data.model.SocialMediaIndustry;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPlan;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+/**
+ * Weekly post aggregates by industry, country, plan and channel.
+ *
+ * Every cell, one per epoch week and combination of the enum ordinals, holds the sum of the post counts,
+ * the number of customer-channel weeks and how many of them had no posts, in primitive arrays laid out
+ * week by week. A query reads the cells directly instead of scanning the posts table with string keys.
+ *
+ * A rollup sums the cells along the dimensions it drops, which then have a single value standing for all.
+ * New weeks are added incrementally, the week range grows as needed.
+ */
+public class PostCountCube {
+    private static final List<SocialMediaParam> DIMENSIONS = List.of(
+        SocialMediaParam.INDUSTRY,
+        SocialMediaParam.COUNTRY,
+        SocialMediaParam.PLAN,
+        SocialMediaParam.CHANNEL
+    );
+    // weeks of the cube are built in parallel in blocks of this many weeks
+    private static final int PARALLEL_WEEKS = 16;
+
+    private final Set<SocialMediaParam> dimensions;
+    private final int[] cardinalities;
+    private final int cellsPerWeek;
+
+    private int firstWeek;
+    private int weekCount;
+    private long[] sums;
+    private int[] counts;
+    private int[] zeroCounts;
+
+    /**
+     * Creates an empty cube.
+     *
+     * @param dimensions Dimensions to keep, the others are rolled up.
+     */
+    public PostCountCube(Set<SocialMediaParam> dimensions) {
+        this.dimensions = Set.copyOf(dimensions);
+        this.cardinalities = new int[] {
+            dimensions.contains(SocialMediaParam.INDUSTRY) ? SocialMediaIndustry.values().length : 1,
+            dimensions.contains(SocialMediaParam.COUNTRY) ? SocialMediaCountry.values().length : 1,
+            dimensions.contains(SocialMediaParam.PLAN) ? SocialMediaPlan.values().length : 1,
+            dimensions.contains(SocialMediaParam.CHANNEL) ? SocialMediaChannel.values().length : 1
+        };
+        this.cellsPerWeek = cardinalities[0] * cardinalities[1] * cardinalities[2] * cardinalities[3];
+        this.sums = new long[0];
+        this.counts = new int[0];
+        this.zeroCounts = new int[0];
+    }
+
+    /**
+     * Builds the cube with all dimensions from the post counts of the customers in one parallel pass.
+     *
+     * The weeks are split into blocks and every block is filled by one thread, so no cell is shared between threads.
+     *
+     * @param customers Customers table with the industries, countries and plans.
+     * @param postCounts Post counts of the customers in the order of the table.
+     * @return The cube.
+     */
+    public static PostCountCube build(Table customers, PostCountTensor postCounts) {
+        PostCountCube cube = new PostCountCube(Set.copyOf(DIMENSIONS));
+        int[][] channelCells = cube.customerCells(customers, postCounts);
+
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (int customer = 0; customer < postCounts.size(); customer++) {
+            if (postCounts.weekCount(customer) > 0) {
+                first = Math.min(first, postCounts.firstWeek(customer));
+                last = Math.max(last, postCounts.firstWeek(customer) + postCounts.weekCount(customer) - 1);
+            }
+        }
+        if (first > last) {
+            return cube;
+        }
+        cube.ensureWeeks(first, last);
+
+        int from = first;
+        int to = last;
+        int blocks = (to - from) / PARALLEL_WEEKS + 1;
+        IntStream.range(0, blocks).parallel().forEach(block -> {
+            int blockFirst = from + block * PARALLEL_WEEKS;
+            cube.addWeeks(postCounts, channelCells, blockFirst, Math.min(to, blockFirst + PARALLEL_WEEKS - 1));
+        });
+
+        return cube;
+    }
+
+    /**
+     * Builds the cube from a posts table, see {@link PostCountTensor#fromPosts(Table, Table, List)}.
+     */
+    public static PostCountCube fromPosts(Table customers, Table posts, List<SocialMediaChannel> channels) {
+        return build(customers, PostCountTensor.fromPosts(customers, posts, channels));
+    }
+
+    /**
+     * Adds the weeks of the customers from the given epoch week on, e.g. the weeks appended to a dataset
+     * since the cube was built.
+     *
+     * @param customers Customers table with the industries, countries and plans.
+     * @param postCounts Post counts of the customers in the order of the table.
+     * @param fromWeek First epoch week to add.
+     */
+    public void addWeeks(Table customers, PostCountTensor postCounts, int fromWeek) {
+        int[][] channelCells = customerCells(customers, postCounts);
+        int last = Integer.MIN_VALUE;
+        for (int customer = 0; customer < postCounts.size(); customer++) {
+            last = Math.max(last, postCounts.firstWeek(customer) + postCounts.weekCount(customer) - 1);
+        }
+        if (last < fromWeek) {
+            return;
+        }
+
+        ensureWeeks(fromWeek, last);
+        addWeeks(postCounts, channelCells, fromWeek, last);
+    }
+
+    /**
+     * Adds the posts of one customer-channel week.
+     */
+    public void add(
+        int epochWeek,
+        SocialMediaIndustry industry,
+        SocialMediaCountry country,
+        SocialMediaPlan plan,
+        SocialMediaChannel channel,
+        int postCount
+    ) {
+        ensureWeeks(epochWeek, epochWeek);
+        int cell = (epochWeek - firstWeek) * cellsPerWeek
+            + cell(cellOrdinal(0, industry.ordinal()), cellOrdinal(1, country.ordinal()), cellOrdinal(2, plan.ordinal()), cellOrdinal(3, channel.ordinal()));
+        add(cell, postCount);
+    }
+
+    /**
+     * @param dimensions Dimensions to keep, a subset of the dimensions of this cube.
+     * @return New cube summed along the other dimensions.
+     */
+    public PostCountCube rollup(Set<SocialMediaParam> dimensions) {
+        if (!this.dimensions.containsAll(dimensions)) {
+            throw new IllegalArgumentException("The dimensions " + dimensions + " are not all in the cube.");
+        }
+
+        PostCountCube rollup = new PostCountCube(dimensions);
+        if (weekCount == 0) {
+            return rollup;
+        }
+        rollup.ensureWeeks(firstWeek, firstWeek + weekCount - 1);
+
+        int[] ordinals = new int[DIMENSIONS.size()];
+        for (int cell = 0; cell < cellsPerWeek; cell++) {
+            int remainder = cell;
+            for (int d = DIMENSIONS.size() - 1; d >= 0; d--) {
+                ordinals[d] = remainder % cardinalities[d];
+                remainder /= cardinalities[d];
+            }
+            int target = rollup.cell(
+                rollup.cellOrdinal(0, ordinals[0]),
+                rollup.cellOrdinal(1, ordinals[1]),
+                rollup.cellOrdinal(2, ordinals[2]),
+                rollup.cellOrdinal(3, ordinals[3])
+            );
+            for (int week = 0; week < weekCount; week++) {
+                int from = week * cellsPerWeek + cell;
+                int to = week * rollup.cellsPerWeek + target;
+                rollup.sums[to] += sums[from];
+                rollup.counts[to] += counts[from];
+                rollup.zeroCounts[to] += zeroCounts[from];
+            }
+        }
+
+        return rollup;
+    }
+
+    public Set<SocialMediaParam> dimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return First epoch week of the cube.
+     */
+    public int firstWeek() {
+        return firstWeek;
+    }
+
+    public int weekCount() {
+        return weekCount;
+    }
+
+    /**
+     * Filters are null for all values of a dimension, the only option for a rolled up one.
+     *
+     * @return Sum of the post counts in the week.
+     */
+    public long sum(int epochWeek, SocialMediaIndustry industry, SocialMediaCountry country, SocialMediaPlan plan, SocialMediaChannel channel) {
+        return weeklySums(epochWeek, epochWeek + 1, industry, country, plan, channel)[0];
+    }
+
+    /**
+     * @see #sum(int, SocialMediaIndustry, SocialMediaCountry, SocialMediaPlan, SocialMediaChannel)
+     * @return Number of customer-channel weeks.
+     */
+    public long count(int epochWeek, SocialMediaIndustry industry, SocialMediaCountry country, SocialMediaPlan plan, SocialMediaChannel channel) {
+        return aggregate(cell -> counts[cell], epochWeek, epochWeek + 1, industry, country, plan, channel)[0];
+    }
+
+    /**
+     * @see #sum(int, SocialMediaIndustry, SocialMediaCountry, SocialMediaPlan, SocialMediaChannel)
+     * @return Number of customer-channel weeks without posts.
+     */
+    public long zeroCount(int epochWeek, SocialMediaIndustry industry, SocialMediaCountry country, SocialMediaPlan plan, SocialMediaChannel channel) {
+        return aggregate(cell -> zeroCounts[cell], epochWeek, epochWeek + 1, industry, country, plan, channel)[0];
+    }
+
+    /**
+     * @see #sum(int, SocialMediaIndustry, SocialMediaCountry, SocialMediaPlan, SocialMediaChannel)
+     * @param fromWeek First epoch week, inclusive.
+     * @param toWeek Last epoch week, exclusive.
+     * @return Sums of the post counts by week.
+     */
+    public long[] weeklySums(
+        int fromWeek,
+        int toWeek,
+        SocialMediaIndustry industry,
+        SocialMediaCountry country,
+        SocialMediaPlan plan,
+        SocialMediaChannel channel
+    ) {
+        return aggregate(cell -> sums[cell], fromWeek, toWeek, industry, country, plan, channel);
+    }
+
+    private long[] aggregate(
+        IntToLongFunction values,
+        int fromWeek,
+        int toWeek,
+        SocialMediaIndustry industry,
+        SocialMediaCountry country,
+        SocialMediaPlan plan,
+        SocialMediaChannel channel
+    ) {
+        if (toWeek < fromWeek) {
+            throw new IllegalArgumentException("The last week cannot be before the first week.");
+        }
+
+        int[] lows = new int[DIMENSIONS.size()];
+        int[] highs = new int[DIMENSIONS.size()];
+        ranges(lows, highs, industry, country, plan, channel);
+
+        long[] result = new long[toWeek - fromWeek];
+        for (int week = Math.max(fromWeek, firstWeek); week < Math.min(toWeek, firstWeek + weekCount); week++) {
+            int base = (week - firstWeek) * cellsPerWeek;
+            long sum = 0;
+            for (int i = lows[0]; i < highs[0]; i++) {
+                for (int c = lows[1]; c < highs[1]; c++) {
+                    for (int p = lows[2]; p < highs[2]; p++) {
+                        int cell = base + cell(i, c, p, 0);
+                        for (int ch = lows[3]; ch < highs[3]; ch++) {
+                            sum += values.applyAsLong(cell + ch);
+                        }
+                    }
+                }
+            }
+            result[week - fromWeek] = sum;
+        }
+
+        return result;
+    }
+
+    private void ranges(
+        int[] lows,
+        int[] highs,
+        SocialMediaIndustry industry,
+        SocialMediaCountry country,
+        SocialMediaPlan plan,
+        SocialMediaChannel channel
+    ) {
+        Enum<?>[] filters = {industry, country, plan, channel};
+        for (int d = 0; d < DIMENSIONS.size(); d++) {
+            if (filters[d] == null) {
+                lows[d] = 0;
+                highs[d] = cardinalities[d];
+            } else if (!dimensions.contains(DIMENSIONS.get(d))) {
+                throw new IllegalArgumentException("The cube is rolled up along " + DIMENSIONS.get(d) + ".");
+            } else {
+                lows[d] = filters[d].ordinal();
+                highs[d] = lows[d] + 1;
+            }
+        }
+    }
+
+    /**
+     * Adds the weeks of all customers in the range, the caller makes sure the range is in the cube.
+     */
+    private void addWeeks(PostCountTensor postCounts, int[][] channelCells, int fromWeek, int toWeek) {
+        for (int customer = 0; customer < postCounts.size(); customer++) {
+            int customerFirst = Math.max(fromWeek, postCounts.firstWeek(customer));
+            int customerLast = Math.min(toWeek, postCounts.firstWeek(customer) + postCounts.weekCount(customer) - 1);
+            for (int week = customerFirst; week <= customerLast; week++) {
+                int base = (week - firstWeek) * cellsPerWeek;
+                for (int channel = 0; channel < channelCells[customer].length; channel++) {
+                    add(base + channelCells[customer][channel], postCounts.get(customer, channel, week));
+                }
+            }
+        }
+    }
+
+    private void add(int cell, int postCount) {
+        sums[cell] += postCount;
+        counts[cell]++;
+        if (postCount == 0) {
+            zeroCounts[cell]++;
+        }
+    }
+
+    /**
+     * @return Cell within a week of every customer and channel of the tensor.
+     */
+    private int[][] customerCells(Table customers, PostCountTensor postCounts) {
+        if (customers.rowCount() != postCounts.size()) {
+            throw new IllegalArgumentException("The post counts have to be of the customers of the table.");
+        }
+
+        int[][] cells = new int[postCounts.size()][postCounts.channels().size()];
+        for (int customer = 0; customer < postCounts.size(); customer++) {
+            int industry = SocialMediaIndustry.getByDisplayName(customers.stringColumn(ProjectConfig.INDUSTRY_COLUMN).get(customer)).ordinal();
+            int country = SocialMediaCountry.getByDisplayName(customers.stringColumn(ProjectConfig.COUNTRY_COLUMN).get(customer)).ordinal();
+            int plan = SocialMediaPlan.getByDisplayName(customers.stringColumn(ProjectConfig.PLAN_COLUMN).get(customer)).ordinal();
+            for (int channel = 0; channel < postCounts.channels().size(); channel++) {
+                cells[customer][channel] = cell(
+                    cellOrdinal(0, industry),
+                    cellOrdinal(1, country),
+                    cellOrdinal(2, plan),
+                    cellOrdinal(3, postCounts.channels().get(channel).ordinal())
+                );
+            }
+        }
+
+        return cells;
+    }
+
+    /**
+     * @return Ordinal of the value in the dimension, 0 if the dimension is rolled up.
+     */
+    private int cellOrdinal(int dimension, int ordinal) {
+        return cardinalities[dimension] == 1 ? 0 : ordinal;
+    }
+
+    private int cell(int industry, int country, int plan, int channel) {
+        return ((industry * cardinalities[1] + country) * cardinalities[2] + plan) * cardinalities[3] + channel;
+    }
+
+    /**
+     * Grows the arrays to cover the weeks, keeping the existing cells.
+     */
+    private void ensureWeeks(int from, int to) {
+        int newFirst = weekCount == 0 ? from : Math.min(firstWeek, from);
+        int newLast = weekCount == 0 ? to : Math.max(firstWeek + weekCount - 1, to);
+        int newCount = newLast - newFirst + 1;
+        int shift = weekCount == 0 ? 0 : (firstWeek - newFirst) * cellsPerWeek;
+
+        if (shift > 0 || (long) newCount * cellsPerWeek > sums.length) {
+            // incremental updates usually append weeks, keep room for more
+            int capacity = weekCount == 0 ? newCount : newCount + newCount / 2;
+            long[] newSums = new long[Math.multiplyExact(capacity, cellsPerWeek)];
+            int[] newCounts = new int[newSums.length];
+            int[] newZeroCounts = new int[newSums.length];
+            System.arraycopy(sums, 0, newSums, shift, weekCount * cellsPerWeek);
+            System.arraycopy(counts, 0, newCounts, shift, weekCount * cellsPerWeek);
+            System.arraycopy(zeroCounts, 0, newZeroCounts, shift, weekCount * cellsPerWeek);
+            sums = newSums;
+            counts = newCounts;
+            zeroCounts = newZeroCounts;
+        }
+
+        firstWeek = newFirst;
+        weekCount = newCount;
+    }
+}
@@ -0,0 +1,302 @@
+package com.censoredsurvivors.data.storage;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Weekly post counts of many customers and channels in one flat int[], indexed [customer][channel][epoch week].
+ *
+ * Every customer only stores the weeks of its contract window, the Mondays between the contract start and end,
+ * so the tensor is as small as the posts table without any of its per-row objects. The window is the validity
+ * mask: weeks outside of it are not stored, read as 0 and reported by {@link #isValid(int, int)}.
+ *
+ * The customer's block holds the channels one after another, so the total over the channels is summed
+ * sequentially without materializing or regrouping a table.
+ */
+public class PostCountTensor {
+    private final String[] customerIds;
+    private final Map<String, Integer> customerIndexes;
+    private final List<SocialMediaChannel> channels;
+    private final int[] firstWeeks;
+    private final int[] weekCounts;
+    private final int[] offsets;
+    private final int[] counts;
+
+    private PostCountTensor(String[] customerIds, List<SocialMediaChannel> channels, int[] firstWeeks, int[] weekCounts) {
+        this.customerIds = customerIds;
+        this.channels = List.copyOf(channels);
+        this.firstWeeks = firstWeeks;
+        this.weekCounts = weekCounts;
+        this.offsets = new int[customerIds.length + 1];
+        for (int customer = 0; customer < customerIds.length; customer++) {
+            offsets[customer + 1] = Math.addExact(offsets[customer], weekCounts[customer] * channels.size());
+        }
+        this.counts = new int[offsets[customerIds.length]];
+        this.customerIndexes = new HashMap<>(customerIds.length * 2);
+        for (int i = 0; i < customerIds.length; i++) {
+            customerIndexes.put(customerIds[i], i);
+        }
+    }
+
+    /**
+     * Creates an empty tensor covering the contract windows of the customers.
+     *
+     * @param customers Customers table with ids and contract start and end dates.
+     * @param channels Channels of the posts.
+     * @return Tensor with all post counts 0.
+     */
+    public static PostCountTensor forCustomers(Table customers, List<SocialMediaChannel> channels) {
+        StringColumn ids = customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        DateColumn startDates = customers.dateColumn(ProjectConfig.CONTRACT_START_DATE_COLUMN);
+        DateColumn endDates = customers.dateColumn(ProjectConfig.CONTRACT_END_DATE_COLUMN);
+
+        int size = customers.rowCount();
+        String[] customerIds = new String[size];
+        int[] firstWeeks = new int[size];
+        int[] weekCounts = new int[size];
+        for (int customer = 0; customer < size; customer++) {
+            LocalDate start = startDates.get(customer);
+            LocalDate end = endDates.get(customer);
+            customerIds[customer] = ids.get(customer);
+            firstWeeks[customer] = EpochWeeks.firstMondayWeek(start);
+            weekCounts[customer] = Math.max(0, EpochWeeks.lastMondayWeekBefore(end) - firstWeeks[customer] + 1);
+        }
+
+        return new PostCountTensor(customerIds, channels, firstWeeks, weekCounts);
+    }
+
+    /**
+     * Fills the tensor from a posts table as generated by the posts generator.
+     *
+     * The rows of a customer must be in week order, with one row per channel and week, so every change of
+     * the (year, week) pair advances the customer's series by one week. The rows of a customer may be split
+     * into several blocks, a block continues where the customer's previous one ended.
+     *
+     * @param customers Customers table the posts were generated for.
+     * @param posts Posts table.
+     * @param channels Channels of the posts.
+     * @return Tensor with the post counts of the table.
+     */
+    public static PostCountTensor fromPosts(Table customers, Table posts, List<SocialMediaChannel> channels) {
+        return fromPosts(customers, List.of(posts), channels);
+    }
+
+    /**
+     * Fills the tensor from posts tables read one after another as if they were one table, e.g. the history
+     * followed by the extensions of {@link com.censoredsurvivors.data.generator.SocialMediaDatasetExtender},
+     * without copying them into one table.
+     *
+     * @param customers Customers table the posts were generated for.
+     * @param posts Posts tables in order.
+     * @param channels Channels of the posts.
+     * @return Tensor with the post counts of the tables.
+     */
+    public static PostCountTensor fromPosts(Table customers, List<Table> posts, List<SocialMediaChannel> channels) {
+        PostCountTensor tensor = forCustomers(customers, channels);
+        Map<String, Integer> channelIndexes = new HashMap<>();
+        for (int channel = 0; channel < channels.size(); channel++) {
+            channelIndexes.put(channels.get(channel).getDisplayName(), channel);
+        }
+
+        int[] lastWeeks = lastWeeks(tensor.size());
+        long[] lastYearWeeks = new long[tensor.size()];
+        for (Table block : posts) {
+            StringColumn channelNames = block.stringColumn(ProjectConfig.CHANNEL_COLUMN);
+            IntColumn postCounts = block.intColumn(ProjectConfig.POST_COUNT_COLUMN);
+            forEachRow(block, tensor.customerIndexes, tensor.firstWeeks, lastWeeks, lastYearWeeks, (row, customer, epochWeek) -> {
+                Integer channel = channelIndexes.get(channelNames.get(row));
+                if (channel == null) {
+                    throw new IllegalArgumentException("Channel " + channelNames.get(row) + " of the posts is not in the channels.");
+                }
+                if (!tensor.isValid(customer, epochWeek)) {
+                    throw new IllegalArgumentException("The posts of " + tensor.customerIds[customer] + " exceed its contract window.");
+                }
+                tensor.counts[tensor.index(customer, channel, epochWeek)] += postCounts.getInt(row);
+            });
+        }
+
+        return tensor;
+    }
+
+    @FunctionalInterface
+    interface RowConsumer {
+        void accept(int row, int customer, int epochWeek);
+    }
+
+    /**
+     * Resolves the customer and the epoch week of every row of a posts table in the order of {@link #fromPosts}.
+     *
+     * @param posts Posts table.
+     * @param customerIndexes Indexes of the customers by id.
+     * @param firstWeeks Epoch week of the first contract Monday of every customer.
+     * @param consumer Called with every row, its customer and its epoch week.
+     */
+    static void forEachRow(Table posts, Map<String, Integer> customerIndexes, int[] firstWeeks, RowConsumer consumer) {
+        forEachRow(posts, customerIndexes, firstWeeks, lastWeeks(firstWeeks.length), new long[firstWeeks.length], consumer);
+    }
+
+    /**
+     * @return Week of the last row of every customer, -1 before its first row.
+     */
+    private static int[] lastWeeks(int customers) {
+        int[] lastWeeks = new int[customers];
+        Arrays.fill(lastWeeks, -1);
+        return lastWeeks;
+    }
+
+    /**
+     * @param lastWeeks Week of the last row of every customer, continued across the tables.
+     * @param lastYearWeeks (year, week) pair of the last row of every customer, continued across the tables.
+     */
+    private static void forEachRow(
+        Table posts,
+        Map<String, Integer> customerIndexes,
+        int[] firstWeeks,
+        int[] lastWeeks,
+        long[] lastYearWeeks,
+        RowConsumer consumer
+    ) {
+        StringColumn customerIds = posts.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        IntColumn years = posts.intColumn(ProjectConfig.YEAR_COLUMN);
+        IntColumn weeks = posts.intColumn(ProjectConfig.WEEK_COLUMN);
+
+        int customer = -1;
+        for (int row = 0; row < posts.rowCount(); row++) {
+            if (row == 0 || !customerIds.get(row).equals(customerIds.get(row - 1))) {
+                customer = customerIndexes.getOrDefault(customerIds.get(row), -1);
+                if (customer == -1) {
+                    throw new IllegalArgumentException("Customer " + customerIds.get(row) + " of the posts is not in the customers table.");
+                }
+            }
+
+            long yearWeek = (long) years.getInt(row) << 32 | weeks.getInt(row);
+            if (lastWeeks[customer] == -1 || yearWeek != lastYearWeeks[customer]) {
+                lastWeeks[customer]++;
+                lastYearWeeks[customer] = yearWeek;
+            }
+            consumer.accept(row, customer, firstWeeks[customer] + lastWeeks[customer]);
+        }
+    }
+
+    public int size() {
+        return customerIds.length;
+    }
+
+    public String customerId(int customer) {
+        return customerIds[customer];
+    }
+
+    /**
+     * @return Index of the customer, or -1 if it is not in the tensor.
+     */
+    public int indexOf(String customerId) {
+        return customerIndexes.getOrDefault(customerId, -1);
+    }
+
+    public List<SocialMediaChannel> channels() {
+        return channels;
+    }
+
+    /**
+     * @return Epoch week of the customer's first contract Monday.
+     */
+    public int firstWeek(int customer) {
+        return firstWeeks[customer];
+    }
+
+    /**
+     * @return Number of weeks of the customer's contract window.
+     */
+    public int weekCount(int customer) {
+        return weekCounts[customer];
+    }
+
+    /**
+     * @return Whether the epoch week is inside of the customer's contract window.
+     */
+    public boolean isValid(int customer, int epochWeek) {
+        int week = epochWeek - firstWeeks[customer];
+        return week >= 0 && week < weekCounts[customer];
+    }
+
+    /**
+     * @param customer Index of the customer.
+     * @param channel Index of the channel in {@link #channels()}.
+     * @param epochWeek Epoch week of the posts.
+     * @return Post count, 0 outside of the contract window.
+     */
+    public int get(int customer, int channel, int epochWeek) {
+        return isValid(customer, epochWeek) ? counts[index(customer, channel, epochWeek)] : 0;
+    }
+
+    /**
+     * Adds posts inside of the customer's contract window.
+     *
+     * @param customer Index of the customer.
+     * @param channel Index of the channel in {@link #channels()}.
+     * @param epochWeek Epoch week of the posts.
+     * @param postCount Number of posts to add.
+     */
+    public void add(int customer, int channel, int epochWeek, int postCount) {
+        if (!isValid(customer, epochWeek)) {
+            throw new IndexOutOfBoundsException("Week " + epochWeek + " is outside of the contract window of " + customerIds[customer] + ".");
+        }
+
+        counts[index(customer, channel, epochWeek)] += postCount;
+    }
+
+    /**
+     * @return The customer's weekly post counts summed over the channels.
+     */
+    public double[] total(int customer) {
+        double[] target = new double[weekCounts[customer]];
+        total(customer, target, 0);
+        return target;
+    }
+
+    /**
+     * Writes the customer's weekly post counts summed over the channels into the target.
+     *
+     * @param customer Index of the customer.
+     * @param target Array to write the series to.
+     * @param offset Index in the target to write the first week to.
+     * @return Number of weeks written.
+     */
+    public int total(int customer, double[] target, int offset) {
+        int length = weekCounts[customer];
+        if (offset + length > target.length) {
+            throw new IllegalArgumentException("The target is too short for the series of " + customerIds[customer] + ".");
+        }
+
+        int base = offsets[customer];
+        Arrays.fill(target, offset, offset + length, 0);
+        for (int channel = 0; channel < channels.size(); channel++) {
+            int channelBase = base + channel * length;
+            for (int week = 0; week < length; week++) {
+                target[offset + week] += counts[channelBase + week];
+            }
+        }
+
+        return length;
+    }
+
+    private int index(int customer, int channel, int epochWeek) {
+        if (channel < 0 || channel >= channels.size()) {
+            throw new IndexOutOfBoundsException("Channel " + channel + " is not in the tensor.");
+        }
+
+        return offsets[customer] + channel * weekCounts[customer] + epochWeek - firstWeeks[customer];
+    }
+}
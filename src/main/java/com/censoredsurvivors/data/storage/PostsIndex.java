@@ -0,0 +1,184 @@
+package com.censoredsurvivors.data.storage;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.IntColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Index of a posts table sorted by (customer, channel, epoch week) for time range queries.
+ *
+ * The rows are counting-sorted into one segment per customer and channel, and every segment is sorted by week,
+ * so the index is built once in O(n log n). The offsets of the segments locate a customer and channel in O(1),
+ * and a binary search within the segment finds the weeks. A range query returns a {@link Slice} of the index
+ * arrays without copying.
+ */
+public class PostsIndex {
+    private static final int CHANNELS = SocialMediaChannel.values().length;
+
+    private final Map<String, Integer> customerIndexes;
+    // segment of customer c and channel ch is [offsets[c * CHANNELS + ch], offsets[c * CHANNELS + ch + 1])
+    private final int[] offsets;
+    private final int[] epochWeeks;
+    private final int[] postCounts;
+    private final int[] rows;
+
+    /**
+     * Posts of a customer and channel in a week range, sharing the arrays of the index.
+     *
+     * @param epochWeeks Epoch weeks of the index, in order within the slice.
+     * @param postCounts Post counts of the index.
+     * @param rows Rows of the posts table of the index.
+     * @param from First position of the slice in the arrays, inclusive.
+     * @param to Last position of the slice in the arrays, exclusive.
+     */
+    public record Slice(int[] epochWeeks, int[] postCounts, int[] rows, int from, int to) {
+        public int size() {
+            return to - from;
+        }
+
+        public int epochWeek(int i) {
+            return epochWeeks[from + i];
+        }
+
+        public int postCount(int i) {
+            return postCounts[from + i];
+        }
+
+        /**
+         * @return Row of the i-th post in the posts table.
+         */
+        public int row(int i) {
+            return rows[from + i];
+        }
+
+        /**
+         * @return Read-only buffer over the post counts of the slice.
+         */
+        public IntBuffer postCountBuffer() {
+            return IntBuffer.wrap(postCounts, from, to - from).slice().asReadOnlyBuffer();
+        }
+    }
+
+    private PostsIndex(Map<String, Integer> customerIndexes, int[] offsets, int[] epochWeeks, int[] postCounts, int[] rows) {
+        this.customerIndexes = customerIndexes;
+        this.offsets = offsets;
+        this.epochWeeks = epochWeeks;
+        this.postCounts = postCounts;
+        this.rows = rows;
+    }
+
+    /**
+     * Builds the index of a posts table, see {@link PostCountTensor#fromPosts} for the expected row order.
+     *
+     * @param customerTable Customers table the posts were generated for.
+     * @param posts Posts table.
+     * @return The index.
+     */
+    public static PostsIndex build(Table customerTable, Table posts) {
+        StringColumn ids = customerTable.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        DateColumn startDates = customerTable.dateColumn(ProjectConfig.CONTRACT_START_DATE_COLUMN);
+        int customers = customerTable.rowCount();
+        int[] firstWeeks = new int[customers];
+        Map<String, Integer> customerIndexes = new HashMap<>(customers * 2);
+        for (int customer = 0; customer < customers; customer++) {
+            firstWeeks[customer] = EpochWeeks.firstMondayWeek(startDates.get(customer));
+            customerIndexes.put(ids.get(customer), customer);
+        }
+
+        int n = posts.rowCount();
+        StringColumn channelNames = posts.stringColumn(ProjectConfig.CHANNEL_COLUMN);
+        IntColumn postCountColumn = posts.intColumn(ProjectConfig.POST_COUNT_COLUMN);
+        int[] keys = new int[n];
+        int[] rowWeeks = new int[n];
+        PostCountTensor.forEachRow(posts, customerIndexes, firstWeeks, (row, customer, epochWeek) -> {
+            keys[row] = customer * CHANNELS + SocialMediaChannel.getByDisplayName(channelNames.get(row)).ordinal();
+            rowWeeks[row] = epochWeek;
+        });
+
+        // counting sort by customer and channel
+        int[] offsets = new int[customers * CHANNELS + 1];
+        for (int key : keys) {
+            offsets[key + 1]++;
+        }
+        for (int key = 0; key < offsets.length - 1; key++) {
+            offsets[key + 1] += offsets[key];
+        }
+        // week in the high bits and row in the low bits sort by week, then by row
+        long[] weekRows = new long[n];
+        int[] next = Arrays.copyOf(offsets, offsets.length - 1);
+        for (int row = 0; row < n; row++) {
+            weekRows[next[keys[row]]++] = (long) rowWeeks[row] << 32 | row;
+        }
+        IntStream.range(0, offsets.length - 1).parallel()
+            .forEach(key -> Arrays.sort(weekRows, offsets[key], offsets[key + 1]));
+
+        int[] epochWeeks = new int[n];
+        int[] postCounts = new int[n];
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            epochWeeks[i] = (int) (weekRows[i] >> 32);
+            rows[i] = (int) weekRows[i];
+            postCounts[i] = postCountColumn.getInt(rows[i]);
+        }
+
+        return new PostsIndex(customerIndexes, offsets, epochWeeks, postCounts, rows);
+    }
+
+    public int size() {
+        return epochWeeks.length;
+    }
+
+    /**
+     * @param customerId Id of the customer.
+     * @param channel Channel of the posts.
+     * @param fromWeek First epoch week, inclusive.
+     * @param toWeek Last epoch week, exclusive.
+     * @return Posts of the customer and channel in the weeks, empty for an unknown customer.
+     */
+    public Slice range(String customerId, SocialMediaChannel channel, int fromWeek, int toWeek) {
+        Integer customer = customerIndexes.get(customerId);
+        if (customer == null) {
+            return new Slice(epochWeeks, postCounts, rows, 0, 0);
+        }
+
+        int key = customer * CHANNELS + channel.ordinal();
+        int from = lowerBound(offsets[key], offsets[key + 1], fromWeek);
+        int to = lowerBound(from, offsets[key + 1], toWeek);
+        return new Slice(epochWeeks, postCounts, rows, from, to);
+    }
+
+    /**
+     * @return All posts of the customer and channel.
+     */
+    public Slice range(String customerId, SocialMediaChannel channel) {
+        return range(customerId, channel, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    /**
+     * @return First position in [from, to) with a week not before the given one, or to.
+     */
+    private int lowerBound(int from, int to, int epochWeek) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (epochWeeks[middle] < epochWeek) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,208 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaCountry;
+import com.censoredsurvivors.data.model.SocialMediaIndustry;
+import com.censoredsurvivors.data.model.SocialMediaPlan;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Dense, row-major design matrix of the Cox model, one row per customer.
+ *
+ * Industry, country and plan are dummy coded against their first value. The channel set is coded as one
+ * indicator per channel the customer posts on. Columns that are constant over all customers are dropped,
+ * as they cannot be estimated.
+ */
+public class CoxDesignMatrix {
+    private final String[] columnNames;
+    private final double[] values;
+    private final int rows;
+
+    /**
+     * @param columnNames Names of the columns.
+     * @param values Row-major values, rows * columns long.
+     */
+    public CoxDesignMatrix(String[] columnNames, double[] values) {
+        if (columnNames.length == 0 || values.length % columnNames.length != 0) {
+            throw new IllegalArgumentException("The values must fill whole rows of the design matrix.");
+        }
+
+        this.columnNames = columnNames;
+        this.values = values;
+        this.rows = values.length / columnNames.length;
+    }
+
+    /**
+     * @see #fromCustomers(Table, Table)
+     */
+    public static CoxDesignMatrix fromCustomers(Table customers) {
+        return build(customers, null);
+    }
+
+    /**
+     * Builds the design matrix from the enum columns of the customers and the channels they post on.
+     *
+     * @param customers Customers table.
+     * @param posts Posts table of the same customers.
+     * @return Design matrix with one row per customer row.
+     */
+    public static CoxDesignMatrix fromCustomers(Table customers, Table posts) {
+        return build(customers, posts);
+    }
+
+    private static CoxDesignMatrix build(Table customers, Table posts) {
+        int rows = customers.rowCount();
+        int[] channelMasks = posts == null ? null : channelMasks(customers, posts);
+
+        List<String> names = new ArrayList<>();
+        SocialMediaIndustry[] industries = SocialMediaIndustry.values();
+        SocialMediaCountry[] countries = SocialMediaCountry.values();
+        SocialMediaPlan[] plans = SocialMediaPlan.values();
+        SocialMediaChannel[] channels = SocialMediaChannel.values();
+        for (int i = 1; i < industries.length; i++) {
+            names.add(ProjectConfig.INDUSTRY_COLUMN + "=" + industries[i].getDisplayName());
+        }
+        for (int i = 1; i < countries.length; i++) {
+            names.add(ProjectConfig.COUNTRY_COLUMN + "=" + countries[i].getDisplayName());
+        }
+        for (int i = 1; i < plans.length; i++) {
+            names.add(ProjectConfig.PLAN_COLUMN + "=" + plans[i].getDisplayName());
+        }
+        if (channelMasks != null) {
+            for (SocialMediaChannel channel : channels) {
+                names.add(ProjectConfig.CHANNEL_COLUMN + "=" + channel.getDisplayName());
+            }
+        }
+
+        int columns = names.size();
+        int countryOffset = industries.length - 1;
+        int planOffset = countryOffset + countries.length - 1;
+        int channelOffset = planOffset + plans.length - 1;
+
+        StringColumn industryColumn = customers.stringColumn(ProjectConfig.INDUSTRY_COLUMN);
+        StringColumn countryColumn = customers.stringColumn(ProjectConfig.COUNTRY_COLUMN);
+        StringColumn planColumn = customers.stringColumn(ProjectConfig.PLAN_COLUMN);
+
+        double[] values = new double[rows * columns];
+        for (int row = 0; row < rows; row++) {
+            int offset = row * columns;
+            int industry = SocialMediaIndustry.getByDisplayName(industryColumn.get(row)).ordinal();
+            int country = SocialMediaCountry.getByDisplayName(countryColumn.get(row)).ordinal();
+            int plan = SocialMediaPlan.getByDisplayName(planColumn.get(row)).ordinal();
+
+            if (industry > 0) {
+                values[offset + industry - 1] = 1;
+            }
+            if (country > 0) {
+                values[offset + countryOffset + country - 1] = 1;
+            }
+            if (plan > 0) {
+                values[offset + planOffset + plan - 1] = 1;
+            }
+            if (channelMasks != null) {
+                for (int channel = 0; channel < channels.length; channel++) {
+                    if ((channelMasks[row] & (1 << channel)) != 0) {
+                        values[offset + channelOffset + channel] = 1;
+                    }
+                }
+            }
+        }
+
+        return new CoxDesignMatrix(names.toArray(String[]::new), values).withoutConstantColumns();
+    }
+
+    /**
+     * @return Bit mask of the channels every customer row posts on.
+     */
+    private static int[] channelMasks(Table customers, Table posts) {
+        StringColumn customerIds = customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        Map<String, Integer> rowsById = new HashMap<>(customers.rowCount() * 2);
+        for (int row = 0; row < customers.rowCount(); row++) {
+            rowsById.put(customerIds.get(row), row);
+        }
+
+        StringColumn postCustomerIds = posts.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        StringColumn postChannels = posts.stringColumn(ProjectConfig.CHANNEL_COLUMN);
+        int[] masks = new int[customers.rowCount()];
+        String previousId = null;
+        int row = -1;
+        for (int i = 0; i < posts.rowCount(); i++) {
+            // Posts are grouped by customer, so the lookup is mostly skipped.
+            String customerId = postCustomerIds.get(i);
+            if (!customerId.equals(previousId)) {
+                Integer found = rowsById.get(customerId);
+                if (found == null) {
+                    throw new IllegalArgumentException("Posts reference an unknown customer: " + customerId);
+                }
+                row = found;
+                previousId = customerId;
+            }
+            masks[row] |= 1 << SocialMediaChannel.getByDisplayName(postChannels.get(i)).ordinal();
+        }
+
+        return masks;
+    }
+
+    private CoxDesignMatrix withoutConstantColumns() {
+        int columns = columnNames.length;
+        boolean[] keep = new boolean[columns];
+        int kept = 0;
+        for (int column = 0; column < columns; column++) {
+            for (int row = 1; row < rows; row++) {
+                if (values[row * columns + column] != values[column]) {
+                    keep[column] = true;
+                    kept++;
+                    break;
+                }
+            }
+        }
+        if (kept == columns) {
+            return this;
+        }
+        if (kept == 0) {
+            throw new IllegalArgumentException("All covariates are constant, there is nothing to fit.");
+        }
+
+        String[] keptNames = new String[kept];
+        double[] keptValues = new double[rows * kept];
+        for (int column = 0, target = 0; column < columns; column++) {
+            if (!keep[column]) {
+                continue;
+            }
+            keptNames[target] = columnNames[column];
+            for (int row = 0; row < rows; row++) {
+                keptValues[row * kept + target] = values[row * columns + column];
+            }
+            target++;
+        }
+
+        return new CoxDesignMatrix(keptNames, keptValues);
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public int columns() {
+        return columnNames.length;
+    }
+
+    public String[] columnNames() {
+        return columnNames;
+    }
+
+    /**
+     * @return Row-major values, rows * columns long.
+     */
+    public double[] values() {
+        return values;
+    }
+}
@@ -0,0 +1,340 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.stream.IntStream;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.apache.commons.math3.linear.CholeskyDecomposition;
+import org.apache.commons.math3.linear.DecompositionSolver;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+
+/**
+ * Cox proportional hazards model fitted by Newton–Raphson with Breslow ties.
+ *
+ * Every iteration makes two parallel passes over the rows and one sequential pass over the days:
+ * 1. rows are counting-sorted into per-day sums of exp(x'b) and x * exp(x'b), split over cores,
+ * 2. a single reverse cumulative pass over the days gives the risk-set sums S0(t) and S1(t), the gradient
+ *    and the S1 S1' / S0^2 part of the information matrix,
+ * 3. the S2 / S0 part is accumulated per row as exp(x'b) * x x' * (C(exit) - C(entry)), where C is the
+ *    cumulative sum of d(t) / S0(t), again split over cores.
+ * This avoids keeping an S2 matrix per day and never creates per-row objects.
+ *
+ * Delayed entry is taken into account: a customer is at risk on day t when entryDay < t <= exitDay.
+ */
+public class CoxProportionalHazards {
+    private static final int MAX_ITERATIONS = 30;
+    private static final int MAX_STEP_HALVINGS = 20;
+    private static final double TOLERANCE = 1e-9;
+
+    private final int parallelism;
+
+    /**
+     * @param names Names of the covariates.
+     * @param coefficients Log hazard ratios.
+     * @param standardErrors Standard errors of the coefficients.
+     * @param logLikelihood Partial log-likelihood at the coefficients.
+     * @param iterations Number of Newton–Raphson iterations.
+     * @param converged Whether the iterations converged, false if no step halving improved the log-likelihood.
+     */
+    public record Model(
+        String[] names,
+        double[] coefficients,
+        double[] standardErrors,
+        double logLikelihood,
+        int iterations,
+        boolean converged
+    ) {
+        public double hazardRatio(int covariate) {
+            return Math.exp(coefficients[covariate]);
+        }
+
+        /**
+         * @return Two-sided Wald test p-value of the covariate.
+         */
+        public double pValue(int covariate) {
+            double z = Math.abs(coefficients[covariate] / standardErrors[covariate]);
+            return 2 * (1 - new NormalDistribution().cumulativeProbability(z));
+        }
+    }
+
+    /**
+     * Per-day sums of one row chunk.
+     */
+    private record DaySums(double[] exitWeights, double[] exitMoments, double[] entryWeights, double[] entryMoments) {}
+
+    /**
+     * Gradient, information matrix and log-likelihood at given coefficients.
+     */
+    private record Derivatives(double logLikelihood, double[] gradient, double[] information) {}
+
+    public CoxProportionalHazards() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param parallelism Number of row chunks accumulated in parallel.
+     */
+    public CoxProportionalHazards(int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("The parallelism has to be positive.");
+        }
+
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * Fits the model.
+     *
+     * @param data Survival times of the customers.
+     * @param design Covariates of the same customers, in the same order.
+     * @return Fitted model.
+     */
+    public Model fit(SurvivalData data, CoxDesignMatrix design) {
+        if (data.size() != design.rows()) {
+            throw new IllegalArgumentException("The survival data and the design matrix must have the same rows.");
+        }
+
+        int p = design.columns();
+        double[] eventMoments = eventMoments(data, design);
+        double[] beta = new double[p];
+        Derivatives current = derivatives(data, design, eventMoments, beta);
+
+        int iteration = 0;
+        boolean converged = false;
+        while (iteration < MAX_ITERATIONS && !converged) {
+            iteration++;
+            double[] step = solve(current.information(), current.gradient(), p);
+
+            double[] candidate = new double[p];
+            Derivatives next = null;
+            for (int halving = 0; halving <= MAX_STEP_HALVINGS && next == null; halving++) {
+                for (int j = 0; j < p; j++) {
+                    candidate[j] = beta[j] + step[j];
+                }
+                Derivatives halved = derivatives(data, design, eventMoments, candidate);
+                if (halved.logLikelihood() >= current.logLikelihood() - TOLERANCE) {
+                    next = halved;
+                }
+                for (int j = 0; j < p; j++) {
+                    step[j] /= 2;
+                }
+            }
+            if (next == null) {
+                // no halving improves the log-likelihood: keep the last coefficients, not converged
+                break;
+            }
+
+            converged = Math.abs(next.logLikelihood() - current.logLikelihood())
+                <= TOLERANCE * (Math.abs(current.logLikelihood()) + TOLERANCE);
+            beta = candidate;
+            current = next;
+        }
+
+        double[] covariance = inverse(current.information(), p);
+        double[] standardErrors = new double[p];
+        for (int j = 0; j < p; j++) {
+            standardErrors[j] = Math.sqrt(covariance[j * p + j]);
+        }
+
+        return new Model(
+            design.columnNames().clone(),
+            beta,
+            standardErrors,
+            current.logLikelihood(),
+            iteration,
+            converged
+        );
+    }
+
+    /**
+     * @return Sum of the covariates over all churn events, constant over the iterations.
+     */
+    private double[] eventMoments(SurvivalData data, CoxDesignMatrix design) {
+        int p = design.columns();
+        double[] values = design.values();
+        double[] moments = new double[p];
+        for (int row = 0; row < data.size(); row++) {
+            if (data.events()[row] && isAtRisk(data, row)) {
+                for (int j = 0; j < p; j++) {
+                    moments[j] += values[row * p + j];
+                }
+            }
+        }
+        return moments;
+    }
+
+    private Derivatives derivatives(SurvivalData data, CoxDesignMatrix design, double[] eventMoments, double[] beta) {
+        int p = design.columns();
+        int days = data.maxDay() + 1;
+        int rows = data.size();
+        int chunk = (rows + parallelism - 1) / parallelism;
+        double[] values = design.values();
+
+        // 1. per-day sums, chunks in parallel
+        double[] weights = new double[rows];
+        DaySums sums = IntStream.range(0, parallelism).parallel()
+            .mapToObj(task -> {
+                DaySums local = new DaySums(new double[days], new double[days * p], new double[days], new double[days * p]);
+                for (int row = task * chunk; row < Math.min(rows, (task + 1) * chunk); row++) {
+                    if (!isAtRisk(data, row)) {
+                        continue;
+                    }
+
+                    double eta = 0;
+                    for (int j = 0; j < p; j++) {
+                        eta += values[row * p + j] * beta[j];
+                    }
+                    double weight = Math.exp(eta);
+                    weights[row] = weight;
+
+                    int exit = data.exitDays()[row];
+                    int entry = data.entryDays()[row];
+                    local.exitWeights()[exit] += weight;
+                    local.entryWeights()[entry] += weight;
+                    for (int j = 0; j < p; j++) {
+                        double moment = weight * values[row * p + j];
+                        local.exitMoments()[exit * p + j] += moment;
+                        local.entryMoments()[entry * p + j] += moment;
+                    }
+                }
+                return local;
+            })
+            .reduce(CoxProportionalHazards::merge)
+            .orElseThrow();
+
+        // 2. single reverse cumulative pass over the days
+        int[] eventCounts = new int[days];
+        for (int row = 0; row < rows; row++) {
+            if (data.events()[row] && isAtRisk(data, row)) {
+                eventCounts[data.exitDays()[row]]++;
+            }
+        }
+
+        double logLikelihood = 0;
+        for (int j = 0; j < p; j++) {
+            logLikelihood += beta[j] * eventMoments[j];
+        }
+        double[] gradient = eventMoments.clone();
+        double[] information = new double[p * p];
+        double[] hazardIncrements = new double[days];
+        double s0 = 0;
+        double[] s1 = new double[p];
+        for (int day = days - 1; day >= 0; day--) {
+            // Risk set on this day: exiting on or after it, minus entering on or after it.
+            s0 += sums.exitWeights()[day] - sums.entryWeights()[day];
+            for (int j = 0; j < p; j++) {
+                s1[j] += sums.exitMoments()[day * p + j] - sums.entryMoments()[day * p + j];
+            }
+
+            int events = eventCounts[day];
+            if (events == 0) {
+                continue;
+            }
+
+            logLikelihood -= events * Math.log(s0);
+            hazardIncrements[day] = events / s0;
+            for (int a = 0; a < p; a++) {
+                double mean = s1[a] / s0;
+                gradient[a] -= events * mean;
+                for (int b = 0; b <= a; b++) {
+                    information[a * p + b] -= events * mean * s1[b] / s0;
+                }
+            }
+        }
+
+        double[] cumulativeHazard = new double[days];
+        double running = 0;
+        for (int day = 0; day < days; day++) {
+            running += hazardIncrements[day];
+            cumulativeHazard[day] = running;
+        }
+
+        // 3. S2 / S0 part of the information matrix, chunks in parallel
+        double[] secondMoments = IntStream.range(0, parallelism).parallel()
+            .mapToObj(task -> {
+                double[] local = new double[p * p];
+                for (int row = task * chunk; row < Math.min(rows, (task + 1) * chunk); row++) {
+                    if (!isAtRisk(data, row)) {
+                        continue;
+                    }
+
+                    double factor = weights[row]
+                        * (cumulativeHazard[data.exitDays()[row]] - cumulativeHazard[data.entryDays()[row]]);
+                    if (factor == 0) {
+                        continue;
+                    }
+                    for (int a = 0; a < p; a++) {
+                        double xa = values[row * p + a] * factor;
+                        if (xa == 0) {
+                            continue;
+                        }
+                        for (int b = 0; b <= a; b++) {
+                            local[a * p + b] += xa * values[row * p + b];
+                        }
+                    }
+                }
+                return local;
+            })
+            .reduce((left, right) -> {
+                for (int i = 0; i < left.length; i++) {
+                    left[i] += right[i];
+                }
+                return left;
+            })
+            .orElseThrow();
+
+        for (int a = 0; a < p; a++) {
+            for (int b = 0; b <= a; b++) {
+                double value = information[a * p + b] + secondMoments[a * p + b];
+                information[a * p + b] = value;
+                information[b * p + a] = value;
+            }
+        }
+
+        return new Derivatives(logLikelihood, gradient, information);
+    }
+
+    private static DaySums merge(DaySums left, DaySums right) {
+        add(left.exitWeights(), right.exitWeights());
+        add(left.exitMoments(), right.exitMoments());
+        add(left.entryWeights(), right.entryWeights());
+        add(left.entryMoments(), right.entryMoments());
+        return left;
+    }
+
+    private static void add(double[] target, double[] source) {
+        for (int i = 0; i < target.length; i++) {
+            target[i] += source[i];
+        }
+    }
+
+    private static boolean isAtRisk(SurvivalData data, int row) {
+        return data.exitDays()[row] > data.entryDays()[row];
+    }
+
+    private static double[] solve(double[] information, double[] gradient, int p) {
+        DecompositionSolver solver = new CholeskyDecomposition(matrix(information, p)).getSolver();
+        return solver.solve(MatrixUtils.createRealVector(gradient)).toArray();
+    }
+
+    private static double[] inverse(double[] information, int p) {
+        RealMatrix inverse = new CholeskyDecomposition(matrix(information, p)).getSolver().getInverse();
+        double[] values = new double[p * p];
+        for (int a = 0; a < p; a++) {
+            for (int b = 0; b < p; b++) {
+                values[a * p + b] = inverse.getEntry(a, b);
+            }
+        }
+        return values;
+    }
+
+    private static RealMatrix matrix(double[] values, int p) {
+        RealMatrix matrix = MatrixUtils.createRealMatrix(p, p);
+        for (int a = 0; a < p; a++) {
+            for (int b = 0; b < p; b++) {
+                matrix.setEntry(a, b, values[a * p + b]);
+            }
+        }
+        return matrix;
+    }
+}
@@ -0,0 +1,218 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.Arrays;
+
+/**
+ * Nelson–Aalen cumulative hazard maintained incrementally as customers arrive, churn and get censored.
+ *
+ * Time is measured in days since the contract start, as in {@link SurvivalData}. The estimator keeps
+ * per-day entry, exit and event counts, with the entries and exits also in Fenwick trees, so every update
+ * is O(log T) and the number at risk on any day is an O(log T) prefix sum.
+ *
+ * The hazard increment of a day depends on the number at risk on it, which a single update changes for
+ * every later day, so the cumulative hazard cannot be kept in a tree exactly. It is refreshed lazily instead:
+ * a query rescans the days from the earliest changed one up to the queried day only, and queries of
+ * unchanged days are O(1) lookups. The rescan sums in the same order as {@link KaplanMeierEstimator},
+ * so the results are identical to a batch recomputation.
+ */
+public class IncrementalNelsonAalen {
+    private static final int INITIAL_DAYS = 1024;
+
+    private int[] entries = new int[INITIAL_DAYS];
+    private int[] exits = new int[INITIAL_DAYS];
+    private int[] events = new int[INITIAL_DAYS];
+    // Fenwick trees of the entries and exits, node i sums the days [i - (i & -i), i)
+    private int[] entryTree = new int[INITIAL_DAYS + 1];
+    private int[] exitTree = new int[INITIAL_DAYS + 1];
+    private double[] cumulativeHazard = new double[INITIAL_DAYS];
+    private int maxDay = 0;
+    // The cumulative hazard is up to date on the days before this one.
+    private int validUntil = 0;
+
+    /**
+     * @return Estimator over all customers of the survival data.
+     */
+    public static IncrementalNelsonAalen of(SurvivalData data) {
+        IncrementalNelsonAalen estimator = new IncrementalNelsonAalen();
+        for (int i = 0; i < data.size(); i++) {
+            int entryDay = data.entryDays()[i];
+            estimator.addCustomer(entryDay);
+            if (data.events()[i]) {
+                estimator.churn(entryDay, data.exitDays()[i]);
+            } else {
+                estimator.censor(entryDay, data.exitDays()[i]);
+            }
+        }
+        return estimator;
+    }
+
+    /**
+     * Adds a customer that is at risk after the entry day until it churns or is censored.
+     *
+     * @param entryDay Days since the contract start the customer is first observed at.
+     */
+    public void addCustomer(int entryDay) {
+        checkDay(entryDay);
+        ensureCapacity(entryDay);
+        entries[entryDay]++;
+        add(entryTree, entryDay, 1);
+        // Open customers stay at risk, so the last day has to cover their entry.
+        maxDay = Math.max(maxDay, entryDay);
+        markStale(entryDay);
+    }
+
+    /**
+     * Records the churn of a customer added with the given entry day.
+     *
+     * @param entryDay Entry day the customer was added with.
+     * @param day Days since the contract start the customer churned at.
+     */
+    public void churn(int entryDay, int day) {
+        exit(entryDay, day, true);
+    }
+
+    /**
+     * Records the censoring of a customer added with the given entry day.
+     *
+     * @param entryDay Entry day the customer was added with.
+     * @param day Days since the contract start the customer was last observed at.
+     */
+    public void censor(int entryDay, int day) {
+        exit(entryDay, day, false);
+    }
+
+    /**
+     * @param day Days since the contract start.
+     * @return Number of customers at risk on the given day.
+     */
+    public int atRisk(int day) {
+        checkDay(day);
+        // at risk on the day: entered on an earlier day and not exited on an earlier day
+        return prefixSum(entryTree, day) - prefixSum(exitTree, day);
+    }
+
+    /**
+     * @param day Days since the contract start.
+     * @return Cumulative hazard on the given day, 0 before the first event.
+     */
+    public double cumulativeHazard(int day) {
+        checkDay(day);
+        int lastDay = Math.min(day, maxDay);
+        refresh(lastDay);
+        return cumulativeHazard[lastDay];
+    }
+
+    /**
+     * @param day Days since the contract start.
+     * @return Survival probability exp(-H) on the given day.
+     */
+    public double survival(int day) {
+        return Math.exp(-cumulativeHazard(day));
+    }
+
+    private void exit(int entryDay, int day, boolean event) {
+        checkDay(entryDay);
+        checkDay(day);
+        if (entryDay >= entries.length || entries[entryDay] == 0) {
+            throw new IllegalArgumentException("No customer was added with the entry day " + entryDay + ".");
+        }
+
+        // Never at risk, as in the batch estimator: the customer is dropped.
+        if (day <= entryDay) {
+            entries[entryDay]--;
+            add(entryTree, entryDay, -1);
+            markStale(entryDay);
+            return;
+        }
+
+        ensureCapacity(day);
+        exits[day]++;
+        add(exitTree, day, 1);
+        if (event) {
+            events[day]++;
+        }
+        maxDay = Math.max(maxDay, day);
+        markStale(day);
+    }
+
+    /**
+     * The counts of the day changed: its own hazard increment and the ones after it are stale.
+     */
+    private void markStale(int day) {
+        validUntil = Math.min(validUntil, day);
+    }
+
+    /**
+     * Rescans the stale days up to the given one.
+     */
+    private void refresh(int lastDay) {
+        if (lastDay < validUntil) {
+            return;
+        }
+
+        int risk = atRisk(validUntil);
+        double hazard = validUntil == 0 ? 0.0 : cumulativeHazard[validUntil - 1];
+        for (int day = validUntil; day <= lastDay; day++) {
+            if (day > validUntil) {
+                risk += entries[day - 1] - exits[day - 1];
+            }
+            if (events[day] > 0) {
+                hazard += (double) events[day] / risk;
+            }
+            cumulativeHazard[day] = hazard;
+        }
+        validUntil = lastDay + 1;
+    }
+
+    private static void add(int[] tree, int day, int delta) {
+        for (int node = day + 1; node < tree.length; node += node & -node) {
+            tree[node] += delta;
+        }
+    }
+
+    /**
+     * @return Sum of the days before the given one.
+     */
+    private static int prefixSum(int[] tree, int day) {
+        int sum = 0;
+        for (int node = Math.min(day, tree.length - 1); node > 0; node -= node & -node) {
+            sum += tree[node];
+        }
+        return sum;
+    }
+
+    private void ensureCapacity(int day) {
+        if (day + 1 < entries.length) {
+            return;
+        }
+
+        int length = Math.max(entries.length * 2, day + 2);
+        entries = Arrays.copyOf(entries, length);
+        exits = Arrays.copyOf(exits, length);
+        events = Arrays.copyOf(events, length);
+        cumulativeHazard = Arrays.copyOf(cumulativeHazard, length);
+        entryTree = tree(entries);
+        exitTree = tree(exits);
+    }
+
+    /**
+     * @return Fenwick tree of the daily counts, built in O(T).
+     */
+    private static int[] tree(int[] counts) {
+        int[] tree = new int[counts.length + 1];
+        for (int node = 1; node < tree.length; node++) {
+            tree[node] += counts[node - 1];
+            int parent = node + (node & -node);
+            if (parent < tree.length) {
+                tree[parent] += tree[node];
+            }
+        }
+        return tree;
+    }
+
+    private static void checkDay(int day) {
+        if (day < 0) {
+            throw new IllegalArgumentException("The day cannot be negative.");
+        }
+    }
+}
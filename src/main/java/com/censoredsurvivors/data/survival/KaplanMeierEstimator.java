@@ -0,0 +1,146 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.censoredsurvivors.data.model.SocialMediaParam;
+
+/**
+ * Kaplan–Meier survival estimator.
+ *
+ * Survival times are whole days, so the customers are counting-sorted into per-day buckets in a single pass
+ * and every stratum's curve is read off with one linear scan over its buckets.
+ * The cost is O(n + strata * days) with no comparison sort and no per-customer objects.
+ */
+public class KaplanMeierEstimator {
+
+    /**
+     * Per-day counts of every stratum, laid out as [stratum][day].
+     */
+    record DayCounts(int days, int[] entries, int[] exits, int[] events) {}
+
+    /**
+     * Estimates a single survival curve over all customers.
+     */
+    public SurvivalCurve estimate(SurvivalData data) {
+        return scan(count(data, new int[data.size()], 1), 0);
+    }
+
+    /**
+     * Estimates one survival curve per stratum in the same pass.
+     *
+     * @param data Survival data of the customers.
+     * @param strata Parameters to stratify by, see {@link SurvivalData#strata(List)}.
+     * @return Curves keyed by stratum label, in stratum code order. Strata without customers are left out.
+     */
+    public Map<String, SurvivalCurve> estimate(SurvivalData data, List<SocialMediaParam> strata) {
+        SurvivalData.Strata encoded = data.strata(strata);
+        DayCounts counts = count(data, encoded.codes(), encoded.count());
+
+        Map<String, SurvivalCurve> curves = new LinkedHashMap<>();
+        for (int stratum = 0; stratum < encoded.count(); stratum++) {
+            SurvivalCurve curve = scan(counts, stratum);
+            if (curve.size() > 0) {
+                curves.put(encoded.labels()[stratum], curve);
+            }
+        }
+
+        return curves;
+    }
+
+    /**
+     * Counting sort of the customers into per-day buckets.
+     * Customers that exit on or before their entry day are never at risk and are skipped.
+     */
+    static DayCounts count(SurvivalData data, int[] codes, int strataCount) {
+        int days = data.maxDay() + 1;
+        int[] entries = new int[strataCount * days];
+        int[] exits = new int[strataCount * days];
+        int[] events = new int[strataCount * days];
+
+        int[] entryDays = data.entryDays();
+        int[] exitDays = data.exitDays();
+        boolean[] eventFlags = data.events();
+        for (int i = 0; i < data.size(); i++) {
+            if (exitDays[i] <= entryDays[i]) {
+                continue;
+            }
+
+            int offset = codes[i] * days;
+            entries[offset + entryDays[i]]++;
+            exits[offset + exitDays[i]]++;
+            if (eventFlags[i]) {
+                events[offset + exitDays[i]]++;
+            }
+        }
+
+        return new DayCounts(days, entries, exits, events);
+    }
+
+    /**
+     * Linear scan over the day buckets of one stratum.
+     */
+    static SurvivalCurve scan(DayCounts counts, int stratum) {
+        int offset = stratum * counts.days();
+        int rows = 0;
+        for (int day = 0; day < counts.days(); day++) {
+            if (counts.exits()[offset + day] > 0) {
+                rows++;
+            }
+        }
+
+        int[] days = new int[rows];
+        int[] atRisk = new int[rows];
+        int[] events = new int[rows];
+        int[] censored = new int[rows];
+        double[] survival = new double[rows];
+        double[] standardErrors = new double[rows];
+        double[] cumulativeHazard = new double[rows];
+
+        int row = 0;
+        int risk = 0;
+        double currentSurvival = 1.0;
+        double greenwoodSum = 0.0;
+        double hazard = 0.0;
+        for (int day = 0; day < counts.days(); day++) {
+            // At risk on this day: entered before it and not exited before it.
+            if (day > 0) {
+                risk += counts.entries()[offset + day - 1] - counts.exits()[offset + day - 1];
+            }
+
+            int exits = counts.exits()[offset + day];
+            if (exits == 0) {
+                continue;
+            }
+
+            int dayEvents = counts.events()[offset + day];
+            if (dayEvents > 0) {
+                currentSurvival *= 1.0 - (double) dayEvents / risk;
+                hazard += (double) dayEvents / risk;
+                if (risk > dayEvents) {
+                    greenwoodSum += (double) dayEvents / ((double) risk * (risk - dayEvents));
+                }
+            }
+
+            days[row] = day;
+            atRisk[row] = risk;
+            events[row] = dayEvents;
+            censored[row] = exits - dayEvents;
+            survival[row] = currentSurvival;
+            standardErrors[row] = currentSurvival * Math.sqrt(greenwoodSum);
+            cumulativeHazard[row] = hazard;
+            row++;
+        }
+
+        return new SurvivalCurve(
+            days,
+            atRisk,
+            events,
+            censored,
+            survival,
+            standardErrors,
+            cumulativeHazard
+        );
+    }
+}
@@ -0,0 +1,278 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import org.apache.commons.math3.distribution.ChiSquaredDistribution;
+import org.apache.commons.math3.linear.LUDecomposition;
+import org.apache.commons.math3.linear.MatrixUtils;
+import org.apache.commons.math3.linear.RealMatrix;
+import org.apache.commons.math3.linear.RealVector;
+
+import com.censoredsurvivors.data.model.SocialMediaParam;
+
+/**
+ * Log-rank and weighted log-rank tests comparing the churn of customer groups, e.g. plans or industries.
+ *
+ * The customers are counting-sorted into per-day buckets of every group, as in {@link KaplanMeierEstimator},
+ * and a single merged pass over the days accumulates the observed and expected counts of the k-sample test
+ * and of all pairwise tests at once. Nothing is re-sorted per pair.
+ *
+ * With adjustment parameters the test is stratified: the statistics are summed over the adjustment strata,
+ * e.g. comparing plans while adjusting for the industry.
+ */
+public class LogRank {
+
+    /**
+     * Weight of the event days in the test statistic.
+     */
+    public enum Weighting {
+        /** Equal weights, most powerful under proportional hazards. */
+        LOG_RANK,
+        /** Number at risk, emphasizes early differences. */
+        GEHAN,
+        /** Square root of the number at risk. */
+        TARONE_WARE,
+        /** Pooled Kaplan–Meier survival just before the day. */
+        PETO_PETO
+    }
+
+    /**
+     * @param groups Labels of the compared groups.
+     * @param observed Observed number of churn events in each group.
+     * @param expected Expected number of churn events in each group under equal hazards.
+     * @param chiSquare Test statistic.
+     * @param degreesOfFreedom Number of groups minus one.
+     * @param pValue P-value of the test statistic.
+     */
+    public record Comparison(
+        String[] groups,
+        double[] observed,
+        double[] expected,
+        double chiSquare,
+        int degreesOfFreedom,
+        double pValue
+    ) {}
+
+    /**
+     * @param overall K-sample test over all groups with customers.
+     * @param pairwise Test of every pair of groups with customers.
+     */
+    public record Result(Comparison overall, List<Comparison> pairwise) {}
+
+    private final Weighting weighting;
+
+    public LogRank() {
+        this(Weighting.LOG_RANK);
+    }
+
+    public LogRank(Weighting weighting) {
+        this.weighting = weighting;
+    }
+
+    /**
+     * @see #test(SurvivalData, List, List)
+     */
+    public Result test(SurvivalData data, List<SocialMediaParam> groupBy) {
+        return test(data, groupBy, List.of());
+    }
+
+    /**
+     * Compares the churn of the groups.
+     *
+     * @param data Survival data of the customers.
+     * @param groupBy Parameters defining the compared groups, see {@link SurvivalData#strata(List)}.
+     * @param adjustFor Parameters to stratify the test by, disjoint from the grouping parameters.
+     * @return K-sample and pairwise tests.
+     */
+    public Result test(SurvivalData data, List<SocialMediaParam> groupBy, List<SocialMediaParam> adjustFor) {
+        if (adjustFor.stream().anyMatch(groupBy::contains)) {
+            throw new IllegalArgumentException("Grouping and adjustment parameters must be disjoint.");
+        }
+
+        SurvivalData.Strata groupStrata = data.strata(groupBy);
+        SurvivalData.Strata adjustStrata = data.strata(adjustFor);
+        int k = groupStrata.count();
+        int adjustCount = adjustStrata.count();
+        int[] codes = new int[data.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = adjustStrata.codes()[i] * k + groupStrata.codes()[i];
+        }
+        KaplanMeierEstimator.DayCounts counts = KaplanMeierEstimator.count(data, codes, adjustCount * k);
+        int days = counts.days();
+
+        int[] present = presentGroups(counts, k, adjustCount);
+        if (present.length < 2) {
+            throw new IllegalArgumentException("At least two groups with customers are needed.");
+        }
+
+        int pairs = k * (k - 1) / 2;
+        double[] observed = new double[k];
+        double[] expected = new double[k];
+        double[] scores = new double[k];
+        double[] covariance = new double[k * k];
+        double[] pairExpected = new double[pairs * 2];
+        double[] pairScores = new double[pairs];
+        double[] pairVariances = new double[pairs];
+
+        int[] risk = new int[k];
+        int[] dayEvents = new int[k];
+        double[] pairSurvival = new double[pairs];
+        for (int stratum = 0; stratum < adjustCount; stratum++) {
+            int base = stratum * k;
+            Arrays.fill(risk, 0);
+            Arrays.fill(pairSurvival, 1.0);
+            double survival = 1.0;
+
+            for (int day = 0; day < days; day++) {
+                int n = 0;
+                int d = 0;
+                for (int g = 0; g < k; g++) {
+                    int offset = (base + g) * days;
+                    if (day > 0) {
+                        risk[g] += counts.entries()[offset + day - 1] - counts.exits()[offset + day - 1];
+                    }
+                    dayEvents[g] = counts.events()[offset + day];
+                    n += risk[g];
+                    d += dayEvents[g];
+                }
+                if (d == 0) {
+                    continue;
+                }
+
+                // k-sample scores and covariance
+                double w = weight(n, survival);
+                double spread = n > 1 ? w * w * d * (n - d) / (n - 1.0) / n : 0;
+                for (int g = 0; g < k; g++) {
+                    double share = (double) risk[g] / n;
+                    observed[g] += dayEvents[g];
+                    expected[g] += d * share;
+                    scores[g] += w * (dayEvents[g] - d * share);
+                    for (int h = 0; h < k; h++) {
+                        double delta = g == h ? 1 : 0;
+                        covariance[g * k + h] += spread * risk[g] * (delta - (double) risk[h] / n);
+                    }
+                }
+                survival *= 1 - (double) d / n;
+
+                // all pairs in the same pass
+                for (int a = 0, pair = 0; a < k; a++) {
+                    for (int b = a + 1; b < k; b++, pair++) {
+                        int pn = risk[a] + risk[b];
+                        int pd = dayEvents[a] + dayEvents[b];
+                        if (pd == 0) {
+                            continue;
+                        }
+
+                        double pw = weight(pn, pairSurvival[pair]);
+                        double shareA = (double) risk[a] / pn;
+                        pairExpected[pair * 2] += pd * shareA;
+                        pairExpected[pair * 2 + 1] += pd * (1 - shareA);
+                        pairScores[pair] += pw * (dayEvents[a] - pd * shareA);
+                        if (pn > 1) {
+                            pairVariances[pair] += pw * pw * pd * (pn - pd) / (pn - 1.0) * shareA * (1 - shareA);
+                        }
+                        pairSurvival[pair] *= 1 - (double) pd / pn;
+                    }
+                }
+            }
+        }
+
+        Comparison overall = overall(groupStrata.labels(), present, observed, expected, scores, covariance, k);
+        List<Comparison> pairwise = new ArrayList<>();
+        for (int i = 0; i < present.length; i++) {
+            for (int j = i + 1; j < present.length; j++) {
+                int a = present[i];
+                int b = present[j];
+                int pair = a * k - a * (a + 1) / 2 + (b - a - 1);
+                double chiSquare = pairVariances[pair] > 0
+                    ? pairScores[pair] * pairScores[pair] / pairVariances[pair]
+                    : Double.NaN;
+                pairwise.add(new Comparison(
+                    new String[] {groupStrata.labels()[a], groupStrata.labels()[b]},
+                    new double[] {observed[a], observed[b]},
+                    new double[] {pairExpected[pair * 2], pairExpected[pair * 2 + 1]},
+                    chiSquare,
+                    1,
+                    pValue(chiSquare, 1)
+                ));
+            }
+        }
+
+        return new Result(overall, pairwise);
+    }
+
+    private double weight(int atRisk, double survival) {
+        return switch (weighting) {
+            case LOG_RANK -> 1.0;
+            case GEHAN -> atRisk;
+            case TARONE_WARE -> Math.sqrt(atRisk);
+            case PETO_PETO -> survival;
+        };
+    }
+
+    /**
+     * K-sample statistic U' V^-1 U, leaving out the last group as the covariance matrix is singular.
+     */
+    private static Comparison overall(
+        String[] labels,
+        int[] present,
+        double[] observed,
+        double[] expected,
+        double[] scores,
+        double[] covariance,
+        int k
+    ) {
+        int df = present.length - 1;
+        RealVector u = MatrixUtils.createRealVector(new double[df]);
+        RealMatrix v = MatrixUtils.createRealMatrix(df, df);
+        for (int i = 0; i < df; i++) {
+            u.setEntry(i, scores[present[i]]);
+            for (int j = 0; j < df; j++) {
+                v.setEntry(i, j, covariance[present[i] * k + present[j]]);
+            }
+        }
+
+        LUDecomposition decomposition = new LUDecomposition(v);
+        double chiSquare = decomposition.getDeterminant() == 0
+            ? Double.NaN
+            : u.dotProduct(decomposition.getSolver().solve(u));
+
+        String[] groups = new String[present.length];
+        double[] presentObserved = new double[present.length];
+        double[] presentExpected = new double[present.length];
+        for (int i = 0; i < present.length; i++) {
+            groups[i] = labels[present[i]];
+            presentObserved[i] = observed[present[i]];
+            presentExpected[i] = expected[present[i]];
+        }
+
+        return new Comparison(groups, presentObserved, presentExpected, chiSquare, df, pValue(chiSquare, df));
+    }
+
+    private static double pValue(double chiSquare, int df) {
+        return Double.isNaN(chiSquare)
+            ? Double.NaN
+            : 1 - new ChiSquaredDistribution(df).cumulativeProbability(chiSquare);
+    }
+
+    /**
+     * @return Codes of the groups with at least one customer at risk, in any adjustment stratum.
+     */
+    private static int[] presentGroups(KaplanMeierEstimator.DayCounts counts, int k, int adjustCount) {
+        boolean[] present = new boolean[k];
+        int days = counts.days();
+        for (int stratum = 0; stratum < adjustCount; stratum++) {
+            for (int g = 0; g < k; g++) {
+                int offset = (stratum * k + g) * days;
+                for (int day = 0; day < days && !present[g]; day++) {
+                    present[g] = counts.exits()[offset + day] > 0;
+                }
+            }
+        }
+
+        return IntStream.range(0, k).filter(g -> present[g]).toArray();
+    }
+}
@@ -0,0 +1,331 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.IntStream;
+
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.util.RandomStreams;
+
+/**
+ * Bootstrap confidence bands for Kaplan–Meier survival curves.
+ *
+ * Every replicate resamples the customers with replacement from its own random stream, so the bands
+ * only depend on the seed and not on how the replicates are scheduled on the fork-join pool.
+ *
+ * The customers' day bucket slots are computed once and shared by all replicates: a replicate only
+ * increments the buckets of the drawn customers and scans them, without sorting anything.
+ * Survival values are merged into fixed-size histograms per grid day, so memory is bounded by
+ * workers * strata * grid days * (bins + 1) counters regardless of the number of replicates.
+ * A replicate that draws no customer of a stratum has no curve for it and is left out of its histograms,
+ * so the quantiles of a stratum are taken over the replicates that contain it.
+ */
+public class SurvivalBootstrap {
+    public static final int DEFAULT_HISTOGRAM_BINS = 1000;
+
+    private final int replicates;
+    private final double confidenceLevel;
+    private final long seed;
+    private final int histogramBins;
+    private final ForkJoinPool pool;
+
+    /**
+     * Survival band on a grid of days.
+     *
+     * @param days Grid days since the contract start.
+     * @param survival Kaplan–Meier estimate of the full sample on each grid day.
+     * @param lower Lower percentile bootstrap bound.
+     * @param upper Upper percentile bootstrap bound.
+     */
+    public record Band(int[] days, double[] survival, double[] lower, double[] upper) {}
+
+    /**
+     * Shared, read-only state of all replicates.
+     */
+    private record Index(int size, int strataCount, int days, int[] grid, int[] entrySlots, int[] exitSlots, boolean[] events) {}
+
+    public SurvivalBootstrap(int replicates, double confidenceLevel, long seed) {
+        this(replicates, confidenceLevel, seed, DEFAULT_HISTOGRAM_BINS, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param replicates Number of bootstrap replicates.
+     * @param confidenceLevel Confidence level of the bands, e.g. 0.95.
+     * @param seed Seed of the replicates' random streams.
+     * @param histogramBins Resolution of the survival histograms, quantiles are accurate to 1 / (2 * bins).
+     * @param pool Pool to run the replicates on.
+     */
+    public SurvivalBootstrap(int replicates, double confidenceLevel, long seed, int histogramBins, ForkJoinPool pool) {
+        if (replicates <= 0) {
+            throw new IllegalArgumentException("The number of replicates has to be positive.");
+        }
+        if (confidenceLevel <= 0 || confidenceLevel >= 1) {
+            throw new IllegalArgumentException("The confidence level has to be between 0 and 1.");
+        }
+        if (histogramBins <= 0) {
+            throw new IllegalArgumentException("The number of histogram bins has to be positive.");
+        }
+
+        this.replicates = replicates;
+        this.confidenceLevel = confidenceLevel;
+        this.seed = seed;
+        this.histogramBins = histogramBins;
+        this.pool = pool;
+    }
+
+    /**
+     * @param maxDay Last day to cover.
+     * @param step Distance between grid days.
+     * @return Grid days 0, step, 2 * step, ... up to maxDay.
+     */
+    public static int[] grid(int maxDay, int step) {
+        if (step <= 0) {
+            throw new IllegalArgumentException("The grid step has to be positive.");
+        }
+
+        return IntStream.iterate(0, day -> day <= maxDay, day -> day + step).toArray();
+    }
+
+    /**
+     * Bootstrap band of the survival curve over all customers.
+     */
+    public Band estimate(SurvivalData data, int[] grid) {
+        return estimate(data, List.of(), grid).values().stream()
+            .findFirst()
+            .orElseThrow(() -> new IllegalArgumentException("No customer is ever at risk."));
+    }
+
+    /**
+     * Bootstrap bands of every stratum's survival curve. All strata are recomputed from the same replicates.
+     *
+     * @param data Survival data of the customers.
+     * @param strata Parameters to stratify by, see {@link SurvivalData#strata(List)}.
+     * @param grid Ascending days to evaluate the bands at.
+     * @return Bands keyed by stratum label, in stratum code order. Strata without customers are left out.
+     */
+    public Map<String, Band> estimate(SurvivalData data, List<SocialMediaParam> strata, int[] grid) {
+        for (int i = 0; i < grid.length; i++) {
+            if (grid[i] < 0 || (i > 0 && grid[i] <= grid[i - 1])) {
+                throw new IllegalArgumentException("Grid days must be non-negative and strictly ascending.");
+            }
+        }
+
+        SurvivalData.Strata encoded = data.strata(strata);
+        Index index = index(data, encoded, grid);
+
+        int[] histograms = pool.invoke(new ReplicateTask(index, 0, replicates, leafSize()));
+        // the replicate count of every stratum follows the histograms
+        int countsOffset = encoded.count() * grid.length * (histogramBins + 1);
+
+        // Point estimate on the full sample, through the same scan as the replicates.
+        int[] entries = new int[encoded.count() * index.days()];
+        int[] exits = new int[entries.length];
+        int[] events = new int[entries.length];
+        for (int i = 0; i < index.size(); i++) {
+            add(index, i, entries, exits, events);
+        }
+        double[] survival = new double[encoded.count() * grid.length];
+        evaluate(index, entries, exits, events, survival);
+
+        double alpha = (1 - confidenceLevel) / 2;
+        Map<String, Band> bands = new LinkedHashMap<>();
+        for (int stratum = 0; stratum < encoded.count(); stratum++) {
+            if (!hasCustomers(index, exits, stratum)) {
+                continue;
+            }
+
+            int stratumReplicates = histograms[countsOffset + stratum];
+            double[] lower = new double[grid.length];
+            double[] upper = new double[grid.length];
+            for (int g = 0; g < grid.length; g++) {
+                int offset = (stratum * grid.length + g) * (histogramBins + 1);
+                lower[g] = quantile(histograms, offset, stratumReplicates, alpha);
+                upper[g] = quantile(histograms, offset, stratumReplicates, 1 - alpha);
+            }
+
+            bands.put(encoded.labels()[stratum], new Band(
+                grid.clone(),
+                Arrays.copyOfRange(survival, stratum * grid.length, (stratum + 1) * grid.length),
+                lower,
+                upper
+            ));
+        }
+
+        return bands;
+    }
+
+    private Index index(SurvivalData data, SurvivalData.Strata strata, int[] grid) {
+        int days = data.maxDay() + 1;
+        int[] entrySlots = new int[data.size()];
+        int[] exitSlots = new int[data.size()];
+        for (int i = 0; i < data.size(); i++) {
+            // Customers that are never at risk keep no slot.
+            if (data.exitDays()[i] <= data.entryDays()[i]) {
+                entrySlots[i] = -1;
+                exitSlots[i] = -1;
+                continue;
+            }
+
+            int offset = strata.codes()[i] * days;
+            entrySlots[i] = offset + data.entryDays()[i];
+            exitSlots[i] = offset + data.exitDays()[i];
+        }
+
+        return new Index(data.size(), strata.count(), days, grid, entrySlots, exitSlots, data.events());
+    }
+
+    private int leafSize() {
+        return Math.max(1, (replicates + pool.getParallelism() - 1) / pool.getParallelism());
+    }
+
+    private class ReplicateTask extends RecursiveTask<int[]> {
+        // tasks are never serialized, ForkJoinTask is Serializable only by inheritance
+        private static final long serialVersionUID = 1L;
+
+        private final transient Index index;
+        private final int from;
+        private final int to;
+        private final int leafSize;
+
+        ReplicateTask(Index index, int from, int to, int leafSize) {
+            this.index = index;
+            this.from = from;
+            this.to = to;
+            this.leafSize = leafSize;
+        }
+
+        @Override
+        protected int[] compute() {
+            if (to - from > leafSize) {
+                int middle = (from + to) >>> 1;
+                ReplicateTask left = new ReplicateTask(index, from, middle, leafSize);
+                ReplicateTask right = new ReplicateTask(index, middle, to, leafSize);
+                right.fork();
+                int[] merged = left.compute();
+                int[] other = right.join();
+                for (int i = 0; i < merged.length; i++) {
+                    merged[i] += other[i];
+                }
+                return merged;
+            }
+
+            int buckets = index.strataCount() * index.days();
+            int[] entries = new int[buckets];
+            int[] exits = new int[buckets];
+            int[] events = new int[buckets];
+            double[] survival = new double[index.strataCount() * index.grid().length];
+            int countsOffset = survival.length * (histogramBins + 1);
+            int[] histograms = new int[countsOffset + index.strataCount()];
+            boolean[] drawn = new boolean[index.strataCount()];
+
+            for (int replicate = from; replicate < to; replicate++) {
+                Arrays.fill(entries, 0);
+                Arrays.fill(exits, 0);
+                Arrays.fill(events, 0);
+                Arrays.fill(drawn, false);
+
+                SplittableRandom random = RandomStreams.stream(seed, replicate);
+                for (int draw = 0; draw < index.size(); draw++) {
+                    int customer = random.nextInt(index.size());
+                    if (add(index, customer, entries, exits, events)) {
+                        drawn[index.exitSlots()[customer] / index.days()] = true;
+                    }
+                }
+
+                evaluate(index, entries, exits, events, survival);
+                int gridDays = index.grid().length;
+                for (int stratum = 0; stratum < drawn.length; stratum++) {
+                    if (!drawn[stratum]) {
+                        continue;
+                    }
+                    histograms[countsOffset + stratum]++;
+                    for (int cell = stratum * gridDays; cell < (stratum + 1) * gridDays; cell++) {
+                        histograms[cell * (histogramBins + 1) + (int) Math.round(survival[cell] * histogramBins)]++;
+                    }
+                }
+            }
+
+            return histograms;
+        }
+    }
+
+    /**
+     * @return Whether the customer is ever at risk and was added.
+     */
+    private static boolean add(Index index, int customer, int[] entries, int[] exits, int[] events) {
+        int exitSlot = index.exitSlots()[customer];
+        if (exitSlot < 0) {
+            return false;
+        }
+
+        entries[index.entrySlots()[customer]]++;
+        exits[exitSlot]++;
+        if (index.events()[customer]) {
+            events[exitSlot]++;
+        }
+        return true;
+    }
+
+    /**
+     * Kaplan–Meier scan of every stratum, recording the survival on the grid days as [stratum][grid day].
+     */
+    private static void evaluate(Index index, int[] entries, int[] exits, int[] events, double[] survival) {
+        int[] grid = index.grid();
+        for (int stratum = 0; stratum < index.strataCount(); stratum++) {
+            int offset = stratum * index.days();
+            int risk = 0;
+            double currentSurvival = 1.0;
+            int g = 0;
+            for (int day = 0; day < index.days() && g < grid.length; day++) {
+                if (day > 0) {
+                    risk += entries[offset + day - 1] - exits[offset + day - 1];
+                }
+                if (events[offset + day] > 0) {
+                    currentSurvival *= 1.0 - (double) events[offset + day] / risk;
+                }
+                while (g < grid.length && grid[g] == day) {
+                    survival[stratum * grid.length + g++] = currentSurvival;
+                }
+            }
+            // Grid days past the last exit keep the final survival.
+            while (g < grid.length) {
+                survival[stratum * grid.length + g++] = currentSurvival;
+            }
+        }
+    }
+
+    private static boolean hasCustomers(Index index, int[] exits, int stratum) {
+        int offset = stratum * index.days();
+        for (int day = 0; day < index.days(); day++) {
+            if (exits[offset + day] > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param count Number of replicates in the histogram.
+     * @return Quantile of the histogram, NaN if it is empty.
+     */
+    private double quantile(int[] histograms, int offset, int count, double probability) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+
+        long target = (long) Math.ceil(probability * count);
+        long cumulative = 0;
+        for (int bin = 0; bin <= histogramBins; bin++) {
+            cumulative += histograms[offset + bin];
+            if (cumulative >= Math.max(1, target)) {
+                return (double) bin / histogramBins;
+            }
+        }
+        return 1.0;
+    }
+}
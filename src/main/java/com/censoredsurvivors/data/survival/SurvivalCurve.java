@@ -0,0 +1,64 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.Arrays;
+
+/**
+ * Step function of a survival estimate, one row per day with at least one exit.
+ *
+ * @param days Days since the contract start, ascending.
+ * @param atRisk Number of customers at risk on each day.
+ * @param events Number of churn events on each day.
+ * @param censored Number of customers censored on each day.
+ * @param survival Kaplan–Meier survival probability after each day.
+ * @param standardErrors Greenwood standard error of the survival probability.
+ * @param cumulativeHazard Nelson–Aalen cumulative hazard after each day.
+ */
+public record SurvivalCurve(
+    int[] days,
+    int[] atRisk,
+    int[] events,
+    int[] censored,
+    double[] survival,
+    double[] standardErrors,
+    double[] cumulativeHazard
+) {
+    public int size() {
+        return days.length;
+    }
+
+    /**
+     * @param day Days since the contract start.
+     * @return Survival probability on the given day, 1 before the first exit.
+     */
+    public double survivalAt(int day) {
+        int index = indexAt(day);
+        return index < 0 ? 1.0 : survival[index];
+    }
+
+    /**
+     * @param day Days since the contract start.
+     * @return Cumulative hazard on the given day, 0 before the first exit.
+     */
+    public double cumulativeHazardAt(int day) {
+        int index = indexAt(day);
+        return index < 0 ? 0.0 : cumulativeHazard[index];
+    }
+
+    /**
+     * @return The first day on which the survival drops to 0.5 or below, or -1 if it never does.
+     */
+    public int medianSurvivalDay() {
+        for (int i = 0; i < survival.length; i++) {
+            if (survival[i] <= 0.5) {
+                return days[i];
+            }
+        }
+        return -1;
+    }
+
+    // Index of the last row on or before the given day, -1 if there is none.
+    private int indexAt(int day) {
+        int index = Arrays.binarySearch(days, day);
+        return index >= 0 ? index : -index - 2;
+    }
+}
@@ -0,0 +1,213 @@
+package com.censoredsurvivors.data.survival;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import com.censoredsurvivors.data.model.SocialMediaCountry;
+import com.censoredsurvivors.data.model.SocialMediaIndustry;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPlan;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+import tech.tablesaw.columns.dates.PackedLocalDate;
+
+/**
+ * Primitive, column-oriented survival view of a customer table.
+ *
+ * Time is measured in days since the contract start. A customer is at risk on day t when entryDay < t <= exitDay:
+ * - customers that started before the observation period enter the risk set late (left truncation),
+ * - customers with a churn date exit with an event on that day,
+ * - all others are censored at the end of their contract or of the observation period, whichever comes first.
+ */
+public class SurvivalData {
+    private final int[] contractStartEpochDays;
+    private final int[] entryDays;
+    private final int[] exitDays;
+    private final boolean[] events;
+    private final byte[] industries;
+    private final byte[] countries;
+    private final byte[] plans;
+    private final int maxDay;
+
+    /**
+     * Customers grouped by a combination of their parameters.
+     *
+     * @param params Parameters defining the strata, in mixed-radix order.
+     * @param codes Stratum code of every customer.
+     * @param labels Display label of every stratum code, e.g. "Technology, Basic".
+     */
+    public record Strata(List<SocialMediaParam> params, int[] codes, String[] labels) {
+        public int count() {
+            return labels.length;
+        }
+    }
+
+    public SurvivalData(
+        int[] contractStartEpochDays,
+        int[] entryDays,
+        int[] exitDays,
+        boolean[] events,
+        byte[] industries,
+        byte[] countries,
+        byte[] plans
+    ) {
+        int size = entryDays.length;
+        if (contractStartEpochDays.length != size || exitDays.length != size || events.length != size
+            || industries.length != size || countries.length != size || plans.length != size) {
+            throw new IllegalArgumentException("All survival columns must have the same length.");
+        }
+
+        this.contractStartEpochDays = contractStartEpochDays;
+        this.entryDays = entryDays;
+        this.exitDays = exitDays;
+        this.events = events;
+        this.industries = industries;
+        this.countries = countries;
+        this.plans = plans;
+        this.maxDay = Arrays.stream(exitDays).max().orElse(0);
+    }
+
+    /**
+     * Extracts survival times from a table generated by the customer generator.
+     *
+     * @param customers Customers table.
+     * @param observationPeriodInYears The observation period the customers were generated with.
+     * @return Survival data with one entry per customer row.
+     */
+    public static SurvivalData fromCustomers(Table customers, int observationPeriodInYears) {
+        if (observationPeriodInYears <= 0) {
+            throw new IllegalArgumentException("The observation period has to be positive.");
+        }
+
+        LocalDate observationStartDate = ProjectConfig.OBSERVATION_START_DATE;
+        long observationStart = observationStartDate.toEpochDay();
+        long observationEnd = observationStartDate.plusYears(observationPeriodInYears).toEpochDay();
+
+        DateColumn startColumn = customers.dateColumn(ProjectConfig.CONTRACT_START_DATE_COLUMN);
+        DateColumn endColumn = customers.dateColumn(ProjectConfig.CONTRACT_END_DATE_COLUMN);
+        DateColumn churnColumn = customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN);
+        StringColumn industryColumn = customers.stringColumn(ProjectConfig.INDUSTRY_COLUMN);
+        StringColumn countryColumn = customers.stringColumn(ProjectConfig.COUNTRY_COLUMN);
+        StringColumn planColumn = customers.stringColumn(ProjectConfig.PLAN_COLUMN);
+
+        int size = customers.rowCount();
+        int[] contractStartEpochDays = new int[size];
+        int[] entryDays = new int[size];
+        int[] exitDays = new int[size];
+        boolean[] events = new boolean[size];
+        byte[] industries = new byte[size];
+        byte[] countries = new byte[size];
+        byte[] plans = new byte[size];
+
+        for (int i = 0; i < size; i++) {
+            long start = PackedLocalDate.toEpochDay(startColumn.getIntInternal(i));
+            long end = PackedLocalDate.toEpochDay(endColumn.getIntInternal(i));
+
+            contractStartEpochDays[i] = (int) start;
+            entryDays[i] = (int) (Math.max(start, observationStart) - start);
+            if (churnColumn.isMissing(i)) {
+                exitDays[i] = (int) (Math.min(end, observationEnd) - start);
+            } else {
+                exitDays[i] = (int) (PackedLocalDate.toEpochDay(churnColumn.getIntInternal(i)) - start);
+                events[i] = true;
+            }
+
+            industries[i] = (byte) SocialMediaIndustry.getByDisplayName(industryColumn.get(i)).ordinal();
+            countries[i] = (byte) SocialMediaCountry.getByDisplayName(countryColumn.get(i)).ordinal();
+            plans[i] = (byte) SocialMediaPlan.getByDisplayName(planColumn.get(i)).ordinal();
+        }
+
+        return new SurvivalData(contractStartEpochDays, entryDays, exitDays, events, industries, countries, plans);
+    }
+
+    /**
+     * Encodes the customers' parameters into stratum codes.
+     *
+     * @param params Any combination of {@link SocialMediaParam#INDUSTRY}, {@link SocialMediaParam#COUNTRY}
+     * and {@link SocialMediaParam#PLAN}. An empty list puts every customer into a single stratum.
+     * @return Strata with a code for every customer.
+     */
+    public Strata strata(List<SocialMediaParam> params) {
+        if (params.stream().distinct().count() != params.size()) {
+            throw new IllegalArgumentException("Stratification parameters must be unique: " + params);
+        }
+
+        int[] codes = new int[size()];
+        List<String[]> displayNames = params.stream().map(SurvivalData::displayNames).toList();
+        int count = 1;
+        for (SocialMediaParam param : params) {
+            byte[] ordinals = ordinals(param);
+            int radix = displayNames(param).length;
+            for (int i = 0; i < codes.length; i++) {
+                codes[i] = codes[i] * radix + ordinals[i];
+            }
+            count *= radix;
+        }
+
+        String[] labels = new String[count];
+        for (int code = 0; code < count; code++) {
+            String[] parts = new String[params.size()];
+            int remainder = code;
+            for (int p = params.size() - 1; p >= 0; p--) {
+                String[] names = displayNames.get(p);
+                parts[p] = names[remainder % names.length];
+                remainder /= names.length;
+            }
+            labels[code] = params.isEmpty()
+                ? "All"
+                : Arrays.stream(parts).collect(Collectors.joining(", "));
+        }
+
+        return new Strata(List.copyOf(params), codes, labels);
+    }
+
+    private byte[] ordinals(SocialMediaParam param) {
+        return switch (param) {
+            case INDUSTRY -> industries;
+            case COUNTRY -> countries;
+            case PLAN -> plans;
+            case CHANNEL -> throw new IllegalArgumentException("Customers cannot be stratified by channel.");
+        };
+    }
+
+    private static String[] displayNames(SocialMediaParam param) {
+        return switch (param) {
+            case INDUSTRY -> SocialMediaIndustry.getAllDisplayNames();
+            case COUNTRY -> SocialMediaCountry.getAllDisplayNames();
+            case PLAN -> SocialMediaPlan.getAllDisplayNames();
+            case CHANNEL -> throw new IllegalArgumentException("Customers cannot be stratified by channel.");
+        };
+    }
+
+    public int size() {
+        return entryDays.length;
+    }
+
+    /**
+     * @return The largest exit day, which bounds all survival times.
+     */
+    public int maxDay() {
+        return maxDay;
+    }
+
+    public int[] contractStartEpochDays() {
+        return contractStartEpochDays;
+    }
+
+    public int[] entryDays() {
+        return entryDays;
+    }
+
+    public int[] exitDays() {
+        return exitDays;
+    }
+
+    public boolean[] events() {
+        return events;
+    }
+}
@@ -0,0 +1,91 @@
+package com.censoredsurvivors.simulation;
+
+import java.time.LocalDate;
+import java.util.stream.IntStream;
+
+import com.censoredsurvivors.data.statistics.Concordance;
+import com.censoredsurvivors.data.survival.SurvivalData;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Evaluates detected churn dates against the censored survival times of the customers.
+ *
+ * The detected churn date is read as a predicted time to churn: the earlier the detection after the contract
+ * start, the higher the risk. Customers without a detection are predicted to never churn.
+ * Customers that left before the observation period are never observed and are left out.
+ */
+public class ChurnDetectionEvaluator {
+    private static final int DAYS_PER_YEAR = 365;
+
+    /**
+     * @param concordance Harrell's concordance pair counts.
+     * @param aucDays Days since the contract start the AUC is evaluated at.
+     * @param auc Time-dependent AUC at each of the days.
+     */
+    public record Evaluation(Concordance.Pairs concordance, int[] aucDays, double[] auc) {
+        public double concordanceIndex() {
+            return concordance.index();
+        }
+    }
+
+    /**
+     * Evaluates with the AUC at every full year of the observation period.
+     *
+     * @see #evaluate(SocialMediaCusumChurnDetector.ChurnResult[], Table, int, int[])
+     */
+    public Evaluation evaluate(SocialMediaCusumChurnDetector.ChurnResult[] churnResults, Table customers, int observationPeriodInYears) {
+        int[] aucDays = IntStream.rangeClosed(1, observationPeriodInYears).map(year -> year * DAYS_PER_YEAR).toArray();
+        return evaluate(churnResults, customers, observationPeriodInYears, aucDays);
+    }
+
+    /**
+     * @param churnResults Detection results, one per customer row and in the same order.
+     * @param customers Customers table the results were computed for.
+     * @param observationPeriodInYears The observation period the customers were generated with.
+     * @param aucDays Ascending days since the contract start to evaluate the AUC at.
+     * @return C-index and time-dependent AUC of the detections.
+     */
+    public Evaluation evaluate(
+        SocialMediaCusumChurnDetector.ChurnResult[] churnResults,
+        Table customers,
+        int observationPeriodInYears,
+        int[] aucDays
+    ) {
+        if (churnResults.length != customers.rowCount()) {
+            throw new IllegalArgumentException("There has to be one churn result per customer.");
+        }
+
+        SurvivalData data = SurvivalData.fromCustomers(customers, observationPeriodInYears);
+        StringColumn customerIds = customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        int[] observed = IntStream.range(0, data.size())
+            .filter(i -> data.exitDays()[i] > data.entryDays()[i])
+            .toArray();
+
+        int[] times = new int[observed.length];
+        boolean[] events = new boolean[observed.length];
+        double[] riskScores = new double[observed.length];
+        for (int k = 0; k < observed.length; k++) {
+            int i = observed[k];
+            SocialMediaCusumChurnDetector.ChurnResult churnResult = churnResults[i];
+            if (!churnResult.customerId().equals(customerIds.get(i))) {
+                throw new IllegalArgumentException("Churn results must be in the order of the customers: " + churnResult.customerId());
+            }
+
+            times[k] = data.exitDays()[i];
+            events[k] = data.events()[i];
+            LocalDate detectedChurnDate = churnResult.detectedChurnDate();
+            riskScores[k] = detectedChurnDate == null
+                ? Double.NEGATIVE_INFINITY
+                : -(detectedChurnDate.toEpochDay() - data.contractStartEpochDays()[i]);
+        }
+
+        return new Evaluation(
+            Concordance.harrellsC(times, events, riskScores),
+            aucDays.clone(),
+            Concordance.timeDependentAuc(times, events, riskScores, aucDays)
+        );
+    }
+}
@@ -0,0 +1,178 @@
+package com.censoredsurvivors.simulation;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import com.censoredsurvivors.data.statistics.ChangeDetector;
+import com.censoredsurvivors.data.storage.PostCountTensor;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Replays the weekly post counts of a dataset as if they arrived live, one epoch week at a time for all customers.
+ *
+ * Every customer keeps the online state of the detector between the weeks, so a week costs one update per
+ * customer instead of a detection over the whole prefix. A customer stops at their first alarm. The customers
+ * are split into shards that run in parallel with their own histograms, merged at the end.
+ */
+public class SocialMediaChurnBacktest {
+    public static final int NO_ALARM = Integer.MIN_VALUE;
+    // churn week of a customer that does not churn, after every alarm
+    private static final int NO_CHURN = Integer.MAX_VALUE;
+
+    private final PostCountTensor postCounts;
+    private final int[] churnWeeks;
+    private final int firstWeek;
+    private final int weekCount;
+    private final int shards;
+    private final int maxTimeToDetect;
+
+    /**
+     * @param firstWeek Epoch week of the first bin of the weekly histograms.
+     * @param alarmWeeks Epoch week of the first alarm of every customer, {@link #NO_ALARM} if there is none.
+     * @param alarmsPerWeek Number of alarms of every week.
+     * @param falseAlarmsPerWeek Number of alarms of every week for customers that do not churn or churn later.
+     * @param timeToDetect Number of alarms per weeks from the churn to the alarm, the last bin counts all later alarms.
+     * @param numberOfMissedChurns Number of churned customers without an alarm since their churn.
+     */
+    public record Result(
+        int firstWeek,
+        int[] alarmWeeks,
+        int[] alarmsPerWeek,
+        int[] falseAlarmsPerWeek,
+        int[] timeToDetect,
+        int numberOfMissedChurns
+    ) {}
+
+    /**
+     * Histograms of a shard of the customers.
+     */
+    private class ShardResult {
+        private final int[] alarmsPerWeek = new int[weekCount];
+        private final int[] falseAlarmsPerWeek = new int[weekCount];
+        private final int[] timeToDetect = new int[maxTimeToDetect + 1];
+        private int numberOfMissedChurns = 0;
+
+        private void merge(ShardResult other) {
+            for (int week = 0; week < weekCount; week++) {
+                alarmsPerWeek[week] += other.alarmsPerWeek[week];
+                falseAlarmsPerWeek[week] += other.falseAlarmsPerWeek[week];
+            }
+            for (int weeks = 0; weeks <= maxTimeToDetect; weeks++) {
+                timeToDetect[weeks] += other.timeToDetect[weeks];
+            }
+            numberOfMissedChurns += other.numberOfMissedChurns;
+        }
+    }
+
+    /**
+     * @param customers Customers table of the dataset.
+     * @param postCounts Weekly post counts of the dataset, summed over the channels.
+     * @param shards Number of shards of the customers that run in parallel.
+     * @param maxTimeToDetect Last bin of the time to detect histogram, in weeks.
+     */
+    public SocialMediaChurnBacktest(Table customers, PostCountTensor postCounts, int shards, int maxTimeToDetect) {
+        if (shards <= 0) {
+            throw new IllegalArgumentException("The number of shards has to be positive.");
+        }
+        if (maxTimeToDetect < 0) {
+            throw new IllegalArgumentException("The maximum time to detect cannot be negative.");
+        }
+
+        this.postCounts = postCounts;
+        this.shards = shards;
+        this.maxTimeToDetect = maxTimeToDetect;
+
+        DateColumn churnDates = customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN);
+        this.churnWeeks = new int[postCounts.size()];
+        int first = Integer.MAX_VALUE;
+        int last = Integer.MIN_VALUE;
+        for (int customer = 0; customer < postCounts.size(); customer++) {
+            LocalDate churnDate = churnDates.get(customer);
+            // the posts drop from the first Monday on or after the churn date
+            churnWeeks[customer] = churnDate != null ? EpochWeeks.firstMondayWeek(churnDate) : NO_CHURN;
+            if (postCounts.weekCount(customer) > 0) {
+                first = Math.min(first, postCounts.firstWeek(customer));
+                last = Math.max(last, postCounts.firstWeek(customer) + postCounts.weekCount(customer));
+            }
+        }
+        this.firstWeek = first == Integer.MAX_VALUE ? 0 : first;
+        this.weekCount = first == Integer.MAX_VALUE ? 0 : last - first;
+    }
+
+    /**
+     * @param detector Online detector of the weekly post counts of a customer.
+     * @return Alarms of the replay.
+     */
+    public Result run(ChangeDetector detector) {
+        int customers = postCounts.size();
+        int[] alarmWeeks = new int[customers];
+        Arrays.fill(alarmWeeks, NO_ALARM);
+        int shardSize = Math.max(1, (customers + shards - 1) / shards);
+
+        ShardResult result = IntStream.range(0, shards).parallel()
+            .mapToObj(shard -> runShard(detector, shard * shardSize, Math.min(customers, (shard + 1) * shardSize), alarmWeeks))
+            .reduce((left, right) -> {
+                left.merge(right);
+                return left;
+            })
+            .orElseThrow();
+
+        return new Result(
+            firstWeek,
+            alarmWeeks,
+            result.alarmsPerWeek,
+            result.falseAlarmsPerWeek,
+            result.timeToDetect,
+            result.numberOfMissedChurns
+        );
+    }
+
+    private ShardResult runShard(ChangeDetector detector, int from, int to, int[] alarmWeeks) {
+        ShardResult result = new ShardResult();
+        int size = Math.max(0, to - from);
+        ChangeDetector.State[] states = new ChangeDetector.State[size];
+        for (int i = 0; i < size; i++) {
+            states[i] = detector.start();
+        }
+        int channels = postCounts.channels().size();
+
+        for (int week = firstWeek; week < firstWeek + weekCount; week++) {
+            for (int i = 0; i < size; i++) {
+                int customer = from + i;
+                if (alarmWeeks[customer] != NO_ALARM || !postCounts.isValid(customer, week)) {
+                    continue;
+                }
+
+                double postCount = 0;
+                for (int channel = 0; channel < channels; channel++) {
+                    postCount += postCounts.get(customer, channel, week);
+                }
+                if (!states[i].update(postCount)) {
+                    continue;
+                }
+
+                alarmWeeks[customer] = week;
+                result.alarmsPerWeek[week - firstWeek]++;
+                int churnWeek = churnWeeks[customer];
+                if (churnWeek == NO_CHURN || week < churnWeek) {
+                    result.falseAlarmsPerWeek[week - firstWeek]++;
+                } else {
+                    result.timeToDetect[Math.min(week - churnWeek, maxTimeToDetect)]++;
+                }
+            }
+        }
+
+        for (int customer = from; customer < from + size; customer++) {
+            if (churnWeeks[customer] != NO_CHURN && (alarmWeeks[customer] == NO_ALARM || alarmWeeks[customer] < churnWeeks[customer])) {
+                result.numberOfMissedChurns++;
+            }
+        }
+
+        return result;
+    }
+}
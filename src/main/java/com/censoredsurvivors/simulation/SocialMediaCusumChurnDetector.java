@@ -2,29 +2,47 @@ package com.censoredsurvivors.simulation;
 
 import java.time.LocalDate;
 import java.time.temporal.ChronoUnit;
-import java.time.temporal.WeekFields;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.IntStream;
 
-import com.censoredsurvivors.data.generator.SocialMediaCustomerGenerator;
-import com.censoredsurvivors.data.generator.SocialMediaPostsGenerator;
+import com.censoredsurvivors.data.generator.SocialMediaDatasetCache;
 import com.censoredsurvivors.data.model.SocialMediaChannel;
 import com.censoredsurvivors.data.model.SocialMediaChurnReason;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
 import com.censoredsurvivors.data.model.SocialMediaParam;
 import com.censoredsurvivors.data.model.CustomDistributionParams;
 import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.data.statistics.AdaptiveCusumDetector;
+import com.censoredsurvivors.data.statistics.ChangeDetector;
+import com.censoredsurvivors.data.statistics.ConfusionCounter;
 import com.censoredsurvivors.data.statistics.ConfusionStatus;
-import com.censoredsurvivors.data.statistics.Cusum;
+import com.censoredsurvivors.data.statistics.CusumDetector;
+import com.censoredsurvivors.data.statistics.FusedChangeDetector;
+import com.censoredsurvivors.data.statistics.LogHistogram;
+import com.censoredsurvivors.data.statistics.MultivariateChangeDetector;
+import com.censoredsurvivors.data.statistics.Pelt;
 import com.censoredsurvivors.data.statistics.SignalCleaner;
+import com.censoredsurvivors.data.storage.PostCountTensor;
+import com.censoredsurvivors.util.EpochWeeks;
 import com.censoredsurvivors.util.ProjectConfig;
 
-import tech.tablesaw.aggregate.AggregateFunctions;
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.StringColumn;
 import tech.tablesaw.api.Table;
-import tech.tablesaw.selection.Selection;
 
 
 public class SocialMediaCusumChurnDetector {
-    private final WeekFields weekFields = WeekFields.of(Locale.US);
+    // Shared by all detectors, so repeated runs with the same inputs skip the generation.
+    // The detectors read the post count tensors of the cache, which are kept in memory only.
+    private static final SocialMediaDatasetCache SHARED_DATASET_CACHE = new SocialMediaDatasetCache(4);
+
+    // relative error of the detection error histogram of at most 1/64, exact below 128 weeks
+    private static final int ERROR_HISTOGRAM_SIGNIFICANT_BITS = 7;
+
+    private final SocialMediaDatasetCache datasetCache;
+    private final boolean retainChurnResults;
 
     private final int OBSERVATION_PERIOD_IN_YEARS = 10;
     private final boolean ALL_CUSTOMERS_FULL_LIFETIME = true;
@@ -47,13 +65,22 @@ public class SocialMediaCusumChurnDetector {
         );
     }
 
+    /**
+     * @param churnResults Result of every customer, null if the detector does not retain them.
+     * @param absoluteDetectionErrors Histogram of the absolute detection errors in weeks of the true positives.
+     */
     public record RunSummary(
         ChurnResult[] churnResults,
         int numberOfTruePositives,
         int numberOfFalsePositives,
         int numberOfTrueNegatives,
-        int numberOfFalseNegatives
-    ) {}
+        int numberOfFalseNegatives,
+        LogHistogram absoluteDetectionErrors
+    ) {
+        public int numberOfCustomers() {
+            return numberOfTruePositives + numberOfFalsePositives + numberOfTrueNegatives + numberOfFalseNegatives;
+        }
+    }
 
     public record ChurnResult(
         String customerId,
@@ -65,6 +92,90 @@ public class SocialMediaCusumChurnDetector {
         ConfusionStatus confusionStatus
     ) {}
 
+    /**
+     * Summary of a cascaded run with the number of customers that pass every stage.
+     *
+     * @param runSummary Summary of the detection.
+     * @param numberOfScreenedCustomers Number of customers of the screen.
+     * @param numberOfFlaggedCustomers Number of customers flagged by the screen and cleaned.
+     * @param numberOfConfirmedCustomers Number of flagged customers confirmed by the detector.
+     */
+    public record CascadeSummary(
+        RunSummary runSummary,
+        int numberOfScreenedCustomers,
+        int numberOfFlaggedCustomers,
+        int numberOfConfirmedCustomers
+    ) {
+        public double screenPassThroughRate() {
+            return (double) numberOfFlaggedCustomers / numberOfScreenedCustomers;
+        }
+
+        public double confirmationPassThroughRate() {
+            return numberOfFlaggedCustomers == 0 ? 0.0 : (double) numberOfConfirmedCustomers / numberOfFlaggedCustomers;
+        }
+    }
+
+    /**
+     * Counts of a part of the customers, thread-local in the parallel loops and merged at the end.
+     */
+    private static class ChurnAccumulator {
+        private final ConfusionCounter confusionCounter = new ConfusionCounter();
+        private final LogHistogram absoluteDetectionErrors = new LogHistogram(ERROR_HISTOGRAM_SIGNIFICANT_BITS);
+        // shared by the accumulators of all threads, every customer is written once
+        private final ChurnResult[] churnResults;
+
+        private ChurnAccumulator(ChurnResult[] churnResults) {
+            this.churnResults = churnResults;
+        }
+
+        private void add(int customerIndex, ChurnResult churnResult) {
+            confusionCounter.add(churnResult.confusionStatus());
+            if (churnResult.confusionStatus() == ConfusionStatus.TRUE_POSITIVE) {
+                absoluteDetectionErrors.record(Math.abs(churnResult.detectionErrorInWeeks()));
+            }
+            if (churnResults != null) {
+                churnResults[customerIndex] = churnResult;
+            }
+        }
+
+        private void merge(ChurnAccumulator other) {
+            confusionCounter.merge(other.confusionCounter);
+            absoluteDetectionErrors.merge(other.absoluteDetectionErrors);
+        }
+
+        private RunSummary summary() {
+            return new RunSummary(
+                churnResults,
+                Math.toIntExact(confusionCounter.count(ConfusionStatus.TRUE_POSITIVE)),
+                Math.toIntExact(confusionCounter.count(ConfusionStatus.FALSE_POSITIVE)),
+                Math.toIntExact(confusionCounter.count(ConfusionStatus.TRUE_NEGATIVE)),
+                Math.toIntExact(confusionCounter.count(ConfusionStatus.FALSE_NEGATIVE)),
+                absoluteDetectionErrors
+            );
+        }
+    }
+
+    public SocialMediaCusumChurnDetector() {
+        this(SHARED_DATASET_CACHE);
+    }
+
+    /**
+     * @param datasetCache Cache of the generated customers and post counts.
+     */
+    public SocialMediaCusumChurnDetector(SocialMediaDatasetCache datasetCache) {
+        this(datasetCache, true);
+    }
+
+    /**
+     * @param datasetCache Cache of the generated customers and post counts.
+     * @param retainChurnResults Whether the summaries keep the result of every customer, or only the counts
+     *                           and the error histogram.
+     */
+    public SocialMediaCusumChurnDetector(SocialMediaDatasetCache datasetCache, boolean retainChurnResults) {
+        this.datasetCache = datasetCache;
+        this.retainChurnResults = retainChurnResults;
+    }
+
     public RunSummary run(
         int numberOfCustomers,
         double churnProbability,
@@ -72,12 +183,79 @@ public class SocialMediaCusumChurnDetector {
         int threshold,
         SignalCleaner.SignalCleaningType signalCleaningType
     ) {
-        Table customers = new SocialMediaCustomerGenerator(ALL_CUSTOMERS_FULL_LIFETIME)
-            .generateUncensoredCustomers(
-                numberOfCustomers,
-                OBSERVATION_PERIOD_IN_YEARS,
-                churnProbability
-            );
+        return run(numberOfCustomers, churnProbability, cusumSmoothing, threshold, signalCleaningType, null);
+    }
+
+    /**
+     * Runs CUSUM and refines its alarms into the changepoints of a segmentation of the cleaned series.
+     *
+     * @param refiner Segmentation that back-dates the alarms, null to keep the alarms.
+     */
+    public RunSummary run(
+        int numberOfCustomers,
+        double churnProbability,
+        double cusumSmoothing,
+        int threshold,
+        SignalCleaner.SignalCleaningType signalCleaningType,
+        Pelt refiner
+    ) {
+        double reference = 200;
+        double thresholdValue = reference + threshold * 20;
+        ChangeDetector cusum = new CusumDetector(cusumSmoothing, reference, thresholdValue).ignoringZeros();
+
+        return compare(numberOfCustomers, churnProbability, signalCleaningType, List.of(cusum), refiner).get(0);
+    }
+
+    /**
+     * Runs CUSUM with the reference and the threshold of every customer estimated from their first weeks,
+     * instead of the values of the Facebook rule.
+     *
+     * @param threshold Threshold of the sum in standard deviations of the baseline, the decision interval h = k * sigma.
+     * @param warmUpWeeks Number of weeks with posts of the baseline.
+     * @param baseline Estimator of the baseline.
+     */
+    public RunSummary runAdaptive(
+        int numberOfCustomers,
+        double churnProbability,
+        double cusumSmoothing,
+        int threshold,
+        int warmUpWeeks,
+        AdaptiveCusumDetector.Baseline baseline,
+        SignalCleaner.SignalCleaningType signalCleaningType
+    ) {
+        ChangeDetector cusum = new AdaptiveCusumDetector(cusumSmoothing, threshold, warmUpWeeks, baseline).ignoringZeros();
+
+        return compare(numberOfCustomers, churnProbability, signalCleaningType, List.of(cusum)).get(0);
+    }
+
+    /**
+     * Runs several detectors on the same cleaned series, every series is read once for all of them.
+     *
+     * @param numberOfCustomers Number of customers.
+     * @param churnProbability Probability of churn of a customer.
+     * @param signalCleaningType Cleaning of the weekly post counts.
+     * @param detectors Detectors to compare.
+     * @return Summary of every detector, in the order of the detectors.
+     */
+    public List<RunSummary> compare(
+        int numberOfCustomers,
+        double churnProbability,
+        SignalCleaner.SignalCleaningType signalCleaningType,
+        List<ChangeDetector> detectors
+    ) {
+        return compare(numberOfCustomers, churnProbability, signalCleaningType, detectors, null);
+    }
+
+    /**
+     * @param refiner Segmentation that back-dates the alarms to their changepoints, null to keep the alarms.
+     */
+    public List<RunSummary> compare(
+        int numberOfCustomers,
+        double churnProbability,
+        SignalCleaner.SignalCleaningType signalCleaningType,
+        List<ChangeDetector> detectors,
+        Pelt refiner
+    ) {
         List<SocialMediaPostRule> postRules = List.of(
             ChannelRules.FACEBOOK
             // ChannelRules.TWITTER,
@@ -88,98 +266,224 @@ public class SocialMediaCusumChurnDetector {
             // SocialMediaChannel.TWITTER,
             // SocialMediaChannel.INSTAGRAM
         );
-        Table posts = new SocialMediaPostsGenerator(customers)
-            .generatePosts("Platform Posts", postRules, channels);
-
-        ChurnResult[] churnResults = customers.stream().map(customer -> {
-            String customerId = customer.getString(ProjectConfig.CUSTOMER_ID_COLUMN);
-            LocalDate churnDate = customer.getDate(ProjectConfig.CHURN_DATE_COLUMN);
-            String churnReason = customer.getString(ProjectConfig.CHURN_REASON_COLUMN);
-
-            Selection selectPostsByCustomerId = posts.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN).isEqualTo(customerId);
-            Table customerPosts = posts.where(selectPostsByCustomerId);
-            Table weeklyPosts = customerPosts.summarize(
-                ProjectConfig.POST_COUNT_COLUMN, 
-                AggregateFunctions.sum
-            ).by(ProjectConfig.YEAR_COLUMN, ProjectConfig.WEEK_COLUMN);
-
-            double[] postCounts = weeklyPosts.doubleColumn("Sum [" + ProjectConfig.POST_COUNT_COLUMN + "]")
-                .asDoubleArray();
-            double[] postCountsCleaned = SignalCleaner.clean(postCounts, signalCleaningType);
-            double reference = 200;
-            double thresholdValue = reference + threshold * 20;
-
-            Cusum cusum = new Cusum(cusumSmoothing);
-            Cusum.Result cusumResult = cusum.compute(postCountsCleaned, reference, thresholdValue, true);
-
-            int detectedChurnIndex = cusumResult.anomalyIndex();
-            int detectedChurnYear;
-            int detectedChurnWeek;
-            LocalDate detectedChurnDate;
-            // TODO: in the future there will be more reasons for churn
-            String detectedChurnReason = SocialMediaChurnReason.POST_COUNT_DROP.getDisplayName();
-            
-            if (detectedChurnIndex != -1) {
-                detectedChurnYear = weeklyPosts.row(detectedChurnIndex).getInt(ProjectConfig.YEAR_COLUMN);
-                detectedChurnWeek = weeklyPosts.row(detectedChurnIndex).getInt(ProjectConfig.WEEK_COLUMN);
-                detectedChurnDate = LocalDate.now()
-                    .withYear(detectedChurnYear)
-                    .with(weekFields.weekOfWeekBasedYear(), detectedChurnWeek)
-                    .with(weekFields.dayOfWeek(), 1);
-            } else {
-                detectedChurnDate = null;
-            }
+        SocialMediaDatasetCache.PostCounts dataset = postCounts(numberOfCustomers, churnProbability, postRules, channels);
+        Table customers = dataset.customers();
+        PostCountTensor postCounts = dataset.postCounts();
+        StringColumn customerIds = customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        DateColumn churnDates = customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN);
+        StringColumn churnReasons = customers.stringColumn(ProjectConfig.CHURN_REASON_COLUMN);
+        FusedChangeDetector fusedDetector = new FusedChangeDetector(detectors);
 
-            int detectionErrorInWeeks;
-            ConfusionStatus confusionStatus;
-
-            if (churnDate != null && detectedChurnDate != null) {
-                detectionErrorInWeeks = (int) ChronoUnit.WEEKS.between(churnDate, detectedChurnDate);
-                confusionStatus = ConfusionStatus.TRUE_POSITIVE;
-            } else if (churnDate == null && detectedChurnDate != null) {
-                detectionErrorInWeeks = Integer.MIN_VALUE;
-                confusionStatus = ConfusionStatus.FALSE_POSITIVE;
-            } else if (churnDate != null && detectedChurnDate == null) {
-                detectionErrorInWeeks = Integer.MIN_VALUE;
-                confusionStatus = ConfusionStatus.FALSE_NEGATIVE;
-            } else {
-                detectionErrorInWeeks = Integer.MIN_VALUE;
-                confusionStatus = ConfusionStatus.TRUE_NEGATIVE;
-            }
-            
-            return new ChurnResult(
-                customerId,
-                churnDate,
-                churnReason,
-                detectedChurnDate,
-                detectedChurnReason,
-                detectionErrorInWeeks,
-                confusionStatus
-            );
-        }).toArray(ChurnResult[]::new);
+        ChurnResult[][] churnResults = retainChurnResults ? new ChurnResult[detectors.size()][customers.rowCount()] : null;
+        ChurnAccumulator[] accumulators = IntStream.range(0, customers.rowCount()).parallel().collect(
+            () -> IntStream.range(0, detectors.size())
+                .mapToObj(detector -> new ChurnAccumulator(churnResults != null ? churnResults[detector] : null))
+                .toArray(ChurnAccumulator[]::new),
+            (partial, customerIndex) -> {
+                String customerId = customerIds.get(customerIndex);
+                LocalDate churnDate = churnDates.get(customerIndex);
+                String churnReason = churnReasons.get(customerIndex);
 
-        int numberOfTruePositives = 0;
-        int numberOfFalsePositives = 0;
-        int numberOfTrueNegatives = 0;
-        int numberOfFalseNegatives = 0;
-        for (ChurnResult churnResult : churnResults) {
-            if (churnResult.confusionStatus() == ConfusionStatus.TRUE_POSITIVE) {
-                numberOfTruePositives++;
-            } else if (churnResult.confusionStatus() == ConfusionStatus.FALSE_POSITIVE) {
-                numberOfFalsePositives++;
-            } else if (churnResult.confusionStatus() == ConfusionStatus.TRUE_NEGATIVE) {
-                numberOfTrueNegatives++;
-            } else if (churnResult.confusionStatus() == ConfusionStatus.FALSE_NEGATIVE) {
-                numberOfFalseNegatives++;
+                double[] weeklyPostCounts = postCounts.total(customerIndex);
+                double[] postCountsCleaned = SignalCleaner.clean(weeklyPostCounts, signalCleaningType);
+                int[] detectedChurnIndexes = fusedDetector.detect(postCountsCleaned);
+                // segmented at most once per customer, for the first detector that signals
+                int[] changepoints = null;
+
+                for (int detector = 0; detector < detectors.size(); detector++) {
+                    int detectedChurnIndex = detectedChurnIndexes[detector];
+                    if (detectedChurnIndex != -1 && refiner != null) {
+                        changepoints = changepoints == null ? refiner.segment(postCountsCleaned) : changepoints;
+                        detectedChurnIndex = Pelt.refine(changepoints, detectedChurnIndex);
+                    }
+                    LocalDate detectedChurnDate = detectedChurnIndex != -1
+                        ? EpochWeeks.monday(postCounts.firstWeek(customerIndex) + detectedChurnIndex)
+                        : null;
+                    partial[detector].add(customerIndex, churnResult(customerId, churnDate, churnReason, detectedChurnDate));
+                }
+            },
+            (left, right) -> {
+                for (int detector = 0; detector < detectors.size(); detector++) {
+                    left[detector].merge(right[detector]);
+                }
             }
+        );
+
+        return Arrays.stream(accumulators).map(ChurnAccumulator::summary).toList();
+    }
+
+    /**
+     * Runs a cascade: a lenient screen on the uncleaned weekly post counts of every customer, then the costly
+     * cleaning and the confirmation detector only for the customers the screen flags. The screen has to be
+     * more sensitive than the confirmation, as customers it misses are never confirmed.
+     *
+     * @param screen Cheap and lenient detector of the uncleaned series.
+     * @param signalCleaningType Cleaning of the flagged series.
+     * @param confirmation Detector of the cleaned series, which dates the churn.
+     */
+    public CascadeSummary runCascade(
+        int numberOfCustomers,
+        double churnProbability,
+        ChangeDetector screen,
+        SignalCleaner.SignalCleaningType signalCleaningType,
+        ChangeDetector confirmation
+    ) {
+        List<SocialMediaPostRule> postRules = List.of(ChannelRules.FACEBOOK);
+        List<SocialMediaChannel> channels = List.of(SocialMediaChannel.FACEBOOK);
+        SocialMediaDatasetCache.PostCounts dataset = postCounts(numberOfCustomers, churnProbability, postRules, channels);
+        Table customers = dataset.customers();
+        PostCountTensor postCounts = dataset.postCounts();
+        StringColumn customerIds = customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        DateColumn churnDates = customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN);
+        StringColumn churnReasons = customers.stringColumn(ProjectConfig.CHURN_REASON_COLUMN);
+
+        ChurnResult[] churnResults = retainChurnResults ? new ChurnResult[customers.rowCount()] : null;
+        LongAdder numberOfFlaggedCustomers = new LongAdder();
+        ChurnAccumulator accumulator = IntStream.range(0, customers.rowCount()).parallel().collect(
+            () -> new ChurnAccumulator(churnResults),
+            (partial, customerIndex) -> {
+                double[] weeklyPostCounts = postCounts.total(customerIndex);
+
+                int detectedChurnIndex = -1;
+                if (screen.detect(weeklyPostCounts) != -1) {
+                    numberOfFlaggedCustomers.increment();
+                    detectedChurnIndex = confirmation.detect(SignalCleaner.clean(weeklyPostCounts, signalCleaningType));
+                }
+
+                partial.add(customerIndex, churnResult(
+                    customerIds.get(customerIndex),
+                    churnDates.get(customerIndex),
+                    churnReasons.get(customerIndex),
+                    detectedChurnIndex != -1 ? EpochWeeks.monday(postCounts.firstWeek(customerIndex) + detectedChurnIndex) : null
+                ));
+            },
+            ChurnAccumulator::merge
+        );
+
+        RunSummary summary = accumulator.summary();
+        return new CascadeSummary(
+            summary,
+            summary.numberOfCustomers(),
+            numberOfFlaggedCustomers.intValue(),
+            summary.numberOfTruePositives() + summary.numberOfFalsePositives()
+        );
+    }
+
+    /**
+     * Runs a multivariate detector on the weekly post counts of every channel, so a drop on one channel
+     * is not masked by the others. Every channel is cleaned separately.
+     *
+     * @param detector Detector of vectors with one value per channel.
+     */
+    public RunSummary runMultivariate(
+        int numberOfCustomers,
+        double churnProbability,
+        MultivariateChangeDetector detector,
+        SignalCleaner.SignalCleaningType signalCleaningType
+    ) {
+        List<SocialMediaPostRule> postRules = List.of(
+            ChannelRules.FACEBOOK,
+            ChannelRules.TWITTER,
+            ChannelRules.INSTAGRAM
+        );
+        List<SocialMediaChannel> channels = List.of(SocialMediaChannel.values());
+        if (detector.dimensions() != channels.size()) {
+            throw new IllegalArgumentException("The detector has to have one dimension per channel.");
+        }
+        SocialMediaDatasetCache.PostCounts dataset = postCounts(numberOfCustomers, churnProbability, postRules, channels);
+        Table customers = dataset.customers();
+        PostCountTensor postCounts = dataset.postCounts();
+        StringColumn customerIds = customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        DateColumn churnDates = customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN);
+        StringColumn churnReasons = customers.stringColumn(ProjectConfig.CHURN_REASON_COLUMN);
+
+        ChurnResult[] churnResults = retainChurnResults ? new ChurnResult[customers.rowCount()] : null;
+        ChurnAccumulator accumulator = IntStream.range(0, customers.rowCount()).parallel().collect(
+            () -> new ChurnAccumulator(churnResults),
+            (partial, customerIndex) -> {
+                int firstWeek = postCounts.firstWeek(customerIndex);
+                int weekCount = postCounts.weekCount(customerIndex);
+
+                double[][] channelPostCountsCleaned = new double[channels.size()][];
+                for (int channel = 0; channel < channels.size(); channel++) {
+                    double[] weeklyPostCounts = new double[weekCount];
+                    for (int week = 0; week < weekCount; week++) {
+                        weeklyPostCounts[week] = postCounts.get(customerIndex, channel, firstWeek + week);
+                    }
+                    channelPostCountsCleaned[channel] = SignalCleaner.clean(weeklyPostCounts, signalCleaningType);
+                }
+
+                MultivariateChangeDetector.State state = detector.start();
+                double[] weekPostCounts = new double[channels.size()];
+                int detectedChurnIndex = -1;
+                for (int week = 0; week < weekCount && detectedChurnIndex == -1; week++) {
+                    for (int channel = 0; channel < channels.size(); channel++) {
+                        weekPostCounts[channel] = channelPostCountsCleaned[channel][week];
+                    }
+                    detectedChurnIndex = state.update(weekPostCounts) ? week : -1;
+                }
+
+                partial.add(customerIndex, churnResult(
+                    customerIds.get(customerIndex),
+                    churnDates.get(customerIndex),
+                    churnReasons.get(customerIndex),
+                    detectedChurnIndex != -1 ? EpochWeeks.monday(firstWeek + detectedChurnIndex) : null
+                ));
+            },
+            ChurnAccumulator::merge
+        );
+
+        return accumulator.summary();
+    }
+
+    private SocialMediaDatasetCache.PostCounts postCounts(
+        int numberOfCustomers,
+        double churnProbability,
+        List<SocialMediaPostRule> postRules,
+        List<SocialMediaChannel> channels
+    ) {
+        return datasetCache.getPostCounts(new SocialMediaDatasetConfig(
+            ProjectConfig.RANDOM_SEED,
+            numberOfCustomers,
+            0,
+            0,
+            OBSERVATION_PERIOD_IN_YEARS,
+            churnProbability,
+            ALL_CUSTOMERS_FULL_LIFETIME,
+            postRules,
+            channels
+        ));
+    }
+
+    static ChurnResult churnResult(String customerId, LocalDate churnDate, String churnReason, LocalDate detectedChurnDate) {
+        // TODO: in the future there will be more reasons for churn
+        String detectedChurnReason = SocialMediaChurnReason.POST_COUNT_DROP.getDisplayName();
+
+        int detectionErrorInWeeks;
+        ConfusionStatus confusionStatus;
+
+        if (churnDate != null && detectedChurnDate != null) {
+            detectionErrorInWeeks = (int) ChronoUnit.WEEKS.between(churnDate, detectedChurnDate);
+            confusionStatus = ConfusionStatus.TRUE_POSITIVE;
+        } else if (churnDate == null && detectedChurnDate != null) {
+            detectionErrorInWeeks = Integer.MIN_VALUE;
+            confusionStatus = ConfusionStatus.FALSE_POSITIVE;
+        } else if (churnDate != null && detectedChurnDate == null) {
+            detectionErrorInWeeks = Integer.MIN_VALUE;
+            confusionStatus = ConfusionStatus.FALSE_NEGATIVE;
+        } else {
+            detectionErrorInWeeks = Integer.MIN_VALUE;
+            confusionStatus = ConfusionStatus.TRUE_NEGATIVE;
         }
 
-        return new RunSummary(
-            churnResults,
-            numberOfTruePositives,
-            numberOfFalsePositives,
-            numberOfTrueNegatives,
-            numberOfFalseNegatives
+        return new ChurnResult(
+            customerId,
+            churnDate,
+            churnReason,
+            detectedChurnDate,
+            detectedChurnReason,
+            detectionErrorInWeeks,
+            confusionStatus
         );
     }
 }
@@ -0,0 +1,199 @@
+package com.censoredsurvivors.simulation;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import org.apache.commons.math3.distribution.TDistribution;
+
+import com.censoredsurvivors.data.generator.SocialMediaCustomerGenerator;
+import com.censoredsurvivors.data.generator.SocialMediaPostsGenerator;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.statistics.ChangeDetector;
+import com.censoredsurvivors.data.statistics.ConfusionCounter;
+import com.censoredsurvivors.data.statistics.ConfusionStatus;
+import com.censoredsurvivors.data.statistics.LogHistogram;
+import com.censoredsurvivors.data.statistics.SignalCleaner;
+import com.censoredsurvivors.data.storage.PostCountTensor;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+import com.censoredsurvivors.util.RandomStreams;
+
+import tech.tablesaw.api.DateColumn;
+import tech.tablesaw.api.StringColumn;
+import tech.tablesaw.api.Table;
+
+/**
+ * Runs independent replications of generating a dataset and detecting churn, to estimate the detection metrics
+ * with confidence intervals instead of from the single dataset of one seed.
+ *
+ * Every replication generates its dataset from its own seed of (seed, replication), only as a post count tensor,
+ * and is reduced to a few metrics before the next one starts on its worker. At most the given number of
+ * replications are in memory at a time.
+ */
+public class SocialMediaReplicationRunner {
+    // exact below 128 weeks
+    private static final int ERROR_HISTOGRAM_SIGNIFICANT_BITS = 7;
+
+    private final SocialMediaDatasetConfig config;
+    private final int concurrency;
+
+    /**
+     * @param mean Mean of the metric over the replications.
+     * @param lower Lower bound of the confidence interval of the mean.
+     * @param upper Upper bound of the confidence interval of the mean.
+     */
+    public record Estimate(double mean, double lower, double upper) {}
+
+    /**
+     * Metrics over the replications, the rates are shares of all customers.
+     *
+     * @param replications Number of replications.
+     * @param truePositiveRate Share of customers that churn and are detected.
+     * @param falsePositiveRate Share of customers that do not churn and are detected.
+     * @param trueNegativeRate Share of customers that do not churn and are not detected.
+     * @param falseNegativeRate Share of customers that churn and are not detected.
+     * @param medianErrorInWeeks Median absolute detection error of the true positives.
+     * @param p90ErrorInWeeks 90th percentile of the absolute detection error of the true positives.
+     */
+    public record ReplicationSummary(
+        int replications,
+        Estimate truePositiveRate,
+        Estimate falsePositiveRate,
+        Estimate trueNegativeRate,
+        Estimate falseNegativeRate,
+        Estimate medianErrorInWeeks,
+        Estimate p90ErrorInWeeks
+    ) {}
+
+    /**
+     * @param config Configuration of the datasets, its seed is replaced by the seed of every replication.
+     * @param concurrency Maximum number of replications that run at a time.
+     */
+    public SocialMediaReplicationRunner(SocialMediaDatasetConfig config, int concurrency) {
+        if (concurrency <= 0) {
+            throw new IllegalArgumentException("The concurrency has to be positive.");
+        }
+
+        this.config = config;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * @param replications Number of replications, at least two.
+     * @param detector Detector of the cleaned weekly post counts.
+     * @param signalCleaningType Cleaning of the weekly post counts.
+     * @param confidenceLevel Confidence level of the intervals, e.g. 0.95.
+     * @return Metrics with confidence intervals.
+     */
+    public ReplicationSummary run(
+        int replications,
+        ChangeDetector detector,
+        SignalCleaner.SignalCleaningType signalCleaningType,
+        double confidenceLevel
+    ) {
+        if (replications < 2) {
+            throw new IllegalArgumentException("At least two replications are needed.");
+        }
+        if (confidenceLevel <= 0 || confidenceLevel >= 1) {
+            throw new IllegalArgumentException("The confidence level has to be between 0 and 1.");
+        }
+
+        // metrics of every replication: true positive, false positive, true negative, false negative rate,
+        // median error and p90 error
+        double[][] metrics;
+        ForkJoinPool pool = new ForkJoinPool(concurrency);
+        try {
+            metrics = pool.submit(() -> IntStream.range(0, replications).parallel()
+                .mapToObj(replication -> replicate(replication, detector, signalCleaningType))
+                .toArray(double[][]::new)
+            ).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("The replications were interrupted.", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A replication failed.", e.getCause());
+        } finally {
+            pool.shutdown();
+        }
+
+        return new ReplicationSummary(
+            replications,
+            estimate(metrics, 0, confidenceLevel),
+            estimate(metrics, 1, confidenceLevel),
+            estimate(metrics, 2, confidenceLevel),
+            estimate(metrics, 3, confidenceLevel),
+            estimate(metrics, 4, confidenceLevel),
+            estimate(metrics, 5, confidenceLevel)
+        );
+    }
+
+    private double[] replicate(int replication, ChangeDetector detector, SignalCleaner.SignalCleaningType signalCleaningType) {
+        Random random = new Random(RandomStreams.seed(config.seed(), replication));
+        Table customers = new SocialMediaCustomerGenerator(config.allCustomersFullLifetime(), random)
+            .generateCustomers(
+                config.numberOfCustomers(),
+                config.percentOfLeftCensoredCustomers(),
+                config.percentOfRightCensoredCustomers(),
+                config.observationPeriodInYears(),
+                config.churnProbability()
+            );
+        PostCountTensor postCounts = new SocialMediaPostsGenerator(customers, random)
+            .generatePostCounts(config.postRules(), config.channels());
+
+        StringColumn customerIds = customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN);
+        DateColumn churnDates = customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN);
+        StringColumn churnReasons = customers.stringColumn(ProjectConfig.CHURN_REASON_COLUMN);
+        ConfusionCounter confusionCounter = new ConfusionCounter();
+        LogHistogram absoluteDetectionErrors = new LogHistogram(ERROR_HISTOGRAM_SIGNIFICANT_BITS);
+        for (int customerIndex = 0; customerIndex < customers.rowCount(); customerIndex++) {
+            double[] postCountsCleaned = SignalCleaner.clean(postCounts.total(customerIndex), signalCleaningType);
+            int detectedChurnIndex = detector.detect(postCountsCleaned);
+            LocalDate detectedChurnDate = detectedChurnIndex != -1
+                ? EpochWeeks.monday(postCounts.firstWeek(customerIndex) + detectedChurnIndex)
+                : null;
+
+            SocialMediaCusumChurnDetector.ChurnResult churnResult = SocialMediaCusumChurnDetector.churnResult(
+                customerIds.get(customerIndex),
+                churnDates.get(customerIndex),
+                churnReasons.get(customerIndex),
+                detectedChurnDate
+            );
+            confusionCounter.add(churnResult.confusionStatus());
+            if (churnResult.confusionStatus() == ConfusionStatus.TRUE_POSITIVE) {
+                absoluteDetectionErrors.record(Math.abs(churnResult.detectionErrorInWeeks()));
+            }
+        }
+
+        double total = confusionCounter.total();
+        return new double[] {
+            confusionCounter.count(ConfusionStatus.TRUE_POSITIVE) / total,
+            confusionCounter.count(ConfusionStatus.FALSE_POSITIVE) / total,
+            confusionCounter.count(ConfusionStatus.TRUE_NEGATIVE) / total,
+            confusionCounter.count(ConfusionStatus.FALSE_NEGATIVE) / total,
+            absoluteDetectionErrors.median(),
+            absoluteDetectionErrors.quantile(0.9)
+        };
+    }
+
+    /**
+     * @return Mean of a metric over the replications with the t confidence interval, replications without
+     *         a value of the metric are skipped.
+     */
+    private static Estimate estimate(double[][] metrics, int metric, double confidenceLevel) {
+        double[] values = Arrays.stream(metrics).mapToDouble(replication -> replication[metric]).filter(value -> !Double.isNaN(value)).toArray();
+        if (values.length < 2) {
+            double mean = values.length == 1 ? values[0] : Double.NaN;
+            return new Estimate(mean, Double.NaN, Double.NaN);
+        }
+
+        double t = new TDistribution(values.length - 1).inverseCumulativeProbability((1 + confidenceLevel) / 2);
+        double mean = Arrays.stream(values).average().orElseThrow();
+        double squaredDeviations = Arrays.stream(values).map(value -> (value - mean) * (value - mean)).sum();
+        double halfWidth = t * Math.sqrt(squaredDeviations / (values.length - 1) / values.length);
+        return new Estimate(mean, mean - halfWidth, mean + halfWidth);
+    }
+}
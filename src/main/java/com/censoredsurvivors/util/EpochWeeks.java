@@ -0,0 +1,55 @@
+package com.censoredsurvivors.util;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.IsoFields;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * Weeks counted from the epoch, starting on Mondays like ISO weeks.
+ *
+ * Unlike (year, week) pairs, epoch weeks are plain consecutive integers, so week series can be indexed directly.
+ */
+public class EpochWeeks {
+    // 1970-01-01 is a Thursday, shifting by 3 days makes the weeks start on Mondays.
+    private static final int THURSDAY_OFFSET = 3;
+
+    /**
+     * @return Epoch week containing the date.
+     */
+    public static int of(LocalDate date) {
+        return (int) Math.floorDiv(date.toEpochDay() + THURSDAY_OFFSET, 7);
+    }
+
+    /**
+     * @return Epoch week of the ISO week-based year and week, e.g. 2020-W01 starting on 2019-12-30.
+     */
+    public static int ofIsoWeek(int weekBasedYear, int week) {
+        LocalDate monday = LocalDate.of(weekBasedYear, 1, 4)
+            .with(IsoFields.WEEK_OF_WEEK_BASED_YEAR, week)
+            .with(DayOfWeek.MONDAY);
+        return of(monday);
+    }
+
+    /**
+     * @return Monday starting the epoch week.
+     */
+    public static LocalDate monday(int epochWeek) {
+        return LocalDate.ofEpochDay(epochWeek * 7L - THURSDAY_OFFSET);
+    }
+
+    /**
+     * @return Epoch week of the first Monday on or after the date.
+     */
+    public static int firstMondayWeek(LocalDate date) {
+        return of(date.with(TemporalAdjusters.nextOrSame(DayOfWeek.MONDAY)));
+    }
+
+    /**
+     * @return Epoch week of the last Monday before the date.
+     */
+    public static int lastMondayWeekBefore(LocalDate date) {
+        // the Monday of the week containing the previous day
+        return of(date.minusDays(1));
+    }
+}
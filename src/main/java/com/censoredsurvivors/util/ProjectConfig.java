@@ -30,6 +30,7 @@ public class ProjectConfig {
     public static final String PLAN_COLUMN = "plan";
     public static final String CHURN_DATE_COLUMN = "churnDate";
     public static final String CHURN_REASON_COLUMN = "churnReason";
+    public static final String CHURN_FACTOR_COLUMN = "churnFactor";
 
     // Make sure the params have different prime number of elements to avoid patterns
     public static final String[] INDUSTRY_VALUES = SocialMediaIndustry.getAllDisplayNames();
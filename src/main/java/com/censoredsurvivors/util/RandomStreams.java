@@ -0,0 +1,43 @@
+package com.censoredsurvivors.util;
+
+import java.util.SplittableRandom;
+
+/**
+ * Reproducible, independent random streams derived from a seed and a set of keys,
+ * e.g. (seed, replicate) or (seed, customer, week).
+ *
+ * Unlike the shared {@link ProjectConfig#RANDOM}, a stream does not depend on the order in which other
+ * streams are consumed, so parallel work produces the same numbers as sequential work.
+ */
+public class RandomStreams {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+    /**
+     * @param seed Base seed.
+     * @param keys Keys identifying the stream.
+     * @return A new random stream, the same for the same seed and keys.
+     */
+    public static SplittableRandom stream(long seed, long... keys) {
+        return new SplittableRandom(seed(seed, keys));
+    }
+
+    /**
+     * @param seed Base seed.
+     * @param keys Keys identifying the stream.
+     * @return Seed of the stream, well mixed even for consecutive keys.
+     */
+    public static long seed(long seed, long... keys) {
+        long mixed = mix(seed);
+        for (long key : keys) {
+            mixed = mix(mixed + GOLDEN_GAMMA * (key + 1));
+        }
+        return mixed;
+    }
+
+    // SplitMix64 finalizer
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xbf58476d1ce4e5b9L;
+        value = (value ^ (value >>> 27)) * 0x94d049bb133111ebL;
+        return value ^ (value >>> 31);
+    }
+}
@@ -0,0 +1,135 @@
+package com.censoredsurvivors.data.generator;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.data.storage.ColumnarSnapshot;
+import com.censoredsurvivors.data.storage.PostCountTensor;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class SocialMediaDatasetCacheTest {
+    private static final List<SocialMediaPostRule> POST_RULES = List.of(
+        new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.8))
+    );
+    private static final List<SocialMediaChannel> CHANNELS = List.of(SocialMediaChannel.FACEBOOK, SocialMediaChannel.TWITTER);
+
+    private SocialMediaDatasetConfig config(long seed) {
+        return new SocialMediaDatasetConfig(seed, 20, 0.2, 0.2, 3, 0.5, false, POST_RULES, CHANNELS);
+    }
+
+    @Test
+    public void testGenerationIsReproducible() {
+        SocialMediaDataset first = SocialMediaDatasetCache.generate(config(ProjectConfig.RANDOM_SEED));
+        SocialMediaDataset second = SocialMediaDatasetCache.generate(config(ProjectConfig.RANDOM_SEED));
+
+        assertSameTable(first.customers(), second.customers());
+        assertSameTable(first.posts(), second.posts());
+    }
+
+    @Test
+    public void testMemoryTierIsLeastRecentlyUsed() {
+        SocialMediaDatasetCache cache = new SocialMediaDatasetCache(2);
+
+        SocialMediaDataset first = cache.get(config(1));
+        SocialMediaDataset second = cache.get(config(2));
+        Assertions.assertSame(first, cache.get(config(1)), "Cached in memory");
+
+        cache.get(config(3));
+        Assertions.assertSame(first, cache.get(config(1)), "Recently used entry is kept");
+        Assertions.assertNotSame(second, cache.get(config(2)), "Least recently used entry is evicted");
+    }
+
+    @Test
+    public void testPostCountsMatchThePostsOfTheDataset() {
+        SocialMediaDatasetCache cache = new SocialMediaDatasetCache(2);
+        SocialMediaDataset dataset = cache.get(config(5));
+        SocialMediaDatasetCache.PostCounts postCounts = cache.getPostCounts(config(5));
+        PostCountTensor expected = PostCountTensor.fromPosts(dataset.customers(), dataset.posts(), CHANNELS);
+
+        assertSameTable(dataset.customers(), postCounts.customers());
+        Assertions.assertEquals(expected.size(), postCounts.postCounts().size());
+        for (int customer = 0; customer < expected.size(); customer++) {
+            Assertions.assertEquals(expected.weekCount(customer), postCounts.postCounts().weekCount(customer));
+            for (int channel = 0; channel < CHANNELS.size(); channel++) {
+                for (int week = expected.firstWeek(customer); week < expected.firstWeek(customer) + expected.weekCount(customer); week++) {
+                    Assertions.assertEquals(expected.get(customer, channel, week), postCounts.postCounts().get(customer, channel, week), "Posts of " + customer);
+                }
+            }
+        }
+        Assertions.assertSame(postCounts, cache.getPostCounts(config(5)), "Cached in memory");
+    }
+
+    @Test
+    public void testDiskTierRestoresTheDataset(@TempDir Path directory) throws IOException {
+        SocialMediaDataset generated = new SocialMediaDatasetCache(1, directory).get(config(7));
+        Assertions.assertEquals(1, Files.list(directory).count(), "One snapshot per configuration");
+
+        // a new cache has an empty memory tier and reads the snapshot
+        SocialMediaDataset restored = new SocialMediaDatasetCache(1, directory).get(config(7));
+
+        Assertions.assertNotSame(generated, restored);
+        assertSameTable(generated.customers(), restored.customers());
+        assertSameTable(generated.posts(), restored.posts());
+    }
+
+    @Test
+    public void testSnapshotOfAnotherGeneratorVersionIsRegenerated(@TempDir Path directory) throws IOException {
+        SocialMediaDataset generated = SocialMediaDatasetCache.generate(config(7));
+        Path snapshot = directory.resolve(SocialMediaDatasetCache.snapshotName(config(7)));
+        SocialMediaDataset stale = SocialMediaDatasetCache.generate(config(8));
+        ColumnarSnapshot.write(snapshot, "v0 " + config(7), stale);
+
+        SocialMediaDataset restored = new SocialMediaDatasetCache(1, directory).get(config(7));
+
+        assertSameTable(generated.posts(), restored.posts());
+        try (ColumnarSnapshot columnar = ColumnarSnapshot.open(snapshot)) {
+            Assertions.assertEquals(SocialMediaDatasetCache.snapshotMetadata(config(7)), columnar.metadata(), "Snapshot is rewritten");
+        }
+    }
+
+    @Test
+    public void testConcurrentRequestsShareOneGeneration() throws Exception {
+        SocialMediaDatasetCache cache = new SocialMediaDatasetCache(4);
+        List<Future<SocialMediaDataset>> futures = new ArrayList<>();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < 8; i++) {
+                long seed = i % 2;
+                futures.add(executor.submit(() -> cache.get(config(seed))));
+            }
+            for (int i = 2; i < futures.size(); i++) {
+                Assertions.assertSame(futures.get(i % 2).get(), futures.get(i).get(), "Request " + i);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private void assertSameTable(Table expected, Table actual) {
+        Assertions.assertEquals(expected.name(), actual.name());
+        Assertions.assertEquals(expected.columnNames(), actual.columnNames());
+        Assertions.assertEquals(expected.rowCount(), actual.rowCount());
+        for (int column = 0; column < expected.columnCount(); column++) {
+            Assertions.assertEquals(expected.column(column).type(), actual.column(column).type());
+            Assertions.assertEquals(expected.column(column).asList(), actual.column(column).asList(), expected.column(column).name());
+        }
+    }
+}
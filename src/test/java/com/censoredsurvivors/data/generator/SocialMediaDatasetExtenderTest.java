@@ -0,0 +1,224 @@
+package com.censoredsurvivors.data.generator;
+
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.data.storage.PostCountTensor;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class SocialMediaDatasetExtenderTest {
+    private static final List<SocialMediaChannel> CHANNELS = List.of(SocialMediaChannel.FACEBOOK, SocialMediaChannel.TWITTER);
+
+    private static SocialMediaDatasetConfig config(boolean allCustomersFullLifetime) {
+        return config(allCustomersFullLifetime, 2);
+    }
+
+    private static SocialMediaDatasetConfig config(boolean allCustomersFullLifetime, int observationPeriodInYears) {
+        return new SocialMediaDatasetConfig(
+            ProjectConfig.RANDOM_SEED,
+            40,
+            allCustomersFullLifetime ? 0 : 0.2,
+            allCustomersFullLifetime ? 0 : 0.2,
+            observationPeriodInYears,
+            0.5,
+            allCustomersFullLifetime,
+            List.of(new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.8))),
+            CHANNELS
+        );
+    }
+
+    @Test
+    public void testExtensionsCompose() {
+        SocialMediaDatasetConfig config = config(true);
+        SocialMediaDatasetExtender extender = SocialMediaDatasetExtender.of(config);
+
+        SocialMediaDataset original = SocialMediaDatasetCache.generate(config);
+        SocialMediaDatasetExtender.Extension first = extender.extend(original.customers(), 4);
+        SocialMediaDatasetExtender.Extension second = extender.extend(first.customers(), 4);
+        SocialMediaDatasetExtender.Extension once = extender.extend(original.customers(), 8);
+
+        Assertions.assertEquals(once.posts().rowCount(), first.posts().rowCount() + second.posts().rowCount());
+        for (String column : once.customers().columnNames()) {
+            Assertions.assertEquals(once.customers().column(column).asList(), second.customers().column(column).asList(), column);
+        }
+        PostCountTensor onceCounts = PostCountTensor.fromPosts(once.customers(), List.of(original.posts(), once.posts()), CHANNELS);
+        PostCountTensor twiceCounts = PostCountTensor.fromPosts(
+            second.customers(),
+            List.of(original.posts(), first.posts(), second.posts()),
+            CHANNELS
+        );
+        for (int customer = 0; customer < onceCounts.size(); customer++) {
+            Assertions.assertArrayEquals(onceCounts.total(customer), twiceCounts.total(customer), "Series of " + customer);
+        }
+    }
+
+    @Test
+    public void testHistoryIsKeptAndOnlyActiveCustomersAreExtended() {
+        SocialMediaDatasetConfig config = config(false);
+        SocialMediaDataset original = SocialMediaDatasetCache.generate(config);
+        Table originalCustomers = original.customers();
+        PostCountTensor originalCounts = PostCountTensor.fromPosts(originalCustomers, original.posts(), CHANNELS);
+        int originalRows = original.posts().rowCount();
+        LocalDate horizon = SocialMediaDatasetExtender.horizon(originalCustomers);
+
+        SocialMediaDatasetExtender.Extension extended = SocialMediaDatasetExtender.of(config).extend(originalCustomers, 6);
+        PostCountTensor extendedCounts = PostCountTensor.fromPosts(extended.customers(), List.of(original.posts(), extended.posts()), CHANNELS);
+
+        int activeCustomers = 0;
+        for (int customer = 0; customer < originalCounts.size(); customer++) {
+            boolean active = originalCustomers.dateColumn(ProjectConfig.CONTRACT_END_DATE_COLUMN).get(customer).equals(horizon);
+            int newWeeks = active ? 6 : 0;
+            activeCustomers += active ? 1 : 0;
+
+            Assertions.assertEquals(originalCounts.weekCount(customer) + newWeeks, extendedCounts.weekCount(customer), "Weeks of " + customer);
+            double[] originalTotal = originalCounts.total(customer);
+            double[] extendedTotal = extendedCounts.total(customer);
+            for (int week = 0; week < originalTotal.length; week++) {
+                Assertions.assertEquals(originalTotal[week], extendedTotal[week], "History of " + customer);
+            }
+            if (!active) {
+                Assertions.assertEquals(
+                    originalCustomers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN).get(customer),
+                    extended.customers().dateColumn(ProjectConfig.CHURN_DATE_COLUMN).get(customer),
+                    "Churn of an inactive customer"
+                );
+            }
+        }
+        Assertions.assertTrue(activeCustomers > 0);
+        Assertions.assertEquals(originalRows, original.posts().rowCount(), "The given dataset is not modified");
+        PostCountTensor originalAgain = PostCountTensor.fromPosts(originalCustomers, original.posts(), CHANNELS);
+        Assertions.assertEquals(originalCounts.size(), originalAgain.size(), "The given dataset stays consistent");
+        Assertions.assertEquals(activeCustomers * 6 * CHANNELS.size(), extended.posts().rowCount(), "Only the new weeks are sampled");
+        Assertions.assertEquals(
+            originalRows + extended.posts().rowCount(),
+            extended.appendTo(original.posts()).posts().rowCount(),
+            "The history is followed by the new weeks"
+        );
+        Assertions.assertEquals(horizon.plusWeeks(6), SocialMediaDatasetExtender.horizon(extended.customers()));
+    }
+
+    @Test
+    public void testChurnInExtension() {
+        SocialMediaDatasetConfig config = config(true);
+        SocialMediaDataset original = SocialMediaDatasetCache.generate(config);
+        LocalDate horizon = SocialMediaDatasetExtender.horizon(original.customers());
+
+        SocialMediaDatasetExtender.Extension everyoneChurns = new SocialMediaDatasetExtender(config.seed(), 1, config.postRules(), CHANNELS)
+            .extend(original.customers(), 3);
+        SocialMediaDatasetExtender.Extension nobodyChurns = new SocialMediaDatasetExtender(config.seed(), 0, config.postRules(), CHANNELS)
+            .extend(original.customers(), 3);
+
+        for (int customer = 0; customer < original.customers().rowCount(); customer++) {
+            LocalDate churnDate = original.customers().dateColumn(ProjectConfig.CHURN_DATE_COLUMN).get(customer);
+            LocalDate churnedDate = everyoneChurns.customers().dateColumn(ProjectConfig.CHURN_DATE_COLUMN).get(customer);
+
+            Assertions.assertEquals(churnDate, nobodyChurns.customers().dateColumn(ProjectConfig.CHURN_DATE_COLUMN).get(customer), "No new churn of " + customer);
+            if (churnDate != null) {
+                Assertions.assertEquals(churnDate, churnedDate, "Churn before the horizon is kept for " + customer);
+            } else {
+                Assertions.assertNotNull(churnedDate, "New churn of " + customer);
+                Assertions.assertTrue(!churnedDate.isBefore(horizon) && churnedDate.isBefore(horizon.plusWeeks(1)), "Churn in the first new week");
+                Assertions.assertFalse(everyoneChurns.customers().stringColumn(ProjectConfig.CHURN_REASON_COLUMN).get(customer).isEmpty());
+            }
+        }
+    }
+
+    @Test
+    public void testPostCountDropContinuesAcrossTheHorizon() {
+        SocialMediaDatasetConfig config = new SocialMediaDatasetConfig(
+            ProjectConfig.RANDOM_SEED,
+            200,
+            0,
+            0,
+            2,
+            1,
+            true,
+            List.of(new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.8))),
+            CHANNELS
+        );
+        SocialMediaDataset original = SocialMediaDatasetCache.generate(config);
+        Table customers = original.customers();
+        int firstNewWeek = EpochWeeks.firstMondayWeek(SocialMediaDatasetExtender.horizon(customers));
+        int newWeeks = 52;
+
+        SocialMediaDatasetExtender.Extension extension = new SocialMediaDatasetExtender(config.seed(), 0, config.postRules(), CHANNELS)
+            .extend(customers, newWeeks);
+        PostCountTensor counts = PostCountTensor.fromPosts(extension.customers(), List.of(original.posts(), extension.posts()), CHANNELS);
+
+        // the Facebook rule is reduced by the churn factor after the drop
+        int churnedCustomers = 0;
+        double differences = 0;
+        for (int customer = 0; customer < counts.size(); customer++) {
+            LocalDate churnDate = customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN).get(customer);
+            if (churnDate == null) {
+                continue;
+            }
+            double historyMean = mean(counts, customer, EpochWeeks.firstMondayWeek(churnDate), firstNewWeek);
+            double newMean = mean(counts, customer, firstNewWeek, firstNewWeek + newWeeks);
+            differences += Math.abs(newMean - historyMean);
+            churnedCustomers++;
+        }
+
+        Assertions.assertTrue(churnedCustomers > 100, "Churned customers: " + churnedCustomers);
+        Assertions.assertTrue(differences / churnedCustomers < 10, "Mean jump of the post-drop level: " + differences / churnedCustomers);
+    }
+
+    /**
+     * @return Mean Facebook post count of the customer over the weeks [from, to).
+     */
+    private static double mean(PostCountTensor counts, int customer, int from, int to) {
+        double sum = 0;
+        for (int epochWeek = from; epochWeek < to; epochWeek++) {
+            sum += counts.get(customer, 0, epochWeek);
+        }
+
+        return sum / (to - from);
+    }
+
+    @Test
+    public void testAllocationDoesNotGrowWithHistory() {
+        SocialMediaDatasetConfig shortConfig = config(true, 1);
+        SocialMediaDatasetConfig longConfig = config(true, 8);
+        Table shortCustomers = SocialMediaDatasetCache.generate(shortConfig).customers();
+        Table longCustomers = SocialMediaDatasetCache.generate(longConfig).customers();
+        SocialMediaDatasetExtender extender = SocialMediaDatasetExtender.of(shortConfig);
+
+        // warm up the class loading and the JIT before measuring
+        for (int i = 0; i < 20; i++) {
+            extender.extend(shortCustomers, 4);
+            extender.extend(longCustomers, 4);
+        }
+        long shortBytes = allocatedBytes(() -> extender.extend(shortCustomers, 4));
+        long longBytes = allocatedBytes(() -> extender.extend(longCustomers, 4));
+
+        Assertions.assertTrue(longBytes < 2 * shortBytes, "Allocation of " + longBytes + " bytes against " + shortBytes + " bytes for 8 times the history");
+    }
+
+    /**
+     * @return Minimum bytes allocated by the current thread over a few runs, to skip runs disturbed by the TLAB refills.
+     */
+    private static long allocatedBytes(Runnable runnable) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long minimum = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long before = threads.getCurrentThreadAllocatedBytes();
+            runnable.run();
+            minimum = Math.min(minimum, threads.getCurrentThreadAllocatedBytes() - before);
+        }
+
+        return minimum;
+    }
+}
@@ -15,6 +15,7 @@ import tech.tablesaw.api.Table;
 import java.time.LocalDate;
 import java.awt.Color;
 import java.io.IOException;
+import java.nio.file.Path;
 import java.time.DayOfWeek;
 import java.util.List;
 import java.util.Locale;
@@ -29,6 +30,8 @@ import com.censoredsurvivors.data.model.SocialMediaPostRule;
 import com.censoredsurvivors.data.model.SocialMediaChannel;
 import com.censoredsurvivors.data.model.SocialMediaParam;
 import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
 import com.censoredsurvivors.data.statistics.Cusum;
 
 class PostsTestSetupSingleton {
@@ -37,23 +40,14 @@ class PostsTestSetupSingleton {
     private static final double PROPORTION_OF_LEFT_CENSORED_CUSTOMERS = 0.1;
     private static final double PROPORTION_OF_RIGHT_CENSORED_CUSTOMERS = 0.1;
     private static final int NUMBER_OF_YEARS = 5;
+    // Snapshots on disk skip the generation on later test runs.
+    static final SocialMediaDatasetCache DATASET_CACHE = new SocialMediaDatasetCache(2, Path.of("target", "dataset-cache"));
 
     private static Table posts;
     private static Table customers;
 
     public static Table[] getPosts() {
-        if (customers == null) {
-            SocialMediaCustomerGenerator customerGenerator = new SocialMediaCustomerGenerator(ALL_CUSTOMERS_FULL_LIFETIME);
-            customers = customerGenerator.generateCustomers(
-                NUMBER_OF_CUSTOMERS, 
-                PROPORTION_OF_LEFT_CENSORED_CUSTOMERS, 
-                PROPORTION_OF_RIGHT_CENSORED_CUSTOMERS, 
-                NUMBER_OF_YEARS
-            );
-        }
-
         if (posts == null) {
-            SocialMediaPostsGenerator postsGenerator = new SocialMediaPostsGenerator(customers);
             List<SocialMediaPostRule> postRules = List.of(
                 new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.5)),
                 new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.INSTAGRAM.getDisplayName(), new CustomDistributionParams(100, 50, 0.5)),
@@ -67,7 +61,19 @@ class PostsTestSetupSingleton {
                 SocialMediaChannel.TWITTER,
                 SocialMediaChannel.LINKEDIN
             );
-            posts = postsGenerator.generatePosts("Platform Posts", postRules, channels);
+            SocialMediaDataset dataset = DATASET_CACHE.get(new SocialMediaDatasetConfig(
+                ProjectConfig.RANDOM_SEED,
+                NUMBER_OF_CUSTOMERS,
+                PROPORTION_OF_LEFT_CENSORED_CUSTOMERS,
+                PROPORTION_OF_RIGHT_CENSORED_CUSTOMERS,
+                NUMBER_OF_YEARS,
+                0,
+                ALL_CUSTOMERS_FULL_LIFETIME,
+                postRules,
+                channels
+            ));
+            posts = dataset.posts();
+            customers = dataset.customers();
         }
 
         return new Table[]{ posts, customers };
@@ -88,19 +94,25 @@ class PostsWithChurnTestSetupSingleton {
     public static final double FREQUENCY_POST_COUNT = 0.8;
     
     public static Table[] getPosts() {
-        if (customers == null) {
-            SocialMediaCustomerGenerator customerGenerator = new SocialMediaCustomerGenerator(ALL_CUSTOMERS_FULL_LIFETIME);
-            customers = customerGenerator.generateUncensoredCustomers(NUMBER_OF_CUSTOMERS, NUMBER_OF_YEARS, CHURN_PROBABILITY);
-        }
-
         if (posts == null) {
-            SocialMediaPostsGenerator postsGenerator = new SocialMediaPostsGenerator(customers);
             // only generate posts for one channel to make churn more visible
             List<SocialMediaPostRule> postRules = List.of(
                 new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(MEAN_POST_COUNT, STANDARD_DEVIATION_POST_COUNT, FREQUENCY_POST_COUNT))
             );
             List<SocialMediaChannel> channels = List.of(SocialMediaChannel.FACEBOOK);
-            posts = postsGenerator.generatePosts("Platform Posts", postRules, channels);
+            SocialMediaDataset dataset = PostsTestSetupSingleton.DATASET_CACHE.get(new SocialMediaDatasetConfig(
+                ProjectConfig.RANDOM_SEED,
+                NUMBER_OF_CUSTOMERS,
+                0,
+                0,
+                NUMBER_OF_YEARS,
+                CHURN_PROBABILITY,
+                ALL_CUSTOMERS_FULL_LIFETIME,
+                postRules,
+                channels
+            ));
+            posts = dataset.posts();
+            customers = dataset.customers();
         }
 
         return new Table[]{ posts, customers };
@@ -0,0 +1,104 @@
+package com.censoredsurvivors.data.generator;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaChurnReason;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.data.storage.PostCountTensor;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class SocialMediaPostsViewTest {
+    private static final List<SocialMediaPostRule> POST_RULES = List.of(
+        new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.8))
+    );
+    private static final List<SocialMediaChannel> CHANNELS = List.of(SocialMediaChannel.FACEBOOK, SocialMediaChannel.TWITTER);
+
+    private static Table customers() {
+        return new SocialMediaCustomerGenerator(false, new Random(ProjectConfig.RANDOM_SEED))
+            .generateCustomers(100, 0.1, 0.1, 3, 0.5);
+    }
+
+    @Test
+    public void testSeriesDoNotDependOnAccessOrderOrCaching() {
+        Table customers = customers();
+        SocialMediaPostsGenerator generator = new SocialMediaPostsGenerator(customers);
+        SocialMediaPostsView uncached = generator.generatePostsView(ProjectConfig.RANDOM_SEED, POST_RULES, CHANNELS, 0);
+        SocialMediaPostsView cached = generator.generatePostsView(ProjectConfig.RANDOM_SEED, POST_RULES, CHANNELS, 3);
+        PostCountTensor tensor = PostCountTensor.forCustomers(customers, CHANNELS);
+
+        for (int customer = uncached.size() - 1; customer >= 0; customer--) {
+            Assertions.assertEquals(tensor.firstWeek(customer), uncached.firstWeek(customer), "Same contract window as the tensor");
+            Assertions.assertEquals(tensor.weekCount(customer), uncached.weekCount(customer), "Same contract window as the tensor");
+            Assertions.assertArrayEquals(uncached.postCounts(customer), cached.postCounts(customer), "Series of " + customer);
+        }
+        for (int customer = 0; customer < cached.size(); customer++) {
+            int[] postCounts = cached.postCounts(customer);
+            Assertions.assertArrayEquals(uncached.postCounts(customer), postCounts, "Series of " + customer + " after eviction");
+
+            int weekCount = cached.weekCount(customer);
+            double[] total = uncached.total(customer);
+            for (int week = 0; week < weekCount; week++) {
+                int epochWeek = cached.firstWeek(customer) + week;
+                Assertions.assertEquals(postCounts[week], uncached.get(customer, 0, epochWeek), "Single week of " + customer);
+                Assertions.assertEquals(postCounts[weekCount + week], uncached.get(customer, 1, epochWeek), "Single week of " + customer);
+                Assertions.assertEquals(postCounts[week] + postCounts[weekCount + week], total[week], "Total over the channels");
+            }
+        }
+
+        SocialMediaPostsView otherSeed = generator.generatePostsView(ProjectConfig.RANDOM_SEED + 1, POST_RULES, CHANNELS, 0);
+        int longest = 0;
+        for (int customer = 0; customer < uncached.size(); customer++) {
+            longest = uncached.weekCount(customer) > uncached.weekCount(longest) ? customer : longest;
+        }
+        Assertions.assertFalse(
+            Arrays.equals(uncached.postCounts(longest), otherSeed.postCounts(longest)),
+            "Another seed generates other posts"
+        );
+    }
+
+    @Test
+    public void testPostCountDropAfterChurn() {
+        Table customers = customers();
+        SocialMediaPostsView view = new SocialMediaPostsGenerator(customers)
+            .generatePostsView(ProjectConfig.RANDOM_SEED, POST_RULES, CHANNELS, 0);
+
+        double beforeSum = 0;
+        int beforeWeeks = 0;
+        double afterSum = 0;
+        int afterWeeks = 0;
+        for (int customer = 0; customer < view.size(); customer++) {
+            String churnReason = customers.stringColumn(ProjectConfig.CHURN_REASON_COLUMN).get(customer);
+            if (!SocialMediaChurnReason.POST_COUNT_DROP.getDisplayName().equals(churnReason)) {
+                continue;
+            }
+
+            int churnWeek = EpochWeeks.of(customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN).get(customer));
+            int[] postCounts = view.postCounts(customer);
+            for (int week = 0; week < view.weekCount(customer); week++) {
+                if (view.firstWeek(customer) + week < churnWeek) {
+                    beforeSum += postCounts[week];
+                    beforeWeeks++;
+                } else if (view.firstWeek(customer) + week > churnWeek) {
+                    afterSum += postCounts[week];
+                    afterWeeks++;
+                }
+            }
+        }
+
+        Assertions.assertTrue(beforeWeeks > 0 && afterWeeks > 0, "Customers churned by a post count drop");
+        double meanBefore = beforeSum / beforeWeeks;
+        Assertions.assertEquals(200 * 0.8, meanBefore, 10, "Mean of the rule times its frequency");
+        Assertions.assertTrue(afterSum / afterWeeks < meanBefore * 0.5, "Mean after the churn is reduced by at least the minimum churn factor");
+    }
+}
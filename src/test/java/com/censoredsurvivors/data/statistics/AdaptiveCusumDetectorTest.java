@@ -0,0 +1,123 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.util.ProjectConfig;
+
+public class AdaptiveCusumDetectorTest {
+    private static final int CHANGE_INDEX = 150;
+
+    /**
+     * @return Weekly post counts that drop to half at the change index.
+     */
+    private double[] sampleSignal(long seed, double mean, double stdDev) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] signal = new double[300];
+        for (int i = 0; i < signal.length; i++) {
+            double currentMean = i < CHANGE_INDEX ? mean : mean / 2;
+            signal[i] = CustomDistribution.sample(new CustomDistributionParams(currentMean, stdDev, 1), random);
+        }
+
+        return signal;
+    }
+
+    @Test
+    public void testBaselineEstimates() {
+        double[] signal = sampleSignal(ProjectConfig.RANDOM_SEED, 200, 20);
+        // an outlier in the warm-up window
+        signal[3] = 5_000;
+
+        for (AdaptiveCusumDetector.Baseline baseline : AdaptiveCusumDetector.Baseline.values()) {
+            AdaptiveCusumDetector.AdaptiveState state = new AdaptiveCusumDetector(0.2, 1, 52, baseline).start();
+            for (int i = 0; i < 52; i++) {
+                Assertions.assertTrue(Double.isNaN(state.reference()), "No reference during the warm-up");
+                Assertions.assertFalse(state.update(signal[i]), "No signal during the warm-up");
+            }
+
+            DescriptiveStatistics statistics = new DescriptiveStatistics(Arrays.copyOf(signal, 52));
+            if (baseline == AdaptiveCusumDetector.Baseline.WELFORD) {
+                Assertions.assertEquals(statistics.getMean(), state.reference(), 1e-9, "Welford mean");
+                Assertions.assertEquals(statistics.getStandardDeviation(), state.threshold(), 1e-9, "Welford threshold");
+            } else {
+                Assertions.assertEquals(200, state.reference(), 10, "Median ignores the outlier");
+                Assertions.assertEquals(20, state.threshold(), 5, "MAD ignores the outlier");
+            }
+        }
+    }
+
+    @Test
+    public void testConstantWarmUpHasAPositiveThreshold() {
+        double[] signal = new double[200];
+        Arrays.fill(signal, 0, 52, 4);
+        // mostly equal counts around the warm-up value, then a drop to one post
+        for (int i = 52; i < 150; i++) {
+            signal[i] = i % 10 == 0 ? 5 : i % 10 == 5 ? 3 : 4;
+        }
+        Arrays.fill(signal, 150, signal.length, 1);
+
+        for (AdaptiveCusumDetector.Baseline baseline : AdaptiveCusumDetector.Baseline.values()) {
+            AdaptiveCusumDetector detector = new AdaptiveCusumDetector(0.2, 4, 52, baseline);
+            AdaptiveCusumDetector.AdaptiveState state = detector.start();
+            for (int i = 0; i < 52; i++) {
+                state.update(signal[i]);
+            }
+
+            Assertions.assertEquals(4 * Math.sqrt(4), state.threshold(), 1e-9, "Poisson spread of " + baseline);
+            int signalIndex = detector.detect(signal);
+            Assertions.assertTrue(signalIndex >= 150 && signalIndex < 170, "Signal at " + signalIndex + " for " + baseline);
+        }
+
+        // more than half of the window is equal, the median absolute deviation is 0
+        double[] window = new double[52];
+        for (int i = 0; i < window.length; i++) {
+            window[i] = i < 30 ? 100 : 100 + (i - 29) * 5;
+        }
+        AdaptiveCusumDetector.AdaptiveState state = new AdaptiveCusumDetector(0.2, 1, 52, AdaptiveCusumDetector.Baseline.MEDIAN_MAD).start();
+        for (double value : window) {
+            state.update(value);
+        }
+        Assertions.assertEquals(new DescriptiveStatistics(window).getStandardDeviation(), state.threshold(), 1e-9, "Falls back to the standard deviation");
+    }
+
+    @Test
+    public void testOneConfigurationFitsAllVolumes() {
+        ChangeDetector adaptive = new AdaptiveCusumDetector(0.2, 4, 52, AdaptiveCusumDetector.Baseline.MEDIAN_MAD);
+        ChangeDetector fixed = new CusumDetector(0.2, 200, 220);
+
+        for (double coefficientOfVariation : new double[] {0.1, 0.3}) {
+            for (double mean : new double[] {20, 200, 2_000}) {
+                double[] signal = sampleSignal(ProjectConfig.RANDOM_SEED, mean, mean * coefficientOfVariation);
+                int signalIndex = adaptive.detect(signal);
+                Assertions.assertTrue(
+                    signalIndex >= CHANGE_INDEX && signalIndex < CHANGE_INDEX + 10,
+                    "Adaptive signal at " + signalIndex + " for mean " + mean + " and coefficient of variation " + coefficientOfVariation
+                );
+            }
+        }
+        Assertions.assertTrue(fixed.detect(sampleSignal(ProjectConfig.RANDOM_SEED, 20, 2)) < 10, "The fixed reference only fits one volume");
+    }
+
+    @Test
+    public void testMatchesFixedCusumAfterWarmUp() {
+        double[] signal = sampleSignal(ProjectConfig.RANDOM_SEED, 200, 20);
+        AdaptiveCusumDetector.AdaptiveState state = new AdaptiveCusumDetector(0.2, 4, 52, AdaptiveCusumDetector.Baseline.WELFORD).start();
+        for (int i = 0; i < 52; i++) {
+            state.update(signal[i]);
+        }
+
+        double[] rest = Arrays.copyOfRange(signal, 52, signal.length);
+        int fixedIndex = new CusumDetector(0.2, state.reference(), state.threshold()).detect(rest);
+        int adaptiveIndex = -1;
+        for (int i = 0; i < rest.length && adaptiveIndex == -1; i++) {
+            adaptiveIndex = state.update(rest[i]) ? i : -1;
+        }
+        Assertions.assertEquals(fixedIndex, adaptiveIndex);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new AdaptiveCusumDetector(0.2, 1, 1, AdaptiveCusumDetector.Baseline.WELFORD));
+    }
+}
@@ -0,0 +1,57 @@
+package com.censoredsurvivors.data.statistics;
+
+import org.apache.commons.math3.distribution.NormalDistribution;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.util.ProjectConfig;
+
+public class ArlCalibratorTest {
+    private static final CustomDistributionParams IN_CONTROL = new CustomDistributionParams(200, 20, 0.8);
+    private static final CustomDistributionParams DROPPED = new CustomDistributionParams(100, 20, 0.8);
+
+    @Test
+    public void testGeometricRunLength() {
+        // signals at every point above 220, after rounding with probability P(N(200, 20) > 220.5)
+        ChangeDetector detector = () -> new ChangeDetector.State() {
+            @Override
+            public boolean update(double value) {
+                return value > 220;
+            }
+
+            @Override
+            public double statistic() {
+                return 0;
+            }
+        };
+        double probability = 0.8 * (1 - new NormalDistribution(200, 20).cumulativeProbability(220.5));
+
+        ArlCalibrator.Arl arl = new ArlCalibrator(ProjectConfig.RANDOM_SEED, 100_000, 10_000).averageRunLength(detector, IN_CONTROL);
+
+        Assertions.assertEquals(1 / probability, arl.mean(), 4 * arl.standardError(), "Mean of the geometric run length");
+        Assertions.assertEquals(100_000, arl.runs());
+        Assertions.assertEquals(0, arl.censoredRuns());
+    }
+
+    @Test
+    public void testCalibratedCusumThreshold() {
+        ArlCalibrator calibrator = new ArlCalibrator(ProjectConfig.RANDOM_SEED, 10_000, 5_000);
+
+        double threshold = calibrator.calibrateThreshold(h -> new CusumDetector(0.2, 200, h).ignoringZeros(), IN_CONTROL, 500);
+        ArlCalibrator.Arl inControl = calibrator.averageRunLength(new CusumDetector(0.2, 200, threshold).ignoringZeros(), IN_CONTROL);
+        ArlCalibrator.Arl lower = calibrator.averageRunLength(new CusumDetector(0.2, 200, threshold * 0.99).ignoringZeros(), IN_CONTROL);
+        ArlCalibrator.Arl dropped = calibrator.averageRunLength(new CusumDetector(0.2, 200, threshold).ignoringZeros(), DROPPED);
+
+        Assertions.assertTrue(inControl.mean() >= 500, "In-control ARL " + inControl.mean());
+        Assertions.assertTrue(lower.mean() < 500, "In-control ARL below the threshold " + lower.mean());
+        Assertions.assertTrue(dropped.mean() < 10, "Detection ARL " + dropped.mean());
+        Assertions.assertEquals(
+            inControl,
+            new ArlCalibrator(ProjectConfig.RANDOM_SEED, 10_000, 5_000).averageRunLength(new CusumDetector(0.2, 200, threshold).ignoringZeros(), IN_CONTROL),
+            "Estimates are reproducible"
+        );
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> calibrator.calibrateThreshold(h -> new CusumDetector(0.2, 200, h), IN_CONTROL, 5_000));
+    }
+}
@@ -0,0 +1,77 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.util.ProjectConfig;
+
+public class BocpdDetectorTest {
+    private static final int CHANGE_INDEX = 150;
+
+    /**
+     * @return Weekly post counts that drop to half at the change index.
+     */
+    private double[] sampleSignal(long seed, double mean, double stdDev) {
+        SplittableRandom random = new SplittableRandom(seed);
+        CustomDistributionParams before = new CustomDistributionParams(mean, stdDev, 1);
+        CustomDistributionParams after = new CustomDistributionParams(mean / 2, stdDev, 1);
+        double[] signal = new double[300];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = CustomDistribution.sample(i < CHANGE_INDEX ? before : after, random);
+        }
+
+        return signal;
+    }
+
+    @Test
+    public void testDetectsTheDrop() {
+        BocpdDetector poisson = new BocpdDetector(new BocpdDetector.PoissonGammaPrior(200, 1), 0.01, 100, 1e-6, 10, 0.9);
+        BocpdDetector normal = new BocpdDetector(new BocpdDetector.NormalGammaPrior(200, 1, 1, 400), 0.01, 100, 1e-6, 10, 0.9);
+
+        for (long seed = 0; seed < 10; seed++) {
+            int poissonIndex = poisson.detect(sampleSignal(ProjectConfig.RANDOM_SEED + seed, 200, 14));
+            Assertions.assertTrue(poissonIndex >= CHANGE_INDEX && poissonIndex < CHANGE_INDEX + 15, "Poisson-Gamma signals at " + poissonIndex);
+
+            int normalIndex = normal.detect(sampleSignal(ProjectConfig.RANDOM_SEED + seed, 200, 20));
+            Assertions.assertTrue(normalIndex >= CHANGE_INDEX && normalIndex < CHANGE_INDEX + 15, "Normal-Gamma signals at " + normalIndex);
+        }
+    }
+
+    @Test
+    public void testPruningBoundsTheState() {
+        BocpdDetector.Prior prior = new BocpdDetector.NormalGammaPrior(200, 1, 1, 400);
+        BocpdDetector.RunLengths unpruned = new BocpdDetector(prior, 0.01, 1_000, 0, 5, 0.9).start();
+        BocpdDetector.RunLengths byMass = new BocpdDetector(prior, 0.01, 1_000, 1e-6, 5, 0.9).start();
+        BocpdDetector.RunLengths byLength = new BocpdDetector(prior, 0.01, 40, 0, 5, 0.9).start();
+
+        double[] signal = sampleSignal(ProjectConfig.RANDOM_SEED, 200, 20);
+        for (int i = 0; i < signal.length; i++) {
+            boolean signalled = unpruned.update(signal[i]);
+            Assertions.assertEquals(signalled, byMass.update(signal[i]), "Pruning by mass keeps the signal at " + i);
+            byLength.update(signal[i]);
+            Assertions.assertEquals(unpruned.statistic(), byMass.statistic(), 1e-4, "Recent change probability at " + i);
+
+            Assertions.assertEquals(i + 2, unpruned.size(), "Unpruned run lengths");
+            Assertions.assertTrue(byLength.size() <= 41, "Run lengths pruned by length");
+            double total = 0;
+            for (int r = 0; r < byMass.size(); r++) {
+                total += byMass.probability(r);
+            }
+            Assertions.assertEquals(1, total, 1e-4, "Probabilities sum to one");
+        }
+        // the runs from before the change lose their mass and are dropped
+        Assertions.assertTrue(byMass.size() <= signal.length - CHANGE_INDEX + 5, "Run lengths pruned by mass: " + byMass.size());
+    }
+
+    @Test
+    public void testInvalidParameters() {
+        BocpdDetector.Prior prior = new BocpdDetector.PoissonGammaPrior(1, 1);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BocpdDetector(prior, 0, 100, 0, 5, 0.9));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BocpdDetector(prior, 0.1, 0, 0, 5, 0.9));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BocpdDetector(prior, 0.1, 100, 0, 101, 0.9));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new BocpdDetector.PoissonGammaPrior(0, 1));
+    }
+}
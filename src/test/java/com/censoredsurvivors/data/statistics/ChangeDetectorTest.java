@@ -0,0 +1,90 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.util.ProjectConfig;
+
+public class ChangeDetectorTest {
+    private static final int CHANGE_INDEX = 150;
+
+    /**
+     * @return Weekly post counts around 200 that drop to around 100 at the change index.
+     */
+    private double[] sampleSignal(long seed, double frequency) {
+        SplittableRandom random = new SplittableRandom(seed);
+        CustomDistributionParams before = new CustomDistributionParams(200, 20, frequency);
+        CustomDistributionParams after = new CustomDistributionParams(100, 20, frequency);
+        double[] signal = new double[300];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = CustomDistribution.sample(i < CHANGE_INDEX ? before : after, random);
+        }
+
+        return signal;
+    }
+
+    @Test
+    public void testCusumDetectorMatchesCusum() {
+        for (long seed = 0; seed < 20; seed++) {
+            double[] signal = sampleSignal(ProjectConfig.RANDOM_SEED + seed, 0.8);
+            for (double smoothing : new double[] {0.1, 0.3}) {
+                Cusum cusum = new Cusum(smoothing);
+                CusumDetector detector = new CusumDetector(smoothing, 200, 220);
+
+                Assertions.assertEquals(cusum.compute(signal, 200, 220).anomalyIndex(), detector.detect(signal), "Without skipping zeros");
+                Assertions.assertEquals(cusum.compute(signal, 200, 220, true).anomalyIndex(), detector.ignoringZeros().detect(signal), "Skipping zeros");
+            }
+        }
+    }
+
+    @Test
+    public void testDetectorsFindTheDrop() {
+        List<ChangeDetector> detectors = List.of(
+            new CusumDetector(0.2, 200, 220),
+            new PageHinkleyDetector(10, 500),
+            new EwmaDetector(200, 20, 0.2, 3),
+            new SprtDetector(200, 100, 20, 0.001, 0.01)
+        );
+        double[] signal = sampleSignal(ProjectConfig.RANDOM_SEED, 1);
+
+        for (ChangeDetector detector : detectors) {
+            int signalIndex = detector.detect(signal);
+            Assertions.assertTrue(signalIndex >= CHANGE_INDEX && signalIndex < CHANGE_INDEX + 10,
+                detector.getClass().getSimpleName() + " signals at " + signalIndex);
+        }
+
+        double[] inControl = new double[300];
+        Arrays.fill(inControl, 200);
+        for (ChangeDetector detector : detectors) {
+            Assertions.assertEquals(-1, detector.detect(inControl), detector.getClass().getSimpleName() + " without a change");
+        }
+    }
+
+    @Test
+    public void testFusedRunMatchesSeparateRuns() {
+        List<ChangeDetector> detectors = List.of(
+            new CusumDetector(0.2, 200, 220).ignoringZeros(),
+            new PageHinkleyDetector(10, 500).ignoringZeros(),
+            new EwmaDetector(200, 20, 0.2, 3).ignoringZeros(),
+            new SprtDetector(200, 100, 20, 0.001, 0.01).ignoringZeros(),
+            // never signals
+            new CusumDetector(0.2, 200, Double.MAX_VALUE)
+        );
+        FusedChangeDetector fusedDetector = new FusedChangeDetector(detectors);
+
+        for (long seed = 0; seed < 20; seed++) {
+            double[] signal = sampleSignal(ProjectConfig.RANDOM_SEED + seed, 0.8);
+            int[] signalIndexes = fusedDetector.detect(signal);
+            for (int d = 0; d < detectors.size(); d++) {
+                Assertions.assertEquals(detectors.get(d).detect(signal), signalIndexes[d], "Detector " + d);
+            }
+            Assertions.assertEquals(-1, signalIndexes[detectors.size() - 1]);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new FusedChangeDetector(List.of()));
+    }
+}
@@ -0,0 +1,96 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.util.ProjectConfig;
+
+public class ConcordanceTest {
+    private static final int SIZE = 2_000;
+    private static final int[] EVALUATION_TIMES = {0, 10, 25, 50, 75, 100};
+
+    @Test
+    public void testHarrellsCMatchesPairwiseCount() {
+        SplittableRandom random = new SplittableRandom(ProjectConfig.RANDOM_SEED);
+        int[] times = new int[SIZE];
+        boolean[] events = new boolean[SIZE];
+        double[] riskScores = new double[SIZE];
+        fill(random, times, events, riskScores);
+
+        long concordant = 0;
+        long tied = 0;
+        long comparable = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (!events[i]) {
+                continue;
+            }
+            for (int j = 0; j < SIZE; j++) {
+                if (times[j] > times[i] || (times[j] == times[i] && !events[j])) {
+                    comparable++;
+                    if (riskScores[i] > riskScores[j]) {
+                        concordant++;
+                    } else if (riskScores[i] == riskScores[j]) {
+                        tied++;
+                    }
+                }
+            }
+        }
+
+        Concordance.Pairs pairs = Concordance.harrellsC(times, events, riskScores);
+
+        Assertions.assertEquals(concordant, pairs.concordant(), "Concordant pairs");
+        Assertions.assertEquals(tied, pairs.tied(), "Tied pairs");
+        Assertions.assertEquals(comparable, pairs.comparable(), "Comparable pairs");
+    }
+
+    @Test
+    public void testTimeDependentAucMatchesPairwiseCount() {
+        SplittableRandom random = new SplittableRandom(ProjectConfig.RANDOM_SEED);
+        int[] times = new int[SIZE];
+        boolean[] events = new boolean[SIZE];
+        double[] riskScores = new double[SIZE];
+        fill(random, times, events, riskScores);
+
+        double[] auc = Concordance.timeDependentAuc(times, events, riskScores, EVALUATION_TIMES);
+
+        for (int e = 0; e < EVALUATION_TIMES.length; e++) {
+            int t = EVALUATION_TIMES[e];
+            double score = 0;
+            long pairs = 0;
+            for (int i = 0; i < SIZE; i++) {
+                if (!events[i] || times[i] > t) {
+                    continue;
+                }
+                for (int j = 0; j < SIZE; j++) {
+                    if (times[j] > t) {
+                        pairs++;
+                        score += riskScores[i] > riskScores[j] ? 1 : riskScores[i] == riskScores[j] ? 0.5 : 0;
+                    }
+                }
+            }
+            double expected = pairs == 0 ? Double.NaN : score / pairs;
+            Assertions.assertEquals(expected, auc[e], 1e-12, "AUC at " + t);
+        }
+    }
+
+    @Test
+    public void testPerfectAndReversedPredictions() {
+        int[] times = {1, 2, 3, 4, 5};
+        boolean[] events = {true, true, false, true, false};
+
+        Assertions.assertEquals(1.0, Concordance.harrellsC(times, events, new double[] {5, 4, 3, 2, 1}).index(), "Perfect prediction");
+        Assertions.assertEquals(0.0, Concordance.harrellsC(times, events, new double[] {1, 2, 3, 4, 5}).index(), "Reversed prediction");
+        Assertions.assertEquals(0.5, Concordance.harrellsC(times, events, new double[5]).index(), "Constant prediction");
+    }
+
+    private void fill(SplittableRandom random, int[] times, boolean[] events, double[] riskScores) {
+        for (int i = 0; i < times.length; i++) {
+            times[i] = random.nextInt(100);
+            events[i] = random.nextBoolean();
+            // Few distinct scores, so ties are common; loosely related to the time.
+            riskScores[i] = random.nextInt(20) - times[i] / 10;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.util.ProjectConfig;
+
+public class LogHistogramTest {
+
+    @Test
+    public void testExactBelowThePrecision() {
+        LogHistogram histogram = new LogHistogram(7);
+        int[] values = {0, 3, 3, 5, 8, 13, 21, 34, 55, 89, 127};
+        for (int value : values) {
+            histogram.record(value);
+        }
+
+        Assertions.assertEquals(values.length, histogram.count());
+        Assertions.assertEquals(13, histogram.median());
+        Assertions.assertEquals(0, histogram.quantile(0));
+        Assertions.assertEquals(127, histogram.quantile(1));
+        Assertions.assertEquals(3, histogram.quantile(0.2), "Nearest rank");
+        Assertions.assertTrue(Double.isNaN(new LogHistogram(7).median()), "Empty histogram");
+    }
+
+    @Test
+    public void testRelativeErrorOfLargeValues() {
+        SplittableRandom random = new SplittableRandom(ProjectConfig.RANDOM_SEED);
+        LogHistogram histogram = new LogHistogram(7);
+        long[] values = new long[10_001];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = (long) Math.exp(random.nextDouble() * 30);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double probability : new double[] {0.01, 0.25, 0.5, 0.75, 0.99}) {
+            long exact = values[(int) Math.ceil(probability * values.length) - 1];
+            Assertions.assertEquals(exact, histogram.quantile(probability), exact / 64.0 + 1, "Quantile " + probability);
+        }
+    }
+
+    @Test
+    public void testMergeMatchesOneHistogram() {
+        SplittableRandom random = new SplittableRandom(ProjectConfig.RANDOM_SEED);
+        LogHistogram all = new LogHistogram(5);
+        LogHistogram[] parts = {new LogHistogram(5), new LogHistogram(5), new LogHistogram(5)};
+        for (int i = 0; i < 3_000; i++) {
+            long value = random.nextLong(1L << (i % 40 + 1));
+            all.record(value);
+            parts[i % 3].record(value);
+        }
+        parts[0].merge(parts[1]);
+        parts[0].merge(parts[2]);
+
+        Assertions.assertEquals(all.count(), parts[0].count());
+        for (double probability = 0; probability <= 1; probability += 0.05) {
+            Assertions.assertEquals(all.quantile(probability), parts[0].quantile(probability), "Quantile " + probability);
+        }
+        Assertions.assertThrows(IllegalArgumentException.class, () -> all.merge(new LogHistogram(6)));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> all.record(-1));
+    }
+
+    @Test
+    public void testConfusionCounter() {
+        ConfusionCounter left = new ConfusionCounter();
+        ConfusionCounter right = new ConfusionCounter();
+        left.add(ConfusionStatus.TRUE_POSITIVE);
+        left.add(ConfusionStatus.FALSE_NEGATIVE);
+        right.add(ConfusionStatus.TRUE_POSITIVE);
+        left.merge(right);
+
+        Assertions.assertEquals(2, left.count(ConfusionStatus.TRUE_POSITIVE));
+        Assertions.assertEquals(1, left.count(ConfusionStatus.FALSE_NEGATIVE));
+        Assertions.assertEquals(0, left.count(ConfusionStatus.TRUE_NEGATIVE));
+        Assertions.assertEquals(3, left.total());
+    }
+}
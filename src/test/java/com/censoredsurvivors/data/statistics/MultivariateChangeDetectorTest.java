@@ -0,0 +1,85 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.util.ProjectConfig;
+
+public class MultivariateChangeDetectorTest {
+    private static final int CHANGE_INDEX = 150;
+    private static final double[] MEANS = {200, 100, 10, 50, 30, 5};
+
+    /**
+     * @return Weekly post counts of six channels, the third channel drops to the given fraction at the change index.
+     */
+    private double[][] sampleSeries(long seed, double drop) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[][] series = new double[300][MEANS.length];
+        for (int week = 0; week < series.length; week++) {
+            for (int channel = 0; channel < MEANS.length; channel++) {
+                double mean = channel == 2 && week >= CHANGE_INDEX ? MEANS[channel] * drop : MEANS[channel];
+                series[week][channel] = CustomDistribution.sample(new CustomDistributionParams(mean, Math.max(1, MEANS[channel] / 10), 1), random);
+            }
+        }
+
+        return series;
+    }
+
+    @Test
+    public void testDetectsADropOnOneChannel() {
+        List<MultivariateChangeDetector> detectors = List.of(
+            new MewmaDetector(MEANS.length, 0.2, 40, 52),
+            new McusumDetector(MEANS.length, 1, 20, 52)
+        );
+
+        for (long seed = 0; seed < 10; seed++) {
+            double[][] series = sampleSeries(ProjectConfig.RANDOM_SEED + seed, 0.5);
+            for (MultivariateChangeDetector detector : detectors) {
+                int signalIndex = detector.detect(series);
+                Assertions.assertTrue(signalIndex >= CHANGE_INDEX && signalIndex < CHANGE_INDEX + 10,
+                    detector.getClass().getSimpleName() + " signals at " + signalIndex);
+            }
+
+            double[] totals = new double[series.length];
+            for (int week = 0; week < series.length; week++) {
+                for (double postCount : series[week]) {
+                    totals[week] += postCount;
+                }
+            }
+            int totalIndex = new EwmaDetector(395, 23, 0.2, 3).detect(totals);
+            Assertions.assertFalse(totalIndex >= CHANGE_INDEX && totalIndex < CHANGE_INDEX + 10, "The drop is masked in the total");
+        }
+    }
+
+    @Test
+    public void testNoSignalWithoutAChange() {
+        MewmaDetector mewma = new MewmaDetector(MEANS.length, 0.2, 40, 52);
+        McusumDetector mcusum = new McusumDetector(MEANS.length, 1, 20, 52);
+
+        int signals = 0;
+        for (long seed = 0; seed < 20; seed++) {
+            double[][] series = sampleSeries(ProjectConfig.RANDOM_SEED + seed, 1);
+            signals += mewma.detect(series) != -1 ? 1 : 0;
+            signals += mcusum.detect(series) != -1 ? 1 : 0;
+        }
+        Assertions.assertTrue(signals <= 4, "False alarms: " + signals);
+    }
+
+    @Test
+    public void testChannelWithoutPosts() {
+        MewmaDetector mewma = new MewmaDetector(2, 0.2, 25, 52);
+        double[][] series = new double[200][];
+        for (int week = 0; week < series.length; week++) {
+            series[week] = new double[] {week % 2 == 0 ? 190 : 210, 0};
+        }
+
+        Assertions.assertEquals(-1, mewma.detect(series), "A channel without variance is not a change");
+        series[100] = new double[] {0, 0};
+        Assertions.assertEquals(100, mewma.detect(series));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new MewmaDetector(6, 0.2, 25, 6));
+    }
+}
@@ -0,0 +1,122 @@
+package com.censoredsurvivors.data.statistics;
+
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.util.ProjectConfig;
+
+public class PeltTest {
+    private static final int[] CHANGEPOINTS = {100, 180};
+    private static final double[] MEANS = {200, 120, 60};
+
+    /**
+     * @return Piecewise constant weekly post counts with the given standard deviation relative to the mean.
+     */
+    private double[] sampleSignal(long seed, int length, boolean poisson) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] signal = new double[length];
+        int segment = 0;
+        for (int i = 0; i < length; i++) {
+            while (segment < CHANGEPOINTS.length && i >= CHANGEPOINTS[segment]) {
+                segment++;
+            }
+            double mean = MEANS[segment];
+            signal[i] = CustomDistribution.sample(new CustomDistributionParams(mean, poisson ? Math.sqrt(mean) : 20, 1), random);
+        }
+
+        return signal;
+    }
+
+    @Test
+    public void testFindsTheChangepoints() {
+        Pelt gaussian = new Pelt(Pelt.CostFunction.GAUSSIAN, 3 * 400 * Math.log(300), 2);
+        Pelt poisson = new Pelt(Pelt.CostFunction.POISSON, 10 * Math.log(300), 2);
+
+        for (long seed = 0; seed < 10; seed++) {
+            int[] gaussianChangepoints = gaussian.segment(sampleSignal(ProjectConfig.RANDOM_SEED + seed, 300, false));
+            int[] poissonChangepoints = poisson.segment(sampleSignal(ProjectConfig.RANDOM_SEED + seed, 300, true));
+
+            Assertions.assertEquals(CHANGEPOINTS.length, gaussianChangepoints.length, "Gaussian changepoints of seed " + seed);
+            Assertions.assertEquals(CHANGEPOINTS.length, poissonChangepoints.length, "Poisson changepoints of seed " + seed);
+            for (int i = 0; i < CHANGEPOINTS.length; i++) {
+                Assertions.assertEquals(CHANGEPOINTS[i], gaussianChangepoints[i], 3, "Gaussian changepoint " + i);
+                Assertions.assertEquals(CHANGEPOINTS[i], poissonChangepoints[i], 3, "Poisson changepoint " + i);
+            }
+        }
+    }
+
+    @Test
+    public void testPruningKeepsTheOptimum() {
+        double penalty = 2 * 400 * Math.log(60);
+        int minimumSegmentLength = 3;
+        Pelt pelt = new Pelt(Pelt.CostFunction.GAUSSIAN, penalty, minimumSegmentLength);
+
+        for (long seed = 0; seed < 20; seed++) {
+            double[] signal = new double[60];
+            SplittableRandom random = new SplittableRandom(ProjectConfig.RANDOM_SEED + seed);
+            for (int i = 0; i < signal.length; i++) {
+                signal[i] = (i / 15 % 2 == 0 ? 200 : 150) + 20 * random.nextGaussian();
+            }
+
+            // optimal partitioning without pruning
+            int n = signal.length;
+            double[] optimalCosts = new double[n + 1];
+            optimalCosts[0] = -penalty;
+            for (int t = 1; t <= n; t++) {
+                optimalCosts[t] = Double.POSITIVE_INFINITY;
+                for (int start = 0; start <= t - minimumSegmentLength; start++) {
+                    if (start == 0 || start >= minimumSegmentLength) {
+                        optimalCosts[t] = Math.min(optimalCosts[t], optimalCosts[start] + gaussianCost(signal, start, t) + penalty);
+                    }
+                }
+            }
+
+            int[] changepoints = pelt.segment(signal);
+            double cost = changepoints.length * penalty;
+            int start = 0;
+            for (int changepoint : changepoints) {
+                Assertions.assertTrue(changepoint - start >= minimumSegmentLength, "Minimum segment length");
+                cost += gaussianCost(signal, start, changepoint);
+                start = changepoint;
+            }
+            cost += gaussianCost(signal, start, n);
+
+            Assertions.assertEquals(optimalCosts[n], cost, 1e-6, "Penalized cost of seed " + seed);
+        }
+    }
+
+    private double gaussianCost(double[] signal, int from, int to) {
+        double mean = 0;
+        for (int i = from; i < to; i++) {
+            mean += signal[i] / (to - from);
+        }
+        double cost = 0;
+        for (int i = from; i < to; i++) {
+            cost += (signal[i] - mean) * (signal[i] - mean);
+        }
+        return cost;
+    }
+
+    @Test
+    public void testParallelSegmentationAndRefinement() {
+        Pelt pelt = new Pelt(Pelt.CostFunction.GAUSSIAN, 3 * 400 * Math.log(300), 2);
+        double[][] signals = new double[16][];
+        for (int i = 0; i < signals.length; i++) {
+            signals[i] = sampleSignal(ProjectConfig.RANDOM_SEED + i, 300, false);
+        }
+
+        int[][] changepoints = pelt.segment(signals);
+        for (int i = 0; i < signals.length; i++) {
+            Assertions.assertArrayEquals(pelt.segment(signals[i]), changepoints[i], "Changepoints of series " + i);
+        }
+
+        Assertions.assertEquals(50, Pelt.refine(new int[] {10, 50}, 60), "Last changepoint before the alarm");
+        Assertions.assertEquals(50, Pelt.refine(new int[] {10, 50}, 50), "Changepoint at the alarm");
+        Assertions.assertEquals(5, Pelt.refine(new int[] {10, 50}, 5), "No changepoint before the alarm");
+        Assertions.assertEquals(changepoints[0][1], pelt.refine(signals[0], 190), "Alarm after the second change");
+        Assertions.assertEquals(0, pelt.segment(new double[3]).length, "Too short to split");
+    }
+}
@@ -0,0 +1,93 @@
+package com.censoredsurvivors.data.statistics;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.statistics.SignalCleaner.SignalCleaningType;
+
+public class SignalCleaningPipelineTest {
+    private static final int SIGNAL_LENGTH = 100;
+
+    private double[] sampleSignal() {
+        CustomDistribution customDistribution = new CustomDistribution(new CustomDistributionParams(100, 10, 0.7));
+        double[] signal = new double[SIGNAL_LENGTH];
+        for (int i = 0; i < signal.length; i++) {
+            signal[i] = customDistribution.sample();
+        }
+        // make sure the edges need interpolation too
+        signal[0] = 0;
+        signal[signal.length - 1] = 0;
+
+        return signal;
+    }
+
+    @Test
+    public void testPipelinesMatchChainedCleaners() {
+        double[] signal = sampleSignal();
+        double[] original = signal.clone();
+        Wavelets wavelets = new Wavelets();
+
+        Assertions.assertArrayEquals(signal, SignalCleaner.clean(signal, SignalCleaningType.NONE));
+        Assertions.assertArrayEquals(
+            Interpolator.interpolateZeroes(signal),
+            SignalCleaner.clean(signal, SignalCleaningType.INTERPOLATE_ZEROES));
+        Assertions.assertArrayEquals(
+            MovingAverage.simpleMovingAverage(signal, SignalCleaner.WINDOW_SIZE),
+            SignalCleaner.clean(signal, SignalCleaningType.SIMPLE_MOVING_AVERAGE));
+        Assertions.assertArrayEquals(
+            MovingAverage.simpleMovingAverage(Interpolator.interpolateZeroes(signal), SignalCleaner.WINDOW_SIZE),
+            SignalCleaner.clean(signal, SignalCleaningType.SIMPLE_MOVING_AVERAGE_AND_INTERPOLATE_ZEROES));
+        Assertions.assertArrayEquals(
+            wavelets.denoise(signal),
+            SignalCleaner.clean(signal, SignalCleaningType.WAVELET_DENOISING));
+        Assertions.assertArrayEquals(
+            wavelets.denoise(Interpolator.interpolateZeroes(signal)),
+            SignalCleaner.clean(signal, SignalCleaningType.WAVELET_DENOISING_AND_INTERPOLATE_ZEROES));
+
+        Assertions.assertArrayEquals(original, signal, "The input signal should not be modified");
+    }
+
+    @Test
+    public void testElementWiseStagesAreFused() {
+        SignalCleaningPipeline pipeline = SignalCleaningPipeline.builder()
+            .scale(2)
+            .clamp(0, 10)
+            .map("negate", value -> -value)
+            .simpleMovingAverage(2)
+            .scale(0.5)
+            .build();
+
+        Assertions.assertEquals(3, pipeline.passCount());
+        Assertions.assertEquals("scale(2.0) -> clamp(0.0, 10.0) -> negate -> simpleMovingAverage(2) -> scale(0.5)", pipeline.toString());
+
+        double[] signal = {1, 3, 6, 2};
+        double[] expected = {-1, -2, -4, -3.5};
+        Assertions.assertArrayEquals(expected, pipeline.clean(signal));
+    }
+
+    @Test
+    public void testCleanIntoSharedBuffer() {
+        SignalCleaningPipeline pipeline = SignalCleaningPipeline.builder()
+            .interpolateZeroes()
+            .simpleMovingAverage(3)
+            .build();
+
+        double[] signal = {3, 0, 9, 6, 0, 0};
+        double[] target = new double[10];
+        pipeline.clean(signal, signal.length, target);
+
+        // interpolated: 3, 6, 9, 6, 6, 6
+        double[] expected = {3, 4.5, 6, 7, 7, 6, 0, 0, 0, 0};
+        Assertions.assertArrayEquals(expected, target);
+    }
+
+    @Test
+    public void testMovingAverageRejectsShortSignal() {
+        SignalCleaningPipeline pipeline = SignalCleaningPipeline.builder()
+            .simpleMovingAverage(SignalCleaner.WINDOW_SIZE)
+            .build();
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> pipeline.clean(new double[] {1, 2}));
+    }
+}
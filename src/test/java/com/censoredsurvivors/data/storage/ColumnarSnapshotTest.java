@@ -0,0 +1,109 @@
+package com.censoredsurvivors.data.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.censoredsurvivors.data.generator.SocialMediaDatasetCache;
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPostChurnDataSet;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class ColumnarSnapshotTest {
+    private static final SocialMediaDataset DATASET = SocialMediaDatasetCache.generate(new SocialMediaDatasetConfig(
+        ProjectConfig.RANDOM_SEED,
+        30,
+        0.2,
+        0.2,
+        3,
+        0.5,
+        false,
+        List.of(new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.8))),
+        List.of(SocialMediaChannel.FACEBOOK, SocialMediaChannel.LINKEDIN)
+    ));
+
+    @Test
+    public void testRoundTrip(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("dataset.columnar");
+        ColumnarSnapshot.write(path, "metadata", DATASET);
+
+        try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(path)) {
+            Assertions.assertEquals("metadata", snapshot.metadata());
+            Assertions.assertEquals(List.of(ColumnarSnapshot.CUSTOMERS_TABLE, ColumnarSnapshot.POSTS_TABLE), snapshot.tableKeys());
+
+            SocialMediaDataset restored = snapshot.toDataset();
+            assertSameTable(DATASET.customers(), restored.customers());
+            assertSameTable(DATASET.posts(), restored.posts());
+        }
+    }
+
+    @Test
+    public void testRandomAccessAndCustomerIndex(@TempDir Path directory) throws IOException {
+        Path path = directory.resolve("dataset.columnar");
+        ColumnarSnapshot.write(path, "", DATASET);
+        Table customers = DATASET.customers();
+        Table posts = DATASET.posts();
+
+        try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(path)) {
+            ColumnarSnapshot.MappedTable mappedCustomers = snapshot.table(ColumnarSnapshot.CUSTOMERS_TABLE);
+            ColumnarSnapshot.MappedTable mappedPosts = snapshot.table(ColumnarSnapshot.POSTS_TABLE);
+
+            for (int row = 0; row < customers.rowCount(); row++) {
+                Assertions.assertEquals(customers.stringColumn(ProjectConfig.PLAN_COLUMN).get(row), mappedCustomers.getString(ProjectConfig.PLAN_COLUMN, row));
+                Assertions.assertEquals(customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN).get(row), mappedCustomers.getDate(ProjectConfig.CHURN_DATE_COLUMN, row));
+                Assertions.assertEquals(customers.doubleColumn(ProjectConfig.CHURN_FACTOR_COLUMN).getDouble(row), mappedCustomers.getDouble(ProjectConfig.CHURN_FACTOR_COLUMN, row));
+            }
+            for (int row = 0; row < posts.rowCount(); row += 97) {
+                Assertions.assertEquals(posts.intColumn(ProjectConfig.POST_COUNT_COLUMN).getInt(row), mappedPosts.getInt(ProjectConfig.POST_COUNT_COLUMN, row));
+            }
+
+            // The posts of a customer are one contiguous row range.
+            for (String customerId : customers.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN)) {
+                Table expected = posts.where(posts.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN).isEqualTo(customerId));
+                int[] range = mappedPosts.rowRange(ProjectConfig.CUSTOMER_ID_COLUMN, customerId);
+                assertSameTable(expected.copy().setName(posts.name()), mappedPosts.toTable(range[0], range[1]));
+            }
+            Assertions.assertNull(mappedPosts.rowRange(ProjectConfig.CUSTOMER_ID_COLUMN, "unknown"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> mappedPosts.rowRange(ProjectConfig.CHANNEL_COLUMN, "Facebook"));
+            Assertions.assertThrows(IllegalArgumentException.class, () -> mappedPosts.getInt(ProjectConfig.CHANNEL_COLUMN, 0));
+        }
+    }
+
+    @Test
+    public void testPostChurnDataSet(@TempDir Path directory) throws IOException {
+        SocialMediaPostChurnDataSet dataSet = new SocialMediaPostChurnDataSet();
+        dataSet.setCustomers(DATASET.customers());
+        dataSet.setPlatformPosts(DATASET.posts());
+        Path path = directory.resolve("post-churn.columnar");
+        ColumnarSnapshot.write(path, dataSet);
+
+        try (ColumnarSnapshot snapshot = ColumnarSnapshot.open(path)) {
+            SocialMediaPostChurnDataSet restored = snapshot.toPostChurnDataSet();
+
+            assertSameTable(DATASET.customers(), restored.getCustomers());
+            assertSameTable(DATASET.posts(), restored.getPlatformPosts());
+            Assertions.assertNull(restored.getNativePosts());
+        }
+    }
+
+    private void assertSameTable(Table expected, Table actual) {
+        Assertions.assertEquals(expected.name(), actual.name());
+        Assertions.assertEquals(expected.columnNames(), actual.columnNames());
+        Assertions.assertEquals(expected.rowCount(), actual.rowCount());
+        for (int column = 0; column < expected.columnCount(); column++) {
+            Assertions.assertEquals(expected.column(column).type(), actual.column(column).type());
+            Assertions.assertEquals(expected.column(column).asList(), actual.column(column).asList(), expected.column(column).name());
+        }
+    }
+}
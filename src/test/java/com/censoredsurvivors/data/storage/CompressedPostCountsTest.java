@@ -0,0 +1,91 @@
+package com.censoredsurvivors.data.storage;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaDatasetCache;
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.aggregate.AggregateFunctions;
+import tech.tablesaw.api.Table;
+
+public class CompressedPostCountsTest {
+
+    @Test
+    public void testRoundTripAndRandomAccess() {
+        SplittableRandom random = new SplittableRandom(ProjectConfig.RANDOM_SEED);
+        int[][] series = new int[50][];
+        CompressedPostCounts.Builder builder = new CompressedPostCounts.Builder();
+        for (int customer = 0; customer < series.length; customer++) {
+            // includes empty series and series of exactly one block
+            int length = customer == 0 ? 0 : customer == 1 ? CompressedPostCounts.BLOCK_SIZE : random.nextInt(600);
+            series[customer] = new int[length];
+            for (int week = 0; week < length; week++) {
+                boolean churned = week > length * 0.7;
+                series[customer][week] = random.nextDouble() < (churned ? 0.1 : 0.8) ? random.nextInt(1, 400) : 0;
+            }
+            builder.add(String.valueOf(customer), series[customer]);
+        }
+
+        CompressedPostCounts counts = builder.build();
+
+        Assertions.assertEquals(series.length, counts.size());
+        double[][] decoded = counts.decodeAll();
+        for (int customer = 0; customer < series.length; customer++) {
+            Assertions.assertEquals(series[customer].length, counts.length(customer));
+            for (int week = 0; week < series[customer].length; week++) {
+                Assertions.assertEquals(series[customer][week], decoded[customer][week], "Sequential decode of " + customer);
+                Assertions.assertEquals(series[customer][week], counts.get(customer, week), "Random access of " + customer);
+            }
+        }
+        Assertions.assertEquals(7, counts.indexOf("7"));
+        Assertions.assertEquals(-1, counts.indexOf("unknown"));
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> counts.get(1, CompressedPostCounts.BLOCK_SIZE));
+
+        double[] target = new double[series[5].length + 3];
+        Assertions.assertEquals(series[5].length, counts.decode(5, target, 3));
+        Assertions.assertEquals(series[5][0], target[3]);
+    }
+
+    @Test
+    public void testWeeklySumsOfGeneratedPosts() {
+        SocialMediaDataset dataset = SocialMediaDatasetCache.generate(new SocialMediaDatasetConfig(
+            ProjectConfig.RANDOM_SEED,
+            20,
+            0,
+            0,
+            3,
+            0.5,
+            true,
+            List.of(new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.8))),
+            List.of(SocialMediaChannel.FACEBOOK, SocialMediaChannel.TWITTER)
+        ));
+        Table posts = dataset.posts();
+
+        CompressedPostCounts counts = CompressedPostCounts.fromPosts(posts);
+
+        Assertions.assertEquals(dataset.customers().rowCount(), counts.size());
+        // less than two bytes per week instead of an int per post row
+        int weeks = 0;
+        for (int customer = 0; customer < counts.size(); customer++) {
+            String customerId = counts.customerId(customer);
+            Table weeklyPosts = posts.where(posts.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN).isEqualTo(customerId))
+                .summarize(ProjectConfig.POST_COUNT_COLUMN, AggregateFunctions.sum)
+                .by(ProjectConfig.YEAR_COLUMN, ProjectConfig.WEEK_COLUMN);
+            double[] expected = weeklyPosts.doubleColumn("Sum [" + ProjectConfig.POST_COUNT_COLUMN + "]").asDoubleArray();
+
+            Assertions.assertArrayEquals(expected, counts.decode(customer), "Weekly sums of " + customerId);
+            weeks += expected.length;
+        }
+        Assertions.assertTrue(counts.compressedBytes() < weeks * 2, "Compressed to " + counts.compressedBytes() + " bytes for " + weeks + " weeks");
+    }
+}
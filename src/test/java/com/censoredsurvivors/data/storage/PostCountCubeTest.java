@@ -0,0 +1,136 @@
+package com.censoredsurvivors.data.storage;
+
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaDatasetCache;
+import com.censoredsurvivors.data.generator.SocialMediaDatasetExtender;
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaCountry;
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.model.SocialMediaIndustry;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPlan;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class PostCountCubeTest {
+    private static final List<SocialMediaChannel> CHANNELS = List.of(SocialMediaChannel.FACEBOOK, SocialMediaChannel.TWITTER);
+    private static final SocialMediaDatasetConfig CONFIG = new SocialMediaDatasetConfig(
+        ProjectConfig.RANDOM_SEED,
+        60,
+        0.2,
+        0.2,
+        2,
+        0.5,
+        false,
+        List.of(new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(20, 5, 0.5))),
+        CHANNELS
+    );
+
+    @Test
+    public void testQueriesMatchBruteForce() {
+        SocialMediaDataset dataset = SocialMediaDatasetCache.generate(CONFIG);
+        Table customers = dataset.customers();
+        PostCountTensor tensor = PostCountTensor.fromPosts(customers, dataset.posts(), CHANNELS);
+        PostCountCube cube = PostCountCube.build(customers, tensor);
+
+        SocialMediaPlan plan = SocialMediaPlan.getByDisplayName(customers.stringColumn(ProjectConfig.PLAN_COLUMN).get(0));
+        SocialMediaIndustry industry = SocialMediaIndustry.getByDisplayName(customers.stringColumn(ProjectConfig.INDUSTRY_COLUMN).get(0));
+        int week = tensor.firstWeek(0) + tensor.weekCount(0) / 2;
+
+        long allSum = 0;
+        long planSum = 0;
+        long industryChannelSum = 0;
+        long planCount = 0;
+        long planZeros = 0;
+        for (int customer = 0; customer < tensor.size(); customer++) {
+            boolean samePlan = customers.stringColumn(ProjectConfig.PLAN_COLUMN).get(customer).equals(plan.getDisplayName());
+            boolean sameIndustry = customers.stringColumn(ProjectConfig.INDUSTRY_COLUMN).get(customer).equals(industry.getDisplayName());
+            for (int channel = 0; channel < CHANNELS.size(); channel++) {
+                if (!tensor.isValid(customer, week)) {
+                    continue;
+                }
+                int postCount = tensor.get(customer, channel, week);
+                allSum += postCount;
+                planSum += samePlan ? postCount : 0;
+                planCount += samePlan ? 1 : 0;
+                planZeros += samePlan && postCount == 0 ? 1 : 0;
+                industryChannelSum += sameIndustry && channel == 1 ? postCount : 0;
+            }
+        }
+
+        Assertions.assertEquals(allSum, cube.sum(week, null, null, null, null), "Total of the week");
+        Assertions.assertEquals(planSum, cube.sum(week, null, null, plan, null), "Total of the plan");
+        Assertions.assertEquals(planCount, cube.count(week, null, null, plan, null), "Customer-channel weeks of the plan");
+        Assertions.assertEquals(planZeros, cube.zeroCount(week, null, null, plan, null), "Weeks without posts of the plan");
+        Assertions.assertEquals(industryChannelSum, cube.sum(week, industry, null, null, CHANNELS.get(1)), "Total of the industry and channel");
+
+        long[] weeklySums = cube.weeklySums(cube.firstWeek() - 1, cube.firstWeek() + cube.weekCount() + 1, null, null, null, null);
+        long total = 0;
+        for (long weekSum : weeklySums) {
+            total += weekSum;
+        }
+        Assertions.assertEquals(0, weeklySums[0], "Week before the cube");
+        Assertions.assertEquals((long) dataset.posts().intColumn(ProjectConfig.POST_COUNT_COLUMN).sum(), total, "Total of all weeks");
+    }
+
+    @Test
+    public void testRollup() {
+        SocialMediaDataset dataset = SocialMediaDatasetCache.generate(CONFIG);
+        PostCountCube cube = PostCountCube.fromPosts(dataset.customers(), dataset.posts(), CHANNELS);
+        PostCountCube byChannelAndCountry = cube.rollup(Set.of(SocialMediaParam.CHANNEL, SocialMediaParam.COUNTRY));
+        PostCountCube byChannel = byChannelAndCountry.rollup(Set.of(SocialMediaParam.CHANNEL));
+
+        for (int week = cube.firstWeek(); week < cube.firstWeek() + cube.weekCount(); week += 7) {
+            for (SocialMediaChannel channel : CHANNELS) {
+                Assertions.assertEquals(cube.sum(week, null, null, null, channel), byChannel.sum(week, null, null, null, channel));
+                Assertions.assertEquals(cube.zeroCount(week, null, null, null, channel), byChannel.zeroCount(week, null, null, null, channel));
+                Assertions.assertEquals(
+                    cube.count(week, null, SocialMediaCountry.values()[0], null, channel),
+                    byChannelAndCountry.count(week, null, SocialMediaCountry.values()[0], null, channel)
+                );
+            }
+        }
+        Assertions.assertEquals(Set.of(SocialMediaParam.CHANNEL), byChannel.dimensions());
+        Assertions.assertThrows(IllegalArgumentException.class, () -> byChannel.sum(cube.firstWeek(), null, null, SocialMediaPlan.values()[0], null));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> byChannel.rollup(Set.of(SocialMediaParam.PLAN)));
+    }
+
+    @Test
+    public void testIncrementalWeeks() {
+        SocialMediaDataset dataset = SocialMediaDatasetCache.generate(CONFIG);
+        PostCountCube cube = PostCountCube.fromPosts(dataset.customers(), dataset.posts(), CHANNELS);
+        int firstNewWeek = EpochWeeks.firstMondayWeek(SocialMediaDatasetExtender.horizon(dataset.customers()));
+
+        SocialMediaDatasetExtender.Extension extended = SocialMediaDatasetExtender.of(CONFIG).extend(dataset.customers(), 5);
+        PostCountTensor extendedCounts = PostCountTensor.fromPosts(extended.customers(), List.of(dataset.posts(), extended.posts()), CHANNELS);
+        cube.addWeeks(extended.customers(), extendedCounts, firstNewWeek);
+        PostCountCube rebuilt = PostCountCube.build(extended.customers(), extendedCounts);
+
+        Assertions.assertEquals(rebuilt.firstWeek(), cube.firstWeek());
+        Assertions.assertEquals(rebuilt.weekCount(), cube.weekCount());
+        for (SocialMediaChannel channel : CHANNELS) {
+            Assertions.assertArrayEquals(
+                rebuilt.weeklySums(rebuilt.firstWeek(), rebuilt.firstWeek() + rebuilt.weekCount(), null, null, null, channel),
+                cube.weeklySums(rebuilt.firstWeek(), rebuilt.firstWeek() + rebuilt.weekCount(), null, null, null, channel),
+                "Weekly sums of " + channel
+            );
+        }
+
+        int lastWeek = cube.firstWeek() + cube.weekCount() - 1;
+        long before = cube.sum(lastWeek, null, null, null, null);
+        cube.add(lastWeek + 1, SocialMediaIndustry.FINANCE, SocialMediaCountry.values()[0], SocialMediaPlan.values()[0], SocialMediaChannel.FACEBOOK, 3);
+        Assertions.assertEquals(before, cube.sum(lastWeek, null, null, null, null), "Existing weeks are kept when growing");
+        Assertions.assertEquals(3, cube.sum(lastWeek + 1, SocialMediaIndustry.FINANCE, null, null, null));
+        Assertions.assertEquals(1, cube.count(lastWeek + 1, null, null, null, null));
+    }
+}
@@ -0,0 +1,99 @@
+package com.censoredsurvivors.data.storage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaCustomerGenerator;
+import com.censoredsurvivors.data.generator.SocialMediaPostsGenerator;
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class PostCountTensorTest {
+    private static final List<SocialMediaPostRule> POST_RULES = List.of(
+        new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.8))
+    );
+    private static final List<SocialMediaChannel> CHANNELS = List.of(SocialMediaChannel.FACEBOOK, SocialMediaChannel.TWITTER);
+
+    @Test
+    public void testEpochWeeks() {
+        LocalDate monday = LocalDate.of(2024, 1, 1);
+
+        Assertions.assertEquals(EpochWeeks.of(monday), EpochWeeks.of(monday.plusDays(6)), "Weeks start on Mondays");
+        Assertions.assertEquals(EpochWeeks.of(monday) - 1, EpochWeeks.of(monday.minusDays(1)), "Sunday belongs to the previous week");
+        Assertions.assertEquals(monday, EpochWeeks.monday(EpochWeeks.of(monday.plusDays(3))));
+        Assertions.assertEquals(EpochWeeks.of(monday), EpochWeeks.ofIsoWeek(2024, 1));
+        Assertions.assertEquals(EpochWeeks.of(LocalDate.of(2019, 12, 30)), EpochWeeks.ofIsoWeek(2020, 1));
+        Assertions.assertEquals(EpochWeeks.of(monday) + 1, EpochWeeks.firstMondayWeek(monday.plusDays(1)));
+    }
+
+    @Test
+    public void testGeneratedTensorMatchesPostsTable() {
+        Table customers = new SocialMediaCustomerGenerator(false, new Random(ProjectConfig.RANDOM_SEED))
+            .generateCustomers(50, 0.1, 0.1, 3, 0.5);
+        Table posts = new SocialMediaPostsGenerator(customers, new Random(ProjectConfig.RANDOM_SEED))
+            .generatePosts("Posts", POST_RULES, CHANNELS);
+        PostCountTensor generated = new SocialMediaPostsGenerator(customers, new Random(ProjectConfig.RANDOM_SEED))
+            .generatePostCounts(POST_RULES, CHANNELS);
+
+        PostCountTensor fromPosts = PostCountTensor.fromPosts(customers, posts, CHANNELS);
+
+        Assertions.assertEquals(customers.rowCount(), generated.size());
+        int weeks = 0;
+        long postSum = 0;
+        for (int customer = 0; customer < generated.size(); customer++) {
+            Assertions.assertEquals(fromPosts.weekCount(customer), generated.weekCount(customer));
+            double[] total = generated.total(customer);
+            for (int week = 0; week < generated.weekCount(customer); week++) {
+                int epochWeek = generated.firstWeek(customer) + week;
+                int weekSum = 0;
+                for (int channel = 0; channel < CHANNELS.size(); channel++) {
+                    Assertions.assertEquals(
+                        fromPosts.get(customer, channel, epochWeek),
+                        generated.get(customer, channel, epochWeek),
+                        "Post count of " + generated.customerId(customer) + " in week " + week
+                    );
+                    weekSum += generated.get(customer, channel, epochWeek);
+                }
+                Assertions.assertEquals(weekSum, total[week], "Total over the channels");
+                postSum += weekSum;
+            }
+            weeks += generated.weekCount(customer);
+        }
+        Assertions.assertEquals(posts.rowCount(), weeks * CHANNELS.size(), "One post row per channel and week");
+        Assertions.assertEquals((long) posts.intColumn(ProjectConfig.POST_COUNT_COLUMN).sum(), postSum);
+    }
+
+    @Test
+    public void testValidityMask() {
+        Table customers = new SocialMediaCustomerGenerator(false, new Random(ProjectConfig.RANDOM_SEED))
+            .generateCustomers(5, 0, 0, 3, 0.5);
+        PostCountTensor tensor = PostCountTensor.forCustomers(customers, CHANNELS);
+        int firstWeek = tensor.firstWeek(0);
+        int lastWeek = firstWeek + tensor.weekCount(0) - 1;
+
+        Assertions.assertFalse(tensor.isValid(0, firstWeek - 1), "Week before the contract");
+        Assertions.assertTrue(tensor.isValid(0, firstWeek));
+        Assertions.assertTrue(tensor.isValid(0, lastWeek));
+        Assertions.assertFalse(tensor.isValid(0, lastWeek + 1), "Week after the contract");
+        Assertions.assertFalse(
+            EpochWeeks.monday(firstWeek).isBefore(customers.dateColumn(ProjectConfig.CONTRACT_START_DATE_COLUMN).get(0)),
+            "First week starts inside of the contract"
+        );
+
+        tensor.add(0, 1, lastWeek, 7);
+        Assertions.assertEquals(7, tensor.get(0, 1, lastWeek));
+        Assertions.assertEquals(0, tensor.get(0, 1, lastWeek + 1), "Weeks outside of the contract read as 0");
+        Assertions.assertThrows(IndexOutOfBoundsException.class, () -> tensor.add(0, 0, lastWeek + 1, 1));
+        Assertions.assertEquals(7, tensor.total(0)[tensor.weekCount(0) - 1]);
+    }
+}
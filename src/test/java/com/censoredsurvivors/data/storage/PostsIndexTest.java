@@ -0,0 +1,77 @@
+package com.censoredsurvivors.data.storage;
+
+import java.nio.IntBuffer;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaDatasetCache;
+import com.censoredsurvivors.data.generator.SocialMediaDatasetExtender;
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class PostsIndexTest {
+    private static final List<SocialMediaChannel> CHANNELS = List.of(SocialMediaChannel.TWITTER, SocialMediaChannel.FACEBOOK);
+
+    @Test
+    public void testRangesMatchTensor() {
+        SocialMediaDatasetConfig config = new SocialMediaDatasetConfig(
+            ProjectConfig.RANDOM_SEED,
+            30,
+            0.2,
+            0.2,
+            2,
+            0.5,
+            false,
+            List.of(new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(20, 5, 0.5))),
+            CHANNELS
+        );
+        // the extension splits the rows of the active customers into two blocks
+        SocialMediaDataset original = SocialMediaDatasetCache.generate(config);
+        SocialMediaDataset dataset = SocialMediaDatasetExtender.of(config).extend(original.customers(), 3).appendTo(original.posts());
+        Table posts = dataset.posts();
+        PostCountTensor tensor = PostCountTensor.fromPosts(dataset.customers(), posts, CHANNELS);
+
+        PostsIndex index = PostsIndex.build(dataset.customers(), posts);
+
+        Assertions.assertEquals(posts.rowCount(), index.size());
+        for (int customer = 0; customer < tensor.size(); customer++) {
+            String customerId = tensor.customerId(customer);
+            int firstWeek = tensor.firstWeek(customer);
+            int weekCount = tensor.weekCount(customer);
+            for (int channel = 0; channel < CHANNELS.size(); channel++) {
+                PostsIndex.Slice all = index.range(customerId, CHANNELS.get(channel));
+                Assertions.assertEquals(weekCount, all.size(), "Weeks of " + customerId);
+
+                int fromWeek = firstWeek + weekCount / 3;
+                int toWeek = firstWeek + weekCount / 2;
+                PostsIndex.Slice slice = index.range(customerId, CHANNELS.get(channel), fromWeek, toWeek);
+                Assertions.assertEquals(toWeek - fromWeek, slice.size(), "Weeks of the range of " + customerId);
+                for (int i = 0; i < slice.size(); i++) {
+                    Assertions.assertEquals(fromWeek + i, slice.epochWeek(i));
+                    Assertions.assertEquals(tensor.get(customer, channel, fromWeek + i), slice.postCount(i), "Post count of " + customerId);
+                    Assertions.assertEquals(customerId, posts.stringColumn(ProjectConfig.CUSTOMER_ID_COLUMN).get(slice.row(i)));
+                    Assertions.assertEquals(CHANNELS.get(channel).getDisplayName(), posts.stringColumn(ProjectConfig.CHANNEL_COLUMN).get(slice.row(i)));
+                }
+
+                IntBuffer buffer = slice.postCountBuffer();
+                Assertions.assertEquals(slice.size(), buffer.remaining());
+                if (slice.size() > 0) {
+                    Assertions.assertEquals(slice.postCount(0), buffer.get(0));
+                }
+            }
+        }
+
+        Assertions.assertEquals(0, index.range("unknown", SocialMediaChannel.FACEBOOK).size());
+        Assertions.assertEquals(0, index.range(tensor.customerId(0), SocialMediaChannel.YOUTUBE).size(), "Channel without posts");
+        Assertions.assertEquals(0, index.range(tensor.customerId(0), SocialMediaChannel.FACEBOOK, tensor.firstWeek(0) - 10, tensor.firstWeek(0)).size());
+    }
+}
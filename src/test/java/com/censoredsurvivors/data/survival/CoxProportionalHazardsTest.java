@@ -0,0 +1,94 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaCustomerGenerator;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class CoxProportionalHazardsTest {
+
+    @Test
+    public void testRecoversKnownHazardRatios() {
+        int size = 20_000;
+        double[] trueCoefficients = {0.7, -0.5};
+        SplittableRandom random = new SplittableRandom(ProjectConfig.RANDOM_SEED);
+
+        double[] values = new double[size * 2];
+        int[] entryDays = new int[size];
+        int[] exitDays = new int[size];
+        boolean[] events = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            values[i * 2] = random.nextInt(2);
+            values[i * 2 + 1] = random.nextInt(2);
+            double rate = 0.01 * Math.exp(trueCoefficients[0] * values[i * 2] + trueCoefficients[1] * values[i * 2 + 1]);
+            int eventDay = 1 + (int) (-Math.log(1 - random.nextDouble()) / rate);
+            int censorDay = 1 + random.nextInt(400);
+            // some customers are only observed after a delay
+            entryDays[i] = random.nextInt(4) == 0 ? random.nextInt(50) : 0;
+            exitDays[i] = Math.min(eventDay, censorDay);
+            events[i] = eventDay <= censorDay;
+        }
+
+        // Left truncation: customers who left before entering are never seen.
+        int[] observed = IntStream.range(0, size).filter(i -> exitDays[i] > entryDays[i]).toArray();
+        double[] observedValues = new double[observed.length * 2];
+        for (int k = 0; k < observed.length; k++) {
+            observedValues[k * 2] = values[observed[k] * 2];
+            observedValues[k * 2 + 1] = values[observed[k] * 2 + 1];
+        }
+        SurvivalData data = new SurvivalData(
+            new int[observed.length],
+            Arrays.stream(observed).map(i -> entryDays[i]).toArray(),
+            Arrays.stream(observed).map(i -> exitDays[i]).toArray(),
+            toBooleans(Arrays.stream(observed).map(i -> events[i] ? 1 : 0).toArray()),
+            new byte[observed.length],
+            new byte[observed.length],
+            new byte[observed.length]
+        );
+        CoxDesignMatrix design = new CoxDesignMatrix(new String[] {"a", "b"}, observedValues);
+
+        CoxProportionalHazards.Model model = new CoxProportionalHazards().fit(data, design);
+
+        Assertions.assertTrue(model.converged(), "Newton–Raphson converges");
+        for (int j = 0; j < trueCoefficients.length; j++) {
+            Assertions.assertEquals(trueCoefficients[j], model.coefficients()[j], 4 * model.standardErrors()[j], "Coefficient " + j);
+            Assertions.assertTrue(model.pValue(j) < 1e-6, "Coefficient " + j + " is significant");
+        }
+
+        CoxProportionalHazards.Model sequential = new CoxProportionalHazards(1).fit(data, design);
+        Assertions.assertArrayEquals(sequential.coefficients(), model.coefficients(), 1e-8, "Same fit on one core");
+    }
+
+    @Test
+    public void testGeneratedCustomers() {
+        int observationPeriodInYears = 5;
+        Table customers = new SocialMediaCustomerGenerator()
+            .generateCustomers(5_000, 0.2, 0.2, observationPeriodInYears, 0.5);
+        SurvivalData data = SurvivalData.fromCustomers(customers, observationPeriodInYears);
+        CoxDesignMatrix design = CoxDesignMatrix.fromCustomers(customers);
+
+        CoxProportionalHazards.Model model = new CoxProportionalHazards().fit(data, design);
+
+        Assertions.assertEquals(design.columns(), model.coefficients().length);
+        Assertions.assertTrue(model.converged(), "Newton–Raphson converges");
+        // Industry, country and plan are assigned round-robin, so they have no real effect on churn.
+        for (int j = 0; j < design.columns(); j++) {
+            Assertions.assertEquals(0, model.coefficients()[j], 5 * model.standardErrors()[j], model.names()[j]);
+        }
+    }
+
+    private boolean[] toBooleans(int[] flags) {
+        boolean[] result = new boolean[flags.length];
+        for (int i = 0; i < flags.length; i++) {
+            result[i] = flags[i] == 1;
+        }
+        return result;
+    }
+}
@@ -0,0 +1,104 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaCustomerGenerator;
+
+import tech.tablesaw.api.Table;
+
+public class IncrementalNelsonAalenTest {
+    private static final int OBSERVATION_PERIOD_IN_YEARS = 5;
+    private static final int BATCH_SIZE = 500;
+
+    @Test
+    public void testMatchesBatchRecomputation() {
+        Table customers = new SocialMediaCustomerGenerator()
+            .generateCustomers(3_000, 0.2, 0.2, OBSERVATION_PERIOD_IN_YEARS, 0.5);
+        SurvivalData data = SurvivalData.fromCustomers(customers, OBSERVATION_PERIOD_IN_YEARS);
+
+        IncrementalNelsonAalen estimator = new IncrementalNelsonAalen();
+        for (int end = BATCH_SIZE; end <= data.size(); end += BATCH_SIZE) {
+            // Customers arrive in batches, with the estimator queried in between.
+            for (int i = end - BATCH_SIZE; i < end; i++) {
+                estimator.addCustomer(data.entryDays()[i]);
+                if (data.events()[i]) {
+                    estimator.churn(data.entryDays()[i], data.exitDays()[i]);
+                } else {
+                    estimator.censor(data.entryDays()[i], data.exitDays()[i]);
+                }
+            }
+
+            SurvivalCurve batch = new KaplanMeierEstimator().estimate(prefix(data, end));
+            for (int day = 0; day <= data.maxDay() + 10; day += 7) {
+                Assertions.assertEquals(batch.cumulativeHazardAt(day), estimator.cumulativeHazard(day), "Cumulative hazard on day " + day);
+            }
+            for (int row = 0; row < batch.size(); row++) {
+                Assertions.assertEquals(batch.atRisk()[row], estimator.atRisk(batch.days()[row]), "At risk on day " + batch.days()[row]);
+            }
+        }
+    }
+
+    @Test
+    public void testOpenCustomersStayAtRisk() {
+        IncrementalNelsonAalen estimator = new IncrementalNelsonAalen();
+        estimator.addCustomer(0);
+        estimator.addCustomer(0);
+        estimator.addCustomer(3);
+
+        Assertions.assertEquals(0, estimator.atRisk(0));
+        Assertions.assertEquals(2, estimator.atRisk(1));
+        Assertions.assertEquals(3, estimator.atRisk(4000));
+        Assertions.assertEquals(0.0, estimator.cumulativeHazard(4000));
+
+        estimator.churn(0, 2);
+        estimator.churn(3, 5);
+
+        Assertions.assertEquals(0.5, estimator.cumulativeHazard(2), 1e-12);
+        Assertions.assertEquals(0.5 + 1.0 / 2, estimator.cumulativeHazard(5), 1e-12);
+        Assertions.assertEquals(Math.exp(-1.0), estimator.survival(100), 1e-12);
+        Assertions.assertThrows(IllegalArgumentException.class, () -> estimator.censor(7, 10));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> estimator.churn(100_000, 100_010), "Entry day beyond the capacity");
+    }
+
+    @Test
+    public void testDailyUpdatesAndQueries() {
+        Table customers = new SocialMediaCustomerGenerator()
+            .generateCustomers(1_000, 0.2, 0.2, OBSERVATION_PERIOD_IN_YEARS, 0.5);
+        SurvivalData data = SurvivalData.fromCustomers(customers, OBSERVATION_PERIOD_IN_YEARS);
+
+        // every update is followed by queries, as in an online dashboard
+        IncrementalNelsonAalen estimator = new IncrementalNelsonAalen();
+        for (int i = 0; i < data.size(); i++) {
+            estimator.addCustomer(data.entryDays()[i]);
+            estimator.atRisk(data.exitDays()[i]);
+            if (data.events()[i]) {
+                estimator.churn(data.entryDays()[i], data.exitDays()[i]);
+            } else {
+                estimator.censor(data.entryDays()[i], data.exitDays()[i]);
+            }
+            estimator.cumulativeHazard(data.exitDays()[i]);
+        }
+
+        SurvivalCurve batch = new KaplanMeierEstimator().estimate(data);
+        for (int row = 0; row < batch.size(); row++) {
+            int day = batch.days()[row];
+            Assertions.assertEquals(batch.atRisk()[row], estimator.atRisk(day), "At risk on day " + day);
+            Assertions.assertEquals(batch.cumulativeHazardAt(day), estimator.cumulativeHazard(day), "Cumulative hazard on day " + day);
+        }
+    }
+
+    private SurvivalData prefix(SurvivalData data, int size) {
+        return new SurvivalData(
+            Arrays.copyOf(data.contractStartEpochDays(), size),
+            Arrays.copyOf(data.entryDays(), size),
+            Arrays.copyOf(data.exitDays(), size),
+            Arrays.copyOf(data.events(), size),
+            new byte[size],
+            new byte[size],
+            new byte[size]
+        );
+    }
+}
@@ -0,0 +1,105 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaCustomerGenerator;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPlan;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class KaplanMeierEstimatorTest {
+    private static final double DELTA = 1e-12;
+
+    private SurvivalData survivalData(int[] entryDays, int[] exitDays, boolean[] events, byte[] plans) {
+        int size = exitDays.length;
+        return new SurvivalData(new int[size], entryDays, exitDays, events, new byte[size], new byte[size], plans);
+    }
+
+    @Test
+    public void testSurvivalCurveWithDelayedEntry() {
+        SurvivalData data = survivalData(
+            new int[] {0, 0, 0, 0, 0, 0, 4},
+            new int[] {2, 3, 3, 5, 5, 8, 10},
+            new boolean[] {true, false, true, true, true, false, true},
+            new byte[7]
+        );
+
+        SurvivalCurve curve = new KaplanMeierEstimator().estimate(data);
+
+        Assertions.assertArrayEquals(new int[] {2, 3, 5, 8, 10}, curve.days());
+        Assertions.assertArrayEquals(new int[] {6, 5, 4, 2, 1}, curve.atRisk());
+        Assertions.assertArrayEquals(new int[] {1, 1, 2, 0, 1}, curve.events());
+        Assertions.assertArrayEquals(new int[] {0, 1, 0, 1, 0}, curve.censored());
+        Assertions.assertArrayEquals(new double[] {5.0 / 6, 4.0 / 6, 1.0 / 3, 1.0 / 3, 0}, curve.survival(), DELTA);
+        Assertions.assertArrayEquals(
+            new double[] {1.0 / 6, 1.0 / 6 + 1.0 / 5, 1.0 / 6 + 1.0 / 5 + 2.0 / 4, 1.0 / 6 + 1.0 / 5 + 2.0 / 4, 1.0 / 6 + 1.0 / 5 + 2.0 / 4 + 1.0},
+            curve.cumulativeHazard(),
+            DELTA);
+        Assertions.assertEquals(
+            5.0 / 6 * Math.sqrt(1.0 / (6 * 5)),
+            curve.standardErrors()[0],
+            DELTA);
+
+        Assertions.assertEquals(1.0, curve.survivalAt(1), DELTA);
+        Assertions.assertEquals(4.0 / 6, curve.survivalAt(4), DELTA);
+        Assertions.assertEquals(5, curve.medianSurvivalDay());
+    }
+
+    @Test
+    public void testStratifiedCurvesMatchSeparateEstimates() {
+        SurvivalData data = survivalData(
+            new int[] {0, 0, 0, 0, 0, 0},
+            new int[] {2, 4, 4, 6, 7, 9},
+            new boolean[] {true, true, false, true, false, true},
+            new byte[] {0, 2, 0, 2, 0, 2}
+        );
+
+        Map<String, SurvivalCurve> curves = new KaplanMeierEstimator().estimate(data, List.of(SocialMediaParam.PLAN));
+
+        Assertions.assertEquals(
+            List.of(SocialMediaPlan.BASIC.getDisplayName(), SocialMediaPlan.ENTERPRISE.getDisplayName()),
+            List.copyOf(curves.keySet()));
+
+        SurvivalCurve basic = curves.get(SocialMediaPlan.BASIC.getDisplayName());
+        Assertions.assertArrayEquals(new int[] {2, 4, 7}, basic.days());
+        Assertions.assertArrayEquals(new double[] {2.0 / 3, 2.0 / 3, 2.0 / 3}, basic.survival(), DELTA);
+
+        SurvivalCurve enterprise = curves.get(SocialMediaPlan.ENTERPRISE.getDisplayName());
+        Assertions.assertArrayEquals(new int[] {4, 6, 9}, enterprise.days());
+        Assertions.assertArrayEquals(new double[] {2.0 / 3, 1.0 / 3, 0}, enterprise.survival(), DELTA);
+    }
+
+    @Test
+    public void testGeneratedCustomers() {
+        int numberOfCustomers = 10_007;
+        int observationPeriodInYears = 5;
+        Table customers = new SocialMediaCustomerGenerator()
+            .generateCustomers(numberOfCustomers, 0.2, 0.2, observationPeriodInYears, 0.5);
+        SurvivalData data = SurvivalData.fromCustomers(customers, observationPeriodInYears);
+
+        KaplanMeierEstimator estimator = new KaplanMeierEstimator();
+        SurvivalCurve pooled = estimator.estimate(data);
+        Map<String, SurvivalCurve> stratified = estimator.estimate(
+            data,
+            List.of(SocialMediaParam.INDUSTRY, SocialMediaParam.COUNTRY, SocialMediaParam.PLAN));
+
+        long expectedEvents = numberOfCustomers - customers.dateColumn(ProjectConfig.CHURN_DATE_COLUMN).countMissing();
+        Assertions.assertEquals(expectedEvents, Arrays.stream(pooled.events()).sum(), "Every churn is an event");
+        Assertions.assertEquals(
+            expectedEvents,
+            stratified.values().stream().mapToInt(curve -> Arrays.stream(curve.events()).sum()).sum(),
+            "Strata partition the events");
+
+        for (int i = 1; i < pooled.size(); i++) {
+            Assertions.assertTrue(pooled.survival()[i] <= pooled.survival()[i - 1], "Survival is non-increasing");
+        }
+        Assertions.assertTrue(pooled.survival()[pooled.size() - 1] >= 0);
+    }
+}
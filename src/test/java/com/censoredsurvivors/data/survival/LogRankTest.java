@@ -0,0 +1,104 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaCustomerGenerator;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPlan;
+
+import tech.tablesaw.api.Table;
+
+public class LogRankTest {
+    private static final double DELTA = 1e-12;
+
+    @Test
+    public void testTwoGroups() {
+        // Plan A churns on days 1 and 2, plan B on days 3 and 4.
+        SurvivalData data = new SurvivalData(
+            new int[4],
+            new int[4],
+            new int[] {1, 2, 3, 4},
+            new boolean[] {true, true, true, true},
+            new byte[4],
+            new byte[4],
+            new byte[] {0, 0, 1, 1}
+        );
+
+        LogRank.Result result = new LogRank().test(data, List.of(SocialMediaParam.PLAN));
+
+        double score = 2 - (0.5 + 1.0 / 3);
+        double variance = 0.25 + 2.0 / 9;
+        LogRank.Comparison overall = result.overall();
+        Assertions.assertArrayEquals(
+            new String[] {SocialMediaPlan.values()[0].getDisplayName(), SocialMediaPlan.values()[1].getDisplayName()},
+            overall.groups(),
+            "Only plans with customers are compared"
+        );
+        Assertions.assertArrayEquals(new double[] {2, 2}, overall.observed(), DELTA);
+        Assertions.assertArrayEquals(new double[] {0.5 + 1.0 / 3, 0.5 + 2.0 / 3 + 1 + 1}, overall.expected(), DELTA);
+        Assertions.assertEquals(score * score / variance, overall.chiSquare(), DELTA);
+        Assertions.assertEquals(1, overall.degreesOfFreedom());
+
+        Assertions.assertEquals(1, result.pairwise().size());
+        Assertions.assertEquals(overall.chiSquare(), result.pairwise().get(0).chiSquare(), DELTA, "Two groups: pairwise equals k-sample");
+    }
+
+    @Test
+    public void testPairwiseMatchesSeparateTwoGroupTests() {
+        int observationPeriodInYears = 5;
+        Table customers = new SocialMediaCustomerGenerator()
+            .generateCustomers(5_000, 0.2, 0.2, observationPeriodInYears, 0.5);
+        SurvivalData data = SurvivalData.fromCustomers(customers, observationPeriodInYears);
+
+        for (LogRank.Weighting weighting : LogRank.Weighting.values()) {
+            LogRank.Result result = new LogRank(weighting).test(data, List.of(SocialMediaParam.PLAN));
+            int groups = result.overall().groups().length;
+
+            Assertions.assertEquals(groups * (groups - 1) / 2, result.pairwise().size(), weighting + ": all pairs");
+            // Plans are assigned round-robin, so they have no real effect on churn.
+            Assertions.assertTrue(result.overall().pValue() > 1e-4, weighting + ": no difference between plans");
+
+            for (LogRank.Comparison pair : result.pairwise()) {
+                SocialMediaPlan first = SocialMediaPlan.getByDisplayName(pair.groups()[0]);
+                SocialMediaPlan second = SocialMediaPlan.getByDisplayName(pair.groups()[1]);
+                LogRank.Comparison separate = new LogRank(weighting)
+                    .test(onlyPlans(data, first, second), List.of(SocialMediaParam.PLAN))
+                    .overall();
+                Assertions.assertEquals(separate.chiSquare(), pair.chiSquare(), 1e-9, weighting + ": " + first + " vs " + second);
+                Assertions.assertArrayEquals(separate.expected(), pair.expected(), 1e-9);
+            }
+        }
+
+        LogRank.Result adjusted = new LogRank().test(data, List.of(SocialMediaParam.PLAN), List.of(SocialMediaParam.INDUSTRY));
+        Assertions.assertTrue(adjusted.overall().pValue() > 1e-4, "No difference between plans within industries");
+        Assertions.assertThrows(
+            IllegalArgumentException.class,
+            () -> new LogRank().test(data, List.of(SocialMediaParam.PLAN), List.of(SocialMediaParam.PLAN))
+        );
+    }
+
+    private SurvivalData onlyPlans(SurvivalData data, SocialMediaPlan first, SocialMediaPlan second) {
+        byte[] plans = new byte[data.size()];
+        int[] codes = data.strata(List.of(SocialMediaParam.PLAN)).codes();
+        int[] exitDays = data.exitDays().clone();
+        for (int i = 0; i < data.size(); i++) {
+            plans[i] = (byte) codes[i];
+            // Customers of other plans are never at risk.
+            if (codes[i] != first.ordinal() && codes[i] != second.ordinal()) {
+                exitDays[i] = data.entryDays()[i];
+            }
+        }
+        return new SurvivalData(
+            data.contractStartEpochDays(),
+            data.entryDays(),
+            exitDays,
+            data.events(),
+            new byte[data.size()],
+            new byte[data.size()],
+            plans
+        );
+    }
+}
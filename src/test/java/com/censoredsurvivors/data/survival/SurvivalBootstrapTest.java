@@ -0,0 +1,89 @@
+package com.censoredsurvivors.data.survival;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaCustomerGenerator;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPlan;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class SurvivalBootstrapTest {
+    private static final int NUMBER_OF_CUSTOMERS = 3_000;
+    private static final int OBSERVATION_PERIOD_IN_YEARS = 5;
+    private static final int REPLICATES = 200;
+    private static final int HISTOGRAM_BINS = 500;
+
+    private SurvivalData survivalData() {
+        Table customers = new SocialMediaCustomerGenerator()
+            .generateCustomers(NUMBER_OF_CUSTOMERS, 0.2, 0.2, OBSERVATION_PERIOD_IN_YEARS, 0.5);
+        return SurvivalData.fromCustomers(customers, OBSERVATION_PERIOD_IN_YEARS);
+    }
+
+    @Test
+    public void testBandsContainEstimate() {
+        SurvivalData data = survivalData();
+        int[] grid = SurvivalBootstrap.grid(data.maxDay(), 30);
+
+        SurvivalBootstrap.Band band = new SurvivalBootstrap(REPLICATES, 0.95, ProjectConfig.RANDOM_SEED).estimate(data, grid);
+        SurvivalCurve curve = new KaplanMeierEstimator().estimate(data);
+
+        double resolution = 1.0 / SurvivalBootstrap.DEFAULT_HISTOGRAM_BINS;
+        for (int g = 0; g < grid.length; g++) {
+            Assertions.assertEquals(curve.survivalAt(grid[g]), band.survival()[g], 1e-12, "Point estimate is the Kaplan–Meier curve");
+            Assertions.assertTrue(band.lower()[g] <= band.survival()[g] + resolution, "Lower bound below the estimate on day " + grid[g]);
+            Assertions.assertTrue(band.upper()[g] >= band.survival()[g] - resolution, "Upper bound above the estimate on day " + grid[g]);
+        }
+        Assertions.assertTrue(band.upper()[grid.length - 1] - band.lower()[grid.length - 1] > 0, "The band has a width");
+    }
+
+    @Test
+    public void testReplicatesAreIndependentOfScheduling() {
+        SurvivalData data = survivalData();
+        int[] grid = SurvivalBootstrap.grid(data.maxDay(), 90);
+        List<SocialMediaParam> strata = List.of(SocialMediaParam.PLAN);
+
+        Map<String, SurvivalBootstrap.Band> sequential = new SurvivalBootstrap(REPLICATES, 0.9, ProjectConfig.RANDOM_SEED, HISTOGRAM_BINS, new ForkJoinPool(1))
+            .estimate(data, strata, grid);
+        Map<String, SurvivalBootstrap.Band> parallel = new SurvivalBootstrap(REPLICATES, 0.9, ProjectConfig.RANDOM_SEED, HISTOGRAM_BINS, new ForkJoinPool(4))
+            .estimate(data, strata, grid);
+
+        Assertions.assertEquals(sequential.keySet(), parallel.keySet());
+        sequential.forEach((stratum, band) -> {
+            Assertions.assertArrayEquals(band.lower(), parallel.get(stratum).lower(), stratum);
+            Assertions.assertArrayEquals(band.upper(), parallel.get(stratum).upper(), stratum);
+        });
+    }
+
+    @Test
+    public void testSmallStratumIgnoresReplicatesWithoutIt() {
+        // 200 customers of the first plan churn on day 100, one customer of the second plan churns on day 5
+        int size = 201;
+        int[] exitDays = new int[size];
+        byte[] plans = new byte[size];
+        boolean[] events = new boolean[size];
+        Arrays.fill(exitDays, 100);
+        Arrays.fill(events, true);
+        exitDays[size - 1] = 5;
+        plans[size - 1] = 1;
+        SurvivalData data = new SurvivalData(new int[size], new int[size], exitDays, events, new byte[size], new byte[size], plans);
+        int[] grid = SurvivalBootstrap.grid(100, 10);
+
+        Map<String, SurvivalBootstrap.Band> bands = new SurvivalBootstrap(REPLICATES, 0.95, ProjectConfig.RANDOM_SEED)
+            .estimate(data, List.of(SocialMediaParam.PLAN), grid);
+        SurvivalBootstrap.Band small = bands.get(SocialMediaPlan.values()[1].getDisplayName());
+
+        // about a third of the replicates do not draw the customer, they must not add a survival of 1
+        for (int g = 1; g < grid.length; g++) {
+            Assertions.assertEquals(0, small.upper()[g], "Upper bound after the only churn on day " + grid[g]);
+        }
+        Assertions.assertEquals(1, small.lower()[0], "No churn on day 0");
+    }
+}
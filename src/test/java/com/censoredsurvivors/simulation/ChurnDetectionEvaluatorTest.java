@@ -0,0 +1,43 @@
+package com.censoredsurvivors.simulation;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaCustomerGenerator;
+import com.censoredsurvivors.data.statistics.ConfusionStatus;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class ChurnDetectionEvaluatorTest {
+
+    @Test
+    public void testExactDetectionsAreFullyConcordant() {
+        int observationPeriodInYears = 5;
+        Table customers = new SocialMediaCustomerGenerator()
+            .generateCustomers(2_000, 0.2, 0.2, observationPeriodInYears, 0.5);
+
+        SocialMediaCusumChurnDetector.ChurnResult[] churnResults = customers.stream()
+            .map(customer -> new SocialMediaCusumChurnDetector.ChurnResult(
+                customer.getString(ProjectConfig.CUSTOMER_ID_COLUMN),
+                customer.getDate(ProjectConfig.CHURN_DATE_COLUMN),
+                customer.getString(ProjectConfig.CHURN_REASON_COLUMN),
+                customer.getDate(ProjectConfig.CHURN_DATE_COLUMN),
+                customer.getString(ProjectConfig.CHURN_REASON_COLUMN),
+                0,
+                ConfusionStatus.TRUE_POSITIVE
+            ))
+            .toArray(SocialMediaCusumChurnDetector.ChurnResult[]::new);
+
+        ChurnDetectionEvaluator.Evaluation evaluation = new ChurnDetectionEvaluator()
+            .evaluate(churnResults, customers, observationPeriodInYears);
+
+        Assertions.assertTrue(evaluation.concordance().comparable() > 0, "There are comparable pairs");
+        Assertions.assertEquals(1.0, evaluation.concordanceIndex(), "Detecting the true churn dates is fully concordant");
+        for (int i = 0; i < evaluation.aucDays().length; i++) {
+            if (!Double.isNaN(evaluation.auc()[i])) {
+                Assertions.assertEquals(1.0, evaluation.auc()[i], "AUC at day " + evaluation.aucDays()[i]);
+            }
+        }
+    }
+}
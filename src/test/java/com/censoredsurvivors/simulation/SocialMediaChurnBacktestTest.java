@@ -0,0 +1,119 @@
+package com.censoredsurvivors.simulation;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.generator.SocialMediaDatasetCache;
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaDataset;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.data.statistics.ChangeDetector;
+import com.censoredsurvivors.data.statistics.CusumDetector;
+import com.censoredsurvivors.data.storage.PostCountTensor;
+import com.censoredsurvivors.util.EpochWeeks;
+import com.censoredsurvivors.util.ProjectConfig;
+
+import tech.tablesaw.api.Table;
+
+public class SocialMediaChurnBacktestTest {
+    private static final List<SocialMediaChannel> CHANNELS = List.of(SocialMediaChannel.FACEBOOK);
+    private static final SocialMediaDatasetConfig CONFIG = new SocialMediaDatasetConfig(
+        ProjectConfig.RANDOM_SEED,
+        200,
+        0.2,
+        0.2,
+        3,
+        0.5,
+        false,
+        List.of(new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.8))),
+        CHANNELS
+    );
+
+    @Test
+    public void testReplayMatchesBatchDetection() {
+        SocialMediaDataset dataset = SocialMediaDatasetCache.generate(CONFIG);
+        PostCountTensor postCounts = PostCountTensor.fromPosts(dataset.customers(), dataset.posts(), CHANNELS);
+        ChangeDetector detector = new CusumDetector(0.2, 200, 220).ignoringZeros();
+
+        SocialMediaChurnBacktest.Result result = new SocialMediaChurnBacktest(dataset.customers(), postCounts, 4, 26).run(detector);
+
+        int alarms = 0;
+        for (int customer = 0; customer < postCounts.size(); customer++) {
+            int index = detector.detect(postCounts.total(customer));
+            int expected = index == -1 ? SocialMediaChurnBacktest.NO_ALARM : postCounts.firstWeek(customer) + index;
+            Assertions.assertEquals(expected, result.alarmWeeks()[customer], "Alarm week of " + postCounts.customerId(customer));
+            alarms += index == -1 ? 0 : 1;
+        }
+
+        int falseAlarms = Arrays.stream(result.falseAlarmsPerWeek()).sum();
+        int detections = Arrays.stream(result.timeToDetect()).sum();
+        long churned = postCounts.size() - dataset.customers().dateColumn(ProjectConfig.CHURN_DATE_COLUMN).countMissing();
+        Assertions.assertTrue(detections > 0, "There are detections");
+        Assertions.assertEquals(alarms, Arrays.stream(result.alarmsPerWeek()).sum(), "Alarms per week");
+        Assertions.assertEquals(alarms, falseAlarms + detections, "Every alarm is false or a detection");
+        Assertions.assertEquals(churned, detections + result.numberOfMissedChurns(), "Every churn is detected or missed");
+    }
+
+    @Test
+    public void testShardsDoNotChangeTheResult() {
+        SocialMediaDataset dataset = SocialMediaDatasetCache.generate(CONFIG);
+        PostCountTensor postCounts = PostCountTensor.fromPosts(dataset.customers(), dataset.posts(), CHANNELS);
+        ChangeDetector detector = new CusumDetector(0.2, 200, 220).ignoringZeros();
+
+        SocialMediaChurnBacktest.Result single = new SocialMediaChurnBacktest(dataset.customers(), postCounts, 1, 26).run(detector);
+        SocialMediaChurnBacktest.Result sharded = new SocialMediaChurnBacktest(dataset.customers(), postCounts, 7, 26).run(detector);
+
+        Assertions.assertEquals(single.firstWeek(), sharded.firstWeek());
+        Assertions.assertArrayEquals(single.alarmWeeks(), sharded.alarmWeeks());
+        Assertions.assertArrayEquals(single.alarmsPerWeek(), sharded.alarmsPerWeek());
+        Assertions.assertArrayEquals(single.falseAlarmsPerWeek(), sharded.falseAlarmsPerWeek());
+        Assertions.assertArrayEquals(single.timeToDetect(), sharded.timeToDetect());
+        Assertions.assertEquals(single.numberOfMissedChurns(), sharded.numberOfMissedChurns());
+    }
+
+    @Test
+    public void testChurnWeekStartsAtTheFirstMondayOfTheDrop() {
+        SocialMediaDataset dataset = SocialMediaDatasetCache.generate(CONFIG);
+        PostCountTensor postCounts = PostCountTensor.fromPosts(dataset.customers(), dataset.posts(), CHANNELS);
+        int customer = 0;
+        while (postCounts.weekCount(customer) < 20) {
+            customer++;
+        }
+        int alarmWeek = postCounts.firstWeek(customer) + 5;
+        // alarms in the sixth week of every customer
+        ChangeDetector detector = () -> new ChangeDetector.State() {
+            private int updates = 0;
+
+            @Override
+            public boolean update(double value) {
+                return ++updates == 6;
+            }
+
+            @Override
+            public double statistic() {
+                return updates;
+            }
+        };
+
+        // a churn on the Wednesday of the alarm week drops the posts from the next Monday on
+        Table onWednesday = dataset.customers().copy();
+        onWednesday.dateColumn(ProjectConfig.CHURN_DATE_COLUMN).set(customer, EpochWeeks.monday(alarmWeek).plusDays(2));
+        Table onNextMonday = dataset.customers().copy();
+        onNextMonday.dateColumn(ProjectConfig.CHURN_DATE_COLUMN).set(customer, EpochWeeks.monday(alarmWeek + 1));
+
+        SocialMediaChurnBacktest.Result wednesday = new SocialMediaChurnBacktest(onWednesday, postCounts, 2, 26).run(detector);
+        SocialMediaChurnBacktest.Result nextMonday = new SocialMediaChurnBacktest(onNextMonday, postCounts, 2, 26).run(detector);
+
+        Assertions.assertEquals(alarmWeek, wednesday.alarmWeeks()[customer]);
+        Assertions.assertArrayEquals(nextMonday.falseAlarmsPerWeek(), wednesday.falseAlarmsPerWeek(), "The alarm before the drop is false");
+        Assertions.assertArrayEquals(nextMonday.timeToDetect(), wednesday.timeToDetect(), "The alarm before the drop is no detection");
+        Assertions.assertEquals(nextMonday.numberOfMissedChurns(), wednesday.numberOfMissedChurns(), "The churn is missed");
+        Assertions.assertTrue(wednesday.falseAlarmsPerWeek()[alarmWeek - wednesday.firstWeek()] > 0);
+    }
+}
@@ -6,9 +6,10 @@ import java.io.IOException;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -18,15 +19,18 @@ import org.knowm.xchart.CategoryChartBuilder;
 import org.knowm.xchart.Histogram;
 import org.knowm.xchart.style.Styler.LegendPosition;
 
+import com.censoredsurvivors.data.generator.SocialMediaDatasetCache;
+import com.censoredsurvivors.data.statistics.ChangeDetector;
 import com.censoredsurvivors.data.statistics.ConfusionStatus;
+import com.censoredsurvivors.data.statistics.CusumDetector;
 import com.censoredsurvivors.data.statistics.SignalCleaner;
+import com.censoredsurvivors.simulation.SocialMediaCusumChurnDetector.CascadeSummary;
 import com.censoredsurvivors.simulation.SocialMediaCusumChurnDetector.RunSummary;
 import com.censoredsurvivors.util.SocialMediaGlobal;
 
 import de.vandermeer.asciitable.AsciiTable;
 import de.vandermeer.asciitable.CWC_LongestWord;
 import de.vandermeer.skb.interfaces.transformers.textformat.TextAlignment;
-import org.apache.commons.math3.stat.descriptive.DescriptiveStatistics;
 
 public class SocialMediaCusumChurnDetectorTest {
 
@@ -42,21 +46,13 @@ public class SocialMediaCusumChurnDetectorTest {
         SocialMediaCusumChurnDetector detector = new SocialMediaCusumChurnDetector();
         RunSummary summary = detector.run(numberOfCustomers, churnProbability, cusumSmoothing,1, signalCleaningType);
         
-        int total = summary.churnResults().length;
+        int total = summary.numberOfCustomers();
         String truePositive = String.format("%.2f", (double) 100 * summary.numberOfTruePositives() / total);
         String falsePositive = String.format("%.2f", (double) 100 * summary.numberOfFalsePositives() / total);
         String falseNegative = String.format("%.2f", (double) 100 * summary.numberOfFalseNegatives() / total);
         String trueNegative = String.format("%.2f", (double) 100 * summary.numberOfTrueNegatives() / total);
 
-        List<Integer> errors = Arrays.stream(summary.churnResults())
-            .filter(result -> result.confusionStatus() == ConfusionStatus.TRUE_POSITIVE)
-            .mapToInt(result -> result.detectionErrorInWeeks())
-            .map(error -> Math.abs(error))
-            .boxed()
-            .collect(Collectors.toList());
-
-        double[] errorsArray = errors.stream().mapToDouble(Integer::doubleValue).toArray();
-        double medianError = new DescriptiveStatistics(errorsArray).getPercentile(50);
+        double medianError = summary.absoluteDetectionErrors().median();
 
         if (medianError < 7) {
             System.out.println(String.format("[%f, %s, %d] error: %f, false positive: %s", cusumSmoothing, signalCleaningType, threshold, medianError, falsePositive));
@@ -78,6 +74,45 @@ public class SocialMediaCusumChurnDetectorTest {
         //printHistogram(errors, "Detection Error Distribution", "Detection Error (weeks)");
     }
 
+    @Test
+    public void testCascadeKeepsRecall() {
+        SignalCleaner.SignalCleaningType signalCleaningType = SignalCleaner.SignalCleaningType.WAVELET_DENOISING_AND_INTERPOLATE_ZEROES;
+        SocialMediaCusumChurnDetector detector = new SocialMediaCusumChurnDetector();
+        ChangeDetector confirmation = new CusumDetector(0.2, 200, 220).ignoringZeros();
+
+        RunSummary full = detector.run(1_000, 0.1, 0.2, 1, signalCleaningType);
+        CascadeSummary cascade = detector.runCascade(1_000, 0.1, new CusumDetector(0.2, 200, 200).ignoringZeros(), signalCleaningType, confirmation);
+
+        Assertions.assertEquals(full.numberOfTruePositives(), cascade.runSummary().numberOfTruePositives(), "Recall of the cascade");
+        Assertions.assertTrue(cascade.screenPassThroughRate() < 0.2, "Screen pass-through: " + cascade.screenPassThroughRate());
+        Assertions.assertEquals(
+            cascade.runSummary().numberOfTruePositives() + cascade.runSummary().numberOfFalsePositives(),
+            cascade.numberOfConfirmedCustomers()
+        );
+    }
+
+    @Test
+    public void testSummaryWithoutRetainedResults() {
+        SocialMediaCusumChurnDetector retaining = new SocialMediaCusumChurnDetector();
+        SocialMediaCusumChurnDetector streaming = new SocialMediaCusumChurnDetector(new SocialMediaDatasetCache(1), false);
+
+        RunSummary retained = retaining.run(300, 0.5, 0.2, 1, SignalCleaner.SignalCleaningType.INTERPOLATE_ZEROES);
+        RunSummary streamed = streaming.run(300, 0.5, 0.2, 1, SignalCleaner.SignalCleaningType.INTERPOLATE_ZEROES);
+
+        Assertions.assertNull(streamed.churnResults());
+        Assertions.assertEquals(retained.churnResults().length, streamed.numberOfCustomers());
+        Assertions.assertEquals(retained.numberOfTruePositives(), streamed.numberOfTruePositives());
+        Assertions.assertEquals(retained.numberOfFalsePositives(), streamed.numberOfFalsePositives());
+        Assertions.assertEquals(retained.numberOfTruePositives(), streamed.absoluteDetectionErrors().count());
+
+        int[] errors = Arrays.stream(retained.churnResults())
+            .filter(result -> result.confusionStatus() == ConfusionStatus.TRUE_POSITIVE)
+            .mapToInt(result -> Math.abs(result.detectionErrorInWeeks()))
+            .sorted()
+            .toArray();
+        Assertions.assertEquals(errors[(errors.length + 1) / 2 - 1], streamed.absoluteDetectionErrors().median(), "Median error");
+    }
+
     private static Stream<Arguments> testParameters() {
         return Arrays.stream(SignalCleaner.SignalCleaningType.values())
                 .flatMap(cleaningType -> 
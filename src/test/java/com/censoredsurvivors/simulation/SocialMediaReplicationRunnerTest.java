@@ -0,0 +1,63 @@
+package com.censoredsurvivors.simulation;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import com.censoredsurvivors.data.model.CustomDistributionParams;
+import com.censoredsurvivors.data.model.SocialMediaChannel;
+import com.censoredsurvivors.data.model.SocialMediaDatasetConfig;
+import com.censoredsurvivors.data.model.SocialMediaParam;
+import com.censoredsurvivors.data.model.SocialMediaPostRule;
+import com.censoredsurvivors.data.statistics.ChangeDetector;
+import com.censoredsurvivors.data.statistics.CusumDetector;
+import com.censoredsurvivors.data.statistics.SignalCleaner;
+import com.censoredsurvivors.util.ProjectConfig;
+
+public class SocialMediaReplicationRunnerTest {
+    private static final SocialMediaDatasetConfig CONFIG = new SocialMediaDatasetConfig(
+        ProjectConfig.RANDOM_SEED,
+        100,
+        0,
+        0,
+        3,
+        0.5,
+        true,
+        List.of(new SocialMediaPostRule(SocialMediaParam.CHANNEL, SocialMediaChannel.FACEBOOK.getDisplayName(), new CustomDistributionParams(200, 20, 0.8))),
+        List.of(SocialMediaChannel.FACEBOOK)
+    );
+
+    @Test
+    public void testConfidenceIntervals() {
+        ChangeDetector detector = new CusumDetector(0.2, 200, 220).ignoringZeros();
+        SocialMediaReplicationRunner.ReplicationSummary summary = new SocialMediaReplicationRunner(CONFIG, 2)
+            .run(8, detector, SignalCleaner.SignalCleaningType.INTERPOLATE_ZEROES, 0.95);
+
+        Assertions.assertEquals(8, summary.replications());
+        List<SocialMediaReplicationRunner.Estimate> rates = List.of(
+            summary.truePositiveRate(),
+            summary.falsePositiveRate(),
+            summary.trueNegativeRate(),
+            summary.falseNegativeRate()
+        );
+        Assertions.assertEquals(1, rates.stream().mapToDouble(SocialMediaReplicationRunner.Estimate::mean).sum(), 1e-9, "Rates of all customers");
+        for (SocialMediaReplicationRunner.Estimate estimate : rates) {
+            Assertions.assertTrue(estimate.lower() <= estimate.mean() && estimate.mean() <= estimate.upper(), "Interval around the mean " + estimate);
+        }
+        Assertions.assertTrue(summary.truePositiveRate().upper() > summary.truePositiveRate().lower(), "Replications differ");
+        Assertions.assertTrue(summary.medianErrorInWeeks().mean() <= summary.p90ErrorInWeeks().mean());
+    }
+
+    @Test
+    public void testConcurrencyDoesNotChangeTheResult() {
+        ChangeDetector detector = new CusumDetector(0.2, 200, 220).ignoringZeros();
+
+        Assertions.assertEquals(
+            new SocialMediaReplicationRunner(CONFIG, 1).run(4, detector, SignalCleaner.SignalCleaningType.NONE, 0.9),
+            new SocialMediaReplicationRunner(CONFIG, 3).run(4, detector, SignalCleaner.SignalCleaningType.NONE, 0.9)
+        );
+        Assertions.assertThrows(IllegalArgumentException.class,
+            () -> new SocialMediaReplicationRunner(CONFIG, 1).run(1, detector, SignalCleaner.SignalCleaningType.NONE, 0.9));
+    }
+}